@@ -2,11 +2,13 @@ package ntnu.idatt2106.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * BackendApplication is contains the main method for the REST api
  */
 @SpringBootApplication
+@EnableScheduling
 public class BackendApplication {
 
 
@@ -205,6 +205,29 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Handles InvalidCursorException by returning a ResponseEntity with a BAD_REQUEST status and the exception message.
+     * @param ex the InvalidCursorException that was thrown
+     * @return ResponseEntity containing a BAD_REQUEST status and an error message
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> handleInvalidCursorException(InvalidCursorException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles ExpiredCursorException by returning a ResponseEntity with a GONE status and the exception message.
+     * The client should fetch the first page again.
+     * @param ex the ExpiredCursorException that was thrown
+     * @return ResponseEntity containing a GONE status and an error message
+     */
+    @ExceptionHandler(ExpiredCursorException.class)
+    public ResponseEntity<String> handleExpiredCursorException(ExpiredCursorException ex) {
+        return ResponseEntity.status(HttpStatus.GONE)
+                .body(ex.getMessage());
+    }
+
     /**
      * Handles exceptions related to an old password not matching the current password.
      * @param ex the exception that was thrown
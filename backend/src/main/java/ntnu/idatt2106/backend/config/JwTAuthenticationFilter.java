@@ -2,9 +2,11 @@ package ntnu.idatt2106.backend.config;
 
 
 import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.model.authentication.ParsedToken;
 import ntnu.idatt2106.backend.model.enums.AuthenticationState;
 import ntnu.idatt2106.backend.service.CookieService;
 import ntnu.idatt2106.backend.service.JwtService;
+import ntnu.idatt2106.backend.service.UserDetailsCacheService;
 import org.springframework.lang.NonNull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -15,14 +17,14 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.auth0.jwt.exceptions.TokenExpiredException;
 import io.jsonwebtoken.ExpiredJwtException;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -35,7 +37,7 @@ import java.util.stream.Collectors;
 public class JwTAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserDetailsCacheService userDetailsCacheService;
     private final CookieService cookieService;
 
     /**
@@ -67,36 +69,36 @@ public class JwTAuthenticationFilter extends OncePerRequestFilter {
 
         final String jwt = cookieService.extractTokenFromCookie(request);
 
-        String username = null;
         AuthenticationState authState = AuthenticationState.UNAUTHENTICATED;
 
-        List<GrantedAuthority> authorities = new ArrayList<>();
         if (jwt != null) {
             try {
-                username = jwtService.extractUsername(jwt);
-                authorities = jwtService.extractRoles(jwt).stream()
+                // Verify the token once, the parsed token is reused by the rest of the request
+                ParsedToken parsedToken = jwtService.parseToken(jwt);
+                request.setAttribute(ParsedToken.REQUEST_ATTRIBUTE, parsedToken);
+                String username = parsedToken.getSubject();
+                Date expiration = parsedToken.getExpiration();
+                List<GrantedAuthority> authorities = parsedToken.getRoles().stream()
                         .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
                         .collect(Collectors.toList());
-            } catch (ExpiredJwtException e) {
+
+                if (username != null && expiration != null && expiration.after(new Date())) {
+                    UserDetails userDetails = userDetailsCacheService.loadUserByUsername(username, expiration);
+                    if (username.equals(userDetails.getUsername())) {
+                        authState = AuthenticationState.AUTHENTICATED;
+                        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                                userDetails,
+                                null,
+                                authorities
+                        );
+                        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                    }
+                }
+            } catch (ExpiredJwtException | TokenExpiredException e) {
                 authState = AuthenticationState.TOKEN_EXPIRED;
-                username = null;
             } catch (Exception e) {
-                username = null;
-            }
-        }
-
-        if (username != null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                authState = AuthenticationState.AUTHENTICATED;
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        authorities
-                );
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                authState = AuthenticationState.UNAUTHENTICATED;
             }
         }
         request.setAttribute("authState", authState);
@@ -0,0 +1,58 @@
+package ntnu.idatt2106.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.SequenceStructure;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the id sequences mapped in META-INF/orm-sequences.xml past the ids already in their tables.
+ * A database created while the entities used IDENTITY ids has rows, but its sequences are created empty
+ * and would hand out ids that are taken. Hibernate's pooled optimizer uses the value of the sequence as the
+ * upper end of a block of allocation-size ids, so a sequence is restarted at max(id) + allocation size,
+ * which makes the next block start at max(id) + 1.
+ * Does nothing for entities that do not use sequences, like on MySQL.
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceInitializer {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Logger logger = LoggerFactory.getLogger(SequenceInitializer.class);
+
+    /**
+     * Restarts the sequence of every table that has rows. Runs before the test data is added.
+     */
+    @PostConstruct
+    public void init() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (!(persister instanceof AbstractEntityPersister entityPersister)
+                    || !persister.getEntityName().equals(persister.getRootEntityName())
+                    || !(persister.getIdentifierGenerator() instanceof SequenceStyleGenerator generator)
+                    || !(generator.getDatabaseStructure() instanceof SequenceStructure)) {
+                return;
+            }
+            DatabaseStructure sequence = generator.getDatabaseStructure();
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(" + entityPersister.getIdentifierColumnNames()[0]
+                    + ") FROM " + entityPersister.getTableName(), Long.class);
+            if (maxId == null) {
+                return;
+            }
+            String sequenceName = sequence.getPhysicalName().render();
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequenceName + " RESTART WITH " + (maxId + sequence.getIncrementSize()));
+            logger.info("Restarted sequence {} after id {}", sequenceName, maxId);
+        });
+    }
+}
@@ -3,11 +3,10 @@ package ntnu.idatt2106.backend.config;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.model.*;
+import ntnu.idatt2106.backend.model.enums.CatalogImportMode;
 import ntnu.idatt2106.backend.model.enums.FridgeRole;
 import ntnu.idatt2106.backend.model.enums.UserRole;
-import ntnu.idatt2106.backend.model.category.Category;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
-import ntnu.idatt2106.backend.model.SubCategory;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.model.recipe.Recipe;
 import ntnu.idatt2106.backend.model.recipe.RecipeCategory;
@@ -16,14 +15,18 @@ import ntnu.idatt2106.backend.repository.*;
 import ntnu.idatt2106.backend.repository.recipe.RecipeCategoryRepository;
 import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
 import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
+import ntnu.idatt2106.backend.service.CatalogImportService;
+import ntnu.idatt2106.backend.service.GroceryHistoryMonthService;
+import ntnu.idatt2106.backend.service.RecipeScoreService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.Arrays;
@@ -35,16 +38,17 @@ import java.util.Optional;
 @Component
 @RequiredArgsConstructor
 @Profile("dev")
+@DependsOn("sequenceInitializer")
 public class TestDataSerializer {
 
-    private final CategoryRepository categoryRepository;
-
-    private final SubCategoryRepository subCategoryRepository;
+    private static final String CATALOG_FILE = "matvareliste.csv";
 
     private final GroceryRepository groceryRepository;
 
-    private Category category;
-    private SubCategory subCategory;
+    private final CatalogImportService catalogImportService;
+
+    @Value("${catalog.import-mode:INCREMENTAL}")
+    private CatalogImportMode catalogImportMode;
 
     private final RecipeCategoryRepository recipeCategoryRepository;
 
@@ -66,6 +70,10 @@ public class TestDataSerializer {
 
     private final GroceryHistoryRepository groceryHistoryRepository;
 
+    private final GroceryHistoryMonthService groceryHistoryMonthService;
+
+    private final RecipeScoreService recipeScoreService;
+
     /**
      * Calls all create methods.
      * @throws NumberFormatException
@@ -85,6 +93,7 @@ public class TestDataSerializer {
         createRecipeCategories();
         createRecipes();
         createRecipeGroceries();
+        recipeScoreService.invalidateIngredientIndex();
         createGroceryHistory();
     }
 
@@ -179,6 +188,7 @@ public class TestDataSerializer {
                 .orElseThrow(() -> new RuntimeException("Refrigerator not found: Test Refrigerator"));
 
         Random random = new Random();
+        List<GroceryHistory> groceryHistories = new ArrayList<>();
         for (int i = 1; i <= 12; i++) {
             LocalDate date = LocalDate.now().minusMonths(i);
 
@@ -191,7 +201,7 @@ public class TestDataSerializer {
                 if (groceryHistoryOptional.isPresent()) {
                     // Data already exists, do nothing
                 } else {
-                    groceryHistoryRepository.save(GroceryHistory.builder()
+                    groceryHistories.add(GroceryHistory.builder()
                             .weightInGrams(weight)
                             .wasTrashed(wasTrashed)
                             .refrigerator(refrigerator)
@@ -200,6 +210,10 @@ public class TestDataSerializer {
                 }
             }
         }
+        groceryHistoryRepository.saveAll(groceryHistories);
+        if (!groceryHistories.isEmpty()) {
+            groceryHistoryMonthService.backfill();
+        }
     }
 
     /**
@@ -435,40 +449,12 @@ public class TestDataSerializer {
 
 
     /**
-     * Method that serialises data into database from formatted csv file with categories, subcategories and groceries.
-     *  * "!" indicates a category line, "?" indicates a subcategory, remaining lines are groceries.
-     *  * Groceries are structured with name, description.
-     *  * Subcategories are structured with name - expiry date.
-     *  * Format example:
-     *  *  !Dairy
-     *  *  ?Milk - 14
-     *  *  Chocolate Milk, 14% fat
+     * Imports the grocery catalog with categories, subcategories and groceries from matvareliste.csv.
+     * In incremental mode an unchanged file is not written again.
      */
     public void serialize(){
-        category = new Category();
-        subCategory = new SubCategory();
-
-        if(categoryRepository.count() > 0 && subCategoryRepository.count() > 0 && groceryRepository.count() > 0){
-            return;
-        }
-        String csvFile = "matvareliste.csv";
-        String line;
-
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
-
-            while ((line = br.readLine()) != null) {
-
-                if(line.contains("!")){
-                    createCategory(line);
-                }
-                else if(line.contains("?")){
-                    createSubCategory(line);
-                }
-                else if(!line.isBlank()){
-                    createGrocery(line);
-                }
-            }
-
+        try {
+            catalogImportService.importCatalog(Path.of(CATALOG_FILE), catalogImportMode);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -477,54 +463,6 @@ public class TestDataSerializer {
         }
     }
 
-    /**
-     * Creates a category from a csv line.
-     * @param line
-     */
-    private void createCategory(String line){
-        line = line.replaceAll("\\!", "");
-        category.setName(line);
-        categoryRepository.save(Category.builder()
-                .name(category.getName()).build());
-        category = categoryRepository.findCategoryByName(category.getName()).orElseThrow();
-
-    }
-
-    /**
-     * Creates a subCategory from a line.
-     * @param line
-     */
-    private void createSubCategory(String line){
-        line = line.replaceAll("\\?", "");
-        subCategory.setCategory(category);
-        String[] dataSplit = line.split("-");
-        subCategory.setCategoryExpiryDays(Integer.parseInt(dataSplit[1].strip()));
-        subCategory.setName(dataSplit[0]);
-        subCategoryRepository.save(SubCategory.builder()
-                .name(subCategory.getName())
-                .category(subCategory.getCategory())
-                .categoryExpiryDays(subCategory.getCategoryExpiryDays())
-                .build());
-        subCategory = subCategoryRepository.findSubCategoryByName(subCategory.getName()).orElseThrow();
-    }
-
-    /**
-     * Creates a grocery from a csv line.
-     * @param line
-     */
-    private void createGrocery(String line){
-        String[] csvData = line.split(",");
-        Grocery grocery = new Grocery();
-        grocery.setName(csvData[0]);
-        String[] descArr = Arrays.copyOfRange(csvData, 0, csvData.length);
-        String desc = String.join(", ",descArr);
-        grocery.setDescription(desc);
-        grocery.setSubCategory(subCategory);
-        grocery.setGroceryExpiryDays(subCategory.getCategoryExpiryDays());
-        groceryRepository.save(grocery);
-
-    }
-
     /**
      * Adds the needed units for the database.
      */
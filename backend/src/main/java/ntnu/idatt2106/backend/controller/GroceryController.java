@@ -17,7 +17,10 @@ import ntnu.idatt2106.backend.model.dto.*;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.dto.catalog.CatalogColumnsDTO;
+import ntnu.idatt2106.backend.model.dto.catalog.CatalogRowsDTO;
 import ntnu.idatt2106.backend.model.dto.response.ErrorResponse;
+import ntnu.idatt2106.backend.model.enums.CatalogFormat;
 import ntnu.idatt2106.backend.model.dto.response.SuccessResponse;
 import ntnu.idatt2106.backend.model.recipe.Recipe;
 import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
@@ -27,7 +30,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ntnu.idatt2106.backend.exceptions.UnauthorizedException;
 import ntnu.idatt2106.backend.service.GroceryService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -52,8 +58,11 @@ public class GroceryController {
     private final NotificationService notificationService;
     private final ShoppingListService shoppingListService;
     private final RecipeService recipeService;
+    private final ReferenceDataCacheService referenceDataCacheService;
     Logger logger = LoggerFactory.getLogger(GroceryController.class);
 
+    private static final int MAX_SEARCH_LIMIT = 50;
+
     /**
      * Getter for all groceries in the refrigerator given in the parameter
      * @param refrigeratorId ID to the refrigerator to retrieve groceries from
@@ -253,23 +262,207 @@ public class GroceryController {
     }
 
     /**
-     * Method to get all groceries stored in the database
-     * @return list of all groceries in the database
+     * Method to get all groceries stored in the database. The list is served from an in-memory snapshot that is
+     * already serialized, and compressed with gzip if the client accepts it. A client sending the ETag of its
+     * copy in If-None-Match gets 304 Not Modified until the catalog changes.
+     * @param ifNoneMatch ETags of the copies the client has
+     * @param acceptEncoding encodings the client accepts
+     * @return list of all groceries in the database, as JSON
      * @throws NoGroceriesFound if not groceries was found
      */
     @Operation(summary = "Get all grocery DTOs")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of grocery DTOs fetched successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = GroceryDTO.class)))),
+            @ApiResponse(responseCode = "304", description = "The catalog has not changed since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
-            @ApiResponse(responseCode = "204", description = "No groceries found", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+            @ApiResponse(responseCode = "204", description = "The catalog has no groceries, without a body")
     })
     @GetMapping("/allDTOs")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<GroceryDTO>> getAllGroceriesDTOs() throws NoGroceriesFound{
+    public ResponseEntity<byte[]> getAllGroceriesDTOs(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws NoGroceriesFound{
         logger.info("Received request to get all DTOs");
-        List<GroceryDTO> groceries = groceryService.getAllGroceriesDTO();
-        logger.info("Returning DTOs, and status kode OK");
-        return new ResponseEntity<>(groceries, HttpStatus.OK);
+        return catalogResponse(groceryService.getCatalogSnapshot().payload(CatalogFormat.LIST), ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * Method to get the grocery catalog with each category and subcategory sent once, in lookup tables, and the
+     * groceries referencing their subcategory by id. rows sends each grocery as an array of its fields, named in
+     * groceryFields, and columns sends one array per field. Cached and compressed the same way as /allDTOs.
+     * @param format rows or columns
+     * @param ifNoneMatch ETags of the copies the client has
+     * @param acceptEncoding encodings the client accepts
+     * @return the catalog, as JSON
+     * @throws NoGroceriesFound if not groceries was found
+     */
+    @Operation(summary = "Get the grocery catalog with categories and subcategories in lookup tables")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catalog fetched successfully", content = @Content(schema = @Schema(oneOf = {CatalogRowsDTO.class, CatalogColumnsDTO.class}))),
+            @ApiResponse(responseCode = "304", description = "The catalog has not changed since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "format is not rows or columns"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "204", description = "The catalog has no groceries, without a body")
+    })
+    @GetMapping("/catalog")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<byte[]> getCatalog(@RequestParam(defaultValue = "rows") String format,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws NoGroceriesFound {
+        logger.info("Received request to get the catalog as {}", format);
+        CatalogFormat catalogFormat;
+        try {
+            catalogFormat = CatalogFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (catalogFormat == CatalogFormat.LIST) {
+            return ResponseEntity.badRequest().build();
+        }
+        return catalogResponse(groceryService.getCatalogSnapshot().payload(catalogFormat), ifNoneMatch, acceptEncoding);
+    }
+
+    private ResponseEntity<byte[]> catalogResponse(GroceryCatalogService.CatalogPayload payload, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? payload.gzipEtag() : payload.etag();
+        boolean notModified = matchesEtag(ifNoneMatch, etag);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (notModified) {
+            logger.info("Catalog not modified, returning status NOT_MODIFIED");
+            return response.build();
+        }
+        logger.info("Returning catalog, and status kode OK");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.contentType(MediaType.APPLICATION_JSON)
+                .body(gzip ? payload.gzippedJson() : payload.json());
+    }
+
+    /**
+     * Searches the groceries for a typeahead. The groceries whose name starts with the query come first,
+     * and the most used groceries first among equal matches.
+     * @param query the text typed by the user
+     * @param limit the maximum number of groceries
+     * @return the best matching groceries, best first
+     */
+    @Operation(summary = "Search the groceries by the start of the words in their name and description")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching groceries fetched successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = GroceryDTO.class)))),
+            @ApiResponse(responseCode = "400", description = "limit is out of range"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/search")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<GroceryDTO>> searchGroceries(@RequestParam("q") String query,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(groceryService.searchGroceries(query, limit));
+    }
+
+    /**
+     * Searches the groceries with tolerance for typos, optionally within a subcategory or category.
+     * @param query the text typed by the user
+     * @param subCategoryId only groceries of this subcategory
+     * @param categoryId only groceries of this category
+     * @param limit the maximum number of groceries
+     * @return the matching groceries, best first
+     */
+    @Operation(summary = "Search the groceries by similarity to their name and description, tolerating typos")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching groceries fetched successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = GroceryDTO.class)))),
+            @ApiResponse(responseCode = "400", description = "limit is out of range"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/search/fuzzy")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<GroceryDTO>> fuzzySearchGroceries(@RequestParam("q") String query,
+                                                                 @RequestParam(required = false) Long subCategoryId,
+                                                                 @RequestParam(required = false) Long categoryId,
+                                                                 @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(groceryService.fuzzySearchGroceries(query, subCategoryId, categoryId, limit));
+    }
+
+    /**
+     * Checks if a client accepts gzip, from the encodings and their q-values in Accept-Encoding.
+     * gzip is accepted when it, or x-gzip, is listed with a q-value above 0, or when it is not listed
+     * and * is listed with a q-value above 0.
+     * @param acceptEncoding the Accept-Encoding header, or null
+     * @return true if the response can be compressed with gzip
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean wildcard = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase();
+            boolean accepted = qValue(parts) > 0;
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = gzip == null ? accepted : gzip || accepted;
+            } else if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return gzip != null ? gzip : wildcard;
+    }
+
+    /**
+     * @param parts an encoding of Accept-Encoding split on ';', the name followed by its parameters
+     * @return the q-value of the encoding, 1 if it has none and 0 if it can not be parsed
+     */
+    private static double qValue(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 1 && Character.toLowerCase(parameter.charAt(0)) == 'q' && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Getter for the metrics of the reference data cache on this node
+     * @return number of cached entries, hits, misses and loads of units, subcategories and groceries
+     */
+    @Operation(summary = "Get the metrics of the reference data cache")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cached entries, hits, misses and loads per kind of reference data"),
+            @ApiResponse(responseCode = "403", description = "User is not an admin")
+    })
+    @GetMapping("/referenceData/stats")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<List<ReferenceDataCacheStatsDTO>> getReferenceDataCacheStats() {
+        return ResponseEntity.ok(referenceDataCacheService.getStats());
     }
 
     /**
@@ -12,19 +12,27 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.exceptions.RefrigeratorNotFoundException;
+import ntnu.idatt2106.backend.exceptions.UnauthorizedException;
+import ntnu.idatt2106.backend.exceptions.UserNotFoundException;
 import ntnu.idatt2106.backend.model.Refrigerator;
 import ntnu.idatt2106.backend.model.dto.GroceryStatisticDTO;
+import ntnu.idatt2106.backend.model.dto.WasteAnalyticsDTO;
 import ntnu.idatt2106.backend.model.dto.response.ErrorResponse;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.service.GroceryHistoryService;
 import ntnu.idatt2106.backend.service.RefrigeratorService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -38,6 +46,8 @@ public class GroceryHistoryController {
     private final GroceryHistoryService groceryHistoryService;
     private final RefrigeratorService refrigeratorService;
 
+    private static final int MAX_WASTE_LIMIT = 50;
+
     /**
      * Getter for the stats for groceries eaten or trashed the last year
      * @param refrigeratorId ID to the refrigerator to retrieve history from
@@ -59,4 +69,57 @@ public class GroceryHistoryController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Getter for the groceries, sub categories and categories trashed the most in a refrigerator between two dates
+     * @param refrigeratorId ID to the refrigerator to retrieve the analytics from
+     * @param from first date, included, by default one year ago, cut to the first date the raw history is kept from
+     * @param to last date, included, by default today
+     * @param limit maximum number of groceries and categories in each list
+     * @param request http request
+     * @return the most trashed groceries and categories, with the range they were counted in
+     * @throws RefrigeratorNotFoundException If the refrigerator was not found
+     * @throws UserNotFoundException If the user was not found
+     * @throws UnauthorizedException If the user is not a member of the refrigerator
+     */
+    @Operation(summary = "Get the groceries and categories trashed the most between two dates")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "analytics retrieved correctly, truncated if from is before the raw history that is kept", content = @Content(schema = @Schema(implementation = WasteAnalyticsDTO.class))),
+            @ApiResponse(responseCode = "400", description = "from is after to, or limit is out of range"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/waste/{refrigeratorId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<WasteAnalyticsDTO> getWasteAnalytics(@PathVariable long refrigeratorId,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                               @RequestParam(defaultValue = "10") int limit,
+                                                               HttpServletRequest request) throws RefrigeratorNotFoundException, UserNotFoundException, UnauthorizedException {
+        LocalDate lastDate = to == null ? LocalDate.now() : to;
+        LocalDate firstDate = from == null ? lastDate.minusYears(1) : from;
+        if (firstDate.isAfter(lastDate) || limit < 1 || limit > MAX_WASTE_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        Refrigerator refrigerator = refrigeratorService.getRefrigerator(refrigeratorId);
+        refrigeratorService.getFridgeRole(refrigerator, refrigeratorService.extractEmail(request));
+        return ResponseEntity.ok(groceryHistoryService.getWasteAnalytics(refrigerator.getId(), firstDate, lastDate, limit));
+    }
+
+    /**
+     * Builds the monthly statistics of all refrigerators again from the grocery history
+     * @return number of months built
+     */
+    @Operation(summary = "Build the monthly grocery statistics again from the history")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics built, returns the number of months"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "User is not an admin"),
+            @ApiResponse(responseCode = "409", description = "The statistics are already being built")
+    })
+    @PostMapping("/backfill")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Integer> rebuildMonthlyStatistics() {
+        return groceryHistoryService.rebuildMonthlyStatistics().map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
 }
@@ -17,6 +17,7 @@ import ntnu.idatt2106.backend.model.enums.AuthenticationState;
 import ntnu.idatt2106.backend.model.User;
 import ntnu.idatt2106.backend.service.CookieService;
 import ntnu.idatt2106.backend.service.JwtService;
+import ntnu.idatt2106.backend.service.UserDetailsCacheService;
 import ntnu.idatt2106.backend.service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -42,6 +43,7 @@ public class MyProfileController {
 
     private final CookieService cookieService;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCacheService userDetailsCacheService;
 
     Logger logger = Logger.getLogger(MyProfileController.class.getName());
 
@@ -148,9 +150,11 @@ public class MyProfileController {
 
         try {
             User user = userService.findByEmail(jwtService.extractUsername(cookieService.extractTokenFromCookie(request)));
+            String oldEmail = user.getEmail();
             user.setName(userProfileDTO.getName());
             user.setEmail(userProfileDTO.getEmail());
             userService.save(user);
+            userDetailsCacheService.evict(oldEmail);
             return ResponseEntity.ok(userProfileDTO);
         }
         catch (TokenExpiredException e) {
@@ -198,6 +202,7 @@ public class MyProfileController {
         logger.info("Received request to change password for user: " + jwtService.extractUsername(jwt) + ". Password changed successfully.");
         user.setPassword(passwordEncoder.encode(passwordChangeDTO.getNewPassword()));
         userService.save(user);
+        userDetailsCacheService.evict(user.getEmail());
 
         return ResponseEntity.ok(new SuccessResponse("Password changed successfully", 200));
     }
@@ -11,15 +11,23 @@ import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.exceptions.NotificationException;
 import ntnu.idatt2106.backend.model.User;
 import ntnu.idatt2106.backend.model.dto.GroceryNotificationDTO;
+import ntnu.idatt2106.backend.model.dto.NotificationCompactionResultDTO;
 import ntnu.idatt2106.backend.service.CookieService;
+import ntnu.idatt2106.backend.service.ExpiryNotificationScheduler;
 import ntnu.idatt2106.backend.service.JwtService;
+import ntnu.idatt2106.backend.service.NotificationCompactionService;
 import ntnu.idatt2106.backend.service.NotificationService;
+import ntnu.idatt2106.backend.service.NotificationStreamService;
 import ntnu.idatt2106.backend.service.UserService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -36,6 +44,11 @@ public class NotificationController {
     private final UserService userService;
     private final JwtService jwtService;
     private final CookieService cookieService;
+    private final ExpiryNotificationScheduler expiryNotificationScheduler;
+    private final NotificationStreamService notificationStreamService;
+    private final NotificationCompactionService notificationCompactionService;
+
+    private static final int MAX_PAGE_SIZE = 100;
 
     Logger logger = Logger.getLogger(NotificationController.class.getName());
 
@@ -65,6 +78,75 @@ public class NotificationController {
         }
     }
 
+    /**
+     * Getter for a page of the unread notifications, newest first
+     * @param request http request
+     * @param page number of the page, starting at 0
+     * @param size number of notifications in a page
+     * @return list with the notifications in the page
+     */
+    @Operation(summary = "Retrieves a page of the users notifications",
+            description = "Retrieves the users notifications that are not deleted, newest first",
+            responses = {
+            @ApiResponse(responseCode = "200", description = "If notifications were retrieved successfully",
+            content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Page or size is out of range")
+            }
+    )
+    @GetMapping("/page")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<GroceryNotificationDTO>> getPage(HttpServletRequest request,
+                                                                @RequestParam(defaultValue = "0") int page,
+                                                                @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        User user = userService.findByEmail(jwtService.extractUsername(cookieService.extractTokenFromCookie(request)));
+        logger.info("Received request for retrieving a page of a users notifications");
+        return ResponseEntity.ok(notificationService.getNotifications(user, page, size));
+    }
+
+    /**
+     * Getter for the number of unread notifications, for the notification badge
+     * @param request http request
+     * @return number of unread notifications
+     */
+    @Operation(summary = "Retrieves the number of unread notifications",
+            responses = {
+            @ApiResponse(responseCode = "200", description = "The number of notifications the user has not deleted",
+            content = @Content(mediaType = "application/json"))
+            }
+    )
+    @GetMapping("/count")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Long> getUnreadCount(HttpServletRequest request) {
+        User user = userService.findByEmail(jwtService.extractUsername(cookieService.extractTokenFromCookie(request)));
+        return ResponseEntity.ok(notificationService.getUnreadCount(user));
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of the users notifications. The stream sends the unread count when
+     * it opens, and new notifications and unread counts when they change, instead of the client polling.
+     * Changes made on another node only reach the stream with the unread count sent on every heartbeat.
+     * @param request http request
+     * @return the event stream
+     */
+    @Operation(summary = "Stream the users notifications",
+            description = "Server-Sent Events stream with \"notifications\" and \"unread-count\" events. " +
+                    "The unread count is also sent on every heartbeat, fetch the notifications again when it changes",
+            responses = {
+            @ApiResponse(responseCode = "200", description = "The stream was opened",
+            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE))
+            }
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter stream(HttpServletRequest request) {
+        User user = userService.findByEmail(jwtService.extractUsername(cookieService.extractTokenFromCookie(request)));
+        logger.info("Received request for streaming a users notifications");
+        return notificationStreamService.subscribe(user.getId());
+    }
+
     /**
      * Deletes a notification with a specific ID
      * @param request http request
@@ -93,4 +175,60 @@ public class NotificationController {
             throw new NotificationException("Unexpected error occurred");
         }
     }
+
+    /**
+     * Runs the expiry notification sweep now, instead of waiting for the daily run
+     * @return number of notifications created
+     */
+    @Operation(summary = "Run the expiry notification sweep")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sweep completed, returns the number of notifications created"),
+            @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "403", description = "User is not an admin"),
+            @ApiResponse(responseCode = "409", description = "The sweep is already running")
+    })
+    @PostMapping("/sweep")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Integer> sweep() {
+        logger.info("Received request for running the expiry notification sweep");
+        Optional<Integer> created = expiryNotificationScheduler.sweep();
+        return created.map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    /**
+     * Runs the notification compaction now, instead of waiting for the nightly run
+     * @return the metrics of the run
+     */
+    @Operation(summary = "Run the notification compaction")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Compaction completed, returns rows scanned, rows purged and duration"),
+            @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "403", description = "User is not an admin"),
+            @ApiResponse(responseCode = "409", description = "The compaction is already running")
+    })
+    @PostMapping("/compact")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<NotificationCompactionResultDTO> compact() {
+        logger.info("Received request for running the notification compaction");
+        return notificationCompactionService.compact().map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    /**
+     * Getter for the metrics of the last notification compaction on this node
+     * @return the metrics of the last run
+     */
+    @Operation(summary = "Get the metrics of the last notification compaction")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rows scanned, rows purged and duration of the last run"),
+            @ApiResponse(responseCode = "204", description = "The compaction has not run since startup"),
+            @ApiResponse(responseCode = "403", description = "User is not an admin")
+    })
+    @GetMapping("/compaction")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<NotificationCompactionResultDTO> getCompaction() {
+        return notificationCompactionService.getLastResult().map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
 }
@@ -8,13 +8,22 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.exceptions.ExpiredCursorException;
+import ntnu.idatt2106.backend.exceptions.InvalidCursorException;
 import ntnu.idatt2106.backend.exceptions.NoSuchElementException;
+import ntnu.idatt2106.backend.exceptions.UnauthorizedException;
+import ntnu.idatt2106.backend.exceptions.UserNotFoundException;
 import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.FetchRecipesDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeFeedDTO;
 import ntnu.idatt2106.backend.model.recipe.Recipe;
 import ntnu.idatt2106.backend.service.RecipeService;
+import ntnu.idatt2106.backend.service.RefrigeratorMembershipService;
+import ntnu.idatt2106.backend.service.RefrigeratorService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -34,6 +43,8 @@ public class RecipeController {
 
     private final Logger logger = Logger.getLogger(RecipeController.class.getName());
     private final RecipeService recipeService;
+    private final RefrigeratorService refrigeratorService;
+    private final RefrigeratorMembershipService refrigeratorMembershipService;
 
 
     /**
@@ -65,18 +76,49 @@ public class RecipeController {
 
         logger.info("Received request to fetch recipes for user");
         logger.info(fetchRecipesDTO.toString());
-        List<RecipeDTO> recipes;
-        /*if (fetchRecipesDTO.getNumRecipes() == -1){
-            recipes = recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO, true);
-        }
-        else{
-            recipes = recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO, false);
-        }*/
-        recipes = recipeService.getSortedRecipesByMatchingGroceries(fetchRecipesDTO.getRefrigeratorId(), fetchRecipesDTO.getNumRecipes());
+        List<RecipeDTO> recipes = recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO);
 
         return ResponseEntity.ok(recipes);
     }
 
+    /**
+     * Fetch a page of the recipe feed for a refrigerator.
+     * Recipes using groceries from the refrigerator come first, ranked by score.
+     * Only members of the refrigerator can read its feed.
+     * @param refrigeratorId ID to the refrigerator to evaluate groceries from
+     * @param limit maximum number of recipes in the page
+     * @param cursor cursor from the previous page, left out for the first page
+     * @param request http request
+     * @return page with recipes and the cursor to the next page, or 403 if the user is not a member of the refrigerator
+     * @throws InvalidCursorException If the cursor is not valid
+     * @throws ExpiredCursorException If the ranking of the cursor is no longer kept
+     * @throws UserNotFoundException If the user was not found
+     */
+    @Operation(summary = "Fetch a page of recipes ranked by available groceries and their expiration dates")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recipes fetched successfully", content = @Content(schema = @Schema(implementation = RecipeFeedDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+            @ApiResponse(responseCode = "403", description = "User is not a member of the refrigerator"),
+            @ApiResponse(responseCode = "410", description = "The ranking of the cursor is no longer kept, fetch the first page again"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/feed")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<RecipeFeedDTO> fetchRecipeFeed(
+            @Valid @RequestParam("refrigeratorId") long refrigeratorId,
+            @Valid @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            HttpServletRequest request) throws InvalidCursorException, ExpiredCursorException, UserNotFoundException {
+        logger.info("Received request to fetch recipe feed for refrigerator " + refrigeratorId);
+        try {
+            refrigeratorMembershipService.getFridgeRole(refrigeratorId, refrigeratorService.extractEmail(request));
+        } catch (UnauthorizedException e) {
+            logger.info("User is not a member of refrigerator " + refrigeratorId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(recipeService.getRecipeFeed(refrigeratorId, limit, cursor));
+    }
+
     /**
      * Getter for all recipes
      * @return list with all recipes
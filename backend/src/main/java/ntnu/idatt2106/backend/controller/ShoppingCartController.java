@@ -13,6 +13,7 @@ import ntnu.idatt2106.backend.exceptions.*;
 import ntnu.idatt2106.backend.model.dto.CreateRefrigeratorGroceryDTO;
 import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryDTO;
 import ntnu.idatt2106.backend.model.dto.response.SuccessResponse;
+import ntnu.idatt2106.backend.model.dto.shoppingCartElement.CheckoutSummaryDTO;
 import ntnu.idatt2106.backend.model.dto.shoppingCartElement.ShoppingCartElementDTO;
 import ntnu.idatt2106.backend.model.grocery.GroceryShoppingCart;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryRequest;
@@ -178,7 +179,7 @@ public class ShoppingCartController {
      * Transfers all the grocery items from the shopping cart to the refrigerator.
      * @param request the array of SaveGroceryRequest objects containing the details of the grocery items to create in the refrigerator
      * @param httpRequest the HTTP request
-     * @return a ResponseEntity<Boolean> indicating whether the transfer was successful or not
+     * @return a ResponseEntity with a summary of the transferred groceries
      * @throws NoGroceriesFound if no groceries are found in the shopping cart
      * @throws UserNotFoundException if the user making the request is not found
      * @throws SaveException if there is an error while saving the grocery items to the refrigerator
@@ -187,18 +188,18 @@ public class ShoppingCartController {
      */
     @Operation(summary = "Transfer all groceries to refrigerator")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "All groceries transferred successfully"),
+            @ApiResponse(responseCode = "200", description = "All groceries transferred successfully", content = @Content(schema = @Schema(implementation = CheckoutSummaryDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request body"),
             @ApiResponse(responseCode = "401", description = "User is not authorized"),
             @ApiResponse(responseCode = "404", description = "No groceries found in the shopping cart"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/all/transfer-refrigerator")
-    public ResponseEntity<Boolean> transferAllToRefrigerator(@RequestBody SaveGroceryRequest[] request, HttpServletRequest httpRequest) throws UserNotFoundException, NoGroceriesFound, SaveException, UnauthorizedException, RefrigeratorNotFoundException {
+    public ResponseEntity<CheckoutSummaryDTO> transferAllToRefrigerator(@RequestBody SaveGroceryRequest[] request, HttpServletRequest httpRequest) throws UserNotFoundException, NoGroceriesFound, SaveException, UnauthorizedException, RefrigeratorNotFoundException {
         logger.info("Received request to transfer groceries to refrigerator");
-        shoppingCartService.transferAllGroceriesToRefrigerator(request, httpRequest);
+        CheckoutSummaryDTO summary = shoppingCartService.transferAllGroceriesToRefrigerator(request, httpRequest);
 
-        logger.info("Returns transferStatus and status OK");
-        return new ResponseEntity<>(true, HttpStatus.OK);
+        logger.info("Returns checkout summary and status OK");
+        return new ResponseEntity<>(summary, HttpStatus.OK);
     }
 }
@@ -0,0 +1,11 @@
+package ntnu.idatt2106.backend.exceptions;
+
+/**
+ * Custom exception class that represents a scenario when a paging cursor refers to a ranking that is no longer kept,
+ * so the client has to start again from the first page.
+ */
+public class ExpiredCursorException extends Exception {
+    public ExpiredCursorException(String message) {
+        super(message);
+    }
+}
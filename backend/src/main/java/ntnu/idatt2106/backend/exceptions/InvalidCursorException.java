@@ -0,0 +1,10 @@
+package ntnu.idatt2106.backend.exceptions;
+
+/**
+ * Custom exception class that represents a scenario when a paging cursor can not be read.
+ */
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
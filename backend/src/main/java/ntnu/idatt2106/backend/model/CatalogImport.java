@@ -0,0 +1,50 @@
+package ntnu.idatt2106.backend.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Model of an import of the grocery catalog. Stores a hash of the imported file, so that an unchanged
+ * catalog is not imported again.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "CatalogImport")
+@Schema(description = "The last import of a grocery catalog file")
+@Entity
+public class CatalogImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Schema(description = "The id of the catalog import, automatically generated")
+    private long id;
+
+    @NotNull
+    @Column(name = "source", unique = true)
+    @Schema(description = "Name of the imported catalog file")
+    private String source;
+
+    @NotNull
+    @Column(name = "contentHash", length = 64)
+    @Schema(description = "SHA-256 hash of the imported file, hex encoded")
+    private String contentHash;
+
+    @NotNull
+    @Column(name = "importedAt")
+    @Schema(description = "Time of the import")
+    private LocalDateTime importedAt;
+
+    @Column(name = "groceryCount")
+    @Schema(description = "Number of groceries in the imported file")
+    private int groceryCount;
+}
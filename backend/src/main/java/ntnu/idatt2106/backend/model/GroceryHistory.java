@@ -19,7 +19,11 @@ import java.util.Date;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "GroceryHistory")
+@Table(name = "GroceryHistory", indexes = {
+        @Index(name = "idx_grocery_history_date", columnList = "dateConsumed"),
+        @Index(name = "idx_grocery_history_waste",
+                columnList = "refrigeratorId, wasTrashed, dateConsumed, groceryId, subCategoryId, weightInGrams")
+})
 @Schema(description = "An entity represents a previously existing grocery")
 @Entity
 public class GroceryHistory {
@@ -48,4 +52,12 @@ public class GroceryHistory {
     @Column(name = "weightInGrams")
     private Integer weightInGrams;
 
+    @Column(name = "groceryId")
+    @Schema(description = "The id of the grocery, not a reference so the history is kept if the grocery is deleted")
+    private Long groceryId;
+
+    @Column(name = "subCategoryId")
+    @Schema(description = "The id of the sub category of the grocery when it was eaten or trashed")
+    private Long subCategoryId;
+
 }
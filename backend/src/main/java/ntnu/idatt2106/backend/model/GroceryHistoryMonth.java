@@ -0,0 +1,67 @@
+package ntnu.idatt2106.backend.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+
+/**
+ * Model of the grocery history of a refrigerator in one month, summed. The sums are updated when a grocery is
+ * eaten or trashed, so the statistics are read without reading the history itself.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "GroceryHistoryMonth",
+        uniqueConstraints = @UniqueConstraint(name = "uk_grocery_history_month",
+                columnNames = {"refrigeratorId", "statisticsMonth"}))
+@Schema(description = "The groceries eaten and trashed in a refrigerator in one month")
+@Entity
+public class GroceryHistoryMonth {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Schema(description = "The id of the month, automatically generated")
+    private long id;
+
+    @NotNull
+    @ManyToOne()
+    @JoinColumn(name = "refrigeratorId")
+    @Schema(description = "The refrigerator the groceries were in")
+    private Refrigerator refrigerator;
+
+    @Column(name = "statisticsMonth")
+    @Schema(description = "The month, as year * 100 + month, for example 202305")
+    private int statisticsMonth;
+
+    @Column(name = "eatenGrams")
+    @Schema(description = "Total weight of the groceries eaten in the month")
+    private long eatenGrams;
+
+    @Column(name = "eatenCount")
+    @Schema(description = "Number of times a grocery was eaten in the month")
+    private long eatenCount;
+
+    @Column(name = "trashedGrams")
+    @Schema(description = "Total weight of the groceries trashed in the month")
+    private long trashedGrams;
+
+    @Column(name = "trashedCount")
+    @Schema(description = "Number of times a grocery was trashed in the month")
+    private long trashedCount;
+
+    /**
+     * @param yearMonth a month
+     * @return the month as stored in statisticsMonth
+     */
+    public static int toStatisticsMonth(YearMonth yearMonth) {
+        return yearMonth.getYear() * 100 + yearMonth.getMonthValue();
+    }
+}
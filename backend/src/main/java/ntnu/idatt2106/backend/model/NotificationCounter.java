@@ -0,0 +1,32 @@
+package ntnu.idatt2106.backend.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * The number of unread notifications of a user, kept up to date when notifications are created or deleted,
+ * so the count can be read without counting the users notifications.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "NotificationCounter")
+@Schema(description = "Number of unread notifications of a user")
+@Entity
+public class NotificationCounter {
+
+    @Id
+    @Column(name = "userId", columnDefinition = "VARCHAR(255)")
+    @Schema(description = "The id of the user")
+    private String userId;
+
+    @Column(name = "unreadCount")
+    @Schema(description = "Number of notifications the user has not deleted")
+    private long unreadCount;
+}
@@ -0,0 +1,44 @@
+package ntnu.idatt2106.backend.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * A lock row for a scheduled job. A node may only run the job while it holds the lock,
+ * so the job runs on one node at a time when several instances share the database.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "SchedulerLock")
+@Schema(description = "Lock for a scheduled job")
+@Entity
+public class SchedulerLock {
+
+    @Id
+    @Column(name = "name", length = 64)
+    @Schema(description = "Name of the scheduled job")
+    private String name;
+
+    @NotNull
+    @Column(name = "lockedUntil")
+    @Schema(description = "Time the lock expires, even if the holder never releases it")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "lockedAt")
+    @Schema(description = "Time the lock was taken")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "lockedBy")
+    @Schema(description = "The node holding the lock")
+    private String lockedBy;
+}
@@ -0,0 +1,29 @@
+package ntnu.idatt2106.backend.model.authentication;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A JWT token that has been verified, together with the claims read from it.
+ * The token is verified once per request and stored as a request attribute, so that the services
+ * and controllers handling the request can read the claims without verifying the token again.
+ */
+@Getter
+@AllArgsConstructor
+public class ParsedToken {
+
+    /**
+     * Name of the request attribute the parsed token of a request is stored under.
+     */
+    public static final String REQUEST_ATTRIBUTE = ParsedToken.class.getName();
+
+    private final String token;
+    private final String subject;
+    private final List<String> roles;
+    private final Date expiration;
+    private final Claims claims;
+}
@@ -0,0 +1,20 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO for a refrigerator grocery and a member of its refrigerator that should get an expiry notification.
+ * Used as a projection by the expiry notification sweep.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpiryNotificationCandidateDTO {
+    private long refrigeratorGroceryId;
+    private String userId;
+    private LocalDate physicalExpireDate;
+}
@@ -0,0 +1,18 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ntnu.idatt2106.backend.model.enums.FridgeRole;
+
+/**
+ * DTO for the role a user has in a refrigerator.
+ * Used as a projection when loading all memberships of a user.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FridgeMembershipDTO {
+    private long refrigeratorId;
+    private FridgeRole fridgeRole;
+}
@@ -0,0 +1,17 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the refrigerator and month of a monthly grocery history sum.
+ * Used as a projection to find which months exist without loading them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroceryHistoryMonthKeyDTO {
+    private Long refrigeratorId;
+    private Integer statisticsMonth;
+}
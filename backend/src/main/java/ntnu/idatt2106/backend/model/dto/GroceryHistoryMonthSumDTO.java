@@ -0,0 +1,21 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the total weight and number of the groceries eaten or trashed in a refrigerator in one month.
+ * Used as a projection when the monthly statistics are built from the grocery history.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroceryHistoryMonthSumDTO {
+    private Long refrigeratorId;
+    private Integer year;
+    private Integer month;
+    private Boolean wasTrashed;
+    private Long weightInGrams;
+    private Long count;
+}
@@ -0,0 +1,17 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for how many times a grocery is used, in refrigerators or in the grocery history.
+ * Used as a projection when the typeahead search ranks groceries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroceryUsageDTO {
+    private Long groceryId;
+    private Long count;
+}
@@ -0,0 +1,20 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the total weight and number of one grocery or category trashed in a refrigerator.
+ * Used as a projection when the waste analytics are summed from the grocery history.
+ * The name is null if the grocery or category has been deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroceryWasteDTO {
+    private Long id;
+    private String name;
+    private Long weightInGrams;
+    private Long count;
+}
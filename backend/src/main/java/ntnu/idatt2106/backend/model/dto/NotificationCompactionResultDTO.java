@@ -0,0 +1,22 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the metrics of a notification compaction run.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationCompactionResultDTO {
+    private LocalDateTime startedAt;
+    private long rowsScanned;
+    private long rowsPurged;
+    private long durationMillis;
+}
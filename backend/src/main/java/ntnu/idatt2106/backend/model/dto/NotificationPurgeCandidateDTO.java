@@ -0,0 +1,18 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for a notification that can be deleted by the notification compaction.
+ * Used as a projection, so the notifications are not loaded as entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPurgeCandidateDTO {
+    private long id;
+    private String userId;
+    private boolean deleted;
+}
@@ -0,0 +1,21 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the metrics of one kind of reference data in the reference data cache.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReferenceDataCacheStatsDTO {
+    private String name;
+    private int size;
+    private long hits;
+    private long misses;
+    private long loads;
+}
@@ -0,0 +1,27 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO for the groceries, sub categories and categories a refrigerator trashed the most between two dates,
+ * sorted by trashed weight. The range is the one the history was counted in. It starts later than the requested one,
+ * and truncated is true, when the requested one starts before the raw history that is kept.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WasteAnalyticsDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private boolean truncated;
+    private List<GroceryWasteDTO> groceries;
+    private List<GroceryWasteDTO> subCategories;
+    private List<GroceryWasteDTO> categories;
+}
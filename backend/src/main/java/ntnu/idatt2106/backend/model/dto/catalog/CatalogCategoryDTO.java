@@ -0,0 +1,22 @@
+package ntnu.idatt2106.backend.model.dto.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ntnu.idatt2106.backend.model.category.Category;
+
+/**
+ * A category in the catalog lookup table
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogCategoryDTO {
+    private long id;
+    private String name;
+
+    public CatalogCategoryDTO(Category category) {
+        this.id = category.getId();
+        this.name = category.getName();
+    }
+}
@@ -0,0 +1,51 @@
+package ntnu.idatt2106.backend.model.dto.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The grocery catalog with the categories and subcategories in lookup tables, and the groceries as one array
+ * per field, where index i of every array is the same grocery
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogColumnsDTO {
+    private List<CatalogCategoryDTO> categories;
+    private List<CatalogSubCategoryDTO> subCategories;
+    private GroceryColumns groceries;
+
+    /**
+     * The fields of the groceries, one array per field
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GroceryColumns {
+        private long[] id;
+        private String[] name;
+        private String[] description;
+        private int[] groceryExpiryDays;
+        private Long[] subCategoryId;
+
+        public GroceryColumns(List<CatalogGroceryDTO> groceries) {
+            int size = groceries.size();
+            id = new long[size];
+            name = new String[size];
+            description = new String[size];
+            groceryExpiryDays = new int[size];
+            subCategoryId = new Long[size];
+            for (int i = 0; i < size; i++) {
+                CatalogGroceryDTO grocery = groceries.get(i);
+                id[i] = grocery.getId();
+                name[i] = grocery.getName();
+                description[i] = grocery.getDescription();
+                groceryExpiryDays[i] = grocery.getGroceryExpiryDays();
+                subCategoryId[i] = grocery.getSubCategoryId();
+            }
+        }
+    }
+}
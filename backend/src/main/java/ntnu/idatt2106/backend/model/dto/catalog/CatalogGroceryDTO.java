@@ -0,0 +1,33 @@
+package ntnu.idatt2106.backend.model.dto.catalog;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+
+/**
+ * A grocery in the catalog, referencing its subcategory by id. Serialized as an array of the fields
+ * in the order of {@link JsonPropertyOrder}, which is sent with the catalog as the field names.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+@JsonPropertyOrder({"id", "name", "description", "groceryExpiryDays", "subCategoryId"})
+public class CatalogGroceryDTO {
+    private long id;
+    private String name;
+    private String description;
+    private int groceryExpiryDays;
+    private Long subCategoryId;
+
+    public CatalogGroceryDTO(GroceryDTO grocery) {
+        this.id = grocery.getId();
+        this.name = grocery.getName();
+        this.description = grocery.getDescription();
+        this.groceryExpiryDays = grocery.getGroceryExpiryDays();
+        this.subCategoryId = grocery.getSubCategory() == null ? null : grocery.getSubCategory().getId();
+    }
+}
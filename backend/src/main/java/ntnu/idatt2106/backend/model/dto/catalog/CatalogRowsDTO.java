@@ -0,0 +1,24 @@
+package ntnu.idatt2106.backend.model.dto.catalog;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The grocery catalog with the categories and subcategories in lookup tables, and each grocery as an array
+ * with the fields named in groceryFields
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogRowsDTO {
+    public static final List<String> GROCERY_FIELDS = List.of(CatalogGroceryDTO.class.getAnnotation(JsonPropertyOrder.class).value());
+
+    private List<CatalogCategoryDTO> categories;
+    private List<CatalogSubCategoryDTO> subCategories;
+    private List<String> groceryFields;
+    private List<CatalogGroceryDTO> groceries;
+}
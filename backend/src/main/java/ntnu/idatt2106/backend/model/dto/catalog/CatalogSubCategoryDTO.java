@@ -0,0 +1,26 @@
+package ntnu.idatt2106.backend.model.dto.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ntnu.idatt2106.backend.model.SubCategory;
+
+/**
+ * A subcategory in the catalog lookup table, referencing its category by id
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSubCategoryDTO {
+    private long id;
+    private String name;
+    private Long categoryId;
+    private int categoryExpiryDays;
+
+    public CatalogSubCategoryDTO(SubCategory subCategory) {
+        this.id = subCategory.getId();
+        this.name = subCategory.getName();
+        this.categoryId = subCategory.getCategory() == null ? null : subCategory.getCategory().getId();
+        this.categoryExpiryDays = subCategory.getCategoryExpiryDays();
+    }
+}
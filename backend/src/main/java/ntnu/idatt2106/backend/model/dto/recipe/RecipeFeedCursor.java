@@ -0,0 +1,57 @@
+package ntnu.idatt2106.backend.model.dto.recipe;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ntnu.idatt2106.backend.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the recipe feed. Holds the version of the score snapshot the feed is paged through,
+ * whether the position is among the matching recipes, and the score and id of the last recipe returned.
+ * Sent to clients as an opaque string.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeFeedCursor {
+    private long snapshotVersion;
+    private boolean matching;
+    private double score;
+    private long recipeId;
+
+    /**
+     * Encodes the cursor as an URL safe string.
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String value = snapshotVersion + ":" + (matching ? 1 : 0) + ":"
+                + Long.toHexString(Double.doubleToLongBits(score)) + ":" + recipeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor made by {@link #encode()}.
+     * @param cursor the encoded cursor
+     * @return the decoded cursor
+     * @throws InvalidCursorException if the cursor is not valid
+     */
+    public static RecipeFeedCursor decode(String cursor) throws InvalidCursorException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split(":");
+            if (parts.length != 4 || !(parts[1].equals("0") || parts[1].equals("1"))) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            return new RecipeFeedCursor(
+                    Long.parseLong(parts[0]),
+                    parts[1].equals("1"),
+                    Double.longBitsToDouble(Long.parseUnsignedLong(parts[2], 16)),
+                    Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ntnu.idatt2106.backend.model.dto.recipe;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for a page of the recipe feed.
+ * The next cursor is null when there are no more recipes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeFeedDTO {
+    private List<RecipeDTO> recipes = new ArrayList<>();
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package ntnu.idatt2106.backend.model.dto.recipe;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the amount of a grocery needed in a recipe.
+ * The unit weight is null if the ingredient has no unit.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeIngredientAmountDTO {
+    private long recipeId;
+    private long groceryId;
+    private int quantity;
+    private Integer unitWeight;
+}
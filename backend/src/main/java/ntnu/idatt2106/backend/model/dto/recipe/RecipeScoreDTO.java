@@ -0,0 +1,16 @@
+package ntnu.idatt2106.backend.model.dto.recipe;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the score of a recipe against the groceries in a refrigerator.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeScoreDTO {
+    private long recipeId;
+    private double score;
+}
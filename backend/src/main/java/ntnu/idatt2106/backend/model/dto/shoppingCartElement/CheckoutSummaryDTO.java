@@ -0,0 +1,23 @@
+package ntnu.idatt2106.backend.model.dto.shoppingCartElement;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO summarizing a checkout of the shopping cart, where all
+ * items in the cart are transferred to the refrigerator
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutSummaryDTO {
+    private int transferredItems;
+    private int totalQuantity;
+    private List<Long> refrigeratorIds;
+    private List<Long> groceryIds;
+}
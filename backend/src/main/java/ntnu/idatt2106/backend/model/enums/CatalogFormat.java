@@ -0,0 +1,19 @@
+package ntnu.idatt2106.backend.model.enums;
+
+/**
+ * How the grocery catalog is sent to clients.
+ */
+public enum CatalogFormat {
+    /**
+     * A list of groceries, each with its subcategory and category.
+     */
+    LIST,
+    /**
+     * Categories and subcategories once, and the groceries as arrays referencing their subcategory by id.
+     */
+    ROWS,
+    /**
+     * Categories and subcategories once, and one array per field of the groceries.
+     */
+    COLUMNS
+}
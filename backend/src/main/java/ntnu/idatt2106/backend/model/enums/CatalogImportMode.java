@@ -0,0 +1,16 @@
+package ntnu.idatt2106.backend.model.enums;
+
+/**
+ * How the grocery catalog is imported at startup.
+ */
+public enum CatalogImportMode {
+    /**
+     * Imports the whole catalog, but only into a database without a catalog.
+     */
+    FULL,
+    /**
+     * Imports the catalog when the file has changed since the last import, inserting new
+     * and updating changed categories, subcategories and groceries.
+     */
+    INCREMENTAL
+}
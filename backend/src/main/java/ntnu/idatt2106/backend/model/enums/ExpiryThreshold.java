@@ -0,0 +1,15 @@
+package ntnu.idatt2106.backend.model.enums;
+
+/**
+ * The expiry thresholds a grocery notification is created for.
+ */
+public enum ExpiryThreshold {
+    /**
+     * The grocery expires within a few days.
+     */
+    WARNING,
+    /**
+     * The grocery has reached its expiry date.
+     */
+    EXPIRED
+}
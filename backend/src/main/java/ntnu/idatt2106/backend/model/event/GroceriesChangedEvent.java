@@ -0,0 +1,46 @@
+package ntnu.idatt2106.backend.model.event;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+
+import java.util.List;
+
+/**
+ * Published when groceries are saved or the catalog is imported, so the copies of the catalog held in memory
+ * are updated once the change has committed.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class GroceriesChangedEvent {
+
+    /**
+     * The saved groceries, empty when the catalog was imported.
+     */
+    private final List<Grocery> savedGroceries;
+
+    /**
+     * True when the catalog was imported, so the copies are loaded again instead of updated.
+     */
+    private final boolean imported;
+
+    /**
+     * Creates an event for a saved grocery.
+     *
+     * @param grocery the saved grocery
+     * @return the event
+     */
+    public static GroceriesChangedEvent saved(Grocery grocery) {
+        return new GroceriesChangedEvent(List.of(grocery), false);
+    }
+
+    /**
+     * Creates an event for an import that changed the catalog.
+     *
+     * @return the event
+     */
+    public static GroceriesChangedEvent imported() {
+        return new GroceriesChangedEvent(List.of(), true);
+    }
+}
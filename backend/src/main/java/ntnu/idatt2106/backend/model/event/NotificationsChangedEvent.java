@@ -0,0 +1,36 @@
+package ntnu.idatt2106.backend.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Published when notifications are created or deleted, so they can be pushed to connected users.
+ */
+@Getter
+@AllArgsConstructor
+public class NotificationsChangedEvent {
+
+    /**
+     * Ids of the created notifications per user id.
+     */
+    private final Map<String, List<Long>> createdNotificationIds;
+
+    /**
+     * Ids of the users whose notifications were deleted.
+     */
+    private final Set<String> changedUserIds;
+
+    /**
+     * Creates an event for users whose notifications were deleted.
+     *
+     * @param userIds ids of the users
+     * @return the event
+     */
+    public static NotificationsChangedEvent deleted(Set<String> userIds) {
+        return new NotificationsChangedEvent(Map.of(), userIds);
+    }
+}
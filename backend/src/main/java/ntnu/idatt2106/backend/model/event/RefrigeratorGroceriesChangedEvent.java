@@ -0,0 +1,25 @@
+package ntnu.idatt2106.backend.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Published when groceries are added to, changed in or removed from a refrigerator, so the recipe scores
+ * of the refrigerator are updated once the change has committed.
+ */
+@Getter
+@AllArgsConstructor
+public class RefrigeratorGroceriesChangedEvent {
+
+    /**
+     * Id of the refrigerator.
+     */
+    private final long refrigeratorId;
+
+    /**
+     * Ids of the groceries whose amount or expiry date changed.
+     */
+    private final Set<Long> groceryIds;
+}
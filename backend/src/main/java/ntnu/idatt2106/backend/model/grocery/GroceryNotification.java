@@ -5,6 +5,9 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.*;
 import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.enums.ExpiryThreshold;
+
+import java.time.LocalDateTime;
 
 /**
  * A notification regarding a grocery.
@@ -13,7 +16,10 @@ import ntnu.idatt2106.backend.model.User;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "GroceryNotification")
+@Table(name = "GroceryNotification",
+        indexes = @Index(name = "idx_grocery_notification_user", columnList = "users, deleted"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_grocery_notification_threshold",
+                columnNames = {"users", "RefrigeratorGrocery", "threshold"}))
 @Schema(description = "A notification regarding a grocery entity, for example a grocery entity is expiring soon")
 @Entity
 public class GroceryNotification {
@@ -41,4 +47,13 @@ public class GroceryNotification {
     @Schema(description = "Shows if the user has deleted/dismissed the notification or not")
     private boolean deleted;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "threshold", length = 16)
+    @Schema(description = "The expiry threshold the notification was created for")
+    private ExpiryThreshold threshold;
+
+    @Column(name = "deletedAt")
+    @Schema(description = "When the user deleted the notification, null if it is not deleted")
+    private LocalDateTime deletedAt;
+
 }
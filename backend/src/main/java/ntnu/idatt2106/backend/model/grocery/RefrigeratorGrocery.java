@@ -25,7 +25,7 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "RefrigeratorGrocery")
+@Table(name = "RefrigeratorGrocery", indexes = @Index(name = "idx_refrigerator_grocery_expire_date", columnList = "physicalExpireDate"))
 @Schema(description = "Connection between the groceries and refrigerators")
 @Entity
 public class RefrigeratorGrocery {
@@ -0,0 +1,21 @@
+package ntnu.idatt2106.backend.repository;
+
+import ntnu.idatt2106.backend.model.CatalogImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for CatalogImport entity.
+ */
+@Repository
+public interface CatalogImportRepository extends JpaRepository<CatalogImport, Long> {
+
+    /**
+     * Returns the last import of a catalog file.
+     * @param source name of the catalog file
+     * @return Optional of catalog import
+     */
+    Optional<CatalogImport> findBySource(String source);
+}
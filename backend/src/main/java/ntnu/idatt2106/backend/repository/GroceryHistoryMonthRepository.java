@@ -0,0 +1,88 @@
+package ntnu.idatt2106.backend.repository;
+
+import ntnu.idatt2106.backend.model.GroceryHistoryMonth;
+import ntnu.idatt2106.backend.model.dto.GroceryHistoryMonthKeyDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository for GroceryHistoryMonth entity.
+ */
+@Repository
+public interface GroceryHistoryMonthRepository extends JpaRepository<GroceryHistoryMonth, Long> {
+
+    /**
+     * Returns the months of a refrigerator between two months, both included.
+     * @param refrigeratorId
+     * @param fromMonth
+     * @param toMonth
+     * @return
+     */
+    List<GroceryHistoryMonth> findByRefrigerator_IdAndStatisticsMonthBetween(long refrigeratorId, int fromMonth, int toMonth);
+
+    /**
+     * Returns the refrigerator and month of every month before a month.
+     * @param beforeMonth
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.GroceryHistoryMonthKeyDTO(m.refrigerator.id, m.statisticsMonth) " +
+            "FROM GroceryHistoryMonth m WHERE m.statisticsMonth < :beforeMonth")
+    List<GroceryHistoryMonthKeyDTO> findKeysBeforeMonth(@Param("beforeMonth") int beforeMonth);
+
+    /**
+     * Deletes the months from a month on.
+     * @param fromMonth
+     * @return number of deleted months
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GroceryHistoryMonth m WHERE m.statisticsMonth >= :fromMonth")
+    int deleteFromMonth(@Param("fromMonth") int fromMonth);
+
+    /**
+     * Deletes the months before a month.
+     * @param beforeMonth
+     * @return number of deleted months
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GroceryHistoryMonth m WHERE m.statisticsMonth < :beforeMonth")
+    int deleteBeforeMonth(@Param("beforeMonth") int beforeMonth);
+
+    /**
+     * Returns true if a refrigerator has a month.
+     * @param refrigeratorId
+     * @param statisticsMonth
+     * @return
+     */
+    boolean existsByRefrigerator_IdAndStatisticsMonth(long refrigeratorId, int statisticsMonth);
+
+    /**
+     * Adds to the sums of a month in one atomic update.
+     * @param refrigeratorId id of the refrigerator
+     * @param statisticsMonth the month
+     * @param eatenGrams weight eaten
+     * @param eatenCount number of groceries eaten
+     * @param trashedGrams weight trashed
+     * @param trashedCount number of groceries trashed
+     * @return 1 if the month exists, otherwise 0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE GroceryHistoryMonth m SET " +
+            "m.eatenGrams = m.eatenGrams + :eatenGrams, m.eatenCount = m.eatenCount + :eatenCount, " +
+            "m.trashedGrams = m.trashedGrams + :trashedGrams, m.trashedCount = m.trashedCount + :trashedCount " +
+            "WHERE m.refrigerator.id = :refrigeratorId AND m.statisticsMonth = :statisticsMonth")
+    int addToMonth(@Param("refrigeratorId") long refrigeratorId,
+                   @Param("statisticsMonth") int statisticsMonth,
+                   @Param("eatenGrams") long eatenGrams,
+                   @Param("eatenCount") long eatenCount,
+                   @Param("trashedGrams") long trashedGrams,
+                   @Param("trashedCount") long trashedCount);
+}
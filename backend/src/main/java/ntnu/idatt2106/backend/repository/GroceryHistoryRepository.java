@@ -3,7 +3,13 @@ package ntnu.idatt2106.backend.repository;
 
 import ntnu.idatt2106.backend.model.GroceryHistory;
 import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.dto.GroceryHistoryMonthSumDTO;
+import ntnu.idatt2106.backend.model.dto.GroceryUsageDTO;
+import ntnu.idatt2106.backend.model.dto.GroceryWasteDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -34,10 +40,99 @@ public interface GroceryHistoryRepository extends JpaRepository<GroceryHistory,
     List<GroceryHistory> findByDateConsumedBetweenAndRefrigeratorId(LocalDate startDate, LocalDate endDate, Long refrigeratorId);
 
     /**
-     * Deletes all consumed before given date.
+     * Returns the total weight and number eaten and trashed for each refrigerator and month in the history.
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.GroceryHistoryMonthSumDTO(" +
+            "h.refrigerator.id, YEAR(h.dateConsumed), MONTH(h.dateConsumed), h.wasTrashed, SUM(h.weightInGrams), COUNT(h)) " +
+            "FROM GroceryHistory h " +
+            "GROUP BY h.refrigerator.id, YEAR(h.dateConsumed), MONTH(h.dateConsumed), h.wasTrashed")
+    List<GroceryHistoryMonthSumDTO> sumByRefrigeratorAndMonth();
+
+    /**
+     * Returns the total weight and number eaten and trashed for each refrigerator and month in the history
+     * consumed before a date.
      * @param date
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.GroceryHistoryMonthSumDTO(" +
+            "h.refrigerator.id, YEAR(h.dateConsumed), MONTH(h.dateConsumed), h.wasTrashed, SUM(h.weightInGrams), COUNT(h)) " +
+            "FROM GroceryHistory h WHERE h.dateConsumed < :date " +
+            "GROUP BY h.refrigerator.id, YEAR(h.dateConsumed), MONTH(h.dateConsumed), h.wasTrashed")
+    List<GroceryHistoryMonthSumDTO> sumByRefrigeratorAndMonthBefore(@Param("date") LocalDate date);
+
+    /**
+     * Returns the groceries trashed the most in a refrigerator between two dates, both included.
+     * Read from the index on refrigerator, trashed and date, so no history rows are loaded.
+     * @param refrigeratorId
+     * @param from
+     * @param to
+     * @param pageable the number of groceries
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.GroceryWasteDTO(h.groceryId, g.name, SUM(h.weightInGrams), COUNT(h)) " +
+            "FROM GroceryHistory h LEFT JOIN Grocery g ON g.id = h.groceryId " +
+            "WHERE h.refrigerator.id = :refrigeratorId AND h.wasTrashed = true " +
+            "AND h.dateConsumed BETWEEN :from AND :to AND h.groceryId IS NOT NULL " +
+            "GROUP BY h.groceryId, g.name ORDER BY SUM(h.weightInGrams) DESC, h.groceryId")
+    List<GroceryWasteDTO> findMostWastedGroceries(@Param("refrigeratorId") long refrigeratorId,
+                                                  @Param("from") LocalDate from,
+                                                  @Param("to") LocalDate to,
+                                                  Pageable pageable);
+
+    /**
+     * Returns the sub categories trashed the most in a refrigerator between two dates, both included.
+     * @param refrigeratorId
+     * @param from
+     * @param to
+     * @param pageable the number of sub categories
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.GroceryWasteDTO(h.subCategoryId, s.name, SUM(h.weightInGrams), COUNT(h)) " +
+            "FROM GroceryHistory h LEFT JOIN SubCategory s ON s.id = h.subCategoryId " +
+            "WHERE h.refrigerator.id = :refrigeratorId AND h.wasTrashed = true " +
+            "AND h.dateConsumed BETWEEN :from AND :to AND h.subCategoryId IS NOT NULL " +
+            "GROUP BY h.subCategoryId, s.name ORDER BY SUM(h.weightInGrams) DESC, h.subCategoryId")
+    List<GroceryWasteDTO> findMostWastedSubCategories(@Param("refrigeratorId") long refrigeratorId,
+                                                      @Param("from") LocalDate from,
+                                                      @Param("to") LocalDate to,
+                                                      Pageable pageable);
+
+    /**
+     * Returns the categories trashed the most in a refrigerator between two dates, both included.
+     * History of deleted sub categories is not counted.
+     * @param refrigeratorId
+     * @param from
+     * @param to
+     * @param pageable the number of categories
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.GroceryWasteDTO(c.id, c.name, SUM(h.weightInGrams), COUNT(h)) " +
+            "FROM GroceryHistory h JOIN SubCategory s ON s.id = h.subCategoryId JOIN s.category c " +
+            "WHERE h.refrigerator.id = :refrigeratorId AND h.wasTrashed = true " +
+            "AND h.dateConsumed BETWEEN :from AND :to " +
+            "GROUP BY c.id, c.name ORDER BY SUM(h.weightInGrams) DESC, c.id")
+    List<GroceryWasteDTO> findMostWastedCategories(@Param("refrigeratorId") long refrigeratorId,
+                                                   @Param("from") LocalDate from,
+                                                   @Param("to") LocalDate to,
+                                                   Pageable pageable);
+
+    /**
+     * Returns the number of times each grocery has been eaten or trashed, in the history that is kept.
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.GroceryUsageDTO(h.groceryId, COUNT(h)) " +
+            "FROM GroceryHistory h WHERE h.groceryId IS NOT NULL GROUP BY h.groceryId")
+    List<GroceryUsageDTO> countByGrocery();
+
+    /**
+     * Returns the ids of history consumed before a date. Used to delete old history in chunks.
+     * @param date
+     * @param pageable the size of the chunk
+     * @return
      */
-    void deleteByDateConsumedBefore(LocalDate date);
+    @Query("SELECT h.id FROM GroceryHistory h WHERE h.dateConsumed < :date")
+    List<Long> findIdsConsumedBefore(@Param("date") LocalDate date, Pageable pageable);
 
     /**
      * Finds a potential GroceryHistory object based on the date consumed, weight in grams and the refrigerator.
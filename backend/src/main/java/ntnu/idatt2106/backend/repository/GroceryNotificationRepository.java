@@ -1,11 +1,21 @@
 package ntnu.idatt2106.backend.repository;
 
 
+import ntnu.idatt2106.backend.model.dto.ExpiryNotificationCandidateDTO;
+import ntnu.idatt2106.backend.model.dto.NotificationPurgeCandidateDTO;
 import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +40,128 @@ public interface GroceryNotificationRepository extends JpaRepository<GroceryNoti
      */
     List<GroceryNotification> findAllByUserId(String userId);
 
+    /**
+     * Returns the notifications of a user that are not deleted, with their groceries loaded in the same query.
+     * @param userId
+     * @return
+     */
+    @Query("SELECT n FROM GroceryNotification n " +
+            "JOIN FETCH n.groceryEntity rg " +
+            "JOIN FETCH rg.refrigerator " +
+            "JOIN FETCH rg.grocery g " +
+            "LEFT JOIN FETCH g.subCategory sc " +
+            "LEFT JOIN FETCH sc.category " +
+            "LEFT JOIN FETCH rg.unit " +
+            "WHERE n.user.id = :userId AND n.deleted = false")
+    List<GroceryNotification> findAllByUserIdAndDeletedFalse(@Param("userId") String userId);
+
+    /**
+     * Returns a page of the notifications of a user that are not deleted, with their groceries loaded in the same query.
+     * Only many-to-one associations are fetched, so the page is limited in the database.
+     * @param userId
+     * @param pageable
+     * @return
+     */
+    @Query("SELECT n FROM GroceryNotification n " +
+            "JOIN FETCH n.groceryEntity rg " +
+            "JOIN FETCH rg.refrigerator " +
+            "JOIN FETCH rg.grocery g " +
+            "LEFT JOIN FETCH g.subCategory sc " +
+            "LEFT JOIN FETCH sc.category " +
+            "LEFT JOIN FETCH rg.unit " +
+            "WHERE n.user.id = :userId AND n.deleted = false")
+    List<GroceryNotification> findPageByUserId(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Returns notifications by id, with their groceries loaded in the same query.
+     * @param ids
+     * @return
+     */
+    @Query("SELECT n FROM GroceryNotification n " +
+            "JOIN FETCH n.groceryEntity rg " +
+            "JOIN FETCH rg.refrigerator " +
+            "JOIN FETCH rg.grocery g " +
+            "LEFT JOIN FETCH g.subCategory sc " +
+            "LEFT JOIN FETCH sc.category " +
+            "LEFT JOIN FETCH rg.unit " +
+            "WHERE n.id IN :ids")
+    List<GroceryNotification> findAllWithGroceryByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Returns the number of notifications of a user that are not deleted.
+     * @param userId
+     * @return
+     */
+    long countByUserIdAndDeletedFalse(String userId);
+
+    /**
+     * Marks a notification of a user as deleted, unless it already is. Concurrent deletes of the same
+     * notification are serialized by the row lock, so only one of them changes the row.
+     * The persistence context is cleared, so notifications loaded before are not written back.
+     * @param id id of the notification
+     * @param userId id of the user that owns the notification
+     * @param deletedAt when the notification was deleted
+     * @return 1 if the notification was marked as deleted, 0 if it was already deleted or not found
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE GroceryNotification n SET n.deleted = true, n.deletedAt = :deletedAt " +
+            "WHERE n.id = :id AND n.user.id = :userId AND n.deleted = false")
+    int markDeleted(@Param("id") long id, @Param("userId") String userId, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Returns every refrigerator grocery and refrigerator member that is missing an expiry notification.
+     * A grocery that has crossed the warning date needs a WARNING notification, and a grocery that has reached
+     * its expiry date needs an EXPIRED notification unless the member deleted the warning.
+     * Duplicates are also rejected by the unique constraint on user, grocery and threshold.
+     * @param today the current date, the expiry threshold
+     * @param warningDate the warning threshold
+     * @return the grocery and member pairs to notify
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.ExpiryNotificationCandidateDTO(rg.id, ru.user.id, rg.physicalExpireDate) " +
+            "FROM RefrigeratorGrocery rg JOIN RefrigeratorUser ru ON ru.refrigerator = rg.refrigerator " +
+            "WHERE rg.physicalExpireDate <= :warningDate AND (" +
+            "(rg.physicalExpireDate > :today AND NOT EXISTS (SELECT n.id FROM GroceryNotification n " +
+            "WHERE n.groceryEntity = rg AND n.user = ru.user " +
+            "AND n.threshold = ntnu.idatt2106.backend.model.enums.ExpiryThreshold.WARNING)) " +
+            "OR (rg.physicalExpireDate <= :today AND NOT EXISTS (SELECT n.id FROM GroceryNotification n " +
+            "WHERE n.groceryEntity = rg AND n.user = ru.user " +
+            "AND (n.threshold = ntnu.idatt2106.backend.model.enums.ExpiryThreshold.EXPIRED OR n.deleted = true))))")
+    List<ExpiryNotificationCandidateDTO> findExpiryNotificationCandidates(@Param("today") LocalDate today,
+                                                                         @Param("warningDate") LocalDate warningDate);
+
+    /**
+     * Returns the ids of the notifications after an id, in id order. Used to walk the table in chunks.
+     * @param afterId the last id of the previous chunk, 0 for the first chunk
+     * @param pageable the size of the chunk
+     * @return the ids of the chunk
+     */
+    @Query("SELECT n.id FROM GroceryNotification n WHERE n.id > :afterId ORDER BY n.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Returns the notifications in an id range that are no longer needed. A notification is not needed if its
+     * grocery or user is gone, or if the user is no longer a member of the refrigerator of the grocery.
+     * A deleted WARNING notification is not needed after the retention time once the EXPIRED notification of the
+     * same grocery exists. Other deleted notifications are kept, since the expiry sweep uses them to not notify again.
+     * @param afterId the range starts after this id
+     * @param lastId the range ends with this id
+     * @param deletedBefore deleted notifications are kept until this time
+     * @return the notifications to delete
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.NotificationPurgeCandidateDTO(n.id, u.id, n.deleted) " +
+            "FROM GroceryNotification n LEFT JOIN n.user u LEFT JOIN n.groceryEntity rg " +
+            "WHERE n.id > :afterId AND n.id <= :lastId AND (" +
+            "rg IS NULL OR u IS NULL " +
+            "OR NOT EXISTS (SELECT ru.id FROM RefrigeratorUser ru WHERE ru.refrigerator = rg.refrigerator AND ru.user = u) " +
+            "OR (n.deleted = true AND (n.deletedAt IS NULL OR n.deletedAt < :deletedBefore) " +
+            "AND n.threshold = ntnu.idatt2106.backend.model.enums.ExpiryThreshold.WARNING " +
+            "AND EXISTS (SELECT e.id FROM GroceryNotification e WHERE e.groceryEntity = rg AND e.user = u " +
+            "AND e.threshold = ntnu.idatt2106.backend.model.enums.ExpiryThreshold.EXPIRED)))")
+    List<NotificationPurgeCandidateDTO> findPurgeCandidates(@Param("afterId") long afterId,
+                                                           @Param("lastId") long lastId,
+                                                           @Param("deletedBefore") LocalDateTime deletedBefore);
+
     /**
      * Returns a list of notifications based on a grocery.
      * @param groceryEntity
@@ -37,4 +169,11 @@ public interface GroceryNotificationRepository extends JpaRepository<GroceryNoti
      */
     List<GroceryNotification> findAllByGroceryEntity(RefrigeratorGrocery groceryEntity);
 
+    /**
+     * Returns the notifications of all groceries in a refrigerator.
+     * @param refrigeratorId
+     * @return
+     */
+    List<GroceryNotification> findAllByGroceryEntity_Refrigerator_Id(long refrigeratorId);
+
 }
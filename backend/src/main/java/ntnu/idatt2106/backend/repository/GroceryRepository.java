@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 
@@ -30,4 +31,11 @@ public interface GroceryRepository extends JpaRepository<Grocery, Long>{
      */
     Optional<Grocery> findByName(String name);
 
+    /**
+     * Returns all groceries with their sub category and category, in one query.
+     * @return
+     */
+    @Query("SELECT g FROM Grocery g LEFT JOIN FETCH g.subCategory s LEFT JOIN FETCH s.category")
+    List<Grocery> findAllWithCategories();
+
 }
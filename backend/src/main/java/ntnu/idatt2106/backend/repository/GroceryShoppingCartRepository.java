@@ -2,8 +2,12 @@ package ntnu.idatt2106.backend.repository;
 
 import ntnu.idatt2106.backend.model.grocery.GroceryShoppingCart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -20,4 +24,21 @@ public interface GroceryShoppingCartRepository extends JpaRepository<GroceryShop
      * @return
      */
     Optional<GroceryShoppingCart> findByGroceryIdAndShoppingCartId(Long groceryId, Long shoppingCartId);
+
+    /**
+     * Finds shopping cart elements by id, together with their grocery, unit and the refrigerator
+     * the shopping cart belongs to, in one query.
+     * @param ids IDs of the shopping cart elements
+     * @return the shopping cart elements found
+     */
+    @Query("SELECT gsc FROM GroceryShoppingCart gsc" +
+            " JOIN FETCH gsc.grocery g" +
+            " LEFT JOIN FETCH g.subCategory sc" +
+            " LEFT JOIN FETCH sc.category" +
+            " LEFT JOIN FETCH gsc.unit" +
+            " JOIN FETCH gsc.shoppingCart cart" +
+            " JOIN FETCH cart.shoppingList list" +
+            " JOIN FETCH list.refrigerator" +
+            " WHERE gsc.id IN :ids")
+    List<GroceryShoppingCart> findAllWithRefrigeratorByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,29 @@
+package ntnu.idatt2106.backend.repository;
+
+import ntnu.idatt2106.backend.model.NotificationCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository for NotificationCounter entity.
+ */
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, String> {
+
+    /**
+     * Adds to the unread count of a user in one atomic update. The count does not go below zero.
+     * @param userId id of the user
+     * @param delta number to add, negative to subtract
+     * @return 1 if the user has a counter, otherwise 0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.unreadCount = " +
+            "CASE WHEN c.unreadCount + :delta < 0 THEN 0 ELSE c.unreadCount + :delta END " +
+            "WHERE c.userId = :userId")
+    int addToUnreadCount(@Param("userId") String userId, @Param("delta") long delta);
+}
@@ -3,6 +3,7 @@ package ntnu.idatt2106.backend.repository;
 
 import ntnu.idatt2106.backend.model.Refrigerator;
 import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.dto.GroceryUsageDTO;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -42,6 +43,14 @@ public interface RefrigeratorGroceryRepository extends JpaRepository<Refrigerato
 
     void removeByRefrigeratorId(long refrigeratorId);
 
+    /**
+     * Returns all refrigeratorGrocery entities of one grocery in a refrigerator.
+     * @param refrigeratorId
+     * @param groceryId
+     * @return
+     */
+    List<RefrigeratorGrocery> findAllByRefrigeratorIdAndGroceryId(long refrigeratorId, long groceryId);
+
 
     /**
      * Returns a boolean whether or not a grocery exists in a refrigerator.
@@ -51,4 +60,12 @@ public interface RefrigeratorGroceryRepository extends JpaRepository<Refrigerato
      */
     @Query("SELECT CASE WHEN COUNT(rg) > 0 THEN true ELSE false END FROM RefrigeratorGrocery rg WHERE rg.refrigerator = :refrigerator AND rg.grocery = :grocery")
     boolean existsByRefrigeratorAndGrocery(@Param("refrigerator") Refrigerator refrigerator, @Param("grocery") Grocery grocery);
+
+    /**
+     * Returns the number of refrigerator groceries of each grocery.
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.GroceryUsageDTO(rg.grocery.id, COUNT(rg)) " +
+            "FROM RefrigeratorGrocery rg GROUP BY rg.grocery.id")
+    List<GroceryUsageDTO> countByGrocery();
 }
@@ -3,8 +3,11 @@ package ntnu.idatt2106.backend.repository;
 import ntnu.idatt2106.backend.model.Refrigerator;
 import ntnu.idatt2106.backend.model.RefrigeratorUser;
 import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.dto.FridgeMembershipDTO;
 import ntnu.idatt2106.backend.model.enums.FridgeRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -56,4 +59,13 @@ public interface RefrigeratorUserRepository extends JpaRepository<RefrigeratorUs
      * @param refrigeratorId ID of refrigerator
      */
     void removeByRefrigeratorId(long refrigeratorId);
+
+    /**
+     * Finds the role a user has in each refrigerator the user is member of
+     * @param email email of the user
+     * @return refrigerator id and role for every membership of the user
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.FridgeMembershipDTO(ru.refrigerator.id, ru.fridgeRole) " +
+            "FROM RefrigeratorUser ru WHERE ru.user.email = :email")
+    List<FridgeMembershipDTO> findFridgeMembershipsByUserEmail(@Param("email") String email);
 }
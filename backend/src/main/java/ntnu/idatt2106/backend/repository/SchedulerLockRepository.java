@@ -0,0 +1,60 @@
+package ntnu.idatt2106.backend.repository;
+
+import ntnu.idatt2106.backend.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for SchedulerLock entity.
+ */
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Takes an existing lock if it has expired. The update is atomic, so only one node can take the lock.
+     * @param name name of the lock
+     * @param lockedUntil time the new lock expires
+     * @param now current time
+     * @param lockedBy the node taking the lock
+     * @return 1 if the lock was taken, otherwise 0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :lockedUntil, l.lockedAt = :now, l.lockedBy = :lockedBy " +
+            "WHERE l.name = :name AND l.lockedUntil <= :now")
+    int tryLock(@Param("name") String name, @Param("lockedUntil") LocalDateTime lockedUntil,
+                @Param("now") LocalDateTime now, @Param("lockedBy") String lockedBy);
+
+    /**
+     * Creates a lock that does not exist yet with an INSERT, so a node creating the same lock at the same time
+     * fails on the primary key instead of overwriting the row like a merge would.
+     * @param name name of the lock
+     * @param lockedUntil time the lock expires
+     * @param now current time
+     * @param lockedBy the node taking the lock
+     * @return 1 if the lock was created
+     */
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO SchedulerLock (name, lockedUntil, lockedAt, lockedBy) VALUES (:name, :lockedUntil, :now, :lockedBy)")
+    int insertLock(@Param("name") String name, @Param("lockedUntil") LocalDateTime lockedUntil,
+                   @Param("now") LocalDateTime now, @Param("lockedBy") String lockedBy);
+
+    /**
+     * Releases a lock held by a node.
+     * @param name name of the lock
+     * @param now current time
+     * @param lockedBy the node holding the lock
+     * @return 1 if the lock was released, otherwise 0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.lockedBy = :lockedBy")
+    int unlock(@Param("name") String name, @Param("now") LocalDateTime now, @Param("lockedBy") String lockedBy);
+}
@@ -1,13 +1,16 @@
 package ntnu.idatt2106.backend.repository.recipe;
 
 import ntnu.idatt2106.backend.model.dto.GroceryInfoDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientAmountDTO;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.recipe.Recipe;
 import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,4 +59,27 @@ public interface RecipeGroceryRepository extends JpaRepository<RecipeGrocery, Lo
      */
     Optional<RecipeGrocery> findByRecipeId(long id);
 
+    /**
+     * Returns the ingredients of all the given recipes, with their recipe, grocery and unit fetched in the same query.
+     * @param recipeIds ids of the recipes
+     * @return list of RecipeGrocery ordered by recipe and id
+     */
+    @Query("SELECT rg FROM RecipeGrocery rg " +
+            "JOIN FETCH rg.recipe r " +
+            "LEFT JOIN FETCH r.category " +
+            "JOIN FETCH rg.grocery g " +
+            "LEFT JOIN FETCH g.subCategory sc " +
+            "LEFT JOIN FETCH sc.category " +
+            "LEFT JOIN FETCH rg.unit " +
+            "WHERE r.id IN :recipeIds ORDER BY r.id, rg.id")
+    List<RecipeGrocery> findAllWithGroceryAndUnitByRecipeIds(@Param("recipeIds") Collection<Long> recipeIds);
+
+    /**
+     * Returns the needed amount of every ingredient in every recipe.
+     * @return list of ingredient amounts
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientAmountDTO(rg.recipe.id, rg.grocery.id, rg.quantity, u.weight) " +
+            "FROM RecipeGrocery rg LEFT JOIN rg.unit u")
+    List<RecipeIngredientAmountDTO> findAllIngredientAmounts();
+
 }
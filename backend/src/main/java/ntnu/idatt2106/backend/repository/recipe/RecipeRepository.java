@@ -1,9 +1,14 @@
 package ntnu.idatt2106.backend.repository.recipe;
 
 import ntnu.idatt2106.backend.model.recipe.Recipe;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -25,4 +30,56 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
      * @return
      */
     boolean existsByName(String recipeName);
-}
\ No newline at end of file
+
+    /**
+     * Returns the ids of recipes that have no ingredients stored in the refrigerator, ordered by id.
+     * @param refrigeratorId id of the refrigerator to match against
+     * @param pageable the page to fetch
+     * @return ordered list of recipe ids
+     */
+    @Query("SELECT r.id FROM Recipe r WHERE NOT EXISTS (" +
+            "SELECT rg.id FROM RecipeGrocery rg WHERE rg.recipe = r AND rg.grocery.id IN (" +
+            "SELECT rfg.grocery.id FROM RefrigeratorGrocery rfg WHERE rfg.refrigerator.id = :refrigeratorId)) " +
+            "ORDER BY r.id")
+    List<Long> findUnmatchedIdsByRefrigeratorId(@Param("refrigeratorId") long refrigeratorId, Pageable pageable);
+
+    /**
+     * Returns the ids of recipes that have no ingredients stored in the refrigerator, ordered by id,
+     * leaving out the given ids.
+     * @param refrigeratorId id of the refrigerator to match against
+     * @param excludedIds ids to leave out, must not be empty
+     * @param pageable the page to fetch
+     * @return ordered list of recipe ids
+     */
+    @Query("SELECT r.id FROM Recipe r WHERE r.id NOT IN :excludedIds AND NOT EXISTS (" +
+            "SELECT rg.id FROM RecipeGrocery rg WHERE rg.recipe = r AND rg.grocery.id IN (" +
+            "SELECT rfg.grocery.id FROM RefrigeratorGrocery rfg WHERE rfg.refrigerator.id = :refrigeratorId)) " +
+            "ORDER BY r.id")
+    List<Long> findUnmatchedIdsByRefrigeratorIdExcluding(@Param("refrigeratorId") long refrigeratorId,
+                                                        @Param("excludedIds") Collection<Long> excludedIds,
+                                                        Pageable pageable);
+
+    /**
+     * Returns all recipes with their category fetched in the same query.
+     * @return list of all recipes
+     */
+    @Query("SELECT r FROM Recipe r LEFT JOIN FETCH r.category ORDER BY r.id")
+    List<Recipe> findAllWithCategory();
+
+    /**
+     * Returns the recipes with the given ids, with their category fetched in the same query.
+     * @param ids ids of the recipes
+     * @return list of recipes
+     */
+    @Query("SELECT r FROM Recipe r LEFT JOIN FETCH r.category WHERE r.id IN :ids")
+    List<Recipe> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Returns recipe ids greater than the given id, ordered by id.
+     * @param afterId the id to start after
+     * @param pageable the page to fetch
+     * @return ordered list of recipe ids
+     */
+    @Query("SELECT r.id FROM Recipe r WHERE r.id > :afterId ORDER BY r.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+}
@@ -0,0 +1,251 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.model.CatalogImport;
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.category.Category;
+import ntnu.idatt2106.backend.model.enums.CatalogImportMode;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.repository.CatalogImportRepository;
+import ntnu.idatt2106.backend.repository.CategoryRepository;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.SubCategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Service for importing the grocery catalog from a formatted csv file with categories, subcategories and groceries.
+ * "!" indicates a category line, "?" indicates a subcategory, remaining lines are groceries.
+ * Groceries are structured with name, description. Subcategories are structured with name - expiry date.
+ * Format example:
+ *  !Dairy
+ *  ?Milk - 14
+ *  Chocolate Milk, 14% fat
+ * The file is parsed in one pass while its hash is computed, categories and subcategories are resolved in memory
+ * and everything is written in one transaction, so the inserts can be sent in JDBC batches.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogImportService {
+
+    private final CategoryRepository categoryRepository;
+
+    private final SubCategoryRepository subCategoryRepository;
+
+    private final GroceryRepository groceryRepository;
+
+    private final CatalogImportRepository catalogImportRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Logger logger = LoggerFactory.getLogger(CatalogImportService.class);
+
+    /**
+     * Imports a catalog file.
+     * A full import only writes to a database without a catalog. An incremental import is skipped when the
+     * hash of the file matches the last import of the file, and otherwise inserts new and updates changed
+     * categories, subcategories and groceries. Groceries missing from the file are kept, since they can be in use.
+     *
+     * @param file the catalog file
+     * @param mode how the catalog is imported
+     * @return number of categories, subcategories and groceries inserted or updated
+     * @throws IOException if the file could not be read
+     */
+    @Transactional
+    public int importCatalog(Path file, CatalogImportMode mode) throws IOException {
+        String source = file.getFileName().toString();
+        if (mode == CatalogImportMode.FULL && categoryRepository.count() > 0
+                && subCategoryRepository.count() > 0 && groceryRepository.count() > 0) {
+            logger.info("Catalog already present, skipping full import of {}", source);
+            return 0;
+        }
+
+        ParsedCatalog catalog = parse(file);
+        Optional<CatalogImport> lastImport = catalogImportRepository.findBySource(source);
+        if (mode == CatalogImportMode.INCREMENTAL && lastImport.isPresent()
+                && lastImport.get().getContentHash().equals(catalog.contentHash)) {
+            logger.info("Catalog {} unchanged since {}, skipping import", source, lastImport.get().getImportedAt());
+            return 0;
+        }
+
+        int changes = upsert(catalog);
+        if (changes > 0) {
+            eventPublisher.publishEvent(GroceriesChangedEvent.imported());
+        }
+
+        CatalogImport catalogImport = lastImport.orElseGet(() -> CatalogImport.builder().source(source).build());
+        catalogImport.setContentHash(catalog.contentHash);
+        catalogImport.setImportedAt(LocalDateTime.now());
+        catalogImport.setGroceryCount(catalog.groceries.size());
+        catalogImportRepository.save(catalogImport);
+        logger.info("Imported catalog {} with {} changes", source, changes);
+        return changes;
+    }
+
+    /**
+     * Matches the parsed catalog against the stored one by name, and saves what is new or changed.
+     * Categories and subcategories are matched by name, groceries by subcategory name and description.
+     *
+     * @param catalog the parsed catalog
+     * @return number of inserted or updated entities
+     */
+    private int upsert(ParsedCatalog catalog) {
+        Map<String, Category> storedCategories = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            storedCategories.putIfAbsent(category.getName(), category);
+        }
+        Map<String, SubCategory> storedSubCategories = new HashMap<>();
+        for (SubCategory subCategory : subCategoryRepository.findAll()) {
+            storedSubCategories.putIfAbsent(subCategory.getName(), subCategory);
+        }
+        Map<String, Deque<Grocery>> storedGroceries = new HashMap<>();
+        for (Grocery grocery : groceryRepository.findAll()) {
+            if (grocery.getSubCategory() != null) {
+                storedGroceries.computeIfAbsent(groceryKey(grocery.getSubCategory().getName(), grocery.getDescription()),
+                        key -> new ArrayDeque<>()).add(grocery);
+            }
+        }
+
+        int changes = 0;
+        Map<Category, Category> resolvedCategories = new IdentityHashMap<>();
+        List<Category> newCategories = new ArrayList<>();
+        for (Category parsed : catalog.categories) {
+            Category stored = storedCategories.get(parsed.getName());
+            if (stored == null) {
+                stored = parsed;
+                newCategories.add(parsed);
+                changes++;
+            }
+            resolvedCategories.put(parsed, stored);
+        }
+        categoryRepository.saveAll(newCategories);
+
+        Map<SubCategory, SubCategory> resolvedSubCategories = new IdentityHashMap<>();
+        List<SubCategory> changedSubCategories = new ArrayList<>();
+        for (SubCategory parsed : catalog.subCategories) {
+            Category category = resolvedCategories.get(parsed.getCategory());
+            SubCategory stored = storedSubCategories.get(parsed.getName());
+            if (stored == null) {
+                parsed.setCategory(category);
+                stored = parsed;
+                changedSubCategories.add(stored);
+            } else if (stored.getCategory() == null || stored.getCategory().getId() != category.getId()
+                    || stored.getCategoryExpiryDays() != parsed.getCategoryExpiryDays()) {
+                stored.setCategory(category);
+                stored.setCategoryExpiryDays(parsed.getCategoryExpiryDays());
+                changedSubCategories.add(stored);
+            }
+            resolvedSubCategories.put(parsed, stored);
+        }
+        subCategoryRepository.saveAll(changedSubCategories);
+        changes += changedSubCategories.size();
+
+        List<Grocery> changedGroceries = new ArrayList<>();
+        for (Grocery parsed : catalog.groceries) {
+            SubCategory subCategory = resolvedSubCategories.get(parsed.getSubCategory());
+            Deque<Grocery> matches = storedGroceries.get(groceryKey(subCategory.getName(), parsed.getDescription()));
+            Grocery stored = matches == null ? null : matches.poll();
+            if (stored == null) {
+                parsed.setSubCategory(subCategory);
+                changedGroceries.add(parsed);
+            } else if (!Objects.equals(stored.getName(), parsed.getName())
+                    || stored.getGroceryExpiryDays() != parsed.getGroceryExpiryDays()
+                    || stored.getSubCategory().getId() != subCategory.getId()) {
+                stored.setName(parsed.getName());
+                stored.setGroceryExpiryDays(parsed.getGroceryExpiryDays());
+                stored.setSubCategory(subCategory);
+                changedGroceries.add(stored);
+            }
+        }
+        groceryRepository.saveAll(changedGroceries);
+        changes += changedGroceries.size();
+        return changes;
+    }
+
+    /**
+     * Reads the catalog file in one pass, computing its hash while reading.
+     *
+     * @param file the catalog file
+     * @return the unsaved categories, subcategories and groceries of the file, in file order
+     * @throws IOException if the file could not be read
+     */
+    private ParsedCatalog parse(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        ParsedCatalog catalog = new ParsedCatalog();
+        Category category = null;
+        SubCategory subCategory = null;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new DigestInputStream(Files.newInputStream(file), digest), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.contains("!")) {
+                    category = Category.builder()
+                            .name(line.replaceAll("\\!", ""))
+                            .build();
+                    catalog.categories.add(category);
+                } else if (line.contains("?")) {
+                    String[] dataSplit = line.replaceAll("\\?", "").split("-");
+                    subCategory = SubCategory.builder()
+                            .name(dataSplit[0])
+                            .category(category)
+                            .categoryExpiryDays(Integer.parseInt(dataSplit[1].strip()))
+                            .build();
+                    catalog.subCategories.add(subCategory);
+                } else if (!line.isBlank()) {
+                    if (subCategory == null) {
+                        logger.warn("Skipping grocery without subcategory: {}", line);
+                        continue;
+                    }
+                    String[] csvData = line.split(",");
+                    catalog.groceries.add(Grocery.builder()
+                            .name(csvData[0])
+                            .description(String.join(", ", csvData))
+                            .subCategory(subCategory)
+                            .groceryExpiryDays(subCategory.getCategoryExpiryDays())
+                            .build());
+                }
+            }
+        }
+        catalog.contentHash = HexFormat.of().formatHex(digest.digest());
+        return catalog;
+    }
+
+    private static String groceryKey(String subCategoryName, String description) {
+        return subCategoryName + "\n" + description;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The unsaved content of a catalog file.
+     */
+    private static class ParsedCatalog {
+        private final List<Category> categories = new ArrayList<>();
+        private final List<SubCategory> subCategories = new ArrayList<>();
+        private final List<Grocery> groceries = new ArrayList<>();
+        private String contentHash;
+    }
+}
@@ -0,0 +1,54 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Runs the expiry notification sweep once a day, and on demand.
+ * The sweep holds a database lock while it runs, so only one node sweeps when several instances are deployed.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExpiryNotificationScheduler {
+
+    static final String LOCK_NAME = "expiry-notification-sweep";
+
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(30);
+
+    private final NotificationService notificationService;
+    private final SchedulerLockService schedulerLockService;
+
+    private final Logger logger = LoggerFactory.getLogger(ExpiryNotificationScheduler.class);
+
+    /**
+     * Runs the sweep on the schedule set by notifications.sweep.cron, by default every night after midnight.
+     */
+    @Scheduled(cron = "${notifications.sweep.cron:0 5 0 * * *}")
+    public void scheduledSweep() {
+        sweep();
+    }
+
+    /**
+     * Runs the sweep if no other node is running it.
+     *
+     * @return number of notifications created, or empty if the sweep is running on another node
+     */
+    public Optional<Integer> sweep() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, LOCK_AT_MOST_FOR)) {
+            logger.info("Expiry sweep is already running on another node");
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(notificationService.sweepExpiringGroceries(LocalDate.now()));
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package ntnu.idatt2106.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+import ntnu.idatt2106.backend.model.dto.catalog.CatalogCategoryDTO;
+import ntnu.idatt2106.backend.model.dto.catalog.CatalogColumnsDTO;
+import ntnu.idatt2106.backend.model.dto.catalog.CatalogGroceryDTO;
+import ntnu.idatt2106.backend.model.dto.catalog.CatalogRowsDTO;
+import ntnu.idatt2106.backend.model.dto.catalog.CatalogSubCategoryDTO;
+import ntnu.idatt2106.backend.model.dto.shoppingListElement.GroceryDTOComparator;
+import ntnu.idatt2106.backend.model.enums.CatalogFormat;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds the grocery catalog in memory as an immutable snapshot, with the JSON of the catalog already serialized
+ * and compressed. The snapshot is built again on the next read after groceries are saved, and checked against
+ * the database every catalog.snapshot.refresh-ms milliseconds for changes made by other nodes.
+ * The ETag is a hash of the JSON, so it only changes when the catalog does.
+ * The catalog is serialized in every {@link CatalogFormat}. The formats other than the list send each category and
+ * subcategory once instead of once per grocery, and are serialized from plain DTOs instead of the entities.
+ */
+@Service
+public class GroceryCatalogService {
+
+    private final GroceryRepository groceryRepository;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong version = new AtomicLong();
+    private volatile CatalogSnapshot snapshot;
+
+    private final Logger logger = LoggerFactory.getLogger(GroceryCatalogService.class);
+
+    public GroceryCatalogService(GroceryRepository groceryRepository, ObjectMapper objectMapper) {
+        this.groceryRepository = groceryRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the current snapshot of the catalog, built if the catalog has changed since the last one
+     */
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current != null && current.version() == version.get()) {
+            return current;
+        }
+        return build();
+    }
+
+    /**
+     * Marks the snapshot as outdated when groceries are saved or imported. Runs after the transaction that
+     * changed the groceries has committed, so a read before the commit can not build a snapshot without them.
+     *
+     * @param event the changed groceries
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroceriesChanged(GroceriesChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Builds the snapshot again from the database on the schedule set by catalog.snapshot.refresh-ms.
+     * Clients keep their ETag if nothing has changed.
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-ms:300000}", initialDelayString = "${catalog.snapshot.refresh-ms:300000}")
+    public void refresh() {
+        version.incrementAndGet();
+        build();
+    }
+
+    private synchronized CatalogSnapshot build() {
+        long buildVersion = version.get();
+        CatalogSnapshot current = snapshot;
+        if (current != null && current.version() == buildVersion) {
+            return current;
+        }
+        List<GroceryDTO> groceries = groceryRepository.findAllWithCategories().stream()
+                .map(GroceryDTO::new)
+                .sorted(new GroceryDTOComparator())
+                .toList();
+        byte[] json = serialize(groceries);
+        String hash = sha256(json);
+        if (current != null && current.hash().equals(hash)) {
+            snapshot = current.withVersion(buildVersion);
+            return snapshot;
+        }
+
+        Map<Long, CatalogSubCategoryDTO> subCategories = new TreeMap<>();
+        Map<Long, CatalogCategoryDTO> categories = new TreeMap<>();
+        for (GroceryDTO grocery : groceries) {
+            SubCategory subCategory = grocery.getSubCategory();
+            if (subCategory != null) {
+                subCategories.computeIfAbsent(subCategory.getId(), id -> new CatalogSubCategoryDTO(subCategory));
+                if (subCategory.getCategory() != null) {
+                    categories.computeIfAbsent(subCategory.getCategory().getId(), id -> new CatalogCategoryDTO(subCategory.getCategory()));
+                }
+            }
+        }
+        List<CatalogCategoryDTO> categoryList = List.copyOf(categories.values());
+        List<CatalogSubCategoryDTO> subCategoryList = List.copyOf(subCategories.values());
+        List<CatalogGroceryDTO> rows = groceries.stream().map(CatalogGroceryDTO::new).toList();
+
+        Map<CatalogFormat, CatalogPayload> payloads = new EnumMap<>(CatalogFormat.class);
+        payloads.put(CatalogFormat.LIST, payload(hash, "", json));
+        payloads.put(CatalogFormat.ROWS, payload(hash, "-rows", serialize(
+                new CatalogRowsDTO(categoryList, subCategoryList, CatalogRowsDTO.GROCERY_FIELDS, rows))));
+        payloads.put(CatalogFormat.COLUMNS, payload(hash, "-columns", serialize(
+                new CatalogColumnsDTO(categoryList, subCategoryList, new CatalogColumnsDTO.GroceryColumns(rows)))));
+        snapshot = new CatalogSnapshot(buildVersion, hash, groceries, Collections.unmodifiableMap(payloads));
+        logger.info("Built grocery catalog snapshot with {} groceries, {} bytes as a list and {} bytes as rows, {} and {} bytes compressed",
+                groceries.size(), json.length, snapshot.payload(CatalogFormat.ROWS).json().length,
+                snapshot.payload(CatalogFormat.LIST).gzippedJson().length, snapshot.payload(CatalogFormat.ROWS).gzippedJson().length);
+        return snapshot;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the grocery catalog", e);
+        }
+    }
+
+    private static CatalogPayload payload(String hash, String suffix, byte[] json) {
+        return new CatalogPayload("\"" + hash + suffix + "\"", "\"" + hash + suffix + "-gzip\"", json, gzip(json));
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * An immutable snapshot of the catalog. The arrays are never changed after the snapshot is built,
+     * and must not be changed by callers.
+     *
+     * @param version the version of the catalog the snapshot was built from
+     * @param hash hex SHA-256 hash of the JSON of the list of groceries
+     * @param groceries the groceries, sorted
+     * @param payloads the catalog serialized in each format
+     */
+    public record CatalogSnapshot(long version, String hash, List<GroceryDTO> groceries, Map<CatalogFormat, CatalogPayload> payloads) {
+
+        /**
+         * @param format the format of the catalog
+         * @return the catalog serialized in the format
+         */
+        public CatalogPayload payload(CatalogFormat format) {
+            return payloads.get(format);
+        }
+
+        private CatalogSnapshot withVersion(long version) {
+            return new CatalogSnapshot(version, hash, groceries, payloads);
+        }
+    }
+
+    /**
+     * The catalog serialized in one format.
+     *
+     * @param etag strong ETag of the JSON
+     * @param gzipEtag strong ETag of the compressed JSON, which is a different representation
+     * @param json the catalog serialized as JSON
+     * @param gzippedJson the JSON compressed with gzip
+     */
+    public record CatalogPayload(String etag, String gzipEtag, byte[] json, byte[] gzippedJson) {
+    }
+}
@@ -0,0 +1,330 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Typo tolerant search over the grocery catalog, from an in-memory inverted index of the trigrams of the names and
+ * descriptions of the groceries. A grocery matches when at least catalog.fuzzy.min-similarity of the trigrams of the
+ * query are in the grocery, so "gietmelk" finds "Geitmelk, langtidsholdbar". The best covered groceries rank first,
+ * then the groceries whose name is most similar to the query.
+ * Saved groceries are searched next to the index until it is built again every catalog.fuzzy.refresh-ms milliseconds.
+ */
+@Service
+public class GroceryFuzzySearchService {
+
+    private final GroceryRepository groceryRepository;
+    private final double minSimilarity;
+    private final GroceryIndex<TrigramIndex> index;
+
+    private final Logger logger = LoggerFactory.getLogger(GroceryFuzzySearchService.class);
+
+    public GroceryFuzzySearchService(GroceryRepository groceryRepository,
+                                     @Value("${catalog.fuzzy.min-similarity:0.5}") double minSimilarity) {
+        this.groceryRepository = groceryRepository;
+        this.minSimilarity = minSimilarity;
+        this.index = new GroceryIndex<>(this::buildIndex, TrigramIndex::with);
+    }
+
+    /**
+     * Finds the groceries most similar to a query.
+     *
+     * @param query the text typed by the user
+     * @param subCategoryId only groceries of this subcategory, or null for all
+     * @param categoryId only groceries of this category, or null for all
+     * @param limit the maximum number of groceries
+     * @return the matching groceries, best first
+     */
+    public List<GroceryDTO> search(String query, Long subCategoryId, Long categoryId, int limit) {
+        long[] queryTrigrams = trigrams(query);
+        if (queryTrigrams.length == 0) {
+            return List.of();
+        }
+        return index.get().search(queryTrigrams, subCategoryId, categoryId, minSimilarity, limit);
+    }
+
+    /**
+     * Adds saved groceries to the search, or drops the index when the catalog was imported.
+     * Runs after the transaction that changed the groceries has committed.
+     *
+     * @param event the changed groceries
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroceriesChanged(GroceriesChangedEvent event) {
+        index.update(event);
+    }
+
+    /**
+     * Builds the index again from the catalog, which also indexes the groceries saved since the last build.
+     */
+    @Scheduled(fixedDelayString = "${catalog.fuzzy.refresh-ms:600000}", initialDelayString = "${catalog.fuzzy.refresh-ms:600000}")
+    public void rebuild() {
+        index.rebuild();
+    }
+
+    private TrigramIndex buildIndex() {
+        List<GroceryDTO> groceries = groceryRepository.findAllWithCategories().stream().map(GroceryDTO::new).toList();
+        TrigramIndex built = new TrigramIndex(groceries);
+        logger.info("Built grocery trigram index with {} groceries, {} trigrams and {} postings",
+                groceries.size(), built.keys.length, built.postings.length);
+        return built;
+    }
+
+    /**
+     * Splits a text into the trigrams of its words, with each word padded by two spaces in front and one behind,
+     * so the start of a word weighs more than the end. A trigram is packed into a long with 16 bits per char.
+     *
+     * @return the distinct trigrams, sorted
+     */
+    static long[] trigrams(String text) {
+        List<String> words = GroceryTypeaheadService.words(text);
+        int count = 0;
+        for (String word : words) {
+            count += word.length() + 1;
+        }
+        long[] trigrams = new long[count];
+        int t = 0;
+        for (String word : words) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams[t++] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+            }
+        }
+        return Arrays.stream(trigrams).sorted().distinct().toArray();
+    }
+
+    /**
+     * An immutable trigram index. The postings of all trigrams are kept in one array, in the order of the sorted
+     * trigrams, so a trigram is looked up with a binary search and the index takes memory in proportion to the
+     * number of groceries. A posting is the position of the grocery shifted left by one, with the lowest bit set
+     * when the trigram is in the name of the grocery. Groceries added after the index was built are kept apart
+     * and compared one by one.
+     */
+    static final class TrigramIndex {
+        private final GroceryDTO[] groceries;
+        private final int[] nameTrigramCounts;
+        private final long[] subCategoryIds;
+        private final long[] categoryIds;
+        private final long[] keys;
+        private final int[] offsets;
+        private final int[] postings;
+        private final List<AddedGrocery> added;
+        private final Set<Long> ids;
+
+        TrigramIndex(List<GroceryDTO> groceryList) {
+            int size = groceryList.size();
+            groceries = groceryList.toArray(new GroceryDTO[0]);
+            nameTrigramCounts = new int[size];
+            subCategoryIds = new long[size];
+            categoryIds = new long[size];
+            added = List.of();
+            ids = new HashSet<>();
+
+            Map<Long, int[]> counts = new HashMap<>();
+            int postingCount = 0;
+            for (int i = 0; i < size; i++) {
+                GroceryDTO grocery = groceries[i];
+                ids.add(grocery.getId());
+                subCategoryIds[i] = subCategoryId(grocery);
+                categoryIds[i] = categoryId(grocery);
+                nameTrigramCounts[i] = trigrams(grocery.getName()).length;
+                for (long trigram : groceryTrigrams(grocery)) {
+                    counts.computeIfAbsent(trigram, key -> new int[1])[0]++;
+                    postingCount++;
+                }
+            }
+
+            keys = counts.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            offsets = new int[keys.length + 1];
+            for (int k = 0; k < keys.length; k++) {
+                offsets[k + 1] = offsets[k] + counts.get(keys[k])[0];
+            }
+            postings = new int[postingCount];
+            int[] cursors = Arrays.copyOf(offsets, keys.length);
+            for (int i = 0; i < size; i++) {
+                long[] nameTrigrams = trigrams(groceries[i].getName());
+                for (long trigram : groceryTrigrams(groceries[i])) {
+                    int inName = Arrays.binarySearch(nameTrigrams, trigram) >= 0 ? 1 : 0;
+                    postings[cursors[Arrays.binarySearch(keys, trigram)]++] = i << 1 | inName;
+                }
+            }
+        }
+
+        private TrigramIndex(TrigramIndex previous, List<AddedGrocery> added) {
+            groceries = previous.groceries;
+            nameTrigramCounts = previous.nameTrigramCounts;
+            subCategoryIds = previous.subCategoryIds;
+            categoryIds = previous.categoryIds;
+            keys = previous.keys;
+            offsets = previous.offsets;
+            postings = previous.postings;
+            this.added = added;
+            ids = new HashSet<>(previous.ids);
+            added.forEach(grocery -> ids.add(grocery.grocery().getId()));
+        }
+
+        /**
+         * @return a new index with the grocery added, or this index if it already has the grocery
+         */
+        TrigramIndex with(GroceryDTO groceryDTO) {
+            if (ids.contains(groceryDTO.getId())) {
+                return this;
+            }
+            List<AddedGrocery> addedGroceries = new ArrayList<>(added);
+            addedGroceries.add(new AddedGrocery(groceryDTO, groceryTrigrams(groceryDTO), trigrams(groceryDTO.getName())));
+            return new TrigramIndex(this, List.copyOf(addedGroceries));
+        }
+
+        List<GroceryDTO> search(long[] queryTrigrams, Long subCategoryId, Long categoryId, double minSimilarity, int limit) {
+            int minMatches = Math.max(1, (int) Math.ceil(minSimilarity * queryTrigrams.length));
+            PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Comparator.reverseOrder());
+
+            int[] starts = new int[queryTrigrams.length];
+            int[] ends = new int[queryTrigrams.length];
+            int lists = 0;
+            for (long trigram : queryTrigrams) {
+                int k = Arrays.binarySearch(keys, trigram);
+                if (k >= 0) {
+                    // Keeps the posting lists sorted by length, shortest first
+                    int l = lists++;
+                    while (l > 0 && ends[l - 1] - starts[l - 1] > offsets[k + 1] - offsets[k]) {
+                        starts[l] = starts[l - 1];
+                        ends[l] = ends[l - 1];
+                        l--;
+                    }
+                    starts[l] = offsets[k];
+                    ends[l] = offsets[k + 1];
+                }
+            }
+
+            // A grocery with minMatches of the trigrams is in at least one of the shortest lists - minMatches + 1
+            // posting lists. Only those are merged, which are sorted by grocery, and the groceries found in them are
+            // looked up in the longer lists.
+            int merged = lists - minMatches + 1;
+            while (merged > 0) {
+                int grocery = Integer.MAX_VALUE;
+                for (int l = 0; l < merged; l++) {
+                    if (starts[l] < ends[l]) {
+                        grocery = Math.min(grocery, postings[starts[l]] >>> 1);
+                    }
+                }
+                if (grocery == Integer.MAX_VALUE) {
+                    break;
+                }
+                int matches = 0;
+                int nameMatches = 0;
+                for (int l = 0; l < merged; l++) {
+                    if (starts[l] < ends[l] && postings[starts[l]] >>> 1 == grocery) {
+                        matches++;
+                        nameMatches += postings[starts[l]] & 1;
+                        starts[l]++;
+                    }
+                }
+                for (int l = merged; l < lists && matches + lists - l >= minMatches; l++) {
+                    int position = Arrays.binarySearch(postings, starts[l], ends[l], grocery << 1);
+                    if (position < 0) {
+                        position = -position - 1;
+                        if (position == ends[l] || postings[position] != (grocery << 1 | 1)) {
+                            starts[l] = position;
+                            continue;
+                        }
+                    }
+                    matches++;
+                    nameMatches += postings[position] & 1;
+                    starts[l] = position + 1;
+                }
+                if (matches >= minMatches && matchesFilter(subCategoryIds[grocery], categoryIds[grocery], subCategoryId, categoryId)) {
+                    offer(best, match(groceries[grocery], queryTrigrams.length, matches, nameMatches,
+                            nameTrigramCounts[grocery]), limit);
+                }
+            }
+
+            for (AddedGrocery addedGrocery : added) {
+                GroceryDTO grocery = addedGrocery.grocery();
+                int matches = countMatches(queryTrigrams, addedGrocery.trigrams());
+                if (matches >= minMatches && matchesFilter(subCategoryId(grocery), categoryId(grocery), subCategoryId, categoryId)) {
+                    offer(best, match(grocery, queryTrigrams.length, matches,
+                            countMatches(queryTrigrams, addedGrocery.nameTrigrams()), addedGrocery.nameTrigrams().length), limit);
+                }
+            }
+
+            List<Match> ranked = new ArrayList<>(best);
+            Collections.sort(ranked);
+            return ranked.stream().map(Match::grocery).toList();
+        }
+
+        private static void offer(PriorityQueue<Match> best, Match match, int limit) {
+            best.add(match);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        private static Match match(GroceryDTO grocery, int queryTrigramCount, int matches, int nameMatches, int nameTrigramCount) {
+            double coverage = (double) matches / queryTrigramCount;
+            double nameSimilarity = (double) nameMatches / (queryTrigramCount + nameTrigramCount - nameMatches);
+            return new Match(grocery, coverage, nameSimilarity, grocery.getName() == null ? 0 : grocery.getName().length());
+        }
+
+        private static boolean matchesFilter(long grocerySubCategoryId, long groceryCategoryId, Long subCategoryId, Long categoryId) {
+            return (subCategoryId == null || grocerySubCategoryId == subCategoryId)
+                    && (categoryId == null || groceryCategoryId == categoryId);
+        }
+
+        private static int countMatches(long[] queryTrigrams, long[] trigrams) {
+            int matches = 0;
+            for (long trigram : queryTrigrams) {
+                if (Arrays.binarySearch(trigrams, trigram) >= 0) {
+                    matches++;
+                }
+            }
+            return matches;
+        }
+
+        private static long[] groceryTrigrams(GroceryDTO grocery) {
+            String description = grocery.getDescription();
+            return trigrams(description == null ? grocery.getName() : grocery.getName() + " " + description);
+        }
+
+        private static long subCategoryId(GroceryDTO grocery) {
+            SubCategory subCategory = grocery.getSubCategory();
+            return subCategory == null ? -1 : subCategory.getId();
+        }
+
+        private static long categoryId(GroceryDTO grocery) {
+            SubCategory subCategory = grocery.getSubCategory();
+            return subCategory == null || subCategory.getCategory() == null ? -1 : subCategory.getCategory().getId();
+        }
+
+        private record AddedGrocery(GroceryDTO grocery, long[] trigrams, long[] nameTrigrams) {
+        }
+
+        /**
+         * A matching grocery. Orders the best match first: most of the query covered, then the name most similar
+         * to the query, then the shortest name.
+         */
+        private record Match(GroceryDTO grocery, double coverage, double nameSimilarity, int nameLength) implements Comparable<Match> {
+            @Override
+            public int compareTo(Match other) {
+                int compare = Double.compare(other.coverage, coverage);
+                if (compare == 0) {
+                    compare = Double.compare(other.nameSimilarity, nameSimilarity);
+                }
+                if (compare == 0) {
+                    compare = Integer.compare(nameLength, other.nameLength);
+                }
+                return compare != 0 ? compare : Long.compare(grocery.getId(), other.grocery.getId());
+            }
+        }
+    }
+}
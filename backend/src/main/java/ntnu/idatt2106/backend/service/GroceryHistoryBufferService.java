@@ -0,0 +1,297 @@
+package ntnu.idatt2106.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import ntnu.idatt2106.backend.model.GroceryHistory;
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for the grocery history. Eaten and trashed groceries are put in a bounded queue when the
+ * transaction of the request commits, and written in batches by a background thread, when a batch is full or
+ * every statistics.history-buffer.flush-ms milliseconds. A batch is written in one transaction, with one update
+ * per month instead of one per grocery.
+ * Requests never write the history themselves, so they use no connections besides their own. When the queue is full
+ * a flush is started and the request waits up to statistics.history-buffer.offer-wait-ms milliseconds for room,
+ * and keeps the history for the next flush if there is still none. Histories kept for the next flush, like those
+ * that could not be written because the database could not be reached, are written again by the next flush,
+ * up to statistics.history-buffer.capacity of them; histories beyond that are dropped and logged as errors.
+ * The queue is flushed when the application shuts down. The statistics can lag behind by one flush.
+ */
+@Service
+public class GroceryHistoryBufferService {
+
+    private final GroceryHistoryRepository groceryHistoryRepository;
+    private final GroceryHistoryMonthService groceryHistoryMonthService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService flushExecutor;
+    private final BlockingQueue<GroceryHistory> queue;
+    private final int batchSize;
+    private final int failedCapacity;
+    private final long offerWaitMillis;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    /**
+     * Histories to write again, guarded by its own monitor since requests add to it without the flush lock.
+     */
+    private final List<GroceryHistory> failed = new ArrayList<>();
+
+    private final Logger logger = LoggerFactory.getLogger(GroceryHistoryBufferService.class);
+
+    @Autowired
+    public GroceryHistoryBufferService(GroceryHistoryRepository groceryHistoryRepository,
+                                       GroceryHistoryMonthService groceryHistoryMonthService,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${statistics.history-buffer.capacity:10000}") int capacity,
+                                       @Value("${statistics.history-buffer.batch-size:500}") int batchSize,
+                                       @Value("${statistics.history-buffer.offer-wait-ms:100}") long offerWaitMillis) {
+        this(groceryHistoryRepository, groceryHistoryMonthService, transactionManager, capacity, batchSize, offerWaitMillis,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "grocery-history-flush");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    GroceryHistoryBufferService(GroceryHistoryRepository groceryHistoryRepository,
+                                GroceryHistoryMonthService groceryHistoryMonthService,
+                                PlatformTransactionManager transactionManager,
+                                int capacity, int batchSize, long offerWaitMillis, ExecutorService flushExecutor) {
+        this.groceryHistoryRepository = groceryHistoryRepository;
+        this.groceryHistoryMonthService = groceryHistoryMonthService;
+        // Every batch commits on its own, also when flush is called inside a transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.failedCapacity = capacity;
+        this.batchSize = batchSize;
+        this.offerWaitMillis = offerWaitMillis;
+        this.flushExecutor = flushExecutor;
+    }
+
+    /**
+     * Adds a history to the buffer. Inside a transaction it is added when the transaction commits,
+     * so history of a request that fails is never written.
+     *
+     * @param groceryHistory the history to write
+     */
+    public void add(GroceryHistory groceryHistory) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(groceryHistory);
+                }
+            });
+        } else {
+            enqueue(groceryHistory);
+        }
+    }
+
+    /**
+     * Writes the buffered history on the schedule set by statistics.history-buffer.flush-ms.
+     */
+    @Scheduled(fixedDelayString = "${statistics.history-buffer.flush-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Writes all buffered history, one batch per transaction. Stops at the first batch that could not be written.
+     *
+     * @return number of histories written
+     */
+    public synchronized int flush() {
+        int written = 0;
+        List<GroceryHistory> retry = takeFailed();
+        if (!retry.isEmpty()) {
+            written += writeBatch(retry);
+            if (hasFailed()) {
+                return written;
+            }
+        }
+        List<GroceryHistory> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            written += writeBatch(batch);
+            if (hasFailed()) {
+                break;
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+        return written;
+    }
+
+    /**
+     * @return number of histories waiting to be written
+     */
+    public int getPendingCount() {
+        synchronized (failed) {
+            return queue.size() + failed.size();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+        synchronized (failed) {
+            if (!failed.isEmpty()) {
+                logger.error("Could not write {} grocery histories before shutdown", failed.size());
+            }
+        }
+    }
+
+    private void enqueue(GroceryHistory groceryHistory) {
+        if (queue.offer(groceryHistory)) {
+            if (queue.size() >= batchSize) {
+                scheduleFlush();
+            }
+            return;
+        }
+        scheduleFlush();
+        if (!offerWithinWait(groceryHistory)) {
+            logger.warn("Grocery history buffer is still full after {} ms, keeping the history for the next flush",
+                    offerWaitMillis);
+            keepFailed(List.of(groceryHistory));
+        }
+    }
+
+    /**
+     * Waits for room in the queue while the flush thread writes it.
+     */
+    private boolean offerWithinWait(GroceryHistory groceryHistory) {
+        try {
+            return queue.offer(groceryHistory, offerWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushScheduled.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private List<GroceryHistory> takeFailed() {
+        synchronized (failed) {
+            List<GroceryHistory> taken = new ArrayList<>(failed);
+            failed.clear();
+            return taken;
+        }
+    }
+
+    private boolean hasFailed() {
+        synchronized (failed) {
+            return !failed.isEmpty();
+        }
+    }
+
+    /**
+     * Keeps histories to write again on the next flush, and drops the ones that do not fit.
+     */
+    private void keepFailed(List<GroceryHistory> histories) {
+        int dropped;
+        synchronized (failed) {
+            int kept = Math.max(0, Math.min(histories.size(), failedCapacity - failed.size()));
+            failed.addAll(histories.subList(0, kept));
+            dropped = histories.size() - kept;
+        }
+        if (dropped > 0) {
+            logger.error("Dropping {} grocery histories, {} histories are already waiting to be written again",
+                    dropped, failedCapacity);
+        }
+    }
+
+    /**
+     * Writes a batch. If a history in it can not be written, the batch is written one history at a time and the
+     * histories that still fail, for example because their refrigerator is deleted, are dropped. If the database
+     * can not be reached, the batch is kept for the next flush.
+     */
+    private int writeBatch(List<GroceryHistory> batch) {
+        try {
+            write(batch);
+            return batch.size();
+        } catch (DataIntegrityViolationException e) {
+            int written = 0;
+            for (GroceryHistory groceryHistory : batch) {
+                try {
+                    write(List.of(groceryHistory));
+                    written++;
+                } catch (DataIntegrityViolationException rowException) {
+                    logger.error("Dropping grocery history of refrigerator {}: {}",
+                            groceryHistory.getRefrigerator().getId(), rowException.getMessage());
+                } catch (DataAccessException rowException) {
+                    keepFailed(List.of(groceryHistory));
+                }
+            }
+            return written;
+        } catch (DataAccessException e) {
+            logger.warn("Could not write {} grocery histories, trying again on the next flush: {}",
+                    batch.size(), e.getMessage());
+            keepFailed(batch);
+            return 0;
+        }
+    }
+
+    /**
+     * Writes histories, once more if the first attempt fails on a constraint, which happens when another writer
+     * created one of their months first. The month exists on the second attempt.
+     */
+    private void write(List<GroceryHistory> histories) {
+        try {
+            writeInTransaction(histories);
+        } catch (DataIntegrityViolationException e) {
+            writeInTransaction(histories);
+        }
+    }
+
+    /**
+     * Saves histories and adds them to their months, with one update per month, in one transaction.
+     */
+    private void writeInTransaction(List<GroceryHistory> histories) {
+        transactionTemplate.executeWithoutResult(status -> {
+            groceryHistoryRepository.saveAll(histories);
+            Map<MonthKey, long[]> sums = new HashMap<>();
+            Map<Long, Refrigerator> refrigerators = new HashMap<>();
+            for (GroceryHistory groceryHistory : histories) {
+                Refrigerator refrigerator = groceryHistory.getRefrigerator();
+                refrigerators.putIfAbsent(refrigerator.getId(), refrigerator);
+                long[] sum = sums.computeIfAbsent(new MonthKey(refrigerator.getId(),
+                        YearMonth.from(groceryHistory.getDateConsumed())), key -> new long[4]);
+                int offset = groceryHistory.isWasTrashed() ? 2 : 0;
+                sum[offset] += groceryHistory.getWeightInGrams();
+                sum[offset + 1]++;
+            }
+            sums.forEach((key, sum) -> groceryHistoryMonthService.add(refrigerators.get(key.refrigeratorId()),
+                    key.month().atDay(1), sum[0], sum[1], sum[2], sum[3]));
+        });
+    }
+
+    private record MonthKey(long refrigeratorId, YearMonth month) {
+    }
+}
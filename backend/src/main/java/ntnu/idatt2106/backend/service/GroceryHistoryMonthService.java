@@ -0,0 +1,221 @@
+package ntnu.idatt2106.backend.service;
+
+import jakarta.persistence.EntityManager;
+import ntnu.idatt2106.backend.model.GroceryHistoryMonth;
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.dto.GroceryHistoryMonthKeyDTO;
+import ntnu.idatt2106.backend.model.dto.GroceryHistoryMonthSumDTO;
+import ntnu.idatt2106.backend.repository.GroceryHistoryMonthRepository;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Service for the monthly sums of the grocery history, which the statistics are read from.
+ * A month is added to, or created, in the same transaction as the history it sums. The months
+ * can also be built again from the history by {@link #backfill()}, which runs at startup if there are none.
+ * The raw history is only kept for statistics.retention.raw-days days, see {@link GroceryHistoryRetentionService},
+ * so older months are only built from the history if they are missing.
+ */
+@Service
+public class GroceryHistoryMonthService {
+
+    static final String BACKFILL_LOCK_NAME = "grocery-history-backfill";
+
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(30);
+
+    private final GroceryHistoryMonthRepository groceryHistoryMonthRepository;
+    private final GroceryHistoryRepository groceryHistoryRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int rawRetentionDays;
+
+    private final Logger logger = LoggerFactory.getLogger(GroceryHistoryMonthService.class);
+
+    public GroceryHistoryMonthService(GroceryHistoryMonthRepository groceryHistoryMonthRepository,
+                                      GroceryHistoryRepository groceryHistoryRepository,
+                                      SchedulerLockService schedulerLockService,
+                                      EntityManager entityManager,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${statistics.retention.raw-days:400}") int rawRetentionDays) {
+        this.groceryHistoryMonthRepository = groceryHistoryMonthRepository;
+        this.groceryHistoryRepository = groceryHistoryRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rawRetentionDays = rawRetentionDays;
+    }
+
+    /**
+     * Adds eaten and trashed groceries to their month with an atomic update, or creates the month with them if it
+     * is missing. Runs in the transaction of the caller, so no other connection is used. If another writer creates
+     * the same month first, the caller's transaction fails with a {@link DataIntegrityViolationException} and can
+     * be run again, when the month exists.
+     *
+     * @param refrigerator the refrigerator the groceries were in
+     * @param dateConsumed a date in the month the groceries were eaten or trashed
+     * @param eatenGrams the weight of the eaten groceries
+     * @param eatenCount the number of eaten groceries
+     * @param trashedGrams the weight of the trashed groceries
+     * @param trashedCount the number of trashed groceries
+     */
+    public void add(Refrigerator refrigerator, LocalDate dateConsumed,
+                    long eatenGrams, long eatenCount, long trashedGrams, long trashedCount) {
+        int statisticsMonth = GroceryHistoryMonth.toStatisticsMonth(YearMonth.from(dateConsumed));
+        if (groceryHistoryMonthRepository.addToMonth(refrigerator.getId(), statisticsMonth,
+                eatenGrams, eatenCount, trashedGrams, trashedCount) == 0) {
+            groceryHistoryMonthRepository.saveAndFlush(GroceryHistoryMonth.builder()
+                    .refrigerator(refrigerator)
+                    .statisticsMonth(statisticsMonth)
+                    .eatenGrams(eatenGrams)
+                    .eatenCount(eatenCount)
+                    .trashedGrams(trashedGrams)
+                    .trashedCount(trashedCount)
+                    .build());
+        }
+    }
+
+    /**
+     * Gets the months of a refrigerator between two months. Months without history are missing.
+     *
+     * @param refrigeratorId id of the refrigerator
+     * @param fromMonth the first month
+     * @param toMonth the last month
+     * @return the months with history
+     */
+    public Map<YearMonth, GroceryHistoryMonth> getMonths(long refrigeratorId, YearMonth fromMonth, YearMonth toMonth) {
+        Map<YearMonth, GroceryHistoryMonth> months = new HashMap<>();
+        for (GroceryHistoryMonth month : groceryHistoryMonthRepository.findByRefrigerator_IdAndStatisticsMonthBetween(
+                refrigeratorId, GroceryHistoryMonth.toStatisticsMonth(fromMonth), GroceryHistoryMonth.toStatisticsMonth(toMonth))) {
+            months.put(YearMonth.of(month.getStatisticsMonth() / 100, month.getStatisticsMonth() % 100), month);
+        }
+        return months;
+    }
+
+    /**
+     * Builds the months from the history when the application starts, if there are none yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (groceryHistoryMonthRepository.count() == 0 && groceryHistoryRepository.count() > 0) {
+            backfill();
+        }
+    }
+
+    /**
+     * Builds the months again from the history, in one transaction, if no other node is doing it.
+     * Months the raw history is still fully kept for are replaced, older months are only created if they are missing.
+     * Groceries eaten or trashed while this runs can be counted twice or not at all, so it should be
+     * run when the application is not in use.
+     *
+     * @return number of months built, or empty if the months are being built on another node
+     */
+    public Optional<Integer> backfill() {
+        if (!schedulerLockService.tryLock(BACKFILL_LOCK_NAME, LOCK_AT_MOST_FOR)) {
+            logger.info("Grocery history months are already being built on another node");
+            return Optional.empty();
+        }
+        try {
+            Integer built = transactionTemplate.execute(status -> rebuild(getFirstCompleteMonth(LocalDate.now())));
+            logger.info("Built {} grocery history months from the history", built);
+            return Optional.ofNullable(built);
+        } finally {
+            schedulerLockService.unlock(BACKFILL_LOCK_NAME);
+        }
+    }
+
+    /**
+     * Creates the months that are missing for history consumed before a date, so the history can be deleted
+     * without losing statistics. Existing months are not changed, they already include their history.
+     *
+     * @param date history consumed before this date is summed
+     * @return number of months created
+     */
+    @Transactional
+    public int addMissingMonths(LocalDate date) {
+        Set<MonthKey> existing = existingKeysBefore(YearMonth.from(date).plusMonths(1));
+        Map<MonthKey, GroceryHistoryMonth> months = new HashMap<>();
+        for (GroceryHistoryMonthSumDTO sum : groceryHistoryRepository.sumByRefrigeratorAndMonthBefore(date)) {
+            if (!existing.contains(keyOf(sum))) {
+                addSum(months, sum);
+            }
+        }
+        groceryHistoryMonthRepository.saveAll(months.values());
+        return months.size();
+    }
+
+    /**
+     * @param today the current date
+     * @return the first date that the raw history is kept from
+     */
+    LocalDate getFirstRawDate(LocalDate today) {
+        return today.minusDays(rawRetentionDays);
+    }
+
+    /**
+     * @param today the current date
+     * @return the first month that no raw history has been deleted from
+     */
+    YearMonth getFirstCompleteMonth(LocalDate today) {
+        return YearMonth.from(today.minusDays(rawRetentionDays)).plusMonths(1);
+    }
+
+    private int rebuild(YearMonth firstCompleteMonth) {
+        int firstCompleteStatisticsMonth = GroceryHistoryMonth.toStatisticsMonth(firstCompleteMonth);
+        groceryHistoryMonthRepository.deleteFromMonth(firstCompleteStatisticsMonth);
+        Set<MonthKey> existing = existingKeysBefore(firstCompleteMonth);
+        Map<MonthKey, GroceryHistoryMonth> months = new HashMap<>();
+        for (GroceryHistoryMonthSumDTO sum : groceryHistoryRepository.sumByRefrigeratorAndMonth()) {
+            MonthKey key = keyOf(sum);
+            if (key.statisticsMonth() >= firstCompleteStatisticsMonth || !existing.contains(key)) {
+                addSum(months, sum);
+            }
+        }
+        groceryHistoryMonthRepository.saveAll(months.values());
+        return months.size();
+    }
+
+    private Set<MonthKey> existingKeysBefore(YearMonth month) {
+        Set<MonthKey> keys = new HashSet<>();
+        for (GroceryHistoryMonthKeyDTO key : groceryHistoryMonthRepository.findKeysBeforeMonth(GroceryHistoryMonth.toStatisticsMonth(month))) {
+            keys.add(new MonthKey(key.getRefrigeratorId(), key.getStatisticsMonth()));
+        }
+        return keys;
+    }
+
+    private static MonthKey keyOf(GroceryHistoryMonthSumDTO sum) {
+        return new MonthKey(sum.getRefrigeratorId(),
+                GroceryHistoryMonth.toStatisticsMonth(YearMonth.of(sum.getYear(), sum.getMonth())));
+    }
+
+    private void addSum(Map<MonthKey, GroceryHistoryMonth> months, GroceryHistoryMonthSumDTO sum) {
+        GroceryHistoryMonth month = months.computeIfAbsent(keyOf(sum), key -> GroceryHistoryMonth.builder()
+                .refrigerator(entityManager.getReference(Refrigerator.class, key.refrigeratorId()))
+                .statisticsMonth(key.statisticsMonth())
+                .build());
+        if (sum.getWasTrashed()) {
+            month.setTrashedGrams(sum.getWeightInGrams());
+            month.setTrashedCount(sum.getCount());
+        } else {
+            month.setEatenGrams(sum.getWeightInGrams());
+            month.setEatenCount(sum.getCount());
+        }
+    }
+
+    private record MonthKey(long refrigeratorId, int statisticsMonth) {
+    }
+}
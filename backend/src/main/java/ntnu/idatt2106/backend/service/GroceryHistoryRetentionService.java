@@ -0,0 +1,119 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.GroceryHistoryMonth;
+import ntnu.idatt2106.backend.repository.GroceryHistoryMonthRepository;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Applies the retention of the grocery history in tiers. The raw history is kept for statistics.retention.raw-days
+ * days, and the monthly sums for statistics.retention.monthly-months months, or forever if it is 0.
+ * Raw history is only deleted once it is included in its month, and it is deleted in chunks of
+ * statistics.retention.chunk-size rows, one short transaction each.
+ */
+@Service
+public class GroceryHistoryRetentionService {
+
+    static final String LOCK_NAME = "grocery-history-retention";
+
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofHours(1);
+
+    private final GroceryHistoryRepository groceryHistoryRepository;
+    private final GroceryHistoryMonthRepository groceryHistoryMonthRepository;
+    private final GroceryHistoryMonthService groceryHistoryMonthService;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final int rawRetentionDays;
+    private final int monthlyRetentionMonths;
+    private final int chunkSize;
+
+    private final Logger logger = LoggerFactory.getLogger(GroceryHistoryRetentionService.class);
+
+    public GroceryHistoryRetentionService(GroceryHistoryRepository groceryHistoryRepository,
+                                          GroceryHistoryMonthRepository groceryHistoryMonthRepository,
+                                          GroceryHistoryMonthService groceryHistoryMonthService,
+                                          SchedulerLockService schedulerLockService,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${statistics.retention.raw-days:400}") int rawRetentionDays,
+                                          @Value("${statistics.retention.monthly-months:0}") int monthlyRetentionMonths,
+                                          @Value("${statistics.retention.chunk-size:1000}") int chunkSize) {
+        this.groceryHistoryRepository = groceryHistoryRepository;
+        this.groceryHistoryMonthRepository = groceryHistoryMonthRepository;
+        this.groceryHistoryMonthService = groceryHistoryMonthService;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rawRetentionDays = rawRetentionDays;
+        this.monthlyRetentionMonths = monthlyRetentionMonths;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Applies the retention every night, on the schedule set by statistics.retention.cron.
+     */
+    @Scheduled(cron = "${statistics.retention.cron:0 15 4 * * *}")
+    public void scheduledRetention() {
+        applyRetention();
+    }
+
+    /**
+     * Applies the retention if no other node is applying it.
+     *
+     * @return number of raw history rows deleted, or empty if the retention is running on another node
+     */
+    public Optional<Long> applyRetention() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, LOCK_AT_MOST_FOR)) {
+            logger.info("Grocery history retention is already running on another node");
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(applyRetention(LocalDate.now()));
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    /**
+     * Sums the raw history that is too old into its months, deletes it in chunks, and deletes the months
+     * that are too old.
+     *
+     * @param today the date to compute the retention from
+     * @return number of raw history rows deleted
+     */
+    public long applyRetention(LocalDate today) {
+        LocalDate rawCutoff = today.minusDays(rawRetentionDays);
+        int monthsCreated = groceryHistoryMonthService.addMissingMonths(rawCutoff);
+
+        long rowsDeleted = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = groceryHistoryRepository.findIdsConsumedBefore(rawCutoff, PageRequest.of(0, chunkSize));
+                groceryHistoryRepository.deleteAllByIdInBatch(ids);
+                return ids.size();
+            });
+            rowsDeleted += deleted;
+        } while (deleted == chunkSize);
+
+        int monthsDeleted = 0;
+        if (monthlyRetentionMonths > 0) {
+            monthsDeleted = groceryHistoryMonthRepository.deleteBeforeMonth(GroceryHistoryMonth.toStatisticsMonth(
+                    YearMonth.from(today).minusMonths(monthlyRetentionMonths - 1)));
+        }
+        logger.info("Grocery history retention created {} months from raw history, deleted {} raw rows before {} and {} months",
+                monthsCreated, rowsDeleted, rawCutoff, monthsDeleted);
+        return rowsDeleted;
+    }
+}
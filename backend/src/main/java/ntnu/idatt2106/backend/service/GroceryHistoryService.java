@@ -2,131 +2,122 @@ package ntnu.idatt2106.backend.service;
 
 import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.model.GroceryHistory;
+import ntnu.idatt2106.backend.model.GroceryHistoryMonth;
 import ntnu.idatt2106.backend.model.dto.GroceryStatisticDTO;
 import ntnu.idatt2106.backend.model.dto.UnitDTO;
+import ntnu.idatt2106.backend.model.dto.WasteAnalyticsDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
 
 /**
- * The GroceryHistoryService provides methods to get the stats for the last 12 months
+ * The GroceryHistoryService provides methods to get the stats for the last 12 months and the most trashed groceries
  */
 @Service
 @RequiredArgsConstructor
 public class GroceryHistoryService {
 
-    private final GroceryHistoryRepository groceryHistoryRepository;
+    private static final int STATISTICS_MONTHS = 12;
 
-    /**
-     * Returns a list of all GroceryHistory objects consumed during the specified month x number of months ago for a specific refrigerator.
-     * @param x The number of months ago to search for. Must be a non-negative integer.
-     * @param refrigeratorId The ID of the refrigerator to search in.
-     * @return A List of GroceryHistory objects consumed during the specified month x number of months ago for the specified refrigerator.
-     */
-    public List<GroceryHistory> findGroceriesForMonth(int x, long refrigeratorId) {
-        LocalDate dateXMonthsBack = LocalDate.now().minusMonths(x);
-        LocalDate startDate = dateXMonthsBack.withDayOfMonth(1); // Get first day of month x months back
-        LocalDate endDate = dateXMonthsBack.withDayOfMonth(dateXMonthsBack.lengthOfMonth()); // Get last day of month x months back
-        return groceryHistoryRepository.findByDateConsumedBetweenAndRefrigeratorId(startDate, endDate, refrigeratorId);
-    }
+    private final GroceryHistoryRepository groceryHistoryRepository;
+    private final GroceryHistoryMonthService groceryHistoryMonthService;
+    private final GroceryHistoryBufferService groceryHistoryBufferService;
 
     /**
-     * Generates statistics for the last 12 months of a specified refrigerator. Deletes old statistics (older than 400 days, or exactly 365 days if change is made) before generating new statistics.
+     * Generates statistics for the last 12 months of a specified refrigerator. The statistics are read from the
+     * monthly sums kept by {@link GroceryHistoryMonthService}, so at most 12 rows are read however long the
+     * history is. Old history is downsampled to the months by {@link GroceryHistoryRetentionService} on a schedule.
      * @param refrigeratorId the id of the refrigerator for which to generate statistics
      * @return a list of {@code GroceryStatisticDTO} objects representing statistics for each month in the last year
      */
     public List<GroceryStatisticDTO> getStatsforLastYear(long refrigeratorId){
-        deleteOldStatistics();
-        List<GroceryStatisticDTO> stats = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM, yyyy");
-        for(int i = 0; i < 12; i++){
-            List<GroceryHistory> iMonth = findGroceriesForMonth(i, refrigeratorId);
-            LocalDate dateXMonthsBack = LocalDate.now().minusMonths(i);
-            String formattedDate = dateXMonthsBack.format(formatter);
+        YearMonth currentMonth = YearMonth.now();
+        Map<YearMonth, GroceryHistoryMonth> months = groceryHistoryMonthService.getMonths(
+                refrigeratorId, currentMonth.minusMonths(STATISTICS_MONTHS - 1), currentMonth);
 
-            if(iMonth.size() == 0){
-                stats.add(GroceryStatisticDTO.builder()
-                        .foodWaste(0)
-                        .foodEaten(0)
-                        .monthName(formattedDate)
-                        .build());
-            }
-            else{
-                stats.add(GroceryStatisticDTO.builder()
-                        .foodWaste(sumTrash(iMonth))
-                        .foodEaten(sumEaten(iMonth))
-                        .monthName(formattedDate)
-                        .build());
-            }
+        List<GroceryStatisticDTO> stats = new ArrayList<>(STATISTICS_MONTHS);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM, yyyy");
+        for(int i = 0; i < STATISTICS_MONTHS; i++){
+            YearMonth month = currentMonth.minusMonths(i);
+            GroceryHistoryMonth sums = months.get(month);
+            stats.add(GroceryStatisticDTO.builder()
+                    .foodEaten(sums == null ? 0 : (int) sums.getEatenGrams())
+                    .foodWaste(sums == null ? 0 : (int) sums.getTrashedGrams())
+                    .monthName(month.format(formatter))
+                    .build());
         }
         return stats;
     }
 
     /**
-     * Calculates the total weight of groceries that were trashed based on the given list of grocery history records.
-     * @param list the list of grocery history records to be analyzed
-     * @return the total weight of groceries that were trashed, in grams
+     * Gets the groceries, sub categories and categories a refrigerator trashed the most between two dates.
+     * Each list is summed by one aggregate query on the history, so no history is loaded. Only history saved with
+     * its grocery is counted. The raw history is only kept for statistics.retention.raw-days days by
+     * {@link GroceryHistoryRetentionService}, so a range starting before that is cut to start at the first kept
+     * date, and the returned range and truncated flag say so. A range ending before it has no history.
+     * @param refrigeratorId the id of the refrigerator
+     * @param from the first date, included
+     * @param to the last date, included
+     * @param limit the maximum number of groceries and categories in each list
+     * @return the most trashed groceries and categories, sorted by weight, with the range they were counted in
      */
-    public Integer sumTrash(List<GroceryHistory> list) {
-        List<GroceryHistory> trash = list.stream()
-                .filter(groceryHistory -> groceryHistory.isWasTrashed())
-                .collect(Collectors.toList());
-
-        Integer totalWeight = trash.stream()
-                .mapToInt(GroceryHistory::getWeightInGrams)
-                .sum();
-
-        return totalWeight;
-    }
-
-    /**
-     * Sums the weight in grams of all the groceries that were consumed (not trashed) in the given list of grocery history.
-     * @param list The list of grocery history to be summed.
-     * @return The total weight in grams of all the groceries that were consumed in the given list.
-     */
-    public Integer sumEaten(List<GroceryHistory> list) {
-        List<GroceryHistory> eaten = list.stream()
-                .filter(groceryHistory -> !groceryHistory.isWasTrashed())
-                .collect(Collectors.toList());
-
-        Integer totalWeight = eaten.stream()
-                .mapToInt(GroceryHistory::getWeightInGrams)
-                .sum();
-
-        return totalWeight;
+    public WasteAnalyticsDTO getWasteAnalytics(long refrigeratorId, LocalDate from, LocalDate to, int limit) {
+        LocalDate firstRawDate = groceryHistoryMonthService.getFirstRawDate(LocalDate.now());
+        boolean truncated = from.isBefore(firstRawDate);
+        LocalDate first = truncated ? firstRawDate : from;
+        WasteAnalyticsDTO.WasteAnalyticsDTOBuilder analytics = WasteAnalyticsDTO.builder()
+                .from(first)
+                .to(to)
+                .truncated(truncated);
+        if (first.isAfter(to)) {
+            return analytics.groceries(List.of()).subCategories(List.of()).categories(List.of()).build();
+        }
+        Pageable top = PageRequest.of(0, limit);
+        return analytics
+                .groceries(groceryHistoryRepository.findMostWastedGroceries(refrigeratorId, first, to, top))
+                .subCategories(groceryHistoryRepository.findMostWastedSubCategories(refrigeratorId, first, to, top))
+                .categories(groceryHistoryRepository.findMostWastedCategories(refrigeratorId, first, to, top))
+                .build();
     }
 
     /**
-     * Deletes old grocery consumption statistics from the database.
-     * Statistics older than 400 days (or 365 if you want exactly 12 months) are removed.
-     * @throws Exception if there is an error deleting the statistics
+     * Builds the monthly sums the statistics are read from again, from the history that is kept.
+     * @return number of months built, or empty if the months are being built on another node
      */
-    public void deleteOldStatistics() {
-        LocalDate dateThreshold = LocalDate.now().minusDays(400); // Change to 365 if you want exactly 12 months
-        groceryHistoryRepository.deleteByDateConsumedBefore(dateThreshold);
+    public Optional<Integer> rebuildMonthlyStatistics() {
+        return groceryHistoryMonthService.backfill();
     }
 
     /**
-     Creates a new grocery history object and saves it to the database.
+     Creates a new grocery history object and hands it to the {@link GroceryHistoryBufferService}, which saves it
+     to the database in a batch after the current transaction commits.
      @param refrigeratorGrocery the RefrigeratorGrocery object associated with the grocery history
      @param quantity the quantity of the grocery consumed or trashed
      @param unitDTO the UnitDTO object associated with the grocery
      @param isTrash a boolean indicating whether the grocery was trashed or consumed
      */
     public void newGroceryHistory(RefrigeratorGrocery refrigeratorGrocery, int quantity, UnitDTO unitDTO, boolean isTrash){
+        Grocery grocery = refrigeratorGrocery.getGrocery();
         GroceryHistory groceryHistory = GroceryHistory.builder()
                 .dateConsumed(LocalDate.now())
                 .refrigerator(refrigeratorGrocery.getRefrigerator())
                 .wasTrashed(isTrash)
                 .weightInGrams(quantity * unitDTO.getWeight())
+                .groceryId(grocery == null ? null : grocery.getId())
+                .subCategoryId(grocery == null || grocery.getSubCategory() == null ? null : grocery.getSubCategory().getId())
                 .build();
-        groceryHistoryRepository.save(groceryHistory);
+        groceryHistoryBufferService.add(groceryHistory);
     }
 
 }
@@ -0,0 +1,74 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Holds an immutable search index over the grocery catalog, which is replaced as a whole when it changes.
+ * The index is built on the first search, saved groceries are added to it and an import drops it, so it is
+ * built again on the next search. Shared by the grocery searches, which only differ in how their index is
+ * built and how a grocery is added to it.
+ *
+ * @param <T> type of the index
+ */
+final class GroceryIndex<T> {
+
+    private final Supplier<T> build;
+    private final BiFunction<T, GroceryDTO, T> add;
+    private volatile T index;
+
+    /**
+     * @param build builds the index from the catalog
+     * @param add returns an index with a grocery added, or the same index if it already has the grocery
+     */
+    GroceryIndex(Supplier<T> build, BiFunction<T, GroceryDTO, T> add) {
+        this.build = build;
+        this.add = add;
+    }
+
+    /**
+     * @return the index, built if there is none
+     */
+    T get() {
+        T current = index;
+        return current != null ? current : getOrBuild();
+    }
+
+    /**
+     * Builds the index again from the catalog.
+     */
+    synchronized void rebuild() {
+        index = build.get();
+    }
+
+    /**
+     * Adds the saved groceries of an event to the index, or drops the index when the catalog was imported.
+     * An index that is not built yet is left alone, it gets the groceries when it is built.
+     *
+     * @param event the changed groceries
+     */
+    synchronized void update(GroceriesChangedEvent event) {
+        if (event.isImported()) {
+            index = null;
+            return;
+        }
+        T current = index;
+        if (current != null) {
+            for (Grocery grocery : event.getSavedGroceries()) {
+                current = add.apply(current, new GroceryDTO(grocery));
+            }
+            index = current;
+        }
+    }
+
+    private synchronized T getOrBuild() {
+        if (index == null) {
+            index = build.get();
+        }
+        return index;
+    }
+}
@@ -9,18 +9,18 @@ import ntnu.idatt2106.backend.model.*;
 import ntnu.idatt2106.backend.model.dto.DeleteRefrigeratorGroceryDTO;
 import ntnu.idatt2106.backend.model.dto.GroceryDTO;
 import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryDTO;
-import ntnu.idatt2106.backend.model.dto.shoppingListElement.GroceryDTOComparator;
 import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.event.RefrigeratorGroceriesChangedEvent;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryListRequest;
 import ntnu.idatt2106.backend.repository.GroceryRepository;
 import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
-import ntnu.idatt2106.backend.repository.SubCategoryRepository;
-import ntnu.idatt2106.backend.repository.UnitRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,7 +28,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service for handling operations regarding groceries inside a refrigerator
@@ -46,13 +45,15 @@ public class GroceryService {
     private final JwtService jwtService;
     private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
     private final GroceryRepository groceryRepository;
-    private final SubCategoryRepository subCategoryRepository;
     private final RefrigeratorService refrigeratorService;
     private final NotificationService notificationService;
     private final UnitService unitService;
     private final GroceryHistoryService groceryHistoryService;
-
-    private final UnitRepository unitRepository;
+    private final GroceryCatalogService groceryCatalogService;
+    private final GroceryTypeaheadService groceryTypeaheadService;
+    private final GroceryFuzzySearchService groceryFuzzySearchService;
+    private final ReferenceDataCacheService referenceDataCacheService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Saves a grocery to a refrigerator. If it is a custom
@@ -72,6 +73,9 @@ public class GroceryService {
         if(FridgeRole != ADD_PRIVILEGE) throw new UnauthorizedException("User not authorized to add groceries");
 
         logger.info("Saving grocery list to refrigerator");
+        Unit unit = referenceDataCacheService.findUnit(saveRequest.getUnitDTO().getId()).orElseThrow();
+        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
+        Set<Long> addedGroceryIds = new HashSet<>();
         //Handle each grocery in the list individually based on custom grocery or existing
         for (GroceryDTO groceryDTO: saveRequest.getGroceryList()) {
             Grocery grocery;
@@ -89,11 +93,13 @@ public class GroceryService {
             refrigeratorGrocery.setGrocery(grocery);
             refrigeratorGrocery.setRefrigerator(refrigerator);
             refrigeratorGrocery.setPhysicalExpireDate(getPhysicalExpireDate(groceryDTO.getGroceryExpiryDays()));
-            Optional<Unit> unit = unitRepository.findById(saveRequest.getUnitDTO().getId());
-            refrigeratorGrocery.setUnit(unit.get());
+            refrigeratorGrocery.setUnit(unit);
             refrigeratorGrocery.setQuantity(saveRequest.getQuantity());
-            saveRefrigeratorGrocery(refrigeratorGrocery);
+            refrigeratorGroceries.add(refrigeratorGrocery);
+            addedGroceryIds.add(grocery.getId());
         }
+        saveRefrigeratorGroceries(refrigeratorGroceries);
+        eventPublisher.publishEvent(new RefrigeratorGroceriesChangedEvent(refrigerator.getId(), addedGroceryIds));
     }
 
     /**
@@ -106,7 +112,7 @@ public class GroceryService {
     public Grocery addCustomGrocery(GroceryDTO groceryDTO) throws SaveException {
         Grocery newGrocery = new Grocery();
         newGrocery.setName(groceryDTO.getName());
-        SubCategory subCategory = subCategoryRepository.findById(groceryDTO.getId())
+        SubCategory subCategory = referenceDataCacheService.findSubCategory(groceryDTO.getId())
                 .orElseThrow(() -> new EntityNotFoundException("Subcategory not found by id"));
         newGrocery.setSubCategory(subCategory);
         if(groceryDTO.getDescription() != null){
@@ -157,7 +163,7 @@ public class GroceryService {
      * @return the grocery
      */
     public Grocery getGroceryById(long groceryId){
-        return groceryRepository.findById(groceryId)
+        return referenceDataCacheService.findGrocery(groceryId)
                 .orElseThrow(() -> new EntityNotFoundException("Existing grocery not found"));
     }
 
@@ -240,6 +246,7 @@ public class GroceryService {
             throw new UnauthorizedException("User is not a member of the refrigerator");
         }
         refrigeratorGroceryRepository.deleteById(refrigeratorGroceryId);
+        publishRefrigeratorGroceryChanged(refrigeratorGrocery);
     }
 
     /**
@@ -250,7 +257,9 @@ public class GroceryService {
      */
     public Grocery saveGrocery(Grocery grocery) throws SaveException{
         try {
-            return groceryRepository.save(grocery);
+            Grocery saved = groceryRepository.save(grocery);
+            eventPublisher.publishEvent(GroceriesChangedEvent.saved(saved));
+            return saved;
         } catch (Exception e) {
             throw new SaveException(e.getMessage());
         }
@@ -270,6 +279,20 @@ public class GroceryService {
         }
     }
 
+    /**
+     * Saves a list of refrigerator groceries in one batch
+     *
+     * @param groceries groceries to save
+     * @throws SaveException if save fails
+     */
+    public void saveRefrigeratorGroceries(List<RefrigeratorGrocery> groceries) throws SaveException {
+        try {
+            refrigeratorGroceryRepository.saveAll(groceries);
+        } catch (Exception e) {
+            throw new SaveException(e.getMessage());
+        }
+    }
+
 
     /**
      Returns a list of all GroceryDTO objects.
@@ -277,12 +300,43 @@ public class GroceryService {
      @throws NoGroceriesFound if no groceries are found in the database
      */
     public List<GroceryDTO> getAllGroceriesDTO() throws NoGroceriesFound {
-        List<Grocery> groceries = groceryRepository.findAll();
-        if (groceries.isEmpty()) {
+        return getCatalogSnapshot().groceries();
+    }
+
+    /**
+     * Searches the groceries for a typeahead, see {@link GroceryTypeaheadService#search(String, int)}.
+     * @param query the text typed by the user
+     * @param limit the maximum number of groceries
+     * @return the best matching groceries, best first
+     */
+    public List<GroceryDTO> searchGroceries(String query, int limit) {
+        return groceryTypeaheadService.search(query, limit);
+    }
+
+    /**
+     * Searches the groceries with tolerance for typos, see {@link GroceryFuzzySearchService#search(String, Long, Long, int)}.
+     * @param query the text typed by the user
+     * @param subCategoryId only groceries of this subcategory, or null for all
+     * @param categoryId only groceries of this category, or null for all
+     * @param limit the maximum number of groceries
+     * @return the matching groceries, best first
+     */
+    public List<GroceryDTO> fuzzySearchGroceries(String query, Long subCategoryId, Long categoryId, int limit) {
+        return groceryFuzzySearchService.search(query, subCategoryId, categoryId, limit);
+    }
+
+    /**
+     * Returns the in-memory snapshot of all groceries, with the JSON of the list already serialized.
+     * @return the snapshot of the catalog
+     * @throws NoGroceriesFound if no groceries are found in the database
+     */
+    public GroceryCatalogService.CatalogSnapshot getCatalogSnapshot() throws NoGroceriesFound {
+        GroceryCatalogService.CatalogSnapshot snapshot = groceryCatalogService.getSnapshot();
+        if (snapshot.groceries().isEmpty()) {
             logger.info("Could not find any groceries");
             throw new NoGroceriesFound("Could not find any groceries");
         }
-        return groceries.stream().map(GroceryDTO::new).sorted(new GroceryDTOComparator()).collect(Collectors.toList());
+        return snapshot;
     }
 
     /**
@@ -353,6 +407,7 @@ public class GroceryService {
             if(newGrocery.getUnit().getId() == dto.getUnitDTO().getId()){
                 newGrocery.setQuantity(newGrocery.getQuantity() - dto.getQuantity());
                 refrigeratorGroceryRepository.save(newGrocery);
+                publishRefrigeratorGroceryChanged(newGrocery);
             }
         }
         return null;
@@ -389,6 +444,7 @@ public class GroceryService {
                 .unit(oldGrocery.get().getUnit())
         .build();
         refrigeratorGroceryRepository.save(newGrocery);
+        publishRefrigeratorGroceryChanged(newGrocery);
     }
 
     /**
@@ -403,7 +459,20 @@ public class GroceryService {
                 .name(grocery.getName())
                 .groceryExpiryDays(grocery.getGroceryExpiryDays())
                 .build();
-        return groceryRepository.save(newGrocery);
+        Grocery saved = groceryRepository.save(newGrocery);
+        eventPublisher.publishEvent(GroceriesChangedEvent.saved(saved));
+        return saved;
+    }
+
+    /**
+     * Publishes that the stock of a grocery in a refrigerator changed, so the recipe scores
+     * of the refrigerator are updated once the change has committed.
+     *
+     * @param refrigeratorGrocery the added, changed or removed refrigerator grocery
+     */
+    private void publishRefrigeratorGroceryChanged(RefrigeratorGrocery refrigeratorGrocery) {
+        eventPublisher.publishEvent(new RefrigeratorGroceriesChangedEvent(refrigeratorGrocery.getRefrigerator().getId(),
+                Set.of(refrigeratorGrocery.getGrocery().getId())));
     }
 
 
@@ -0,0 +1,292 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+import ntnu.idatt2106.backend.model.dto.GroceryUsageDTO;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Typeahead search over the grocery catalog, from an in-memory prefix index of the words in the names and
+ * descriptions of the groceries. The words are sorted, so the words starting with a prefix are found with a binary
+ * search. Groceries whose name starts with the query rank first, then groceries with a word in the name starting
+ * with it, then groceries where only the description matches, and within each the most used groceries first.
+ * Text is compared in lower case and Unicode NFC, so æ, ø and å match whether they are typed as one character or
+ * with a combining mark, and they are never folded to a, o or e.
+ * Saved groceries are added to the index without reading the catalog again. The index and the usage counts are
+ * built again every catalog.typeahead.refresh-ms milliseconds.
+ */
+@Service
+public class GroceryTypeaheadService {
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Locale NORWEGIAN = Locale.forLanguageTag("nb-NO");
+
+    private final GroceryRepository groceryRepository;
+    private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    private final GroceryHistoryRepository groceryHistoryRepository;
+    private final GroceryIndex<PrefixIndex> index;
+
+    private final Logger logger = LoggerFactory.getLogger(GroceryTypeaheadService.class);
+
+    public GroceryTypeaheadService(GroceryRepository groceryRepository,
+                                   RefrigeratorGroceryRepository refrigeratorGroceryRepository,
+                                   GroceryHistoryRepository groceryHistoryRepository) {
+        this.groceryRepository = groceryRepository;
+        this.refrigeratorGroceryRepository = refrigeratorGroceryRepository;
+        this.groceryHistoryRepository = groceryHistoryRepository;
+        this.index = new GroceryIndex<>(this::buildIndex, PrefixIndex::with);
+    }
+
+    /**
+     * Finds the groceries matching a query. Every word of the query must be the start of a word of the grocery.
+     *
+     * @param query the text typed by the user
+     * @param limit the maximum number of groceries
+     * @return the best matching groceries, best first
+     */
+    public List<GroceryDTO> search(String query, int limit) {
+        List<String> words = words(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        return index.get().search(normalize(query).strip(), words, limit);
+    }
+
+    /**
+     * Adds saved groceries to the index, or drops it when the catalog was imported.
+     * Runs after the transaction that changed the groceries has committed.
+     *
+     * @param event the changed groceries
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroceriesChanged(GroceriesChangedEvent event) {
+        index.update(event);
+    }
+
+    /**
+     * Builds the index again from the catalog and the usage of the groceries.
+     */
+    @Scheduled(fixedDelayString = "${catalog.typeahead.refresh-ms:600000}", initialDelayString = "${catalog.typeahead.refresh-ms:600000}")
+    public void rebuild() {
+        index.rebuild();
+    }
+
+    private PrefixIndex buildIndex() {
+        Map<Long, Long> usage = new HashMap<>();
+        for (GroceryUsageDTO count : refrigeratorGroceryRepository.countByGrocery()) {
+            usage.merge(count.getGroceryId(), count.getCount(), Long::sum);
+        }
+        for (GroceryUsageDTO count : groceryHistoryRepository.countByGrocery()) {
+            usage.merge(count.getGroceryId(), count.getCount(), Long::sum);
+        }
+        List<GroceryDTO> groceries = groceryRepository.findAllWithCategories().stream().map(GroceryDTO::new).toList();
+        PrefixIndex built = new PrefixIndex(groceries, usage);
+        logger.info("Built grocery typeahead index with {} groceries and {} words", groceries.size(), built.keys.length);
+        return built;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(NORWEGIAN);
+    }
+
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : WORD_SEPARATOR.split(normalize(text))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * An immutable prefix index. The words of all groceries are kept in one sorted array, with the grocery of each
+     * word in a parallel array, so a prefix is looked up with a binary search and no objects per word.
+     */
+    static final class PrefixIndex {
+        private final GroceryDTO[] groceries;
+        private final String[] names;
+        private final String[][] groceryWords;
+        private final int[] nameWordCounts;
+        private final long[] usage;
+        private final String[] keys;
+        private final int[] entries;
+        private final Map<Long, Long> usageById;
+        private final Set<Long> ids;
+
+        PrefixIndex(List<GroceryDTO> groceries, Map<Long, Long> usageById) {
+            int size = groceries.size();
+            this.groceries = groceries.toArray(new GroceryDTO[0]);
+            this.names = new String[size];
+            this.groceryWords = new String[size][];
+            this.nameWordCounts = new int[size];
+            this.usage = new long[size];
+            this.usageById = usageById;
+            this.ids = new HashSet<>();
+            List<Map.Entry<String, Integer>> words = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                index(i);
+                for (String word : groceryWords[i]) {
+                    words.add(Map.entry(word, i));
+                }
+            }
+            words.sort(Map.Entry.<String, Integer>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+            this.keys = new String[words.size()];
+            this.entries = new int[words.size()];
+            for (int k = 0; k < words.size(); k++) {
+                keys[k] = words.get(k).getKey();
+                entries[k] = words.get(k).getValue();
+            }
+        }
+
+        private PrefixIndex(PrefixIndex previous, GroceryDTO added) {
+            int size = previous.groceries.length + 1;
+            int addedIndex = size - 1;
+            this.groceries = Arrays.copyOf(previous.groceries, size);
+            this.names = Arrays.copyOf(previous.names, size);
+            this.groceryWords = Arrays.copyOf(previous.groceryWords, size);
+            this.nameWordCounts = Arrays.copyOf(previous.nameWordCounts, size);
+            this.usage = Arrays.copyOf(previous.usage, size);
+            this.usageById = previous.usageById;
+            this.ids = new HashSet<>(previous.ids);
+            groceries[addedIndex] = added;
+            index(addedIndex);
+
+            String[] addedWords = groceryWords[addedIndex].clone();
+            Arrays.sort(addedWords);
+            this.keys = new String[previous.keys.length + addedWords.length];
+            this.entries = new int[keys.length];
+            int from = 0;
+            int to = 0;
+            for (String word : addedWords) {
+                int insertAt = upperBound(previous.keys, word);
+                int copied = insertAt - from;
+                System.arraycopy(previous.keys, from, keys, to, copied);
+                System.arraycopy(previous.entries, from, entries, to, copied);
+                to += copied;
+                keys[to] = word;
+                entries[to] = addedIndex;
+                to++;
+                from = insertAt;
+            }
+            System.arraycopy(previous.keys, from, keys, to, previous.keys.length - from);
+            System.arraycopy(previous.entries, from, entries, to, previous.keys.length - from);
+        }
+
+        /**
+         * @return a new index with the grocery added, or this index if it already has the grocery
+         */
+        PrefixIndex with(GroceryDTO groceryDTO) {
+            return ids.contains(groceryDTO.getId()) ? this : new PrefixIndex(this, groceryDTO);
+        }
+
+        private void index(int i) {
+            GroceryDTO grocery = groceries[i];
+            ids.add(grocery.getId());
+            names[i] = normalize(grocery.getName());
+            LinkedHashSet<String> words = new LinkedHashSet<>(words(grocery.getName()));
+            nameWordCounts[i] = words.size();
+            words.addAll(words(grocery.getDescription()));
+            groceryWords[i] = words.toArray(new String[0]);
+            usage[i] = usageById.getOrDefault(grocery.getId(), 0L);
+        }
+
+        List<GroceryDTO> search(String query, List<String> queryWords, int limit) {
+            String prefix = queryWords.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+            Comparator<Candidate> ranking = Comparator.comparingInt(Candidate::rank)
+                    .thenComparing(Comparator.comparingLong(Candidate::usage).reversed())
+                    .thenComparingInt(candidate -> names[candidate.index()].length())
+                    .thenComparing(candidate -> names[candidate.index()], Collator.getInstance(NORWEGIAN));
+            PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+            BitSet seen = new BitSet(groceries.length);
+            for (int k = lowerBound(keys, prefix); k < keys.length && keys[k].startsWith(prefix); k++) {
+                int i = entries[k];
+                if (seen.get(i)) {
+                    continue;
+                }
+                seen.set(i);
+                if (!matchesAll(i, queryWords)) {
+                    continue;
+                }
+                best.add(new Candidate(i, rank(i, query, queryWords.get(0)), usage[i]));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Candidate> ranked = new ArrayList<>(best);
+            ranked.sort(ranking);
+            return ranked.stream().map(candidate -> groceries[candidate.index()]).toList();
+        }
+
+        private boolean matchesAll(int i, List<String> queryWords) {
+            for (String queryWord : queryWords) {
+                boolean found = false;
+                for (String word : groceryWords[i]) {
+                    if (word.startsWith(queryWord)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int rank(int i, String query, String firstQueryWord) {
+            if (names[i].startsWith(query)) {
+                return 0;
+            }
+            for (int w = 0; w < nameWordCounts[i]; w++) {
+                if (groceryWords[i][w].startsWith(firstQueryWord)) {
+                    return 1;
+                }
+            }
+            return 2;
+        }
+
+        private static int lowerBound(String[] keys, String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private static int upperBound(String[] keys, String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(key) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private record Candidate(int index, int rank, long usage) {
+        }
+    }
+}
@@ -3,10 +3,12 @@ package ntnu.idatt2106.backend.service;
 import com.auth0.jwt.exceptions.TokenExpiredException;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import ntnu.idatt2106.backend.model.authentication.ParsedToken;
 import ntnu.idatt2106.backend.model.enums.AuthenticationState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,6 +17,8 @@ import org.springframework.core.env.Environment;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.security.Key;
 import java.util.*;
@@ -33,6 +37,8 @@ import java.util.stream.Collectors;
 public class JwtService {
 
     private final String SECRET_KEY;
+    private final Key signInKey;
+    private final JwtParser jwtParser;
 
     /**
 
@@ -51,6 +57,8 @@ public class JwtService {
     public JwtService(Environment environment, @Value("${MY_JWT_SECRET_KEY:}") String secretKey) {
         String LOCAL_SECRET_KEY = "THISKEYISONLYUSEDLOCALLYTHISKEYISONLYUSEDLOCALLYTHISKEYISONLYUSEDLOCALLY";
         this.SECRET_KEY = Arrays.asList(environment.getActiveProfiles()).contains("dev") || Arrays.asList(environment.getActiveProfiles()).contains("test") ? LOCAL_SECRET_KEY : secretKey;
+        this.signInKey = getSignInKey();
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(signInKey).build();
     }
     /**
 
@@ -106,7 +114,7 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 20))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -179,18 +187,49 @@ public class JwtService {
     /**
 
      Extracts all claims from a given JWT token.
+     If the token already has been verified during the current request, the claims from then are reused.
      @param token the JWT token to extract claims from
      @return a Claims object containing all claims from the token
      @throws TokenExpiredException if the token is expired
      */
     public Claims extractAllClaims(String token) throws TokenExpiredException {
+        return parseToken(token).getClaims();
+    }
+
+    /**
+
+     Verifies a JWT token and reads its claims. The result is stored on the current request, if there is one,
+     so that the token only is verified once per request.
+     @param token the JWT token to parse
+     @return the parsed token
+     @throws TokenExpiredException if the token is expired
+     */
+    public ParsedToken parseToken(String token) throws TokenExpiredException {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            Object stashed = requestAttributes.getAttribute(ParsedToken.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (stashed instanceof ParsedToken parsedToken && parsedToken.getToken().equals(token)) {
+                return parsedToken;
+            }
+        }
+
+        ParsedToken parsedToken = verify(token);
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(ParsedToken.REQUEST_ATTRIBUTE, parsedToken, RequestAttributes.SCOPE_REQUEST);
+        }
+        return parsedToken;
+    }
+
+    /**
+     Verifies the signature of a JWT token with the parser built at startup.
+     @param token the JWT token to verify
+     @return the parsed token
+     @throws TokenExpiredException if the token is expired
+     */
+    private ParsedToken verify(String token) throws TokenExpiredException {
         try {
-            return Jwts
-                    .parserBuilder()
-                    .setSigningKey(getSignInKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            return new ParsedToken(token, claims.getSubject(), extractRoles(claims), claims.getExpiration(), claims);
         } catch (ExpiredJwtException e) {
             //retrieved token expired date
             Date expiration = e.getClaims().getExpiration();
@@ -200,7 +239,7 @@ public class JwtService {
 
 
     /**
-     Generates a signing key to use for signing and verifying JWT tokens.
+     Generates a signing key to use for signing and verifying JWT tokens. Only called once, at startup.
      @return the generated Key object
      */
     private Key getSignInKey() {
@@ -213,9 +252,19 @@ public class JwtService {
      @param token the JWT token to extract roles from
      @return a list of roles contained within the token
      */
-    @SuppressWarnings("unchecked")
     public List<String> extractRoles(String token) {
-        return extractClaim(token, claims -> (List<String>) claims.get("roles", List.class));
+        return extractClaim(token, this::extractRoles);
+    }
+
+    /**
+     Extracts the roles from claims that already have been parsed.
+     @param claims the claims of a JWT token
+     @return a list of roles contained within the claims, empty if there are none
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> extractRoles(Claims claims) {
+        List<String> roles = (List<String>) claims.get("roles", List.class);
+        return roles == null ? new ArrayList<>() : roles;
     }
 
 
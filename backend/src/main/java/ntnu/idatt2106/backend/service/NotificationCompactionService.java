@@ -0,0 +1,167 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.dto.NotificationCompactionResultDTO;
+import ntnu.idatt2106.backend.model.dto.NotificationPurgeCandidateDTO;
+import ntnu.idatt2106.backend.model.event.NotificationsChangedEvent;
+import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Deletes grocery notifications that are no longer needed, see
+ * {@link GroceryNotificationRepository#findPurgeCandidates(long, long, LocalDateTime)}.
+ * The table is walked in id order, one chunk per short transaction, so the job never holds locks for long
+ * and can be stopped and started again at any point.
+ */
+@Service
+public class NotificationCompactionService {
+
+    static final String LOCK_NAME = "notification-compaction";
+
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofHours(1);
+
+    private final GroceryNotificationRepository groceryNotificationRepository;
+    private final NotificationCounterService notificationCounterService;
+    private final SchedulerLockService schedulerLockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final AtomicReference<NotificationCompactionResultDTO> lastResult = new AtomicReference<>();
+
+    private final Logger logger = LoggerFactory.getLogger(NotificationCompactionService.class);
+
+    public NotificationCompactionService(GroceryNotificationRepository groceryNotificationRepository,
+                                         NotificationCounterService notificationCounterService,
+                                         SchedulerLockService schedulerLockService,
+                                         ApplicationEventPublisher eventPublisher,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${notifications.compaction.retention-days:30}") int retentionDays,
+                                         @Value("${notifications.compaction.chunk-size:1000}") int chunkSize) {
+        this.groceryNotificationRepository = groceryNotificationRepository;
+        this.notificationCounterService = notificationCounterService;
+        this.schedulerLockService = schedulerLockService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Runs the compaction on the schedule set by notifications.compaction.cron, by default every night.
+     */
+    @Scheduled(cron = "${notifications.compaction.cron:0 30 3 * * *}")
+    public void scheduledCompaction() {
+        compact();
+    }
+
+    /**
+     * Runs the compaction if no other node is running it. Deleted notifications are kept for
+     * notifications.compaction.retention-days days.
+     *
+     * @return the metrics of the run, or empty if the compaction is running on another node
+     */
+    public Optional<NotificationCompactionResultDTO> compact() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, LOCK_AT_MOST_FOR)) {
+            logger.info("Notification compaction is already running on another node");
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(compact(LocalDateTime.now().minusDays(retentionDays)));
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    /**
+     * Walks all notifications and deletes the ones that are no longer needed.
+     *
+     * @param deletedBefore deleted notifications are kept until this time
+     * @return the metrics of the run
+     */
+    public NotificationCompactionResultDTO compact(LocalDateTime deletedBefore) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        long scanned = 0;
+        long purged = 0;
+        long afterId = 0;
+        while (true) {
+            long chunkAfterId = afterId;
+            ChunkResult chunk = transactionTemplate.execute(status -> compactChunk(chunkAfterId, deletedBefore));
+            if (chunk == null || chunk.scanned == 0) {
+                break;
+            }
+            scanned += chunk.scanned;
+            purged += chunk.purged;
+            afterId = chunk.lastId;
+        }
+
+        NotificationCompactionResultDTO result = NotificationCompactionResultDTO.builder()
+                .startedAt(startedAt)
+                .rowsScanned(scanned)
+                .rowsPurged(purged)
+                .durationMillis(Duration.ofNanos(System.nanoTime() - start).toMillis())
+                .build();
+        lastResult.set(result);
+        logger.info("Notification compaction scanned {} rows and purged {} rows in {} ms",
+                result.getRowsScanned(), result.getRowsPurged(), result.getDurationMillis());
+        return result;
+    }
+
+    /**
+     * @return the metrics of the last run on this node, or empty if it has not run since startup
+     */
+    public Optional<NotificationCompactionResultDTO> getLastResult() {
+        return Optional.ofNullable(lastResult.get());
+    }
+
+    /**
+     * Deletes the notifications that are no longer needed in the chunk after an id.
+     * The unread counts of users that lose notifications they had not deleted are changed in the same transaction.
+     *
+     * @param afterId the last id of the previous chunk
+     * @param deletedBefore deleted notifications are kept until this time
+     * @return the size, number of deleted notifications and last id of the chunk
+     */
+    private ChunkResult compactChunk(long afterId, LocalDateTime deletedBefore) {
+        List<Long> ids = groceryNotificationRepository.findIdsAfter(afterId, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return new ChunkResult(0, 0, afterId);
+        }
+        long lastId = ids.get(ids.size() - 1);
+        List<NotificationPurgeCandidateDTO> candidates =
+                groceryNotificationRepository.findPurgeCandidates(afterId, lastId, deletedBefore);
+        if (!candidates.isEmpty()) {
+            groceryNotificationRepository.deleteAllByIdInBatch(candidates.stream()
+                    .map(NotificationPurgeCandidateDTO::getId)
+                    .toList());
+
+            Map<String, Long> unreadDeleted = new HashMap<>();
+            for (NotificationPurgeCandidateDTO candidate : candidates) {
+                if (!candidate.isDeleted() && candidate.getUserId() != null) {
+                    unreadDeleted.merge(candidate.getUserId(), -1L, Long::sum);
+                }
+            }
+            notificationCounterService.addAll(unreadDeleted);
+            if (!unreadDeleted.isEmpty()) {
+                eventPublisher.publishEvent(NotificationsChangedEvent.deleted(unreadDeleted.keySet()));
+            }
+        }
+        return new ChunkResult(ids.size(), candidates.size(), lastId);
+    }
+
+    private record ChunkResult(int scanned, int purged, long lastId) {
+    }
+}
@@ -0,0 +1,97 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.model.NotificationCounter;
+import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
+import ntnu.idatt2106.backend.repository.NotificationCounterRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Service for the unread notification counters of users.
+ * The counters are changed in the same transaction as the notifications, so reading the number of unread
+ * notifications is a single primary key lookup. A counter is created by the expiry sweep in the transaction that
+ * creates the first notifications of the user. The sweep only runs on the node holding its scheduler lock, so
+ * counters are never created concurrently, and a notification is never visible to other transactions without
+ * the counter of its user.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationCounterService {
+
+    private final NotificationCounterRepository notificationCounterRepository;
+    private final GroceryNotificationRepository groceryNotificationRepository;
+
+    /**
+     * Gets the number of unread notifications of a user.
+     * A user without a counter has no notifications from after the counters were added,
+     * so the older notifications are counted instead.
+     *
+     * @param userId id of the user
+     * @return number of unread notifications
+     */
+    public long getUnreadCount(String userId) {
+        return notificationCounterRepository.findById(userId)
+                .map(NotificationCounter::getUnreadCount)
+                .orElseGet(() -> groceryNotificationRepository.countByUserIdAndDeletedFalse(userId));
+    }
+
+    /**
+     * Gets the number of unread notifications of several users, with one query for the users that have a counter.
+     *
+     * @param userIds ids of the users
+     * @return number of unread notifications per user id
+     */
+    public Map<String, Long> getUnreadCounts(Collection<String> userIds) {
+        Map<String, Long> unreadCounts = new HashMap<>();
+        notificationCounterRepository.findAllById(userIds)
+                .forEach(counter -> unreadCounts.put(counter.getUserId(), counter.getUnreadCount()));
+        for (String userId : userIds) {
+            unreadCounts.computeIfAbsent(userId, groceryNotificationRepository::countByUserIdAndDeletedFalse);
+        }
+        return unreadCounts;
+    }
+
+    /**
+     * Adds created notifications to the unread count of a user, and creates the counter of a user that has none.
+     * Must be called in the transaction that created the notifications, after they are flushed,
+     * so a new counter is counted from the notifications including the created ones.
+     *
+     * @param userId id of the user
+     * @param created number of notifications created
+     */
+    public void addCreated(String userId, long created) {
+        if (created == 0 || notificationCounterRepository.addToUnreadCount(userId, created) == 1) {
+            return;
+        }
+        notificationCounterRepository.save(NotificationCounter.builder()
+                .userId(userId)
+                .unreadCount(groceryNotificationRepository.countByUserIdAndDeletedFalse(userId))
+                .build());
+    }
+
+    /**
+     * Adds to the unread count of a user. Users without a counter are skipped, they have no
+     * notifications from after the counters were added.
+     *
+     * @param userId id of the user
+     * @param delta number of notifications created, negative for notifications deleted
+     */
+    public void add(String userId, long delta) {
+        if (delta != 0) {
+            notificationCounterRepository.addToUnreadCount(userId, delta);
+        }
+    }
+
+    /**
+     * Adds to the unread counts of several users.
+     *
+     * @param deltas number to add for each user id
+     */
+    public void addAll(Map<String, Long> deltas) {
+        deltas.forEach(this::add);
+    }
+}
@@ -1,18 +1,27 @@
 package ntnu.idatt2106.backend.service;
 
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.exceptions.NotificationException;
 import ntnu.idatt2106.backend.model.*;
+import ntnu.idatt2106.backend.model.dto.ExpiryNotificationCandidateDTO;
 import ntnu.idatt2106.backend.model.dto.GroceryNotificationDTO;
+import ntnu.idatt2106.backend.model.enums.ExpiryThreshold;
+import ntnu.idatt2106.backend.model.event.NotificationsChangedEvent;
 import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
-import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
-import ntnu.idatt2106.backend.repository.RefrigeratorUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -25,95 +34,152 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class NotificationService {
 
+    /**
+     * Number of days before the expiry date the first notification is created.
+     */
+    public static final int EXPIRY_WARNING_DAYS = 3;
+
+    private static final int SWEEP_CHUNK_SIZE = 500;
+
     private final GroceryNotificationRepository groceryNotificationRepository;
-    private final RefrigeratorUserRepository refrigeratorUserRepository;
-    private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationCounterService notificationCounterService;
+
+    private final Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
 
     /**
      * Gets all the grocery notifications for a user.
+     * The notifications are created by the expiry sweep, see {@link #sweepExpiringGroceries(LocalDate)}.
      *
      * @param user
      * @return
      */
     public List<GroceryNotificationDTO> getNotifications(User user) {
-        List<Refrigerator> refrigerators = refrigeratorUserRepository.findByUser(user)
-                .stream().map(refrigeratorUser -> refrigeratorUser.getRefrigerator())
-                .collect(Collectors.toList());
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-
-        refrigerators.stream().forEach(refrigerator -> {
-            refrigeratorGroceries.addAll(refrigeratorGroceryRepository.findAllByRefrigeratorId(refrigerator.getId()));
-        });
-
-        generateNotifications(refrigeratorGroceries, user);
-
-        List<GroceryNotificationDTO> notifications = groceryNotificationRepository
-                .findAllByUserId(user.getId())
+        return groceryNotificationRepository.findAllByUserIdAndDeletedFalse(user.getId())
                 .stream()
-                .filter(groceryNotification -> !groceryNotification.isDeleted())
                 .map(groceryNotification -> new GroceryNotificationDTO(groceryNotification))
                 .collect(Collectors.toList());
+    }
 
-        return notifications;
+    /**
+     * Gets a page of the unread grocery notifications for a user, newest first.
+     * The deleted notifications are filtered out in the query, so the page is read with the user and deleted index.
+     *
+     * @param user the user
+     * @param page number of the page, starting at 0
+     * @param size number of notifications in a page
+     * @return the notifications in the page
+     */
+    public List<GroceryNotificationDTO> getNotifications(User user, int page, int size) {
+        return groceryNotificationRepository.findPageByUserId(user.getId(),
+                        PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id")))
+                .stream()
+                .map(GroceryNotificationDTO::new)
+                .collect(Collectors.toList());
     }
 
     /**
-     * Generates a new notification and saves it to database either if the
-     * grocery entity has no existing notifications or has one existing notification but expires the current day.
+     * Gets the number of unread notifications of a user, see {@link NotificationCounterService}.
      *
-     * @param refrigeratorGroceries
-     * @param user
+     * @param user the user
+     * @return number of unread notifications
      */
-    public void generateNotifications(List<RefrigeratorGrocery> refrigeratorGroceries, User user) {
-        Date date = new Date();
+    public long getUnreadCount(User user) {
+        return notificationCounterService.getUnreadCount(user.getId());
+    }
 
-        //Get all groceries which have below 3 days left.
-        List<RefrigeratorGrocery> mightNeedNotification = refrigeratorGroceries.stream()
-                .filter(refrigeratorGrocery -> getDaysBetweenTodayAndDate(refrigeratorGrocery.getPhysicalExpireDate()) <= 3)
-                .collect(Collectors.toList());
+    /**
+     * Creates notifications for all groceries that have crossed the warning or expiry threshold, for every
+     * member of their refrigerators. Each member gets a WARNING notification when a grocery has
+     * {@value #EXPIRY_WARNING_DAYS} or fewer days left, and an EXPIRED notification on the expiry date unless
+     * the warning was deleted. The missing notifications are found with one query and inserted in batches;
+     * the unique constraint on user, grocery and threshold rejects duplicates.
+     *
+     * @param today the date to compute the thresholds from
+     * @return number of notifications created
+     */
+    @Transactional
+    public int sweepExpiringGroceries(LocalDate today) {
+        List<ExpiryNotificationCandidateDTO> candidates = groceryNotificationRepository
+                .findExpiryNotificationCandidates(today, today.plusDays(EXPIRY_WARNING_DAYS));
+
+        List<GroceryNotification> notifications = new ArrayList<>(Math.min(candidates.size(), SWEEP_CHUNK_SIZE));
+        Map<String, List<Long>> createdIds = new HashMap<>();
+        for (ExpiryNotificationCandidateDTO candidate : candidates) {
+            notifications.add(GroceryNotification.builder()
+                    .groceryEntity(entityManager.getReference(RefrigeratorGrocery.class, candidate.getRefrigeratorGroceryId()))
+                    .user(entityManager.getReference(User.class, candidate.getUserId()))
+                    .daysLeft(ChronoUnit.DAYS.between(today, candidate.getPhysicalExpireDate()))
+                    .threshold(candidate.getPhysicalExpireDate().isAfter(today) ? ExpiryThreshold.WARNING : ExpiryThreshold.EXPIRED)
+                    .deleted(false)
+                    .build());
+            if (notifications.size() == SWEEP_CHUNK_SIZE) {
+                saveChunk(notifications, createdIds);
+            }
+        }
+        if (!notifications.isEmpty()) {
+            saveChunk(notifications, createdIds);
+        }
+        createdIds.forEach((userId, ids) -> notificationCounterService.addCreated(userId, ids.size()));
+        if (!createdIds.isEmpty()) {
+            eventPublisher.publishEvent(new NotificationsChangedEvent(createdIds, Set.of()));
+        }
+        logger.info("Expiry sweep for {} created {} notifications", today, candidates.size());
+        return candidates.size();
+    }
 
-        List<GroceryNotification> notifications = new ArrayList<>();
-
-        mightNeedNotification.stream()
-                .forEach(refrigatorGrocery -> {
-                    List<GroceryNotification> preExisting = groceryNotificationRepository.findAllByGroceryEntity(refrigatorGrocery);
-                    if (preExisting.isEmpty()) {
-                        notifications.add(GroceryNotification.builder()
-                                .groceryEntity(refrigatorGrocery)
-                                .daysLeft(getDaysBetweenTodayAndDate(refrigatorGrocery.getPhysicalExpireDate()))
-                                .user(user)
-                                .deleted(false)
-                                .build());
-                    }
-                    if (preExisting.size() == 1 && getDaysBetweenTodayAndDate(refrigatorGrocery.getPhysicalExpireDate()) == 0 && !preExisting.get(0).isDeleted()) {
-                        notifications.add(GroceryNotification.builder()
-                                .groceryEntity(refrigatorGrocery)
-                                .daysLeft(getDaysBetweenTodayAndDate(refrigatorGrocery.getPhysicalExpireDate()))
-                                .user(user)
-                                .deleted(false)
-                                .build());
-                    }
-                });
-
-        notifications.forEach(groceryNotification -> groceryNotificationRepository.save(groceryNotification));
+    /**
+     * Saves a chunk of notifications and detaches them, so a large sweep does not keep every
+     * notification in the persistence context.
+     *
+     * @param notifications the notifications to save, cleared afterwards
+     * @param createdIds the ids of the saved notifications are added to this map, per user id
+     */
+    private void saveChunk(List<GroceryNotification> notifications, Map<String, List<Long>> createdIds) {
+        groceryNotificationRepository.saveAll(notifications);
+        for (GroceryNotification notification : notifications) {
+            createdIds.computeIfAbsent(notification.getUser().getId(), key -> new ArrayList<>()).add(notification.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        notifications.clear();
     }
 
+    /**
+     * Marks a notification of a user as deleted.
+     * The notification is marked with a conditional update, so when the same notification is deleted by
+     * concurrent requests only the one that changed the row subtracts it from the unread count.
+     *
+     * @param user the user that owns the notification
+     * @param notifId id of the notification
+     * @return the deleted notification
+     * @throws NotificationException if the notification does not exist, is owned by another user or could not be saved
+     */
+    @Transactional
     public GroceryNotificationDTO deleteNotification(User user, long notifId) throws NotificationException {
         Optional<GroceryNotification> notif = groceryNotificationRepository.findById(notifId);
         if (notif.isEmpty()) {
             throw new NotificationException("Could not find notification by id");
         }
         GroceryNotification found = notif.get();
-        if (found.getUser() != user) {
+        if (found.getUser() == null || !found.getUser().getId().equals(user.getId())) {
             throw new NotificationException("Could not delete notification, user is not owner of notif");
         }
-        found.setDeleted(true);
+        LocalDateTime deletedAt = LocalDateTime.now();
+        int deleted;
         try {
-            groceryNotificationRepository.save(found);
+            deleted = groceryNotificationRepository.markDeleted(notifId, user.getId(), deletedAt);
         } catch (Exception e) {
             throw new NotificationException("Could not find notification in repository when deleting" + e.getMessage());
         }
+        if (deleted == 1) {
+            found.setDeletedAt(deletedAt);
+            notificationCounterService.add(user.getId(), -1);
+            eventPublisher.publishEvent(NotificationsChangedEvent.deleted(Set.of(user.getId())));
+        }
+        found.setDeleted(true);
         return new GroceryNotificationDTO(found);
     }
 
@@ -126,16 +192,48 @@ public class NotificationService {
         List<GroceryNotificationDTO> list = delete.stream()
                 .map(groceryNotification -> new GroceryNotificationDTO(groceryNotification))
                 .collect(Collectors.toList());
+        publishDeleted(delete);
 
         return list;
     }
 
-    private long getDaysBetweenTodayAndDate(LocalDate date) {
-        // Get today's date
-        LocalDate today = LocalDate.now();
+    /**
+     * Deletes the notifications of all groceries in a refrigerator, before the groceries are deleted.
+     *
+     * @param refrigeratorId id of the refrigerator
+     * @return number of notifications deleted
+     */
+    @Transactional
+    public int deleteNotificationsByRefrigeratorId(long refrigeratorId) {
+        List<GroceryNotification> delete = groceryNotificationRepository.findAllByGroceryEntity_Refrigerator_Id(refrigeratorId);
+        groceryNotificationRepository.deleteAllInBatch(delete);
+        publishDeleted(delete);
+        return delete.size();
+    }
 
-        // Calculate the number of days between the two dates
-        long daysDiff = ChronoUnit.DAYS.between(today, date);
-        return daysDiff;
+    /**
+     * Subtracts deleted notifications from the unread counts of their users, and tells the connected users.
+     *
+     * @param deleted the deleted notifications
+     */
+    private void publishDeleted(List<GroceryNotification> deleted) {
+        if (deleted.isEmpty()) {
+            return;
+        }
+        Map<String, Long> unreadDeleted = new HashMap<>();
+        Set<String> userIds = new HashSet<>();
+        for (GroceryNotification groceryNotification : deleted) {
+            if (groceryNotification.getUser() == null) {
+                continue;
+            }
+            userIds.add(groceryNotification.getUser().getId());
+            if (!groceryNotification.isDeleted()) {
+                unreadDeleted.merge(groceryNotification.getUser().getId(), -1L, Long::sum);
+            }
+        }
+        notificationCounterService.addAll(unreadDeleted);
+        if (!userIds.isEmpty()) {
+            eventPublisher.publishEvent(NotificationsChangedEvent.deleted(userIds));
+        }
     }
 }
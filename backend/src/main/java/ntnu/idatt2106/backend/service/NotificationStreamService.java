@@ -0,0 +1,244 @@
+package ntnu.idatt2106.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import ntnu.idatt2106.backend.model.dto.GroceryNotificationDTO;
+import ntnu.idatt2106.backend.model.event.NotificationsChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
+import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for pushing notifications to connected users with Server-Sent Events.
+ * The connections are asynchronous requests, so an idle connection holds no thread. Events are put in a small
+ * bounded queue per connection and written by a shared pool of sender threads. A connection that falls behind
+ * until its queue is full is closed, and the client reconnects and receives the current state.
+ * Events: "notifications" with a list of new notifications, and "unread-count" with the number of unread notifications.
+ * The connections and the events that push to them are kept in the memory of each node, so a change is only pushed
+ * right away to the connections on the node where it was made. To keep the connections on the other nodes up to
+ * date, every heartbeat sends the unread count of each connected user, read from the unread counters shared in the
+ * database; clients fetch the notifications again when the count changes.
+ */
+@Service
+public class NotificationStreamService {
+
+    public static final String NOTIFICATIONS_EVENT = "notifications";
+    public static final String UNREAD_COUNT_EVENT = "unread-count";
+
+    private static final long EMITTER_TIMEOUT = Duration.ofMinutes(30).toMillis();
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int SENDER_THREADS = 4;
+
+    private final GroceryNotificationRepository groceryNotificationRepository;
+    private final NotificationCounterService notificationCounterService;
+    private final ExecutorService senderExecutor;
+    private final Map<String, Set<NotificationStream>> streams = new ConcurrentHashMap<>();
+
+    private final Logger logger = LoggerFactory.getLogger(NotificationStreamService.class);
+
+    @Autowired
+    public NotificationStreamService(GroceryNotificationRepository groceryNotificationRepository,
+                                     NotificationCounterService notificationCounterService) {
+        this(groceryNotificationRepository, notificationCounterService,
+                Executors.newFixedThreadPool(SENDER_THREADS, senderThreadFactory()));
+    }
+
+    NotificationStreamService(GroceryNotificationRepository groceryNotificationRepository,
+                              NotificationCounterService notificationCounterService, ExecutorService senderExecutor) {
+        this.groceryNotificationRepository = groceryNotificationRepository;
+        this.notificationCounterService = notificationCounterService;
+        this.senderExecutor = senderExecutor;
+    }
+
+    /**
+     * Opens a stream of notifications for a user. The current unread count is sent first.
+     *
+     * @param userId id of the user
+     * @return the emitter of the stream
+     */
+    public SseEmitter subscribe(String userId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
+        NotificationStream stream = new NotificationStream(userId, emitter);
+        streams.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(stream);
+        emitter.onCompletion(() -> remove(stream));
+        emitter.onTimeout(() -> remove(stream));
+        emitter.onError(error -> remove(stream));
+
+        stream.offer(event(UNREAD_COUNT_EVENT, notificationCounterService.getUnreadCount(userId)));
+        return emitter;
+    }
+
+    /**
+     * Pushes created notifications and new unread counts to the connected users of an event.
+     * Runs after the transaction that changed the notifications has committed, and only reads
+     * the database for users that are connected.
+     *
+     * @param event the changed notifications
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsChanged(NotificationsChangedEvent event) {
+        List<Long> connectedNotificationIds = new ArrayList<>();
+        event.getCreatedNotificationIds().forEach((userId, ids) -> {
+            if (streams.containsKey(userId)) {
+                connectedNotificationIds.addAll(ids);
+            }
+        });
+
+        if (!connectedNotificationIds.isEmpty()) {
+            Map<String, List<GroceryNotificationDTO>> created = new HashMap<>();
+            for (GroceryNotification notification : groceryNotificationRepository.findAllWithGroceryByIdIn(connectedNotificationIds)) {
+                created.computeIfAbsent(notification.getUser().getId(), key -> new ArrayList<>())
+                        .add(new GroceryNotificationDTO(notification));
+            }
+            created.forEach((userId, notifications) -> send(userId, NOTIFICATIONS_EVENT, notifications));
+        }
+
+        Set<String> changedUserIds = new HashSet<>(event.getChangedUserIds());
+        changedUserIds.addAll(event.getCreatedNotificationIds().keySet());
+        for (String userId : changedUserIds) {
+            if (streams.containsKey(userId)) {
+                send(userId, UNREAD_COUNT_EVENT, notificationCounterService.getUnreadCount(userId));
+            }
+        }
+    }
+
+    /**
+     * Sends the unread count of every connected user as a heartbeat, so proxies keep idle connections open,
+     * connections closed by clients are detected, and changes made on other nodes reach the connected users.
+     * The counts of all connected users are read in one query.
+     */
+    @Scheduled(fixedRateString = "${notifications.stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        if (streams.isEmpty()) {
+            return;
+        }
+        Map<String, Long> unreadCounts = notificationCounterService.getUnreadCounts(Set.copyOf(streams.keySet()));
+        streams.forEach((userId, userStreams) -> {
+            Long unreadCount = unreadCounts.get(userId);
+            for (NotificationStream stream : userStreams) {
+                // A user that connected after the counts were read gets a plain heartbeat
+                stream.offer(unreadCount == null ? SseEmitter.event().comment("heartbeat") : event(UNREAD_COUNT_EVENT, unreadCount));
+            }
+        });
+    }
+
+    /**
+     * @return number of open connections
+     */
+    public int getConnectionCount() {
+        return streams.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        streams.values().forEach(userStreams -> userStreams.forEach(NotificationStream::close));
+        senderExecutor.shutdown();
+    }
+
+    private void send(String userId, String name, Object data) {
+        Set<NotificationStream> userStreams = streams.get(userId);
+        if (userStreams != null) {
+            // An event builder can only be written once, so every connection gets its own
+            userStreams.forEach(stream -> stream.offer(event(name, data)));
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder event(String name, Object data) {
+        return SseEmitter.event().name(name).data(data);
+    }
+
+    private void remove(NotificationStream stream) {
+        streams.computeIfPresent(stream.userId, (userId, userStreams) -> {
+            userStreams.remove(stream);
+            return userStreams.isEmpty() ? null : userStreams;
+        });
+    }
+
+    private static ThreadFactory senderThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "notification-stream-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A connection of a user, with the events waiting to be written to it.
+     * At most one sender thread drains a connection at a time, so events are written in order.
+     */
+    private class NotificationStream {
+        private final String userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private NotificationStream(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                logger.info("Closing notification stream of user {}, the client is not keeping up", userId);
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senderExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Notification stream of user {} is closed: {}", userId, e.getMessage());
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            remove(this);
+            emitter.complete();
+        }
+    }
+}
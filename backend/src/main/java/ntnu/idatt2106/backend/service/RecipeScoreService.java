@@ -0,0 +1,565 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientAmountDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeScoreDTO;
+import ntnu.idatt2106.backend.model.event.RefrigeratorGroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service for scoring recipes against the groceries in a refrigerator.
+ * Every ingredient found in the refrigerator adds to the score of the recipe. The contribution
+ * is the share of the needed amount that is covered, weighted by how soon the grocery expires.
+ * Scores are cached per refrigerator and updated one grocery at a time when a change to the refrigerator
+ * has committed. The cached scores of a refrigerator are computed again from the database once they are
+ * older than recipe.scores.ttl-ms milliseconds, to pick up changes made by other nodes, and are removed
+ * when they have not been computed again for that long.
+ * The recipe ingredients are kept in an index that is only built again when recipes are written.
+ */
+@Service
+public class RecipeScoreService {
+
+    /**
+     * Groceries expiring within this many days get a higher weight, the sooner the higher.
+     */
+    private static final int URGENCY_HORIZON_DAYS = 7;
+
+    /**
+     * Scores below this are treated as no match.
+     */
+    private static final double MIN_SCORE = 1e-9;
+
+    /**
+     * Number of score snapshots kept for paging per refrigerator.
+     */
+    private static final int MAX_SNAPSHOTS_PER_REFRIGERATOR = 8;
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final Logger logger = LoggerFactory.getLogger(RecipeScoreService.class);
+
+    private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    private final RecipeGroceryRepository recipeGroceryRepository;
+
+    private final long snapshotTtlMillis;
+    private final long scoresTtlMillis;
+
+    private final Map<Long, RefrigeratorScores> scoresByRefrigerator = new ConcurrentHashMap<>();
+    private final Map<Long, RefrigeratorSnapshots> snapshotsByRefrigerator = new ConcurrentHashMap<>();
+    private volatile IngredientIndex ingredientIndex;
+
+    /**
+     * @param refrigeratorGroceryRepository repository for the groceries in refrigerators
+     * @param recipeGroceryRepository repository for the recipe ingredients
+     * @param snapshotTtlMillis how long a score snapshot is kept for paging after it was last used
+     * @param scoresTtlMillis how long the scores of a refrigerator are used before they are computed again
+     */
+    public RecipeScoreService(RefrigeratorGroceryRepository refrigeratorGroceryRepository,
+                              RecipeGroceryRepository recipeGroceryRepository,
+                              @Value("${recipe.feed.snapshot-ttl-ms:900000}") long snapshotTtlMillis,
+                              @Value("${recipe.scores.ttl-ms:600000}") long scoresTtlMillis) {
+        this.refrigeratorGroceryRepository = refrigeratorGroceryRepository;
+        this.recipeGroceryRepository = recipeGroceryRepository;
+        this.snapshotTtlMillis = snapshotTtlMillis;
+        this.scoresTtlMillis = scoresTtlMillis;
+    }
+
+    /**
+     * Finds the best scored recipes for a refrigerator, best first.
+     * Recipes with the same score are ordered by id. Only recipes with at least one
+     * ingredient in the refrigerator are returned.
+     *
+     * @param refrigeratorId id of the refrigerator
+     * @param limit maximum number of recipes to return
+     * @param excludedRecipeIds ids of recipes to leave out
+     * @return list of recipe scores, best first
+     */
+    public List<RecipeScoreDTO> getTopRecipes(long refrigeratorId, int limit, Collection<Long> excludedRecipeIds) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        Set<Long> excluded = new HashSet<>(excludedRecipeIds);
+        Comparator<RecipeScoreDTO> bestFirst = Comparator.comparingDouble(RecipeScoreDTO::getScore).reversed()
+                .thenComparingLong(RecipeScoreDTO::getRecipeId);
+
+        // Worst score on top, so it can be replaced when a better one is found
+        PriorityQueue<RecipeScoreDTO> best = new PriorityQueue<>(limit, bestFirst.reversed());
+        RefrigeratorScores scores = getScores(refrigeratorId);
+        synchronized (scores) {
+            for (Map.Entry<Long, Double> entry : scores.scoreByRecipeId.entrySet()) {
+                if (entry.getValue() < MIN_SCORE || excluded.contains(entry.getKey())) {
+                    continue;
+                }
+                RecipeScoreDTO candidate = new RecipeScoreDTO(entry.getKey(), entry.getValue());
+                if (best.size() < limit) {
+                    best.add(candidate);
+                } else if (bestFirst.compare(candidate, best.peek()) < 0) {
+                    best.poll();
+                    best.add(candidate);
+                }
+            }
+        }
+        return best.stream().sorted(bestFirst).toList();
+    }
+
+    /**
+     * Gets an immutable snapshot of the current scores of a refrigerator, sorted best first.
+     * The snapshot stays the same while the refrigerator is unchanged, and is kept for paging
+     * until it has not been used for recipe.feed.snapshot-ttl-ms milliseconds, or the refrigerator
+     * has too many newer snapshots.
+     *
+     * @param refrigeratorId id of the refrigerator
+     * @return the current snapshot
+     */
+    public Snapshot getSnapshot(long refrigeratorId) {
+        RefrigeratorScores scores = getScores(refrigeratorId);
+        Snapshot snapshot;
+        synchronized (scores) {
+            if (scores.snapshot == null) {
+                scores.snapshot = Snapshot.of(refrigeratorId, scores.version, scores.scoreByRecipeId);
+            }
+            snapshot = scores.snapshot;
+        }
+        snapshotsByRefrigerator.computeIfAbsent(refrigeratorId, id -> new RefrigeratorSnapshots())
+                .keep(snapshot, System.currentTimeMillis());
+        return snapshot;
+    }
+
+    /**
+     * Gets an earlier snapshot of the scores of a refrigerator, so that a client can keep paging
+     * through the same ranking.
+     *
+     * @param refrigeratorId id of the refrigerator
+     * @param version version of the snapshot
+     * @return the snapshot with the given version, or empty if it is no longer kept
+     */
+    public Optional<Snapshot> getSnapshot(long refrigeratorId, long version) {
+        RefrigeratorSnapshots snapshots = snapshotsByRefrigerator.get(refrigeratorId);
+        Optional<Snapshot> snapshot = snapshots == null ? Optional.empty()
+                : snapshots.get(version, System.currentTimeMillis(), snapshotTtlMillis);
+        if (snapshot.isEmpty()) {
+            logger.debug("Score snapshot {} of refrigerator {} is no longer kept", version, refrigeratorId);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Removes the snapshots that have not been used for recipe.feed.snapshot-ttl-ms milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${recipe.feed.snapshot-ttl-ms:900000}", initialDelayString = "${recipe.feed.snapshot-ttl-ms:900000}")
+    public void removeExpiredSnapshots() {
+        long now = System.currentTimeMillis();
+        snapshotsByRefrigerator.entrySet().removeIf(entry -> entry.getValue().removeExpired(now, snapshotTtlMillis));
+    }
+
+    /**
+     * Removes the cached scores that have not been computed again for recipe.scores.ttl-ms milliseconds,
+     * like those of refrigerators that are no longer used or have been deleted.
+     */
+    @Scheduled(fixedDelayString = "${recipe.scores.ttl-ms:600000}", initialDelayString = "${recipe.scores.ttl-ms:600000}")
+    public void removeExpiredScores() {
+        long now = System.currentTimeMillis();
+        scoresByRefrigerator.values().removeIf(scores -> scores.isExpired(now, scoresTtlMillis));
+    }
+
+    /**
+     * Updates the cached scores of a refrigerator after its groceries have changed.
+     * Runs after the transaction that changed the groceries has committed, so the scores are not
+     * updated from changes that are rolled back.
+     *
+     * @param event the changed groceries of the refrigerator
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRefrigeratorGroceriesChanged(RefrigeratorGroceriesChangedEvent event) {
+        event.getGroceryIds().forEach(groceryId -> refreshGrocery(event.getRefrigeratorId(), groceryId));
+    }
+
+    /**
+     * Updates the cached scores after the amount or expiry date of a grocery
+     * in a refrigerator has changed. Only the recipes using the grocery are touched.
+     * Does nothing if the refrigerator is not cached.
+     *
+     * @param refrigeratorId id of the refrigerator
+     * @param groceryId id of the grocery that changed
+     */
+    public void refreshGrocery(long refrigeratorId, long groceryId) {
+        if (!scoresByRefrigerator.containsKey(refrigeratorId)) {
+            return;
+        }
+        IngredientIndex index = getIngredientIndex();
+        // Updated under the lock of the map entry, so scores being computed are not replaced after the update
+        scoresByRefrigerator.computeIfPresent(refrigeratorId, (id, scores) -> {
+            if (index != scores.index) {
+                return null;
+            }
+            GroceryStock newStock = GroceryStock.of(refrigeratorGroceryRepository
+                    .findAllByRefrigeratorIdAndGroceryId(refrigeratorId, groceryId));
+            synchronized (scores) {
+                GroceryStock oldStock = scores.stockByGroceryId.get(groceryId);
+                for (RecipeIngredientAmountDTO ingredient : index.ingredientsByGroceryId.getOrDefault(groceryId, List.of())) {
+                    double delta = contribution(newStock, ingredient, scores.computedOn)
+                            - contribution(oldStock, ingredient, scores.computedOn);
+                    if (delta != 0) {
+                        // Drop scores that only are rounding errors left after the last match was removed
+                        scores.scoreByRecipeId.compute(ingredient.getRecipeId(), (recipeId, score) -> {
+                            double newScore = (score == null ? 0 : score) + delta;
+                            return newScore < MIN_SCORE ? null : newScore;
+                        });
+                    }
+                }
+                if (newStock == null) {
+                    scores.stockByGroceryId.remove(groceryId);
+                } else {
+                    scores.stockByGroceryId.put(groceryId, newStock);
+                }
+                scores.version = VERSIONS.incrementAndGet();
+                scores.snapshot = null;
+            }
+            return scores;
+        });
+        logger.debug("Refreshed recipe scores for grocery {} in refrigerator {}", groceryId, refrigeratorId);
+    }
+
+    /**
+     * Gets the cached scores of a refrigerator, computing them if they are missing, are from an earlier day,
+     * are older than recipe.scores.ttl-ms milliseconds, or were computed from an outdated ingredient index.
+     *
+     * @param refrigeratorId id of the refrigerator
+     * @return the scores of the refrigerator
+     */
+    private RefrigeratorScores getScores(long refrigeratorId) {
+        IngredientIndex index = getIngredientIndex();
+        LocalDate today = LocalDate.now();
+        long now = System.currentTimeMillis();
+        RefrigeratorScores scores = scoresByRefrigerator.get(refrigeratorId);
+        if (scores != null && scores.isCurrent(index, today, now, scoresTtlMillis)) {
+            return scores;
+        }
+        // Computed under the lock of the map entry, so a refresh of the refrigerator waits for the new scores
+        // instead of updating the ones being replaced
+        return scoresByRefrigerator.compute(refrigeratorId, (id, current) ->
+                current != null && current.isCurrent(index, today, now, scoresTtlMillis)
+                        ? current : computeScores(id, index, today, now));
+    }
+
+    /**
+     * Computes the scores of all recipes for a refrigerator from scratch.
+     *
+     * @param refrigeratorId id of the refrigerator
+     * @param index ingredient index to score with
+     * @param today the date urgency is measured from
+     * @param now the time the scores are computed at, in milliseconds
+     * @return the scores of the refrigerator
+     */
+    private RefrigeratorScores computeScores(long refrigeratorId, IngredientIndex index, LocalDate today, long now) {
+        logger.info("Computing recipe scores for refrigerator {}", refrigeratorId);
+        Map<Long, List<RefrigeratorGrocery>> groceriesById = new HashMap<>();
+        for (RefrigeratorGrocery refrigeratorGrocery : refrigeratorGroceryRepository.findAllByRefrigeratorId(refrigeratorId)) {
+            groceriesById.computeIfAbsent(refrigeratorGrocery.getGrocery().getId(), id -> new ArrayList<>())
+                    .add(refrigeratorGrocery);
+        }
+
+        RefrigeratorScores scores = new RefrigeratorScores(index, today, now);
+        groceriesById.forEach((groceryId, groceries) -> {
+            GroceryStock stock = GroceryStock.of(groceries);
+            if (stock == null) {
+                return;
+            }
+            scores.stockByGroceryId.put(groceryId, stock);
+            for (RecipeIngredientAmountDTO ingredient : index.ingredientsByGroceryId.getOrDefault(groceryId, List.of())) {
+                scores.scoreByRecipeId.merge(ingredient.getRecipeId(), contribution(stock, ingredient, today), Double::sum);
+            }
+        });
+        return scores;
+    }
+
+    /**
+     * Drops the ingredient index and all cached scores, so they are built again on the next read.
+     * Must be called after recipe ingredients are added, changed or removed.
+     */
+    public synchronized void invalidateIngredientIndex() {
+        ingredientIndex = null;
+        scoresByRefrigerator.clear();
+    }
+
+    /**
+     * Builds the ingredient index again on the schedule set by recipe.index.refresh-ms, to pick up
+     * recipes written by other nodes. The cached scores are only dropped if the ingredients have changed.
+     */
+    @Scheduled(fixedDelayString = "${recipe.index.refresh-ms:600000}", initialDelayString = "${recipe.index.refresh-ms:600000}")
+    public synchronized void refreshIngredientIndex() {
+        if (ingredientIndex == null) {
+            return;
+        }
+        IngredientIndex index = buildIngredientIndex();
+        if (!index.ingredientsByGroceryId.equals(ingredientIndex.ingredientsByGroceryId)) {
+            ingredientIndex = index;
+            scoresByRefrigerator.clear();
+        }
+    }
+
+    /**
+     * Gets the index from grocery id to the recipes using it, building it if it has been dropped.
+     *
+     * @return the ingredient index
+     */
+    private IngredientIndex getIngredientIndex() {
+        IngredientIndex index = ingredientIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            if (ingredientIndex == null) {
+                ingredientIndex = buildIngredientIndex();
+                scoresByRefrigerator.clear();
+            }
+            return ingredientIndex;
+        }
+    }
+
+    private IngredientIndex buildIngredientIndex() {
+        logger.info("Building recipe ingredient index");
+        Map<Long, List<RecipeIngredientAmountDTO>> ingredientsByGroceryId = new HashMap<>();
+        for (RecipeIngredientAmountDTO ingredient : recipeGroceryRepository.findAllIngredientAmounts()) {
+            ingredientsByGroceryId.computeIfAbsent(ingredient.getGroceryId(), id -> new ArrayList<>()).add(ingredient);
+        }
+        return new IngredientIndex(ingredientsByGroceryId);
+    }
+
+    /**
+     * Calculates how much one ingredient adds to the score of its recipe.
+     *
+     * @param stock the grocery in the refrigerator, or null if there is none
+     * @param ingredient the needed amount of the grocery
+     * @param today the date urgency is measured from
+     * @return the contribution, 0 if the grocery is not in the refrigerator
+     */
+    static double contribution(GroceryStock stock, RecipeIngredientAmountDTO ingredient, LocalDate today) {
+        if (stock == null) {
+            return 0;
+        }
+        double coverage = 1;
+        if (stock.grams != null && ingredient.getUnitWeight() != null) {
+            long neededGrams = (long) ingredient.getQuantity() * ingredient.getUnitWeight();
+            if (neededGrams > 0) {
+                coverage = Math.min(1.0, (double) stock.grams / neededGrams);
+            }
+        }
+        long daysLeft = Math.max(0, ChronoUnit.DAYS.between(today, stock.earliestExpireDate));
+        double urgency = 1 + (double) Math.max(0, URGENCY_HORIZON_DAYS - daysLeft) / URGENCY_HORIZON_DAYS;
+        return coverage * urgency;
+    }
+
+    /**
+     * The total amount and earliest expiry date of one grocery in a refrigerator.
+     * Grams are null if some of the groceries have no unit.
+     */
+    static final class GroceryStock {
+        private final Long grams;
+        private final LocalDate earliestExpireDate;
+
+        GroceryStock(Long grams, LocalDate earliestExpireDate) {
+            this.grams = grams;
+            this.earliestExpireDate = earliestExpireDate;
+        }
+
+        /**
+         * Sums up the groceries of one grocery type in a refrigerator.
+         *
+         * @param groceries the refrigerator groceries
+         * @return the stock, or null if the groceries are empty
+         */
+        static GroceryStock of(List<RefrigeratorGrocery> groceries) {
+            if (groceries.isEmpty()) {
+                return null;
+            }
+            Long grams = 0L;
+            LocalDate earliestExpireDate = null;
+            for (RefrigeratorGrocery grocery : groceries) {
+                if (grams != null && grocery.getUnit() != null) {
+                    grams += (long) grocery.getQuantity() * grocery.getUnit().getWeight();
+                } else {
+                    grams = null;
+                }
+                if (earliestExpireDate == null || grocery.getPhysicalExpireDate().isBefore(earliestExpireDate)) {
+                    earliestExpireDate = grocery.getPhysicalExpireDate();
+                }
+            }
+            return new GroceryStock(grams, earliestExpireDate);
+        }
+    }
+
+    /**
+     * Recipe ingredients grouped by grocery id.
+     */
+    private static final class IngredientIndex {
+        private final Map<Long, List<RecipeIngredientAmountDTO>> ingredientsByGroceryId;
+
+        private IngredientIndex(Map<Long, List<RecipeIngredientAmountDTO>> ingredientsByGroceryId) {
+            this.ingredientsByGroceryId = ingredientsByGroceryId;
+        }
+    }
+
+    /**
+     * Cached grocery stock and recipe scores of one refrigerator.
+     */
+    private static final class RefrigeratorScores {
+        private final IngredientIndex index;
+        private final LocalDate computedOn;
+        private final long computedAt;
+        private final Map<Long, GroceryStock> stockByGroceryId = new HashMap<>();
+        private final Map<Long, Double> scoreByRecipeId = new HashMap<>();
+        private long version = VERSIONS.incrementAndGet();
+        private Snapshot snapshot;
+
+        private RefrigeratorScores(IngredientIndex index, LocalDate computedOn, long computedAt) {
+            this.index = index;
+            this.computedOn = computedOn;
+            this.computedAt = computedAt;
+        }
+
+        private boolean isCurrent(IngredientIndex currentIndex, LocalDate today, long now, long ttlMillis) {
+            return index == currentIndex && computedOn.equals(today) && !isExpired(now, ttlMillis);
+        }
+
+        private boolean isExpired(long now, long ttlMillis) {
+            return now - computedAt > ttlMillis;
+        }
+    }
+
+    /**
+     * The most recently used score snapshots of one refrigerator, with the time each was last used.
+     */
+    private static final class RefrigeratorSnapshots {
+        private final LinkedHashMap<Long, Snapshot> snapshotsByVersion = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+                return size() > MAX_SNAPSHOTS_PER_REFRIGERATOR;
+            }
+        };
+        private final Map<Long, Long> lastUsedByVersion = new HashMap<>();
+
+        private synchronized void keep(Snapshot snapshot, long now) {
+            snapshotsByVersion.put(snapshot.getVersion(), snapshot);
+            lastUsedByVersion.keySet().retainAll(snapshotsByVersion.keySet());
+            lastUsedByVersion.put(snapshot.getVersion(), now);
+        }
+
+        private synchronized Optional<Snapshot> get(long version, long now, long ttlMillis) {
+            Long lastUsed = lastUsedByVersion.get(version);
+            if (lastUsed == null || now - lastUsed > ttlMillis) {
+                return Optional.empty();
+            }
+            lastUsedByVersion.put(version, now);
+            return Optional.ofNullable(snapshotsByVersion.get(version));
+        }
+
+        /**
+         * @return true if no snapshots are left
+         */
+        private synchronized boolean removeExpired(long now, long ttlMillis) {
+            lastUsedByVersion.values().removeIf(lastUsed -> now - lastUsed > ttlMillis);
+            snapshotsByVersion.keySet().retainAll(lastUsedByVersion.keySet());
+            return snapshotsByVersion.isEmpty();
+        }
+    }
+
+    /**
+     * Immutable scores of the matching recipes of one refrigerator, sorted by score descending and id ascending.
+     */
+    public static final class Snapshot {
+        private final long refrigeratorId;
+        private final long version;
+        private final long[] recipeIds;
+        private final double[] scores;
+        private final long[] sortedRecipeIds;
+
+        private Snapshot(long refrigeratorId, long version, long[] recipeIds, double[] scores) {
+            this.refrigeratorId = refrigeratorId;
+            this.version = version;
+            this.recipeIds = recipeIds;
+            this.scores = scores;
+            this.sortedRecipeIds = recipeIds.clone();
+            Arrays.sort(this.sortedRecipeIds);
+        }
+
+        private static Snapshot of(long refrigeratorId, long version, Map<Long, Double> scoreByRecipeId) {
+            List<RecipeScoreDTO> sorted = scoreByRecipeId.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= MIN_SCORE)
+                    .map(entry -> new RecipeScoreDTO(entry.getKey(), entry.getValue()))
+                    .sorted(Comparator.comparingDouble(RecipeScoreDTO::getScore).reversed()
+                            .thenComparingLong(RecipeScoreDTO::getRecipeId))
+                    .toList();
+            long[] recipeIds = new long[sorted.size()];
+            double[] scores = new double[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                recipeIds[i] = sorted.get(i).getRecipeId();
+                scores[i] = sorted.get(i).getScore();
+            }
+            return new Snapshot(refrigeratorId, version, recipeIds, scores);
+        }
+
+        public long getRefrigeratorId() {
+            return refrigeratorId;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Checks if a recipe has a score in this snapshot.
+         *
+         * @param recipeId id of the recipe
+         * @return true if the recipe matches the refrigerator
+         */
+        public boolean contains(long recipeId) {
+            return Arrays.binarySearch(sortedRecipeIds, recipeId) >= 0;
+        }
+
+        /**
+         * Gets the recipes ranked after the given position. The position is found with a
+         * binary search, so a deep page costs the same as the first.
+         *
+         * @param afterScore score of the last recipe of the previous page, or null for the first page
+         * @param afterRecipeId id of the last recipe of the previous page, or null for the first page
+         * @param limit maximum number of recipes to return
+         * @return list of recipe scores, best first
+         */
+        public List<RecipeScoreDTO> page(Double afterScore, Long afterRecipeId, int limit) {
+            int low = 0;
+            int high = recipeIds.length;
+            if (afterScore != null && afterRecipeId != null) {
+                // Find the first position ranked after (afterScore, afterRecipeId)
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    boolean rankedAfter = scores[mid] < afterScore
+                            || (scores[mid] == afterScore && recipeIds[mid] > afterRecipeId);
+                    if (rankedAfter) {
+                        high = mid;
+                    } else {
+                        low = mid + 1;
+                    }
+                }
+            }
+            List<RecipeScoreDTO> page = new ArrayList<>();
+            for (int i = low; i < recipeIds.length && page.size() < limit; i++) {
+                page.add(new RecipeScoreDTO(recipeIds[i], scores[i]));
+            }
+            return page;
+        }
+    }
+}
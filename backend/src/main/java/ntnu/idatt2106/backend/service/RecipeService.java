@@ -2,23 +2,23 @@ package ntnu.idatt2106.backend.service;
 
 
 import lombok.RequiredArgsConstructor;
-import ntnu.idatt2106.backend.model.dto.GroceryInfoDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.IngredientDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.FetchRecipesDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeFeedCursor;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeFeedDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeScoreDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.SimpleGrocery;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
-import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.model.recipe.Recipe;
 import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
-import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
-import ntnu.idatt2106.backend.repository.recipe.RecipeCategoryRepository;
+import ntnu.idatt2106.backend.exceptions.ExpiredCursorException;
+import ntnu.idatt2106.backend.exceptions.InvalidCursorException;
 import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
 import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import ntnu.idatt2106.backend.exceptions.NoSuchElementRuntimeException;
 
-import java.time.LocalDate;
 import java.util.*;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -27,84 +27,142 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RecipeService {
 
-    private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
     private final RecipeGroceryRepository recipeGroceryRepository;
     private final RecipeRepository recipeRepository;
+    private final RecipeScoreService recipeScoreService;
 
     private final Logger logger = Logger.getLogger(RecipeService.class.getName());
 
-    private static int lastDuplicateIndex = 0;
+    private static final int MAX_FEED_PAGE_SIZE = 50;
 
 
     /**
-     * Method to fetch recipes based on what the user has stored in their fridge
-     * Also finds the recipes that uses groceries that are about to expire
+     * Fetches a page of the recipe feed for a refrigerator.
+     * The feed first lists the recipes with ingredients in the refrigerator, ranked by score,
+     * and then the rest of the recipes ordered by id. The cursor holds the position in the feed
+     * and the version of the score snapshot, so a client paging through the feed never gets a
+     * recipe twice, and a deep page costs the same as the first. If the snapshot is no longer kept,
+     * the client has to start again from the first page, instead of paging on through another ranking.
+     * @param refrigeratorId id of the refrigerator
+     * @param limit maximum number of recipes in the page
+     * @param cursor cursor from the previous page, or null for the first page
+     * @return the page, with the cursor for the next page or null if there are no more recipes
+     * @throws InvalidCursorException if the cursor can not be read
+     * @throws ExpiredCursorException if the score snapshot of the cursor is no longer kept
      */
-
-    public List<RecipeDTO> getSortedRecipesByMatchingGroceries(long refrigeratorId, int numOfRecipesToFetch) {
-        List<Recipe> recipes = recipeRepository.findAll();
-        Map<Recipe, Integer> recipeMatches = new HashMap<>();
-
-        for (Recipe recipe : recipes) {
-            int matches = 0;
-            List<RefrigeratorGrocery> refrigeratorGroceries = refrigeratorGroceryRepository.findAllByRefrigeratorId(refrigeratorId);
-            Set<Grocery> groceriesInRefrigerator = new HashSet<>();
-
-            for (RefrigeratorGrocery refrigeratorGrocery : refrigeratorGroceries) {
-                groceriesInRefrigerator.add(refrigeratorGrocery.getGrocery());
-            }
-
-            List<RecipeGrocery> recipeGroceries = recipeGroceryRepository.findAllByRecipe(recipe);
-            for (RecipeGrocery recipeGrocery : recipeGroceries) {
-                if (groceriesInRefrigerator.contains(recipeGrocery.getGrocery())) {
-                    matches++;
-                }
+    public RecipeFeedDTO getRecipeFeed(long refrigeratorId, int limit, String cursor) throws InvalidCursorException, ExpiredCursorException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        RecipeFeedCursor position = cursor == null || cursor.isBlank() ? null : RecipeFeedCursor.decode(cursor);
+        RecipeScoreService.Snapshot snapshot = position == null
+                ? recipeScoreService.getSnapshot(refrigeratorId)
+                : recipeScoreService.getSnapshot(refrigeratorId, position.getSnapshotVersion())
+                        .orElseThrow(() -> new ExpiredCursorException("The recipe feed has changed, fetch the first page again"));
+
+        List<Long> recipeIds = new ArrayList<>();
+        RecipeFeedCursor last = null;
+        if (position == null || position.isMatching()) {
+            List<RecipeScoreDTO> matching = position == null
+                    ? snapshot.page(null, null, pageSize)
+                    : snapshot.page(position.getScore(), position.getRecipeId(), pageSize);
+            for (RecipeScoreDTO recipeScore : matching) {
+                recipeIds.add(recipeScore.getRecipeId());
+                last = new RecipeFeedCursor(snapshot.getVersion(), true, recipeScore.getScore(), recipeScore.getRecipeId());
             }
-
-            recipeMatches.put(recipe, matches);
         }
 
-        // Sort recipes by the number of matching groceries
-        List<Recipe> sortedRecipes = new ArrayList<>(recipes);
-        sortedRecipes.sort((recipe1, recipe2) -> recipeMatches.get(recipe2).compareTo(recipeMatches.get(recipe1)));
-
-        List<Recipe> sortedRecipeDTOs = new ArrayList<>();
-        int recipesAdded = 0;
-        while (recipesAdded < numOfRecipesToFetch) {
-            for (Recipe recipe : sortedRecipes) {
-                sortedRecipeDTOs.add(recipe);
-                recipesAdded++;
-                if (recipesAdded >= numOfRecipesToFetch) {
+        // Continue with the recipes without matches, skipping the ones already listed as matching
+        long afterId = position != null && !position.isMatching() ? position.getRecipeId() : 0;
+        while (recipeIds.size() < pageSize) {
+            List<Long> ids = recipeRepository.findIdsAfter(afterId, PageRequest.of(0, pageSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                afterId = id;
+                if (snapshot.contains(id)) {
+                    continue;
+                }
+                recipeIds.add(id);
+                last = new RecipeFeedCursor(snapshot.getVersion(), false, 0, id);
+                if (recipeIds.size() >= pageSize) {
                     break;
                 }
             }
         }
 
-        return convertToDTOs(sortedRecipeDTOs);
+        String nextCursor = recipeIds.size() < pageSize || last == null ? null : last.encode();
+        return new RecipeFeedDTO(convertToDTOs(findRecipesInOrder(recipeIds)), nextCursor);
     }
 
-    public List<RecipeDTO> convertToDTOs(List<Recipe> recipes) {
-        return recipes.stream().map(recipe -> {
-            RecipeDTO recipeDTO = new RecipeDTO(recipe);
-            List<GroceryInfoDTO> groceryInfoList = recipeGroceryRepository.findGroceryInfoByRecipe(recipe);
+    /**
+     * Fetches recipes ranked by how well the groceries in the refrigerator cover them,
+     * with groceries that are about to expire weighted higher.
+     * Recipes that the user already has fetched are left out, so the result never repeats them.
+     * If there are not enough matching recipes, the rest is filled with recipes without matches.
+     * @param fetchRecipesDTO the refrigerator, the number of recipes and the recipes already fetched
+     * @return list of recipes, best first
+     */
+    public List<RecipeDTO> getRecipesByGroceriesAndExpirationDates(FetchRecipesDTO fetchRecipesDTO) {
+        long refrigeratorId = fetchRecipesDTO.getRefrigeratorId();
+        int numOfRecipesToFetch = fetchRecipesDTO.getNumRecipes();
+        List<Long> fetchedRecipeIds = fetchRecipesDTO.getFetchedRecipeIds() == null
+                ? new ArrayList<>() : fetchRecipesDTO.getFetchedRecipeIds();
+        if (numOfRecipesToFetch <= 0) {
+            return new ArrayList<>();
+        }
 
-            // Convert the GroceryInfoDTO list to a list of IngredientDTOs
-            List<IngredientDTO> ingredients = groceryInfoList.stream()
-                    .map(gi -> {
-                        SimpleGrocery grocery = new SimpleGrocery(gi.getId(), gi.getName());
-                        Grocery groceryForSearch = new Grocery();
-                        groceryForSearch.setId(gi.getId());
-                        groceryForSearch.setName(gi.getName());
+        List<Long> recipeIds = recipeScoreService.getTopRecipes(refrigeratorId, numOfRecipesToFetch, fetchedRecipeIds)
+                .stream()
+                .map(RecipeScoreDTO::getRecipeId)
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        int missing = numOfRecipesToFetch - recipeIds.size();
+        if (missing > 0) {
+            PageRequest page = PageRequest.of(0, missing);
+            recipeIds.addAll(fetchedRecipeIds.isEmpty()
+                    ? recipeRepository.findUnmatchedIdsByRefrigeratorId(refrigeratorId, page)
+                    : recipeRepository.findUnmatchedIdsByRefrigeratorIdExcluding(refrigeratorId, fetchedRecipeIds, page));
+        }
+        return convertToDTOs(findRecipesInOrder(recipeIds));
+    }
 
-                        RecipeGrocery recipeGrocery = recipeGroceryRepository
-                                .findFirstByRecipeAndGrocery(recipe, groceryForSearch)
-                                .orElseThrow(() -> new NoSuchElementRuntimeException("No matching RecipeGrocery found."));
+    /**
+     * Loads recipes by id and returns them in the same order as the ids.
+     * @param recipeIds ids of the recipes
+     * @return list of recipes
+     */
+    private List<Recipe> findRecipesInOrder(List<Long> recipeIds) {
+        if (recipeIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Recipe> recipesById = recipeRepository.findAllWithCategoryByIdIn(recipeIds).stream()
+                .collect(Collectors.toMap(Recipe::getId, recipe -> recipe));
+        return recipeIds.stream().map(recipesById::get).filter(Objects::nonNull).toList();
+    }
 
-                        return new IngredientDTO(grocery, recipeGrocery.getQuantity(), recipeGrocery.getUnit());
-                    })
-                    .collect(Collectors.toList());
+    /**
+     * Converts recipes to DTOs with their ingredients.
+     * The ingredients of all recipes are loaded in one query and grouped in memory.
+     * @param recipes recipes to convert, may contain the same recipe more than once
+     * @return list of recipe DTOs in the same order as the recipes
+     */
+    public List<RecipeDTO> convertToDTOs(List<Recipe> recipes) {
+        if (recipes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> recipeIds = recipes.stream().map(Recipe::getId).collect(Collectors.toSet());
+
+        Map<Long, List<IngredientDTO>> ingredientsByRecipeId = new HashMap<>();
+        for (RecipeGrocery recipeGrocery : recipeGroceryRepository.findAllWithGroceryAndUnitByRecipeIds(recipeIds)) {
+            Grocery grocery = recipeGrocery.getGrocery();
+            ingredientsByRecipeId.computeIfAbsent(recipeGrocery.getRecipe().getId(), id -> new ArrayList<>())
+                    .add(new IngredientDTO(new SimpleGrocery(grocery.getId(), grocery.getName()),
+                            recipeGrocery.getQuantity(), recipeGrocery.getUnit()));
+        }
 
-            recipeDTO.setIngredients(ingredients);
+        return recipes.stream().map(recipe -> {
+            RecipeDTO recipeDTO = new RecipeDTO(recipe);
+            recipeDTO.setIngredients(new ArrayList<>(ingredientsByRecipeId.getOrDefault(recipe.getId(), List.of())));
             return recipeDTO;
         }).toList();
     }
@@ -130,10 +188,7 @@ public class RecipeService {
     }
 
     public List<RecipeDTO> getAllRecipes() {
-        List<Recipe> recipes = recipeRepository.findAll();
+        List<Recipe> recipes = recipeRepository.findAllWithCategory();
         return convertToDTOs(recipes);
     }
-
-    public void setRecipeCategoryRepository(RecipeCategoryRepository recipeCategoryRepository) {
-    }
 }
@@ -0,0 +1,210 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.Unit;
+import ntnu.idatt2106.backend.model.dto.ReferenceDataCacheStatsDTO;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.SubCategoryRepository;
+import ntnu.idatt2106.backend.repository.UnitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holds the reference data that requests look up by id, units, subcategories with their category and groceries,
+ * in immutable maps in memory, so that the lookups do not touch the database once the maps are loaded.
+ * Each map is loaded on its first lookup and dropped when the data is written on this node, or every
+ * reference-data.refresh-ms milliseconds for writes made by other nodes. An id that is not in a map, like a custom
+ * grocery saved on another node, is looked up in the database and added to the map if found.
+ * The cached entities are shared between requests and must not be modified.
+ */
+@Service
+public class ReferenceDataCacheService {
+
+    private final Section<Unit> units;
+    private final Section<SubCategory> subCategories;
+    private final Section<Grocery> groceries;
+
+    private final Logger logger = LoggerFactory.getLogger(ReferenceDataCacheService.class);
+
+    public ReferenceDataCacheService(UnitRepository unitRepository, SubCategoryRepository subCategoryRepository,
+                                     GroceryRepository groceryRepository) {
+        this.units = new Section<>("units", unitRepository::findAll, unitRepository::findById, Unit::getId);
+        this.subCategories = new Section<>("subCategories", subCategoryRepository::findAll,
+                subCategoryRepository::findById, SubCategory::getId);
+        this.groceries = new Section<>("groceries", groceryRepository::findAllWithCategories,
+                groceryRepository::findById, Grocery::getId);
+    }
+
+    /**
+     * @param unitId id of the unit
+     * @return the unit, or empty if it does not exist
+     */
+    public Optional<Unit> findUnit(long unitId) {
+        return units.find(unitId);
+    }
+
+    /**
+     * @return all units, in the order they were loaded
+     */
+    public List<Unit> getUnits() {
+        return units.values();
+    }
+
+    /**
+     * @param subCategoryId id of the subcategory
+     * @return the subcategory with its category, or empty if it does not exist
+     */
+    public Optional<SubCategory> findSubCategory(long subCategoryId) {
+        return subCategories.find(subCategoryId);
+    }
+
+    /**
+     * @param groceryId id of the grocery
+     * @return the grocery with its subcategory and category, or empty if it does not exist
+     */
+    public Optional<Grocery> findGrocery(long groceryId) {
+        return groceries.find(groceryId);
+    }
+
+    /**
+     * Adds saved groceries to the cache, replacing the cached ones with the same id, or drops all the cached
+     * reference data when the catalog was imported, so it is loaded again on the next lookup.
+     * Runs after the transaction that changed the groceries has committed.
+     *
+     * @param event the changed groceries
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroceriesChanged(GroceriesChangedEvent event) {
+        if (event.isImported()) {
+            dropAll();
+        } else {
+            event.getSavedGroceries().forEach(groceries::put);
+        }
+    }
+
+    /**
+     * Drops the cached reference data on the schedule set by reference-data.refresh-ms,
+     * to pick up changes made by other nodes.
+     */
+    @Scheduled(fixedDelayString = "${reference-data.refresh-ms:600000}", initialDelayString = "${reference-data.refresh-ms:600000}")
+    public void refresh() {
+        dropAll();
+    }
+
+    /**
+     * @return the number of cached entries, hits, misses and loads of every kind of reference data
+     */
+    public List<ReferenceDataCacheStatsDTO> getStats() {
+        return List.of(units.stats(), subCategories.stats(), groceries.stats());
+    }
+
+    private void dropAll() {
+        units.drop();
+        subCategories.drop();
+        groceries.drop();
+    }
+
+    /**
+     * One kind of reference data, as an immutable map from id to entity that is replaced as a whole on every change.
+     * A lookup counts as a hit when the map was loaded and had the id, and as a miss when the map had to be loaded
+     * or the id had to be looked up in the database.
+     */
+    private final class Section<T> {
+
+        private final String name;
+        private final Supplier<List<T>> loadAll;
+        private final Function<Long, Optional<T>> loadOne;
+        private final Function<T, Long> idOf;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder loads = new LongAdder();
+        private volatile Map<Long, T> entries;
+
+        private Section(String name, Supplier<List<T>> loadAll, Function<Long, Optional<T>> loadOne, Function<T, Long> idOf) {
+            this.name = name;
+            this.loadAll = loadAll;
+            this.loadOne = loadOne;
+            this.idOf = idOf;
+        }
+
+        private Optional<T> find(long id) {
+            Map<Long, T> current = entries;
+            if (current != null) {
+                T entry = current.get(id);
+                if (entry != null) {
+                    hits.increment();
+                    return Optional.of(entry);
+                }
+            }
+            misses.increment();
+            if (current == null) {
+                return Optional.ofNullable(load().get(id));
+            }
+            Optional<T> loaded = loadOne.apply(id);
+            loaded.ifPresent(this::put);
+            return loaded;
+        }
+
+        private List<T> values() {
+            Map<Long, T> current = entries;
+            if (current != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                current = load();
+            }
+            return List.copyOf(current.values());
+        }
+
+        private synchronized Map<Long, T> load() {
+            Map<Long, T> current = entries;
+            if (current != null) {
+                return current;
+            }
+            Map<Long, T> loaded = new LinkedHashMap<>();
+            loadAll.get().forEach(entry -> loaded.put(idOf.apply(entry), entry));
+            loads.increment();
+            entries = Collections.unmodifiableMap(loaded);
+            logger.info("Loaded {} {} into the reference data cache", loaded.size(), name);
+            return entries;
+        }
+
+        private synchronized void put(T entry) {
+            Map<Long, T> current = entries;
+            if (current == null) {
+                return;
+            }
+            Map<Long, T> copy = new LinkedHashMap<>(current);
+            copy.put(idOf.apply(entry), entry);
+            entries = Collections.unmodifiableMap(copy);
+        }
+
+        /**
+         * Synchronized with the load, so a write committed while the map is loaded drops it once it is loaded.
+         */
+        private synchronized void drop() {
+            entries = null;
+        }
+
+        private ReferenceDataCacheStatsDTO stats() {
+            Map<Long, T> current = entries;
+            return ReferenceDataCacheStatsDTO.builder()
+                    .name(name)
+                    .size(current == null ? 0 : current.size())
+                    .hits(hits.sum())
+                    .misses(misses.sum())
+                    .loads(loads.sum())
+                    .build();
+        }
+    }
+}
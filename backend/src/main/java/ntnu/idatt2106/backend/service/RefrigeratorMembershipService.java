@@ -0,0 +1,104 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.exceptions.UnauthorizedException;
+import ntnu.idatt2106.backend.exceptions.UserNotFoundException;
+import ntnu.idatt2106.backend.model.dto.FridgeMembershipDTO;
+import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.repository.RefrigeratorUserRepository;
+import ntnu.idatt2106.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Service for resolving the role a user has in a refrigerator.
+ * All memberships of a user are loaded in one query the first time a role is needed during a request,
+ * and later role checks in the same request are served from the loaded map.
+ * The map must be invalidated when memberships change during the request.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefrigeratorMembershipService {
+
+    private static final String REQUEST_ATTRIBUTE = RefrigeratorMembershipService.class.getName();
+
+    private final RefrigeratorUserRepository refrigeratorUserRepository;
+    private final UserRepository userRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(RefrigeratorMembershipService.class);
+
+    /**
+     * Gets the role a user has in a refrigerator
+     *
+     * @param refrigeratorId id of the refrigerator
+     * @param email email of the user
+     * @return role of the user in the refrigerator
+     * @throws UserNotFoundException if user not found
+     * @throws UnauthorizedException if user not member of refrigerator
+     */
+    public FridgeRole getFridgeRole(long refrigeratorId, String email) throws UserNotFoundException, UnauthorizedException {
+        FridgeRole role = getFridgeRoles(email).get(refrigeratorId);
+        if (role != null) {
+            return role;
+        }
+        if (email == null || !userRepository.existsByEmail(email)) {
+            throw new UserNotFoundException("User with email " + email + " not found");
+        }
+        throw new UnauthorizedException("User not member of refrigerator");
+    }
+
+    /**
+     * Gets the roles of a user in all refrigerators the user is member of,
+     * loading them if they are not loaded during the current request.
+     *
+     * @param email email of the user
+     * @return map from refrigerator id to role
+     */
+    public Map<Long, FridgeRole> getFridgeRoles(String email) {
+        Map<String, Map<Long, FridgeRole>> rolesByEmail = getRequestRoles();
+        if (rolesByEmail == null) {
+            return loadFridgeRoles(email);
+        }
+        return rolesByEmail.computeIfAbsent(email, this::loadFridgeRoles);
+    }
+
+    /**
+     * Forgets the roles loaded during the current request. Must be called after a
+     * membership is added, changed or removed.
+     */
+    public void invalidate() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            requestAttributes.removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private Map<Long, FridgeRole> loadFridgeRoles(String email) {
+        logger.debug("Loading refrigerator memberships for {}", email);
+        Map<Long, FridgeRole> roles = new HashMap<>();
+        for (FridgeMembershipDTO membership : refrigeratorUserRepository.findFridgeMembershipsByUserEmail(email)) {
+            roles.put(membership.getRefrigeratorId(), membership.getFridgeRole());
+        }
+        return roles;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<Long, FridgeRole>> getRequestRoles() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        Object roles = requestAttributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (roles == null) {
+            roles = new HashMap<String, Map<Long, FridgeRole>>();
+            requestAttributes.setAttribute(REQUEST_ATTRIBUTE, roles, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<String, Map<Long, FridgeRole>>) roles;
+    }
+}
@@ -52,7 +52,9 @@ public class RefrigeratorService {
     private final ShoppingListRepository shoppingListRepository;
     private final ShoppingCartRepository shoppingCartRepository;
     private final UserRepository userRepository;
-    private final UnitRepository unitRepository;
+    private final ReferenceDataCacheService referenceDataCacheService;
+    private final RefrigeratorMembershipService refrigeratorMembershipService;
+    private final NotificationService notificationService;
 
     private final Logger logger = LoggerFactory.getLogger(RefrigeratorService.class);
 
@@ -93,6 +95,7 @@ public class RefrigeratorService {
         try {
             logger.info("Checks validated, saving refrigeratorUser");
             RefrigeratorUser result = refrigeratorUserRepository.save(ru);
+            refrigeratorMembershipService.invalidate();
             return new MemberDTO(result);
         } catch (Exception e) {
             logger.warn("Member could not be added: Failed to save refrigeratoruser");
@@ -221,6 +224,7 @@ public class RefrigeratorService {
             }
             refrigeratorUserRepository.delete(userRole);
         }
+        refrigeratorMembershipService.invalidate();
         refrigeratorRepository.save(refrigerator);
     }
 
@@ -264,7 +268,8 @@ public class RefrigeratorService {
         refrigeratorUser.setFridgeRole(FridgeRole.SUPERUSER);
         try {
             logger.info("Saving member");
-            RefrigeratorUser refrigeratorUser1 = refrigeratorUserRepository.save(refrigeratorUser);
+            refrigeratorUserRepository.save(refrigeratorUser);
+            refrigeratorMembershipService.invalidate();
         } catch (Exception e) {
             logger.warn("Refrigerator could not be added: User could not be connected to refrigerator");
             throw new Exception("User could not be connected to refrigerator");
@@ -308,6 +313,7 @@ public class RefrigeratorService {
             try {
                 logger.info("Checks validated, updating refrigeratorUser");
                 RefrigeratorUser result = refrigeratorUserRepository.save(existingRu.get());
+                refrigeratorMembershipService.invalidate();
                 return new MemberDTO(result);
             } catch (Exception e) {
                 logger.warn("Member could not be updated: Failed to update refrigeratoruser");
@@ -358,7 +364,8 @@ public class RefrigeratorService {
         }
         if (refrigeratorRepository.existsById(refrigeratorId)) {
             try {
-                // Remove all groceries
+                // Remove all groceries, and their notifications so the unread counts of the members are kept
+                notificationService.deleteNotificationsByRefrigeratorId(refrigeratorId);
                 refrigeratorGroceryRepository.removeByRefrigeratorId(refrigeratorId);
 
                 // Remove Shopping Cart Groceries
@@ -374,6 +381,7 @@ public class RefrigeratorService {
 
                 // Remove Refrigerator entity
                 refrigeratorRepository.deleteById(refrigeratorId);
+                refrigeratorMembershipService.invalidate();
             } catch (Exception e) {
                 logger.error("Failed to delete refrigerator: " + e.getMessage());
                 throw e;
@@ -386,7 +394,8 @@ public class RefrigeratorService {
     }
 
     /**
-     * Gets a users role in the refrigerator
+     * Gets a users role in the refrigerator. The roles of the user are loaded
+     * once per request by the RefrigeratorMembershipService.
      *
      * @param refrigerator refrigerator
      * @param email username
@@ -395,11 +404,7 @@ public class RefrigeratorService {
      * @throws UnauthorizedException if user not member of refrigerator
      */
     public FridgeRole getFridgeRole(Refrigerator refrigerator, String email) throws UserNotFoundException, UnauthorizedException {
-        User user = getUser(email);
-        RefrigeratorUser ru = refrigeratorUserRepository.findByUserAndRefrigerator(user, refrigerator)
-                .orElseThrow(() -> new UnauthorizedException("User not member of refrigerator"));
-        System.out.println(ru);
-        return ru.getFridgeRole();
+        return refrigeratorMembershipService.getFridgeRole(refrigerator.getId(), email);
     }
 
     /**
@@ -450,7 +455,7 @@ public class RefrigeratorService {
     }
 
     public List<UnitDTO> getUnits(){
-        List<Unit> list = unitRepository.findAll();
+        List<Unit> list = referenceDataCacheService.getUnits();
         List<UnitDTO> dtos = list.stream().map(unit -> new UnitDTO(unit))
                 .collect(Collectors.toList());
         return dtos;
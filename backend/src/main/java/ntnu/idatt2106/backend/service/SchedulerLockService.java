@@ -0,0 +1,62 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.repository.SchedulerLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Service for locks that make a scheduled job run on only one node.
+ * A lock is a row in the database which is created with an insert and taken with an atomic update, and which
+ * expires by itself so a node that dies while holding it does not block the job forever. When two nodes create
+ * the same lock, the insert of one fails on the primary key and that node backs off.
+ */
+@Service
+@RequiredArgsConstructor
+public class SchedulerLockService {
+
+    private static final String NODE_NAME = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final SchedulerLockRepository schedulerLockRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(SchedulerLockService.class);
+
+    /**
+     * Tries to take a lock.
+     *
+     * @param name name of the lock
+     * @param lockAtMostFor how long the lock is held if it is never released
+     * @return true if the lock was taken, false if another node holds it
+     */
+    public boolean tryLock(String name, Duration lockAtMostFor) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockedUntil = now.plus(lockAtMostFor);
+        if (schedulerLockRepository.tryLock(name, lockedUntil, now, NODE_NAME) == 1) {
+            return true;
+        }
+        if (schedulerLockRepository.existsById(name)) {
+            return false;
+        }
+        try {
+            return schedulerLockRepository.insertLock(name, lockedUntil, now, NODE_NAME) == 1;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Lock {} was created by another node", name);
+            return false;
+        }
+    }
+
+    /**
+     * Releases a lock taken by this node.
+     *
+     * @param name name of the lock
+     */
+    public void unlock(String name) {
+        schedulerLockRepository.unlock(name, LocalDateTime.now(), NODE_NAME);
+    }
+}
@@ -6,23 +6,33 @@ import ntnu.idatt2106.backend.exceptions.*;
 import ntnu.idatt2106.backend.model.*;
 import ntnu.idatt2106.backend.model.dto.CreateRefrigeratorGroceryDTO;
 import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+import ntnu.idatt2106.backend.model.dto.shoppingCartElement.CheckoutSummaryDTO;
 import ntnu.idatt2106.backend.model.dto.shoppingCartElement.ShoppingCartElementDTO;
 import ntnu.idatt2106.backend.model.dto.shoppingCartElement.ShoppingCartElementDTOComparator;
 import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.model.event.RefrigeratorGroceriesChangedEvent;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.GroceryShoppingCart;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryListRequest;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryRequest;
 import ntnu.idatt2106.backend.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * The ShoppingCartService class provides methods to create a new shopping cart, or get an existing one,
@@ -35,7 +45,9 @@ public class ShoppingCartService {
     private final ShoppingListRepository shoppingListRepository;
     private final GroceryShoppingCartRepository groceryShoppingCartRepository;
     private final GroceryService groceryService;
-    private final UnitRepository unitRepository;
+    private final ReferenceDataCacheService referenceDataCacheService;
+    private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     private Logger logger = LoggerFactory.getLogger(ShoppingCartService.class);
 
@@ -133,7 +145,7 @@ public class ShoppingCartService {
             } else {
                 logger.info("Grocery item does not exit in shopping cart. Saving the grocery to the database");
                 Grocery grocery = groceryService.getGroceryById(groceryRequest.getGroceryId());
-                Unit unit = unitRepository.findById(groceryRequest.getUnitDTO().getId()).orElseThrow(() -> new NoSuchElementException("Could not find specified unit"));
+                Unit unit = referenceDataCacheService.findUnit(groceryRequest.getUnitDTO().getId()).orElseThrow(() -> new NoSuchElementException("Could not find specified unit"));
                 groceryShoppingCart = Optional.of(GroceryShoppingCart.builder()
                         .grocery(grocery)
                         .shoppingCart(shoppingCart)
@@ -199,8 +211,12 @@ public class ShoppingCartService {
     }
 
     /**
-     * Transfers all groceries from the shopping cart to the refrigerator
+     * Transfers all groceries from the shopping cart to the refrigerator.
+     * The cart items, refrigerators, roles and units are resolved once for the whole cart,
+     * the refrigerator groceries are saved in one batch and the cart items are deleted in one statement.
+     * @param request the cart items to transfer, where the grocery id is the id of the shopping cart item
      * @param httpRequest http request
+     * @return summary of the transferred groceries
      * @throws UserNotFoundException If the user is not found
      * @throws SaveException If there occurred an error while saving
      * @throws UnauthorizedException If not authorized
@@ -208,16 +224,84 @@ public class ShoppingCartService {
      * @throws NoGroceriesFound If no groceries was found in the shopping cart
      */
     @Transactional(propagation =  Propagation.REQUIRED, rollbackFor = Exception.class)
-    public void transferAllGroceriesToRefrigerator(SaveGroceryRequest[] request, HttpServletRequest httpRequest) throws UserNotFoundException, SaveException, UnauthorizedException, RefrigeratorNotFoundException, NoGroceriesFound {
+    public CheckoutSummaryDTO transferAllGroceriesToRefrigerator(SaveGroceryRequest[] request, HttpServletRequest httpRequest) throws UserNotFoundException, SaveException, UnauthorizedException, RefrigeratorNotFoundException, NoGroceriesFound {
+        Map<Long, SaveGroceryRequest> requestsByItemId = new LinkedHashMap<>();
+        Set<Long> unitIds = new HashSet<>();
         for (SaveGroceryRequest grocery : request) {
-            CreateRefrigeratorGroceryDTO dto = CreateRefrigeratorGroceryDTO.builder()
-                    .groceryDTO(GroceryDTO.builder()
-                            .id(grocery.getGroceryId())
-                            .build())
+            requestsByItemId.putIfAbsent(grocery.getGroceryId(), grocery);
+            if (grocery.getUnitDTO() != null) {
+                unitIds.add(grocery.getUnitDTO().getId());
+            }
+        }
+        Set<Long> shoppingCartItemIds = requestsByItemId.keySet();
+        if (shoppingCartItemIds.isEmpty()) {
+            return new CheckoutSummaryDTO(0, 0, List.of(), List.of());
+        }
+
+        Map<Long, GroceryShoppingCart> shoppingCartItems = new HashMap<>();
+        groceryShoppingCartRepository.findAllWithRefrigeratorByIdIn(shoppingCartItemIds)
+                .forEach(item -> shoppingCartItems.put(item.getId(), item));
+        if (shoppingCartItems.size() != shoppingCartItemIds.size()) {
+            throw new NoGroceriesFound("Could not find shopping cart item");
+        }
+
+        //Check privileges once per refrigerator
+        Map<Long, Refrigerator> refrigerators = new LinkedHashMap<>();
+        shoppingCartItems.values().forEach(item -> {
+            Refrigerator refrigerator = item.getShoppingCart().getShoppingList().getRefrigerator();
+            refrigerators.putIfAbsent(refrigerator.getId(), refrigerator);
+        });
+        for (Refrigerator refrigerator : refrigerators.values()) {
+            if (groceryService.getFridgeRole(refrigerator, httpRequest) != FridgeRole.SUPERUSER) {
+                throw new UnauthorizedException("User not authorized to add groceries");
+            }
+        }
+
+        Map<Long, Unit> units = new HashMap<>();
+        unitIds.forEach(unitId -> referenceDataCacheService.findUnit(unitId).ifPresent(unit -> units.put(unitId, unit)));
+
+        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
+        int totalQuantity = 0;
+        for (SaveGroceryRequest grocery : requestsByItemId.values()) {
+            GroceryShoppingCart item = shoppingCartItems.get(grocery.getGroceryId());
+            Unit unit = grocery.getUnitDTO() != null ? units.get(grocery.getUnitDTO().getId()) : item.getUnit();
+            if (unit == null) {
+                throw new SaveException("Could not find specified unit");
+            }
+            refrigeratorGroceries.add(RefrigeratorGrocery.builder()
+                    .grocery(item.getGrocery())
+                    .refrigerator(item.getShoppingCart().getShoppingList().getRefrigerator())
+                    .physicalExpireDate(groceryService.getPhysicalExpireDate(item.getGrocery().getGroceryExpiryDays()))
+                    .unit(unit)
                     .quantity(grocery.getQuantity())
-                    .unitDTO(grocery.getUnitDTO())
-                    .build();
-            transferGroceryToRefrigerator(grocery.getGroceryId(), httpRequest, dto);
+                    .build());
+            totalQuantity += grocery.getQuantity();
+        }
+
+        try {
+            refrigeratorGroceryRepository.saveAll(refrigeratorGroceries);
+        } catch (Exception e) {
+            logger.info("Error when saving groceries from shopping cart");
+            throw new SaveException("Could not save the groceries to refrigerator");
+        }
+        groceryShoppingCartRepository.deleteAllByIdInBatch(shoppingCartItemIds);
+        logger.info("Transferred {} groceries from shopping cart to refrigerator", refrigeratorGroceries.size());
+
+        Map<Long, Set<Long>> groceryIdsByRefrigerator = new LinkedHashMap<>();
+        Set<Long> groceryIds = new LinkedHashSet<>();
+        for (RefrigeratorGrocery refrigeratorGrocery : refrigeratorGroceries) {
+            groceryIdsByRefrigerator.computeIfAbsent(refrigeratorGrocery.getRefrigerator().getId(), id -> new HashSet<>())
+                    .add(refrigeratorGrocery.getGrocery().getId());
+            groceryIds.add(refrigeratorGrocery.getGrocery().getId());
         }
+        groceryIdsByRefrigerator.forEach((refrigeratorId, ids) ->
+                eventPublisher.publishEvent(new RefrigeratorGroceriesChangedEvent(refrigeratorId, ids)));
+
+        return CheckoutSummaryDTO.builder()
+                .transferredItems(refrigeratorGroceries.size())
+                .totalQuantity(totalQuantity)
+                .refrigeratorIds(new ArrayList<>(refrigerators.keySet()))
+                .groceryIds(new ArrayList<>(groceryIds))
+                .build();
     }
 }
@@ -36,7 +36,7 @@ public class ShoppingListService {
     private final ShoppingListRepository shoppingListRepository;
     private final GroceryShoppingListRepository groceryShoppingListRepository;
     private final RefrigeratorShoppingListRepository refrigeratorShoppingListRepository;
-    private final UnitRepository unitRepository;
+    private final ReferenceDataCacheService referenceDataCacheService;
 
     private final ShoppingCartService shoppingCartService;
     private final RefrigeratorService refrigeratorService;
@@ -229,7 +229,7 @@ public class ShoppingListService {
         ShoppingList shoppingList = getShoppingListById(saveGroceryRequest.getForeignKey());
         System.out.println(shoppingList);
         Grocery grocery = groceryService.getGroceryById(saveGroceryRequest.getGroceryId());
-        Unit unit = unitRepository.findById(saveGroceryRequest.getUnitDTO().getId()).orElseThrow(() -> new NoSuchElementException("Could not find specified unit"));
+        Unit unit = referenceDataCacheService.findUnit(saveGroceryRequest.getUnitDTO().getId()).orElseThrow(() -> new NoSuchElementException("Could not find specified unit"));
         Optional<GroceryShoppingList> groceryShoppingList = groceryShoppingListRepository
                 .findByGroceryIdAndShoppingListId(saveGroceryRequest.getGroceryId(), shoppingList.getId());
         boolean isRequested = groceryService.getFridgeRole(shoppingList.getRefrigerator(), request) != FridgeRole.SUPERUSER;
@@ -277,7 +277,7 @@ public class ShoppingListService {
                 logger.info("Grocery item does not exit in refrigerator shopping list. Saving the grocery to the database");
                 Grocery grocery = groceryService.getGroceryById(groceryId);
 
-                Unit unit = unitRepository.findById(unitId).orElseThrow(() -> new NoSuchElementException("Could not find specified unit"));
+                Unit unit = referenceDataCacheService.findUnit(unitId).orElseThrow(() -> new NoSuchElementException("Could not find specified unit"));
                  refrigeratorShoppingList = Optional.of(RefrigeratorShoppingList.builder()
                         .grocery(grocery)
                         .shoppingList(shoppingList)
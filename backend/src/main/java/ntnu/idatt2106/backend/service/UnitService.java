@@ -4,7 +4,6 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.model.Unit;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
-import ntnu.idatt2106.backend.repository.UnitRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -16,7 +15,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class UnitService {
 
-    private final UnitRepository unitRepository;
+    private final ReferenceDataCacheService referenceDataCacheService;
 
     /**
      * Provide a grocery and a new unit id to convert the existing unit of the
@@ -26,7 +25,7 @@ public class UnitService {
      * @return
      */
     public RefrigeratorGrocery convertGrocery(RefrigeratorGrocery refrigeratorGrocery, Long unitId){
-        Optional<Unit> newUnit = unitRepository.findById(unitId);
+        Optional<Unit> newUnit = referenceDataCacheService.findUnit(unitId);
         if(newUnit.isEmpty()){
             throw new EntityNotFoundException("Could not find unit with unitId" + unitId);
         }
@@ -0,0 +1,91 @@
+package ntnu.idatt2106.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Service for caching the user details of authenticated users, so that requests with a valid
+ * token do not have to look up the user in the database.
+ * An entry is kept until the token it was loaded for expires, and the cache holds a bounded
+ * number of users, removing the least recently used first.
+ */
+@Service
+public class UserDetailsCacheService {
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final Logger logger = LoggerFactory.getLogger(UserDetailsCacheService.class);
+
+    private final UserDetailsService userDetailsService;
+    private final Map<String, CachedUserDetails> cache;
+
+    /**
+     * Creates a cache with the default size.
+     * @param userDetailsService service used to load users that are not cached
+     */
+    @Autowired
+    public UserDetailsCacheService(UserDetailsService userDetailsService) {
+        this(userDetailsService, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache holding at most maxEntries users. A size of 0 turns off caching.
+     * @param userDetailsService service used to load users that are not cached
+     * @param maxEntries maximum number of cached users
+     */
+    public UserDetailsCacheService(UserDetailsService userDetailsService, int maxEntries) {
+        this.userDetailsService = userDetailsService;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUserDetails> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Gets the user details of a user, from the cache if present and not expired.
+     * @param username the username (email) of the user
+     * @param expiresAt expiry of the token the user authenticated with, the entry is kept until then
+     * @return the user details
+     * @throws UsernameNotFoundException if the user does not exist
+     */
+    public UserDetails loadUserByUsername(String username, Date expiresAt) throws UsernameNotFoundException {
+        long now = System.currentTimeMillis();
+        CachedUserDetails cached = cache.get(username);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.userDetails;
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (expiresAt != null && expiresAt.getTime() > now) {
+            cache.put(username, new CachedUserDetails(userDetails, expiresAt.getTime()));
+        }
+        return userDetails;
+    }
+
+    /**
+     * Removes a user from the cache. Must be called when the email or password of the user changes.
+     * @param username the username (email) of the user
+     */
+    public void evict(String username) {
+        if (username != null && cache.remove(username) != null) {
+            logger.info("Removed cached user details for {}", username);
+        }
+    }
+
+    /**
+     * User details with the time in milliseconds they are valid until.
+     */
+    private record CachedUserDetails(UserDetails userDetails, long expiresAt) {
+    }
+}
@@ -18,14 +18,17 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCacheService userDetailsCacheService;
 
     /**
      * Constructor for the UserService class
      * @param userRepository the UserRepository
+     * @param userDetailsCacheService the cache of authenticated user details
      */
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserDetailsCacheService userDetailsCacheService) {
         this.userRepository = userRepository;
+        this.userDetailsCacheService = userDetailsCacheService;
     }
 
 
@@ -65,11 +68,14 @@ public class UserService {
 
 
     /**
-     * Deletes a user by ID.
+     * Deletes a user by ID, and removes the user from the cache of authenticated users,
+     * so the tokens of the user are no longer accepted.
      *
      * @param id The ID of the user to delete.
      */
     public void delete(Long id) {
+        Optional<User> user = userRepository.findById(id);
         userRepository.deleteById(id);
+        user.ifPresent(deleted -> userDetailsCacheService.evict(deleted.getEmail()));
     }
 }
\ No newline at end of file
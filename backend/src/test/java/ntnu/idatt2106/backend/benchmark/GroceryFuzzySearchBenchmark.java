@@ -0,0 +1,145 @@
+package ntnu.idatt2106.backend.benchmark;
+
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.category.Category;
+import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.service.GroceryFuzzySearchService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the latency of a fuzzy grocery search, with the percentiles of the sampled queries in the report.
+ * The catalog is read from matvareliste.csv and copied catalogCopies times, each copy with another made up brand,
+ * up to about a million groceries. The queries are names from the catalog with two letters swapped.
+ * The heap taken by the index is printed per grocery when it is built, to show that it grows linearly.
+ * Run from the backend folder with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=ntnu.idatt2106.backend.benchmark.GroceryFuzzySearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GroceryFuzzySearchBenchmark {
+
+    private static final Path CATALOG_FILE = Path.of("matvareliste.csv");
+    private static final String SYLLABLES = "ba be bo ka ke ko la le lo ma me mo na ne no ra re ro sa se so ta te to";
+
+    @Param({"1", "50", "500"})
+    private int catalogCopies;
+
+    private GroceryFuzzySearchService groceryFuzzySearchService;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Grocery> catalog = readCatalog();
+        List<Grocery> groceries = new ArrayList<>(catalog.size() * catalogCopies);
+        Random random = new Random(42);
+        String[] syllables = SYLLABLES.split(" ");
+        for (int copy = 0; copy < catalogCopies; copy++) {
+            String brand = copy == 0 ? "" : " " + syllables[random.nextInt(syllables.length)]
+                    + syllables[random.nextInt(syllables.length)] + syllables[random.nextInt(syllables.length)];
+            for (Grocery grocery : catalog) {
+                groceries.add(Grocery.builder()
+                        .id(groceries.size() + 1L)
+                        .name(grocery.getName() + brand)
+                        .description(grocery.getDescription() + brand)
+                        .subCategory(grocery.getSubCategory())
+                        .build());
+            }
+        }
+
+        queries = new String[1024];
+        for (int q = 0; q < queries.length; q++) {
+            char[] name = catalog.get(random.nextInt(catalog.size())).getName().toCharArray();
+            if (name.length > 3) {
+                int swap = 1 + random.nextInt(name.length - 2);
+                char swapped = name[swap];
+                name[swap] = name[swap + 1];
+                name[swap + 1] = swapped;
+            }
+            queries[q] = new String(name);
+        }
+
+        GroceryRepository groceryRepository = mock(GroceryRepository.class);
+        when(groceryRepository.findAllWithCategories()).thenReturn(groceries);
+        groceryFuzzySearchService = new GroceryFuzzySearchService(groceryRepository, 0.5);
+        long before = usedHeap();
+        groceryFuzzySearchService.rebuild();
+        long after = usedHeap();
+        System.out.printf("%nIndex of %d groceries takes %d MB, %d bytes per grocery%n",
+                groceries.size(), (after - before) >> 20, (after - before) / groceries.size());
+    }
+
+    @Benchmark
+    public List<GroceryDTO> search() {
+        next = (next + 1) & (queries.length - 1);
+        return groceryFuzzySearchService.search(queries[next], null, null, 10);
+    }
+
+    @Benchmark
+    public List<GroceryDTO> searchInCategory() {
+        next = (next + 1) & (queries.length - 1);
+        return groceryFuzzySearchService.search(queries[next], null, 1L, 10);
+    }
+
+    /**
+     * Reads the groceries of the catalog the same way as the catalog import.
+     */
+    private static List<Grocery> readCatalog() throws IOException {
+        List<Grocery> groceries = new ArrayList<>();
+        Category category = null;
+        SubCategory subCategory = null;
+        for (String line : Files.readAllLines(CATALOG_FILE, StandardCharsets.UTF_8)) {
+            if (line.contains("!")) {
+                category = Category.builder().id(category == null ? 1 : category.getId() + 1).name(line).build();
+            } else if (line.contains("?")) {
+                subCategory = SubCategory.builder().id(subCategory == null ? 1 : subCategory.getId() + 1)
+                        .name(line).category(category).build();
+            } else if (!line.isBlank() && subCategory != null) {
+                String[] csvData = line.split(",");
+                groceries.add(Grocery.builder()
+                        .name(csvData[0])
+                        .description(String.join(", ", csvData))
+                        .subCategory(subCategory)
+                        .build());
+            }
+        }
+        return groceries;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GroceryFuzzySearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
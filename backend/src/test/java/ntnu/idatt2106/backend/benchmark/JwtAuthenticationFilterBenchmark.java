@@ -0,0 +1,88 @@
+package ntnu.idatt2106.backend.benchmark;
+
+import jakarta.servlet.http.Cookie;
+import ntnu.idatt2106.backend.config.JwTAuthenticationFilter;
+import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.enums.UserRole;
+import ntnu.idatt2106.backend.service.CookieService;
+import ntnu.idatt2106.backend.service.JwtService;
+import ntnu.idatt2106.backend.service.UserDetailsCacheService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the JWT filter for an authenticated request, with and without the
+ * user details cache. The user lookup is simulated by burning a configurable amount of CPU, standing in
+ * for the database round trip.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=ntnu.idatt2106.backend.benchmark.JwtAuthenticationFilterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"10000", "0"})
+    private int cacheSize;
+
+    @Param({"1000", "100000"})
+    private long lookupCost;
+
+    private JwTAuthenticationFilter filter;
+    private Cookie cookie;
+
+    @Setup
+    public void setUp() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("test");
+        JwtService jwtService = new JwtService(environment, "");
+
+        User user = User.builder()
+                .name("Benchmark")
+                .email("benchmark@smartmat.no")
+                .password("password")
+                .userRole(UserRole.USER)
+                .build();
+
+        UserDetailsService userDetailsService = username -> {
+            Blackhole.consumeCPU(lookupCost);
+            return user;
+        };
+
+        filter = new JwTAuthenticationFilter(jwtService, new UserDetailsCacheService(userDetailsService, cacheSize),
+                new CookieService());
+        cookie = new Cookie("SmartMatAccessToken", jwtService.generateToken(user));
+    }
+
+    @Benchmark
+    public Object authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/my-profile");
+        request.setCookies(cookie);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authState = request.getAttribute("authState");
+        SecurityContextHolder.clearContext();
+        return authState;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
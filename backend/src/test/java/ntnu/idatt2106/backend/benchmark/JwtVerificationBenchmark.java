@@ -0,0 +1,84 @@
+package ntnu.idatt2106.backend.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.authentication.ParsedToken;
+import ntnu.idatt2106.backend.model.enums.UserRole;
+import ntnu.idatt2106.backend.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of reading the claims a request needs from a token.
+ * The baseline builds the signing key and parser on every call and verifies the token once per claim,
+ * which is how the claims were read before; the other verifies once with the parser built at startup.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=ntnu.idatt2106.backend.benchmark.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String LOCAL_SECRET_KEY = "THISKEYISONLYUSEDLOCALLYTHISKEYISONLYUSEDLOCALLYTHISKEYISONLYUSEDLOCALLY";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("test");
+        jwtService = new JwtService(environment, "");
+        token = jwtService.generateToken(User.builder()
+                .name("Benchmark")
+                .email("benchmark@smartmat.no")
+                .password("password")
+                .userRole(UserRole.USER)
+                .build());
+    }
+
+    @Benchmark
+    public void verifyPerClaim(Blackhole blackhole) {
+        blackhole.consume(parseWithNewParser(token).getSubject());
+        blackhole.consume(parseWithNewParser(token).getExpiration());
+        blackhole.consume(parseWithNewParser(token).get("roles", List.class));
+    }
+
+    @Benchmark
+    public void verifyOnce(Blackhole blackhole) {
+        ParsedToken parsedToken = jwtService.parseToken(token);
+        blackhole.consume(parsedToken.getSubject());
+        blackhole.consume(parsedToken.getExpiration());
+        blackhole.consume(parsedToken.getRoles());
+    }
+
+    private Claims parseWithNewParser(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(LOCAL_SECRET_KEY)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -8,6 +8,7 @@ import ntnu.idatt2106.backend.model.Unit;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryDTO;
 import ntnu.idatt2106.backend.model.dto.response.SuccessResponse;
+import ntnu.idatt2106.backend.model.enums.CatalogFormat;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
 import ntnu.idatt2106.backend.service.*;
@@ -17,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -25,6 +27,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.when;
 
@@ -110,4 +113,96 @@ class GroceryControllerTest {
         Assertions.assertEquals("Grocery removed successfully", responseEntity.getBody().getMessage());
         Assertions.assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
     }
+
+    @Test
+    void getAllGroceriesDTOs_acceptsGzip_returnsCompressedSnapshotWithEtag() throws NoGroceriesFound {
+        // Arrange
+        GroceryCatalogService.CatalogSnapshot snapshot = snapshot();
+        when(groceryService.getCatalogSnapshot()).thenReturn(snapshot);
+
+        // Act
+        ResponseEntity<byte[]> responseEntity = groceryController.getAllGroceriesDTOs(null, "gzip, deflate");
+
+        // Assert
+        Assertions.assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        Assertions.assertArrayEquals(snapshot.payload(CatalogFormat.LIST).gzippedJson(), responseEntity.getBody());
+        Assertions.assertEquals("gzip", responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals("\"abc-gzip\"", responseEntity.getHeaders().getETag());
+    }
+
+    @Test
+    void getAllGroceriesDTOs_refusesGzip_returnsUncompressedSnapshot() throws NoGroceriesFound {
+        // Arrange
+        GroceryCatalogService.CatalogSnapshot snapshot = snapshot();
+        when(groceryService.getCatalogSnapshot()).thenReturn(snapshot);
+
+        // Act
+        ResponseEntity<byte[]> responseEntity = groceryController.getAllGroceriesDTOs(null, "gzip;q=0, deflate");
+
+        // Assert
+        Assertions.assertArrayEquals(snapshot.payload(CatalogFormat.LIST).json(), responseEntity.getBody());
+        Assertions.assertNull(responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals("\"abc\"", responseEntity.getHeaders().getETag());
+    }
+
+    @Test
+    void acceptsGzip_readsQValues() {
+        Assertions.assertTrue(GroceryController.acceptsGzip("deflate, gzip;q=0.5"));
+        Assertions.assertTrue(GroceryController.acceptsGzip("br, *"));
+        Assertions.assertTrue(GroceryController.acceptsGzip("GZIP ; Q=1.0"));
+        Assertions.assertFalse(GroceryController.acceptsGzip("gzip;q=0"));
+        Assertions.assertFalse(GroceryController.acceptsGzip("gzip; q=0.000, *"));
+        Assertions.assertFalse(GroceryController.acceptsGzip("*;q=0"));
+        Assertions.assertFalse(GroceryController.acceptsGzip("identity"));
+        Assertions.assertFalse(GroceryController.acceptsGzip(null));
+    }
+
+    @Test
+    void getAllGroceriesDTOs_emptyCatalog_throwsNoGroceriesFound() throws NoGroceriesFound {
+        when(groceryService.getCatalogSnapshot()).thenThrow(new NoGroceriesFound("Could not find any groceries"));
+
+        Assertions.assertThrows(NoGroceriesFound.class, () -> groceryController.getAllGroceriesDTOs(null, null));
+    }
+
+    @Test
+    void getAllGroceriesDTOs_matchingEtag_returnsNotModified() throws NoGroceriesFound {
+        // Arrange
+        GroceryCatalogService.CatalogSnapshot snapshot = snapshot();
+        when(groceryService.getCatalogSnapshot()).thenReturn(snapshot);
+
+        // Act
+        ResponseEntity<byte[]> responseEntity = groceryController.getAllGroceriesDTOs("\"old\", \"abc\"", null);
+
+        // Assert
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        Assertions.assertNull(responseEntity.getBody());
+        Assertions.assertEquals("\"abc\"", responseEntity.getHeaders().getETag());
+    }
+
+    @Test
+    void getCatalog_returnsRequestedFormat() throws NoGroceriesFound {
+        // Arrange
+        GroceryCatalogService.CatalogSnapshot snapshot = snapshot();
+        when(groceryService.getCatalogSnapshot()).thenReturn(snapshot);
+
+        // Act
+        ResponseEntity<byte[]> responseEntity = groceryController.getCatalog("columns", null, null);
+
+        // Assert
+        Assertions.assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        Assertions.assertArrayEquals(snapshot.payload(CatalogFormat.COLUMNS).json(), responseEntity.getBody());
+        Assertions.assertEquals("\"abc-columns\"", responseEntity.getHeaders().getETag());
+    }
+
+    @Test
+    void getCatalog_unknownFormat_returnsBadRequest() throws NoGroceriesFound {
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, groceryController.getCatalog("xml", null, null).getStatusCode());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, groceryController.getCatalog("list", null, null).getStatusCode());
+    }
+
+    private static GroceryCatalogService.CatalogSnapshot snapshot() {
+        return new GroceryCatalogService.CatalogSnapshot(1L, "abc", List.of(), Map.of(
+                CatalogFormat.LIST, new GroceryCatalogService.CatalogPayload("\"abc\"", "\"abc-gzip\"", "[]".getBytes(), new byte[]{1, 2}),
+                CatalogFormat.COLUMNS, new GroceryCatalogService.CatalogPayload("\"abc-columns\"", "\"abc-columns-gzip\"", "{}".getBytes(), new byte[]{3})));
+    }
 }
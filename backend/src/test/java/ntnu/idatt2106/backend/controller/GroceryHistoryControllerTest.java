@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import ntnu.idatt2106.backend.exceptions.RefrigeratorNotFoundException;
 import ntnu.idatt2106.backend.model.Refrigerator;
 import ntnu.idatt2106.backend.model.dto.GroceryStatisticDTO;
+import ntnu.idatt2106.backend.model.dto.WasteAnalyticsDTO;
 import ntnu.idatt2106.backend.service.GroceryHistoryService;
 import ntnu.idatt2106.backend.service.RefrigeratorService;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,14 +12,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 public class GroceryHistoryControllerTest {
@@ -56,4 +61,34 @@ public class GroceryHistoryControllerTest {
 
         assertEquals(stats, response.getBody());
     }
+
+    @Test
+    public void testGetWasteAnalyticsOfLastYearByDefault() throws Exception {
+        long refrigeratorId = 1L;
+        Refrigerator refrigerator = new Refrigerator();
+        refrigerator.setId(refrigeratorId);
+        WasteAnalyticsDTO analytics = new WasteAnalyticsDTO();
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+        when(refrigeratorService.getRefrigerator(refrigeratorId)).thenReturn(refrigerator);
+        when(refrigeratorService.extractEmail(request)).thenReturn("user@test.com");
+        when(groceryHistoryService.getWasteAnalytics(refrigeratorId, LocalDate.now().minusYears(1), LocalDate.now(), 10)).thenReturn(analytics);
+
+        ResponseEntity<WasteAnalyticsDTO> response = groceryHistoryController.getWasteAnalytics(refrigeratorId, null, null, 10, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(analytics, response.getBody());
+        verify(refrigeratorService).getFridgeRole(refrigerator, "user@test.com");
+    }
+
+    @Test
+    public void testGetWasteAnalyticsRejectsInvalidRange() throws Exception {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+        ResponseEntity<WasteAnalyticsDTO> response = groceryHistoryController.getWasteAnalytics(1L,
+                LocalDate.of(2023, 5, 2), LocalDate.of(2023, 5, 1), 10, request);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(groceryHistoryService);
+    }
 }
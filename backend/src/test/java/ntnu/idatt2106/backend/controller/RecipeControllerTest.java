@@ -0,0 +1,71 @@
+package ntnu.idatt2106.backend.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import ntnu.idatt2106.backend.exceptions.UnauthorizedException;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeFeedDTO;
+import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.service.RecipeService;
+import ntnu.idatt2106.backend.service.RefrigeratorMembershipService;
+import ntnu.idatt2106.backend.service.RefrigeratorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class RecipeControllerTest {
+
+    private static final String EMAIL = "test@test.com";
+
+    private RecipeController recipeController;
+
+    @Mock
+    private RecipeService recipeService;
+
+    @Mock
+    private RefrigeratorService refrigeratorService;
+
+    @Mock
+    private RefrigeratorMembershipService refrigeratorMembershipService;
+
+    private HttpServletRequest request;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        recipeController = new RecipeController(recipeService, refrigeratorService, refrigeratorMembershipService);
+        request = Mockito.mock(HttpServletRequest.class);
+        when(refrigeratorService.extractEmail(request)).thenReturn(EMAIL);
+    }
+
+    @Test
+    public void testFetchRecipeFeed_ReturnsFeedToMember() throws Exception {
+        RecipeFeedDTO feed = new RecipeFeedDTO(List.of(), null);
+        when(refrigeratorMembershipService.getFridgeRole(1L, EMAIL)).thenReturn(FridgeRole.USER);
+        when(recipeService.getRecipeFeed(1L, 10, null)).thenReturn(feed);
+
+        ResponseEntity<RecipeFeedDTO> response = recipeController.fetchRecipeFeed(1L, 10, null, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(feed, response.getBody());
+    }
+
+    @Test
+    public void testFetchRecipeFeed_ReturnsForbiddenToNonMember() throws Exception {
+        when(refrigeratorMembershipService.getFridgeRole(1L, EMAIL)).thenThrow(new UnauthorizedException("User not member of refrigerator"));
+
+        ResponseEntity<RecipeFeedDTO> response = recipeController.fetchRecipeFeed(1L, 10, null, request);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verifyNoInteractions(recipeService);
+    }
+}
@@ -0,0 +1,57 @@
+package ntnu.idatt2106.backend.integration;
+
+import ntnu.idatt2106.backend.model.SchedulerLock;
+import ntnu.idatt2106.backend.repository.SchedulerLockRepository;
+import ntnu.idatt2106.backend.service.SchedulerLockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class SchedulerLockIntegrationTest {
+
+    private static final String LOCK_NAME = "scheduler-lock-test";
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @AfterEach
+    public void tearDown() {
+        schedulerLockRepository.deleteById(LOCK_NAME);
+    }
+
+    @Test
+    public void secondInsertOfSameLockFailsInsteadOfOverwriting() {
+        LocalDateTime now = LocalDateTime.now();
+        schedulerLockRepository.insertLock(LOCK_NAME, now.plusHours(1), now, "node-1");
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> schedulerLockRepository.insertLock(LOCK_NAME, now.plusHours(1), now, "node-2"));
+
+        SchedulerLock lock = schedulerLockRepository.findById(LOCK_NAME).orElseThrow();
+        assertThat(lock.getLockedBy()).isEqualTo("node-1");
+    }
+
+    @Test
+    public void lockIsOnlyTakenOnceUntilReleased() {
+        assertThat(schedulerLockService.tryLock(LOCK_NAME, Duration.ofHours(1))).isTrue();
+        assertThat(schedulerLockService.tryLock(LOCK_NAME, Duration.ofHours(1))).isFalse();
+
+        schedulerLockService.unlock(LOCK_NAME);
+
+        assertThat(schedulerLockService.tryLock(LOCK_NAME, Duration.ofHours(1))).isTrue();
+    }
+}
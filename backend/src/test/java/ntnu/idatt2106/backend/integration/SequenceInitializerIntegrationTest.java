@@ -0,0 +1,49 @@
+package ntnu.idatt2106.backend.integration;
+
+import ntnu.idatt2106.backend.config.SequenceInitializer;
+import ntnu.idatt2106.backend.model.category.Category;
+import ntnu.idatt2106.backend.repository.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class SequenceInitializerIntegrationTest {
+
+    private static final long EXISTING_ID = 1_000_000;
+
+    @Autowired
+    private SequenceInitializer sequenceInitializer;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        categoryRepository.deleteById(EXISTING_ID);
+    }
+
+    @Test
+    public void sequenceIsMovedPastRowsInsertedWithoutIt() {
+        // A row inserted while the table used IDENTITY ids, without touching the sequence
+        jdbcTemplate.update("INSERT INTO category (id, name) VALUES (?, ?)", EXISTING_ID, "Meieri");
+
+        sequenceInitializer.init();
+
+        // The pooled optimizer hands out the 50 ids up to and including the value of the sequence
+        Long nextValue = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR category_seq", Long.class);
+        assertThat(nextValue).isEqualTo(EXISTING_ID + 50);
+        Category saved = categoryRepository.save(Category.builder().name("Frukt").build());
+        assertThat(saved.getId()).isNotEqualTo(EXISTING_ID);
+        categoryRepository.delete(saved);
+    }
+}
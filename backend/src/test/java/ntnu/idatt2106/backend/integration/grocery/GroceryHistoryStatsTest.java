@@ -0,0 +1,275 @@
+package ntnu.idatt2106.backend.integration.grocery;
+
+import ntnu.idatt2106.backend.model.GroceryHistory;
+import ntnu.idatt2106.backend.model.GroceryHistoryMonth;
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.category.Category;
+import ntnu.idatt2106.backend.model.dto.GroceryStatisticDTO;
+import ntnu.idatt2106.backend.model.dto.GroceryWasteDTO;
+import ntnu.idatt2106.backend.model.dto.UnitDTO;
+import ntnu.idatt2106.backend.model.dto.WasteAnalyticsDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.*;
+import ntnu.idatt2106.backend.service.GroceryHistoryBufferService;
+import ntnu.idatt2106.backend.service.GroceryHistoryMonthService;
+import ntnu.idatt2106.backend.service.GroceryHistoryRetentionService;
+import ntnu.idatt2106.backend.service.GroceryHistoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the statistics of the last year, the monthly sums they are read from and the waste analytics against the database.
+ * The benchmark grows the history to millions of rows, and only runs when started with -Dbenchmark=true.
+ * The number of rows can be set with -Dbenchmark.history-rows.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class GroceryHistoryStatsTest {
+
+    private static final int INSERT_CHUNK_SIZE = 10_000;
+    private static final int MEASUREMENTS = 20;
+
+    @Autowired
+    private GroceryHistoryService groceryHistoryService;
+
+    @Autowired
+    private GroceryHistoryMonthService groceryHistoryMonthService;
+
+    @Autowired
+    private GroceryHistoryBufferService groceryHistoryBufferService;
+
+    @Autowired
+    private GroceryHistoryRetentionService groceryHistoryRetentionService;
+
+    @Autowired
+    private GroceryHistoryRepository groceryHistoryRepository;
+
+    @Autowired
+    private GroceryHistoryMonthRepository groceryHistoryMonthRepository;
+
+    @Autowired
+    private RefrigeratorRepository refrigeratorRepository;
+
+    @Autowired
+    private GroceryRepository groceryRepository;
+
+    @Autowired
+    private SubCategoryRepository subCategoryRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Refrigerator refrigerator;
+    private Refrigerator otherRefrigerator;
+
+    @BeforeEach
+    public void setUp() {
+        refrigerator = refrigeratorRepository.save(Refrigerator.builder().name("Stats refrigerator").build());
+        otherRefrigerator = refrigeratorRepository.save(Refrigerator.builder().name("Other stats refrigerator").build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        groceryHistoryRepository.deleteAllInBatch();
+        groceryHistoryMonthRepository.deleteAllInBatch();
+        refrigeratorRepository.delete(refrigerator);
+        refrigeratorRepository.delete(otherRefrigerator);
+    }
+
+    @Test
+    public void statsSumEatenAndTrashedPerMonth() {
+        LocalDate today = LocalDate.now();
+        groceryHistoryRepository.saveAll(List.of(
+                history(refrigerator, today, true, 100),
+                history(refrigerator, today, true, 50),
+                history(refrigerator, today, false, 300),
+                history(refrigerator, today.minusMonths(2), false, 200),
+                history(refrigerator, today.minusMonths(12), false, 1000),
+                history(otherRefrigerator, today, true, 1000)));
+        assertThat(groceryHistoryMonthService.backfill()).contains(4);
+
+        List<GroceryStatisticDTO> stats = groceryHistoryService.getStatsforLastYear(refrigerator.getId());
+
+        assertThat(stats).hasSize(12);
+        assertThat(stats.get(0).getFoodWaste()).isEqualTo(150);
+        assertThat(stats.get(0).getFoodEaten()).isEqualTo(300);
+        assertThat(stats.get(2).getFoodEaten()).isEqualTo(200);
+        assertThat(stats.stream().mapToInt(GroceryStatisticDTO::getFoodEaten).sum()).isEqualTo(500);
+    }
+
+    @Test
+    public void bufferedHistoryIsAddedToItsMonth() {
+        RefrigeratorGrocery refrigeratorGrocery = RefrigeratorGrocery.builder().refrigerator(refrigerator).build();
+        UnitDTO unit = UnitDTO.builder().weight(100).build();
+
+        groceryHistoryService.newGroceryHistory(refrigeratorGrocery, 2, unit, false);
+        groceryHistoryService.newGroceryHistory(refrigeratorGrocery, 1, unit, false);
+        groceryHistoryService.newGroceryHistory(refrigeratorGrocery, 3, unit, true);
+        groceryHistoryBufferService.flush();
+
+        assertThat(groceryHistoryBufferService.getPendingCount()).isZero();
+        assertThat(groceryHistoryRepository.count()).isEqualTo(3);
+
+        GroceryHistoryMonth month = groceryHistoryMonthService.getMonths(refrigerator.getId(), YearMonth.now(), YearMonth.now())
+                .get(YearMonth.now());
+        assertThat(month.getEatenGrams()).isEqualTo(300);
+        assertThat(month.getEatenCount()).isEqualTo(2);
+        assertThat(month.getTrashedGrams()).isEqualTo(300);
+        assertThat(month.getTrashedCount()).isEqualTo(1);
+        assertThat(groceryHistoryService.getStatsforLastYear(refrigerator.getId()).get(0).getFoodEaten()).isEqualTo(300);
+    }
+
+    @Test
+    public void retentionKeepsMonthsOfDeletedHistory() {
+        LocalDate today = LocalDate.now();
+        LocalDate old = today.minusDays(500);
+        groceryHistoryRepository.saveAll(List.of(
+                history(refrigerator, old, false, 400),
+                history(refrigerator, old, true, 100),
+                history(refrigerator, today, false, 300)));
+        groceryHistoryMonthService.backfill();
+
+        assertThat(groceryHistoryRetentionService.applyRetention(today)).isEqualTo(2);
+        groceryHistoryMonthService.backfill();
+
+        assertThat(groceryHistoryRepository.count()).isEqualTo(1);
+        GroceryHistoryMonth oldMonth = groceryHistoryMonthService.getMonths(refrigerator.getId(), YearMonth.from(old), YearMonth.from(old))
+                .get(YearMonth.from(old));
+        assertThat(oldMonth.getEatenGrams()).isEqualTo(400);
+        assertThat(oldMonth.getTrashedGrams()).isEqualTo(100);
+        assertThat(groceryHistoryService.getStatsforLastYear(refrigerator.getId()).get(0).getFoodEaten()).isEqualTo(300);
+    }
+
+    @Test
+    public void wasteAnalyticsRankTrashedGroceriesAndCategories() {
+        Category category = categoryRepository.save(Category.builder().name("Waste category").build());
+        SubCategory subCategory = subCategoryRepository.save(SubCategory.builder().name("Waste sub category").category(category).build());
+        Grocery milk = groceryRepository.save(Grocery.builder().name("Waste milk").subCategory(subCategory).build());
+        Grocery bread = groceryRepository.save(Grocery.builder().name("Waste bread").subCategory(subCategory).build());
+        LocalDate today = LocalDate.now();
+        try {
+            groceryHistoryRepository.saveAll(List.of(
+                    waste(milk, today, true, 300),
+                    waste(milk, today.minusDays(3), true, 300),
+                    waste(bread, today, true, 500),
+                    waste(bread, today, false, 1000),
+                    waste(bread, today.minusDays(40), true, 1000),
+                    history(refrigerator, today, true, 50)));
+
+            WasteAnalyticsDTO analytics = groceryHistoryService.getWasteAnalytics(refrigerator.getId(), today.minusDays(30), today, 10);
+
+            assertThat(analytics.getGroceries()).containsExactly(
+                    new GroceryWasteDTO(milk.getId(), "Waste milk", 600L, 2L),
+                    new GroceryWasteDTO(bread.getId(), "Waste bread", 500L, 1L));
+            assertThat(analytics.getSubCategories()).containsExactly(
+                    new GroceryWasteDTO(subCategory.getId(), "Waste sub category", 1100L, 3L));
+            assertThat(analytics.getCategories()).containsExactly(
+                    new GroceryWasteDTO(category.getId(), "Waste category", 1100L, 3L));
+            assertThat(groceryHistoryService.getWasteAnalytics(refrigerator.getId(), today.minusDays(30), today, 1)
+                    .getGroceries()).extracting(GroceryWasteDTO::getId).containsExactly(milk.getId());
+        } finally {
+            groceryHistoryRepository.deleteAllInBatch();
+            groceryRepository.deleteAll(List.of(milk, bread));
+            subCategoryRepository.delete(subCategory);
+            categoryRepository.delete(category);
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void statsLatencyDoesNotGrowWithHistory() {
+        int maxRows = Integer.getInteger("benchmark.history-rows", 1_000_000);
+        LocalDate today = LocalDate.now();
+        List<GroceryHistory> lastYear = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            lastYear.add(history(refrigerator, today.minusDays(i % 330), i % 3 == 0, 100));
+        }
+        groceryHistoryRepository.saveAll(lastYear);
+        groceryHistoryMonthService.backfill();
+        List<GroceryStatisticDTO> expected = groceryHistoryService.getStatsforLastYear(refrigerator.getId());
+
+        int inserted = 0;
+        List<Long> medians = new ArrayList<>();
+        for (int rows = maxRows / 100; rows <= maxRows; rows *= 10) {
+            inserted = insertOutsideStats(inserted, rows);
+            long median = medianMillis();
+            medians.add(median);
+            System.out.printf("stats with %d more history rows: %d ms%n", rows, median);
+            assertThat(groceryHistoryService.getStatsforLastYear(refrigerator.getId())).isEqualTo(expected);
+        }
+
+        assertThat(medians.get(medians.size() - 1)).isLessThanOrEqualTo(medians.get(0) * 3 + 20);
+    }
+
+    /**
+     * Inserts history directly, without adding it to the monthly sums, half in another refrigerator and
+     * half in months before the last year.
+     */
+    private int insertOutsideStats(int inserted, int rows) {
+        LocalDate olderThanAYear = LocalDate.now().minusMonths(13);
+        while (inserted < rows) {
+            int chunk = Math.min(INSERT_CHUNK_SIZE, rows - inserted);
+            int first = inserted;
+            transactionTemplate.executeWithoutResult(status -> {
+                List<GroceryHistory> histories = new ArrayList<>(chunk);
+                for (int i = first; i < first + chunk; i++) {
+                    histories.add(i % 2 == 0
+                            ? history(otherRefrigerator, LocalDate.now().minusDays(i % 365), i % 3 == 0, 100)
+                            : history(refrigerator, olderThanAYear.minusDays(i % 20), i % 3 == 0, 100));
+                }
+                groceryHistoryRepository.saveAll(histories);
+            });
+            inserted += chunk;
+        }
+        return inserted;
+    }
+
+    private long medianMillis() {
+        for (int i = 0; i < 5; i++) {
+            groceryHistoryService.getStatsforLastYear(refrigerator.getId());
+        }
+        long[] millis = new long[MEASUREMENTS];
+        for (int i = 0; i < MEASUREMENTS; i++) {
+            long start = System.nanoTime();
+            groceryHistoryService.getStatsforLastYear(refrigerator.getId());
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        return millis[MEASUREMENTS / 2];
+    }
+
+    private GroceryHistory waste(Grocery grocery, LocalDate dateConsumed, boolean wasTrashed, int weightInGrams) {
+        GroceryHistory groceryHistory = history(refrigerator, dateConsumed, wasTrashed, weightInGrams);
+        groceryHistory.setGroceryId(grocery.getId());
+        groceryHistory.setSubCategoryId(grocery.getSubCategory().getId());
+        return groceryHistory;
+    }
+
+    private static GroceryHistory history(Refrigerator refrigerator, LocalDate dateConsumed, boolean wasTrashed, int weightInGrams) {
+        return GroceryHistory.builder()
+                .refrigerator(refrigerator)
+                .dateConsumed(dateConsumed)
+                .wasTrashed(wasTrashed)
+                .weightInGrams(weightInGrams)
+                .build();
+    }
+}
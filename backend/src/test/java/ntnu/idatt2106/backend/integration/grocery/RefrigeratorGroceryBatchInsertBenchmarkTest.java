@@ -0,0 +1,118 @@
+package ntnu.idatt2106.backend.integration.grocery;
+
+import jakarta.persistence.EntityManagerFactory;
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.Unit;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import ntnu.idatt2106.backend.repository.RefrigeratorRepository;
+import ntnu.idatt2106.backend.repository.UnitRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures inserting 10 000 refrigerator groceries on H2, saved one by one compared to saved in one batch.
+ * The benchmark is slow and only runs when started with -Dbenchmark=true.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RefrigeratorGroceryBatchInsertBenchmarkTest {
+
+    private static final int GROCERY_COUNT = 10_000;
+
+    @Autowired
+    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+
+    @Autowired
+    private RefrigeratorRepository refrigeratorRepository;
+
+    @Autowired
+    private GroceryRepository groceryRepository;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Refrigerator refrigerator;
+    private Grocery grocery;
+    private Unit unit;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        refrigerator = refrigeratorRepository.save(Refrigerator.builder().name("Batch refrigerator").build());
+        grocery = groceryRepository.save(Grocery.builder().name("Batch grocery").groceryExpiryDays(7).build());
+        unit = unitRepository.save(Unit.builder().name("batch-unit").weight(1).build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> refrigeratorGroceryRepository.removeByRefrigeratorId(refrigerator.getId()));
+        refrigeratorRepository.delete(refrigerator);
+        groceryRepository.delete(grocery);
+        unitRepository.delete(unit);
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void batchedInsertsUseFewerStatementsThanSingleSaves() {
+        statistics.clear();
+        long start = System.nanoTime();
+        for (RefrigeratorGrocery refrigeratorGrocery : createRefrigeratorGroceries()) {
+            refrigeratorGroceryRepository.save(refrigeratorGrocery);
+        }
+        long singleSavesMillis = (System.nanoTime() - start) / 1_000_000;
+        long singleSavesStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> refrigeratorGroceryRepository.saveAll(createRefrigeratorGroceries()));
+        long saveAllMillis = (System.nanoTime() - start) / 1_000_000;
+        long saveAllStatements = statistics.getPrepareStatementCount();
+
+        System.out.printf("single saves: %d ms, %d statements%n", singleSavesMillis, singleSavesStatements);
+        System.out.printf("saveAll: %d ms, %d statements%n", saveAllMillis, saveAllStatements);
+
+        assertThat(refrigeratorGroceryRepository.findAllByRefrigeratorId(refrigerator.getId())).hasSize(2 * GROCERY_COUNT);
+        assertThat(saveAllStatements).isLessThan(singleSavesStatements);
+    }
+
+    private List<RefrigeratorGrocery> createRefrigeratorGroceries() {
+        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>(GROCERY_COUNT);
+        for (int i = 0; i < GROCERY_COUNT; i++) {
+            refrigeratorGroceries.add(RefrigeratorGrocery.builder()
+                    .refrigerator(refrigerator)
+                    .grocery(grocery)
+                    .unit(unit)
+                    .quantity(1)
+                    .physicalExpireDate(LocalDate.now().plusDays(i % 14))
+                    .build());
+        }
+        return refrigeratorGroceries;
+    }
+}
@@ -0,0 +1,277 @@
+package ntnu.idatt2106.backend.integration.notification;
+
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.RefrigeratorUser;
+import ntnu.idatt2106.backend.model.Unit;
+import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.dto.GroceryNotificationDTO;
+import ntnu.idatt2106.backend.model.dto.NotificationCompactionResultDTO;
+import ntnu.idatt2106.backend.model.enums.ExpiryThreshold;
+import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.model.enums.UserRole;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.*;
+import ntnu.idatt2106.backend.service.NotificationCompactionService;
+import ntnu.idatt2106.backend.service.NotificationCounterService;
+import ntnu.idatt2106.backend.service.NotificationService;
+import ntnu.idatt2106.backend.service.SchedulerLockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the thresholds of the expiry notification sweep against the database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class ExpiryNotificationSweepTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2023, 5, 1);
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Autowired
+    private NotificationCounterRepository notificationCounterRepository;
+
+    @Autowired
+    private NotificationCompactionService notificationCompactionService;
+
+    @Autowired
+    private GroceryNotificationRepository groceryNotificationRepository;
+
+    @Autowired
+    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+
+    @Autowired
+    private RefrigeratorUserRepository refrigeratorUserRepository;
+
+    @Autowired
+    private RefrigeratorRepository refrigeratorRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GroceryRepository groceryRepository;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User owner;
+    private User member;
+    private Refrigerator refrigerator;
+    private Grocery grocery;
+    private Unit unit;
+
+    @BeforeEach
+    public void setUp() {
+        owner = userRepository.save(User.builder().name("Sweep owner").email("sweep_owner@test.com")
+                .password("password").userRole(UserRole.USER).build());
+        member = userRepository.save(User.builder().name("Sweep member").email("sweep_member@test.com")
+                .password("password").userRole(UserRole.USER).build());
+        refrigerator = refrigeratorRepository.save(Refrigerator.builder().name("Sweep refrigerator").build());
+        refrigeratorUserRepository.save(RefrigeratorUser.builder().refrigerator(refrigerator).user(owner)
+                .fridgeRole(FridgeRole.SUPERUSER).build());
+        refrigeratorUserRepository.save(RefrigeratorUser.builder().refrigerator(refrigerator).user(member)
+                .fridgeRole(FridgeRole.USER).build());
+        grocery = groceryRepository.save(Grocery.builder().name("Sweep grocery").groceryExpiryDays(7).build());
+        unit = unitRepository.save(Unit.builder().name("sweep-unit").weight(1).build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        groceryNotificationRepository.deleteAllInBatch();
+        notificationCounterRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> {
+            refrigeratorGroceryRepository.removeByRefrigeratorId(refrigerator.getId());
+            refrigeratorUserRepository.deleteAll(refrigeratorUserRepository.findByUser(owner));
+            refrigeratorUserRepository.deleteAll(refrigeratorUserRepository.findByUser(member));
+        });
+        refrigeratorRepository.delete(refrigerator);
+        userRepository.delete(owner);
+        userRepository.delete(member);
+        groceryRepository.delete(grocery);
+        unitRepository.delete(unit);
+    }
+
+    @Test
+    public void sweepNotifiesEveryMemberOnceWhenWarningThresholdIsCrossed() {
+        addRefrigeratorGrocery(TODAY.plusDays(3));
+        addRefrigeratorGrocery(TODAY.plusDays(4));
+
+        notificationService.sweepExpiringGroceries(TODAY);
+
+        assertThat(daysLeft(owner)).containsExactly(3L);
+        assertThat(daysLeft(member)).containsExactly(3L);
+
+        notificationService.sweepExpiringGroceries(TODAY);
+
+        assertThat(daysLeft(owner)).containsExactly(3L);
+    }
+
+    @Test
+    public void sweepNotifiesAgainOnExpiryDateUnlessFirstNotificationWasDeleted() {
+        addRefrigeratorGrocery(TODAY.plusDays(3));
+        notificationService.sweepExpiringGroceries(TODAY);
+        GroceryNotification memberNotification = groceryNotificationRepository.findAllByUserId(member.getId()).get(0);
+        memberNotification.setDeleted(true);
+        groceryNotificationRepository.save(memberNotification);
+
+        notificationService.sweepExpiringGroceries(TODAY.plusDays(3));
+        notificationService.sweepExpiringGroceries(TODAY.plusDays(4));
+
+        assertThat(daysLeft(owner)).containsExactlyInAnyOrder(3L, 0L);
+        assertThat(daysLeft(member)).containsExactly(3L);
+    }
+
+    @Test
+    public void sweepNotifiesOnceForGroceryAddedAfterExpiryDate() {
+        addRefrigeratorGrocery(TODAY.minusDays(1));
+
+        notificationService.sweepExpiringGroceries(TODAY);
+        notificationService.sweepExpiringGroceries(TODAY.plusDays(1));
+
+        assertThat(daysLeft(owner)).containsExactly(-1L);
+    }
+
+    @Test
+    public void uniqueConstraintRejectsDuplicateNotification() {
+        addRefrigeratorGrocery(TODAY.plusDays(3));
+        notificationService.sweepExpiringGroceries(TODAY);
+        GroceryNotification existing = groceryNotificationRepository.findAllByUserId(owner.getId()).get(0);
+        assertThat(existing.getThreshold()).isEqualTo(ExpiryThreshold.WARNING);
+
+        assertThatThrownBy(() -> groceryNotificationRepository.saveAndFlush(GroceryNotification.builder()
+                .user(owner)
+                .groceryEntity(existing.getGroceryEntity())
+                .daysLeft(3L)
+                .threshold(ExpiryThreshold.WARNING)
+                .build()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void unreadCountFollowsSweepAndDeletes() {
+        assertThat(notificationCounterService.getUnreadCount(owner.getId())).isZero();
+        addRefrigeratorGrocery(TODAY.plusDays(3));
+        addRefrigeratorGrocery(TODAY.plusDays(2));
+
+        notificationService.sweepExpiringGroceries(TODAY);
+
+        assertThat(notificationCounterService.getUnreadCount(owner.getId())).isEqualTo(2);
+        assertThat(notificationCounterService.getUnreadCount(member.getId())).isEqualTo(2);
+
+        notificationService.deleteNotificationsByRefrigeratorId(refrigerator.getId());
+
+        assertThat(notificationCounterService.getUnreadCount(owner.getId())).isZero();
+        assertThat(notificationCounterService.getUnreadCount(member.getId())).isZero();
+    }
+
+    @Test
+    public void concurrentDeletesOfSameNotificationSubtractItOnce() throws Exception {
+        addRefrigeratorGrocery(TODAY.plusDays(3));
+        addRefrigeratorGrocery(TODAY.plusDays(2));
+        notificationService.sweepExpiringGroceries(TODAY);
+        long notificationId = groceryNotificationRepository.findAllByUserId(owner.getId()).get(0).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<GroceryNotificationDTO>> deletes = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                deletes.add(executor.submit(() -> {
+                    start.await();
+                    return notificationService.deleteNotification(owner, notificationId);
+                }));
+            }
+            start.countDown();
+            for (Future<GroceryNotificationDTO> delete : deletes) {
+                delete.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(notificationCounterService.getUnreadCount(owner.getId())).isEqualTo(1);
+        assertThat(groceryNotificationRepository.findById(notificationId).orElseThrow().getDeletedAt()).isNotNull();
+    }
+
+    @Test
+    public void compactionPurgesNotificationsTheSweepNoLongerNeeds() {
+        addRefrigeratorGrocery(TODAY.plusDays(3));
+        notificationService.sweepExpiringGroceries(TODAY);
+        notificationService.sweepExpiringGroceries(TODAY.plusDays(3));
+        GroceryNotification ownerWarning = groceryNotificationRepository.findAllByUserId(owner.getId()).stream()
+                .filter(notification -> notification.getThreshold() == ExpiryThreshold.WARNING)
+                .findFirst().orElseThrow();
+        ownerWarning.setDeleted(true);
+        ownerWarning.setDeletedAt(LocalDateTime.now().minusDays(31));
+        groceryNotificationRepository.save(ownerWarning);
+        refrigeratorUserRepository.deleteAll(refrigeratorUserRepository.findByUser(member));
+
+        NotificationCompactionResultDTO result = notificationCompactionService.compact(LocalDateTime.now().minusDays(30));
+
+        assertThat(result.getRowsScanned()).isEqualTo(4);
+        assertThat(result.getRowsPurged()).isEqualTo(3);
+        assertThat(daysLeft(owner)).containsExactly(0L);
+        assertThat(daysLeft(member)).isEmpty();
+
+        notificationService.sweepExpiringGroceries(TODAY.plusDays(4));
+
+        assertThat(daysLeft(owner)).containsExactly(0L);
+    }
+
+    @Test
+    public void lockIsOnlyTakenByOneHolderUntilReleased() {
+        assertThat(schedulerLockService.tryLock("sweep-test-lock", Duration.ofMinutes(5))).isTrue();
+        assertThat(schedulerLockService.tryLock("sweep-test-lock", Duration.ofMinutes(5))).isFalse();
+
+        schedulerLockService.unlock("sweep-test-lock");
+
+        assertThat(schedulerLockService.tryLock("sweep-test-lock", Duration.ofMinutes(5))).isTrue();
+        schedulerLockService.unlock("sweep-test-lock");
+    }
+
+    private void addRefrigeratorGrocery(LocalDate physicalExpireDate) {
+        refrigeratorGroceryRepository.save(RefrigeratorGrocery.builder()
+                .refrigerator(refrigerator)
+                .grocery(grocery)
+                .unit(unit)
+                .quantity(1)
+                .physicalExpireDate(physicalExpireDate)
+                .build());
+    }
+
+    private List<Long> daysLeft(User user) {
+        return groceryNotificationRepository.findAllByUserId(user.getId()).stream()
+                .map(GroceryNotification::getDaysLeft)
+                .toList();
+    }
+}
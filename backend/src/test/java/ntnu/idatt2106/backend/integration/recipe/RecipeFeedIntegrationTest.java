@@ -0,0 +1,169 @@
+package ntnu.idatt2106.backend.integration.recipe;
+
+import ntnu.idatt2106.backend.exceptions.ExpiredCursorException;
+import ntnu.idatt2106.backend.exceptions.InvalidCursorException;
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.dto.recipe.FetchRecipesDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeFeedDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.model.recipe.Recipe;
+import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import ntnu.idatt2106.backend.repository.RefrigeratorRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
+import ntnu.idatt2106.backend.service.RecipeScoreService;
+import ntnu.idatt2106.backend.service.RecipeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class RecipeFeedIntegrationTest {
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeScoreService recipeScoreService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeGroceryRepository recipeGroceryRepository;
+
+    @Autowired
+    private GroceryRepository groceryRepository;
+
+    @Autowired
+    private RefrigeratorRepository refrigeratorRepository;
+
+    @Autowired
+    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+
+    private Refrigerator refrigerator;
+    private Grocery milk;
+    private Grocery flour;
+    private final List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        recipeGroceryRepository.deleteAllInBatch();
+        recipeRepository.deleteAllInBatch();
+
+        refrigerator = refrigeratorRepository.save(Refrigerator.builder().name("Feed refrigerator").build());
+        milk = groceryRepository.save(Grocery.builder().name("Feed milk").groceryExpiryDays(5).build());
+        flour = groceryRepository.save(Grocery.builder().name("Feed flour").groceryExpiryDays(300).build());
+        refrigeratorGroceries.add(refrigeratorGroceryRepository.save(RefrigeratorGrocery.builder()
+                .refrigerator(refrigerator)
+                .grocery(milk)
+                .quantity(1)
+                .physicalExpireDate(LocalDate.now().plusDays(2))
+                .build()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        recipeGroceryRepository.deleteAllInBatch();
+        recipeRepository.deleteAllInBatch();
+        refrigeratorGroceryRepository.deleteAll(refrigeratorGroceries);
+        refrigeratorRepository.delete(refrigerator);
+        groceryRepository.delete(milk);
+        groceryRepository.delete(flour);
+    }
+
+    private void createRecipes(int count) {
+        for (int i = 0; i < count; i++) {
+            Recipe recipe = recipeRepository.save(Recipe.builder().name("Feed recipe " + i).build());
+            recipeGroceryRepository.save(RecipeGrocery.builder()
+                    .recipe(recipe)
+                    .grocery(i % 3 == 0 ? milk : flour)
+                    .quantity(1)
+                    .build());
+        }
+        recipeScoreService.invalidateIngredientIndex();
+    }
+
+    @Test
+    public void pagingThroughFeedReturnsEveryRecipeOnce() throws InvalidCursorException, ExpiredCursorException {
+        createRecipes(25);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            RecipeFeedDTO page = recipeService.getRecipeFeed(refrigerator.getId(), 4, cursor);
+            page.getRecipes().stream().map(RecipeDTO::getId).forEach(seen::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 20);
+
+        Set<Long> unique = new HashSet<>(seen);
+        assertThat(seen).hasSize(25);
+        assertThat(unique).hasSize(25);
+
+        // The 9 recipes using milk come first
+        List<Long> milkRecipes = seen.subList(0, 9);
+        milkRecipes.forEach(id -> assertThat(recipeGroceryRepository.findByRecipeId(id).get().getGrocery().getId())
+                .isEqualTo(milk.getId()));
+    }
+
+    @Test
+    public void pagingAfterSnapshotIsEvictedThrows() throws InvalidCursorException, ExpiredCursorException {
+        createRecipes(25);
+        RecipeFeedDTO first = recipeService.getRecipeFeed(refrigerator.getId(), 4, null);
+
+        // Every change of the refrigerator makes a new snapshot, until the one of the first page is evicted
+        for (int i = 0; i < 10; i++) {
+            recipeScoreService.refreshGrocery(refrigerator.getId(), milk.getId());
+            recipeScoreService.getSnapshot(refrigerator.getId());
+        }
+
+        assertThrows(ExpiredCursorException.class,
+                () -> recipeService.getRecipeFeed(refrigerator.getId(), 4, first.getNextCursor()));
+        assertThat(recipeService.getRecipeFeed(refrigerator.getId(), 4, null).getRecipes()).hasSize(4);
+    }
+
+    @Test
+    public void emptyFeedEndsImmediately() throws InvalidCursorException, ExpiredCursorException {
+        RecipeFeedDTO page = recipeService.getRecipeFeed(refrigerator.getId(), 10, null);
+
+        assertThat(page.getRecipes()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void fetchedRecipesAreNotRepeated() {
+        createRecipes(3);
+
+        FetchRecipesDTO fetchRecipesDTO = new FetchRecipesDTO();
+        fetchRecipesDTO.setRefrigeratorId(refrigerator.getId());
+        fetchRecipesDTO.setNumRecipes(10);
+        List<RecipeDTO> recipes = recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO);
+
+        assertThat(recipes).hasSize(3);
+        assertThat(recipes.stream().map(RecipeDTO::getId).distinct().count()).isEqualTo(3);
+    }
+
+    @Test
+    public void invalidCursorThrows() {
+        assertThrows(InvalidCursorException.class, () -> recipeService.getRecipeFeed(refrigerator.getId(), 10, "%%%"));
+    }
+}
@@ -0,0 +1,141 @@
+package ntnu.idatt2106.backend.integration.recipe;
+
+import jakarta.persistence.EntityManagerFactory;
+import ntnu.idatt2106.backend.model.Unit;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.recipe.Recipe;
+import ntnu.idatt2106.backend.model.recipe.RecipeCategory;
+import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.UnitRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeCategoryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
+import ntnu.idatt2106.backend.service.RecipeService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pins the number of queries used to build recipe DTOs, so it does not grow with the number of recipes.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class RecipeHydrationQueryCountTest {
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeGroceryRepository recipeGroceryRepository;
+
+    @Autowired
+    private RecipeCategoryRepository recipeCategoryRepository;
+
+    @Autowired
+    private GroceryRepository groceryRepository;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Grocery> groceries = new ArrayList<>();
+    private final List<RecipeCategory> categories = new ArrayList<>();
+    private Unit unit;
+
+    @BeforeEach
+    public void setUp() {
+        recipeGroceryRepository.deleteAllInBatch();
+        recipeRepository.deleteAllInBatch();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        for (int i = 0; i < 5; i++) {
+            groceries.add(groceryRepository.save(Grocery.builder()
+                    .name("Hydration grocery " + i)
+                    .groceryExpiryDays(5)
+                    .build()));
+            categories.add(recipeCategoryRepository.save(RecipeCategory.builder()
+                    .name("Hydration category " + i)
+                    .build()));
+        }
+        unit = unitRepository.save(Unit.builder().name("hydration-unit").weight(100).build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        recipeGroceryRepository.deleteAllInBatch();
+        recipeRepository.deleteAllInBatch();
+        groceryRepository.deleteAll(groceries);
+        recipeCategoryRepository.deleteAll(categories);
+        unitRepository.delete(unit);
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void getAllRecipesUsesConstantNumberOfQueries() {
+        createRecipes(0, 2);
+        long queriesForTwoRecipes = countQueriesForGetAllRecipes(2);
+
+        createRecipes(2, 20);
+        long queriesForTwentyRecipes = countQueriesForGetAllRecipes(20);
+
+        assertThat(queriesForTwoRecipes).isEqualTo(queriesForTwentyRecipes);
+        assertThat(queriesForTwentyRecipes).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void convertToDTOsKeepsIngredientsPerRecipe() {
+        createRecipes(0, 3);
+
+        List<RecipeDTO> recipes = recipeService.getAllRecipes();
+
+        assertThat(recipes).hasSize(3);
+        recipes.forEach(recipe -> {
+            assertThat(recipe.getIngredients()).hasSize(groceries.size());
+            assertThat(recipe.getIngredients().get(0).getUnit().getName()).isEqualTo("hydration-unit");
+        });
+    }
+
+    private long countQueriesForGetAllRecipes(int expectedRecipes) {
+        statistics.clear();
+        List<RecipeDTO> recipes = recipeService.getAllRecipes();
+        assertThat(recipes).hasSize(expectedRecipes);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createRecipes(int from, int to) {
+        for (int i = from; i < to; i++) {
+            Recipe recipe = recipeRepository.save(Recipe.builder()
+                    .name("Hydration recipe " + i)
+                    .category(categories.get(i % categories.size()))
+                    .build());
+            for (Grocery grocery : groceries) {
+                recipeGroceryRepository.save(RecipeGrocery.builder()
+                        .recipe(recipe)
+                        .grocery(grocery)
+                        .quantity(i + 1)
+                        .unit(unit)
+                        .build());
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ntnu.idatt2106.backend.integration.recipe;
+
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.dto.recipe.FetchRecipesDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.model.recipe.Recipe;
+import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import ntnu.idatt2106.backend.repository.RefrigeratorRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
+import ntnu.idatt2106.backend.service.RecipeScoreService;
+import ntnu.idatt2106.backend.service.RecipeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the latency of fetching the best matching recipes for a refrigerator, the path behind /fetch,
+ * while the number of recipes grows from 10 to 100 000.
+ * The benchmark is slow to seed and only runs when started with -Dbenchmark=true.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RecipeMatchingBenchmarkTest {
+
+    private static final int[] RECIPE_COUNTS = {10, 1_000, 10_000, 100_000};
+    private static final int GROCERY_COUNT = 200;
+    private static final int GROCERIES_IN_REFRIGERATOR = 20;
+    private static final int INGREDIENTS_PER_RECIPE = 5;
+    private static final int RECIPES_TO_FETCH = 10;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 25;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeScoreService recipeScoreService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeGroceryRepository recipeGroceryRepository;
+
+    @Autowired
+    private GroceryRepository groceryRepository;
+
+    @Autowired
+    private RefrigeratorRepository refrigeratorRepository;
+
+    @Autowired
+    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+
+    private final List<Grocery> groceries = new ArrayList<>();
+    private Refrigerator refrigerator;
+
+    @AfterEach
+    public void tearDown() {
+        recipeGroceryRepository.deleteAllInBatch();
+        recipeRepository.deleteAllInBatch();
+        refrigeratorGroceryRepository.deleteAllInBatch();
+        if (refrigerator != null) {
+            refrigeratorRepository.delete(refrigerator);
+        }
+        groceryRepository.deleteAll(groceries);
+    }
+
+    @Test
+    public void latencyStaysFlatAsRecipeCountGrows() {
+        seedGroceriesAndRefrigerator();
+
+        int recipesCreated = 0;
+        for (int i = 0; i < RECIPE_COUNTS.length; i++) {
+            createRecipes(recipesCreated, RECIPE_COUNTS[i]);
+            recipesCreated = RECIPE_COUNTS[i];
+
+            FetchRecipesDTO fetchRecipesDTO = new FetchRecipesDTO();
+            fetchRecipesDTO.setRefrigeratorId(refrigerator.getId());
+            fetchRecipesDTO.setNumRecipes(RECIPES_TO_FETCH);
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO);
+            }
+
+            long[] timings = new long[MEASURED_ROUNDS];
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                long start = System.nanoTime();
+                List<RecipeDTO> recipes = recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO);
+                timings[round] = System.nanoTime() - start;
+                assertThat(recipes).hasSize(RECIPES_TO_FETCH);
+            }
+            Arrays.sort(timings);
+            System.out.printf("recipes=%d median=%.2f ms p90=%.2f ms%n", RECIPE_COUNTS[i],
+                    timings[MEASURED_ROUNDS / 2] / 1_000_000.0, timings[(int) (MEASURED_ROUNDS * 0.9)] / 1_000_000.0);
+        }
+    }
+
+    private void seedGroceriesAndRefrigerator() {
+        for (int i = 0; i < GROCERY_COUNT; i++) {
+            groceries.add(Grocery.builder()
+                    .name("Benchmark grocery " + i)
+                    .groceryExpiryDays(7)
+                    .build());
+        }
+        groceryRepository.saveAll(groceries);
+
+        refrigerator = refrigeratorRepository.save(Refrigerator.builder()
+                .name("Benchmark refrigerator")
+                .build());
+
+        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
+        for (int i = 0; i < GROCERIES_IN_REFRIGERATOR; i++) {
+            refrigeratorGroceries.add(RefrigeratorGrocery.builder()
+                    .refrigerator(refrigerator)
+                    .grocery(groceries.get(i * (GROCERY_COUNT / GROCERIES_IN_REFRIGERATOR)))
+                    .physicalExpireDate(LocalDate.now().plusDays(i))
+                    .quantity(1)
+                    .build());
+        }
+        refrigeratorGroceryRepository.saveAll(refrigeratorGroceries);
+    }
+
+    private void createRecipes(int from, int to) {
+        int chunkSize = 1_000;
+        for (int chunkStart = from; chunkStart < to; chunkStart += chunkSize) {
+            List<Recipe> recipes = new ArrayList<>();
+            List<RecipeGrocery> recipeGroceries = new ArrayList<>();
+            for (int i = chunkStart; i < Math.min(to, chunkStart + chunkSize); i++) {
+                Recipe recipe = Recipe.builder().name("Benchmark recipe " + i).build();
+                recipes.add(recipe);
+                for (int j = 0; j < INGREDIENTS_PER_RECIPE; j++) {
+                    recipeGroceries.add(RecipeGrocery.builder()
+                            .recipe(recipe)
+                            .grocery(groceries.get((i * 7 + j * 31) % GROCERY_COUNT))
+                            .quantity(1)
+                            .build());
+                }
+            }
+            recipeRepository.saveAll(recipes);
+            recipeGroceryRepository.saveAll(recipeGroceries);
+        }
+        recipeScoreService.invalidateIngredientIndex();
+    }
+}
@@ -0,0 +1,32 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import ntnu.idatt2106.backend.exceptions.InvalidCursorException;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeFeedCursor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RecipeFeedCursorTest {
+
+    @Test
+    public void testEncodeAndDecode() throws InvalidCursorException {
+        RecipeFeedCursor cursor = new RecipeFeedCursor(42L, true, 1.0 / 3, 17L);
+
+        RecipeFeedCursor decoded = RecipeFeedCursor.decode(cursor.encode());
+
+        Assertions.assertEquals(cursor, decoded);
+        Assertions.assertEquals(1.0 / 3, decoded.getScore());
+    }
+
+    @Test
+    public void testEncodedCursorIsUrlSafe() {
+        String encoded = new RecipeFeedCursor(Long.MAX_VALUE, false, 0, Long.MAX_VALUE).encode();
+
+        Assertions.assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    public void testDecodeInvalidCursorThrows() {
+        Assertions.assertThrows(InvalidCursorException.class, () -> RecipeFeedCursor.decode("not a cursor"));
+        Assertions.assertThrows(InvalidCursorException.class, () -> RecipeFeedCursor.decode("MTox"));
+    }
+}
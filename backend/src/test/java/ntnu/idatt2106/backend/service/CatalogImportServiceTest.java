@@ -0,0 +1,157 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.CatalogImport;
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.category.Category;
+import ntnu.idatt2106.backend.model.enums.CatalogImportMode;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.repository.CatalogImportRepository;
+import ntnu.idatt2106.backend.repository.CategoryRepository;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.SubCategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogImportServiceTest {
+
+    private static final String CATALOG = """
+            !Melk og melkeprodukter
+
+            ?Melk og melkebasert drikke - 14
+            Geitmelk, langtidsholdbar
+            Helmelk, 3,5 % fett, Tine
+
+            ?Ost - 30
+            Brunost, Gudbrandsdalsost
+            """;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private SubCategoryRepository subCategoryRepository;
+
+    @Mock
+    private GroceryRepository groceryRepository;
+
+    @Mock
+    private CatalogImportRepository catalogImportRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private CatalogImportService catalogImportService;
+
+    @TempDir
+    Path tempDir;
+
+    private Path catalogFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        catalogFile = Files.writeString(tempDir.resolve("matvareliste.csv"), CATALOG);
+        when(catalogImportRepository.findBySource("matvareliste.csv")).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCatalog_ShouldInsertWholeCatalog_WhenDatabaseIsEmpty() throws Exception {
+        int changes = catalogImportService.importCatalog(catalogFile, CatalogImportMode.FULL);
+
+        assertEquals(6, changes);
+        ArgumentCaptor<List<Grocery>> captor = ArgumentCaptor.forClass(List.class);
+        verify(groceryRepository).saveAll(captor.capture());
+        List<Grocery> groceries = captor.getValue();
+        assertEquals(3, groceries.size());
+        assertEquals("Helmelk", groceries.get(1).getName());
+        assertEquals("Helmelk,  3, 5 % fett,  Tine", groceries.get(1).getDescription());
+        assertEquals("Ost ", groceries.get(2).getSubCategory().getName());
+        assertEquals(30, groceries.get(2).getGroceryExpiryDays());
+        assertEquals("Melk og melkeprodukter", groceries.get(2).getSubCategory().getCategory().getName());
+        verify(catalogImportRepository).save(any(CatalogImport.class));
+        ArgumentCaptor<GroceriesChangedEvent> event = ArgumentCaptor.forClass(GroceriesChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().isImported());
+    }
+
+    @Test
+    void importCatalog_ShouldSkipFullImport_WhenCatalogIsPresent() throws Exception {
+        when(categoryRepository.count()).thenReturn(1L);
+        when(subCategoryRepository.count()).thenReturn(1L);
+        when(groceryRepository.count()).thenReturn(1L);
+
+        assertEquals(0, catalogImportService.importCatalog(catalogFile, CatalogImportMode.FULL));
+
+        verify(groceryRepository, never()).saveAll(any());
+        verify(catalogImportRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCatalog_ShouldNotWrite_WhenFileIsUnchanged() throws Exception {
+        catalogImportService.importCatalog(catalogFile, CatalogImportMode.INCREMENTAL);
+        ArgumentCaptor<CatalogImport> captor = ArgumentCaptor.forClass(CatalogImport.class);
+        verify(catalogImportRepository).save(captor.capture());
+        when(catalogImportRepository.findBySource("matvareliste.csv")).thenReturn(Optional.of(captor.getValue()));
+        clearInvocations(categoryRepository, subCategoryRepository, groceryRepository, catalogImportRepository, eventPublisher);
+
+        assertEquals(0, catalogImportService.importCatalog(catalogFile, CatalogImportMode.INCREMENTAL));
+
+        verify(categoryRepository, never()).saveAll(any());
+        verify(subCategoryRepository, never()).saveAll(any());
+        verify(groceryRepository, never()).saveAll(any());
+        verify(catalogImportRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCatalog_ShouldOnlySaveChanges_WhenFileHasChanged() throws Exception {
+        Category category = Category.builder().id(1L).name("Melk og melkeprodukter").build();
+        SubCategory milk = SubCategory.builder().id(1L).name("Melk og melkebasert drikke ").category(category).categoryExpiryDays(14).build();
+        SubCategory cheese = SubCategory.builder().id(2L).name("Ost ").category(category).categoryExpiryDays(21).build();
+        List<Grocery> stored = new ArrayList<>(List.of(
+                Grocery.builder().id(1L).name("Geitmelk").description("Geitmelk,  langtidsholdbar").subCategory(milk).groceryExpiryDays(14).build(),
+                Grocery.builder().id(2L).name("Brunost").description("Brunost,  Gudbrandsdalsost").subCategory(cheese).groceryExpiryDays(21).build()));
+        when(categoryRepository.findAll()).thenReturn(List.of(category));
+        when(subCategoryRepository.findAll()).thenReturn(List.of(milk, cheese));
+        when(groceryRepository.findAll()).thenReturn(stored);
+        when(catalogImportRepository.findBySource("matvareliste.csv")).thenReturn(Optional.of(
+                CatalogImport.builder().source("matvareliste.csv").contentHash("outdated").build()));
+
+        int changes = catalogImportService.importCatalog(catalogFile, CatalogImportMode.INCREMENTAL);
+
+        assertEquals(3, changes);
+        verify(categoryRepository).saveAll(List.of());
+        verify(subCategoryRepository).saveAll(List.of(cheese));
+        assertEquals(30, cheese.getCategoryExpiryDays());
+        ArgumentCaptor<List<Grocery>> captor = ArgumentCaptor.forClass(List.class);
+        verify(groceryRepository).saveAll(captor.capture());
+        List<Grocery> saved = captor.getValue();
+        assertEquals(2, saved.size());
+        assertEquals("Helmelk", saved.get(0).getName());
+        assertSame(milk, saved.get(0).getSubCategory());
+        assertSame(stored.get(1), saved.get(1));
+        assertEquals(30, saved.get(1).getGroceryExpiryDays());
+    }
+}
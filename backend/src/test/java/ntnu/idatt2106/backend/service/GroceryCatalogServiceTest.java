@@ -0,0 +1,111 @@
+package ntnu.idatt2106.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.category.Category;
+import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+import ntnu.idatt2106.backend.model.enums.CatalogFormat;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GroceryCatalogServiceTest {
+
+    @Mock
+    private GroceryRepository groceryRepository;
+
+    private GroceryCatalogService groceryCatalogService;
+
+    private final List<Grocery> groceries = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        groceryCatalogService = new GroceryCatalogService(groceryRepository, new ObjectMapper());
+        Category dairy = Category.builder().id(1L).name("Dairy").build();
+        SubCategory milk = SubCategory.builder().id(4L).name("Milk").category(dairy).categoryExpiryDays(7).build();
+        SubCategory cheese = SubCategory.builder().id(3L).name("Cheese").category(dairy).categoryExpiryDays(30).build();
+        groceries.add(Grocery.builder().id(2L).name("Milk").description("Milk").groceryExpiryDays(7).subCategory(milk).build());
+        groceries.add(Grocery.builder().id(1L).name("Bread").description("Bread").groceryExpiryDays(5).build());
+        groceries.add(Grocery.builder().id(5L).name("Brie").description("Brie").groceryExpiryDays(30).subCategory(cheese).build());
+        groceries.add(Grocery.builder().id(6L).name("Skim milk").description("Skim milk").groceryExpiryDays(7).subCategory(milk).build());
+        when(groceryRepository.findAllWithCategories()).thenAnswer(invocation -> List.copyOf(groceries));
+    }
+
+    @Test
+    void getSnapshot_ShouldOnlyLoadCatalogOnce_UntilGroceriesChange() {
+        GroceryCatalogService.CatalogSnapshot first = groceryCatalogService.getSnapshot();
+
+        assertSame(first, groceryCatalogService.getSnapshot());
+        verify(groceryRepository, times(1)).findAllWithCategories();
+
+        groceries.add(Grocery.builder().id(3L).name("Cheese").description("Cheese").groceryExpiryDays(30).build());
+        groceryCatalogService.onGroceriesChanged(GroceriesChangedEvent.saved(groceries.get(groceries.size() - 1)));
+        GroceryCatalogService.CatalogSnapshot second = groceryCatalogService.getSnapshot();
+
+        verify(groceryRepository, times(2)).findAllWithCategories();
+        assertEquals(5, second.groceries().size());
+        assertNotEquals(first.payload(CatalogFormat.LIST).etag(), second.payload(CatalogFormat.LIST).etag());
+    }
+
+    @Test
+    void getSnapshot_ShouldHoldSortedJsonAndCompressedJson() throws IOException {
+        GroceryCatalogService.CatalogSnapshot snapshot = groceryCatalogService.getSnapshot();
+
+        assertEquals(List.of("Bread", "Brie", "Milk", "Skim milk"), snapshot.groceries().stream().map(GroceryDTO::getDescription).toList());
+        GroceryCatalogService.CatalogPayload payload = snapshot.payload(CatalogFormat.LIST);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload.gzippedJson()))) {
+            assertArrayEquals(payload.json(), gzip.readAllBytes());
+        }
+        assertNotEquals(payload.etag(), payload.gzipEtag());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.groceries().clear());
+    }
+
+    @Test
+    void refresh_ShouldKeepEtag_WhenCatalogIsUnchanged() {
+        GroceryCatalogService.CatalogSnapshot first = groceryCatalogService.getSnapshot();
+
+        groceryCatalogService.refresh();
+        GroceryCatalogService.CatalogSnapshot refreshed = groceryCatalogService.getSnapshot();
+
+        assertEquals(first.payload(CatalogFormat.ROWS).etag(), refreshed.payload(CatalogFormat.ROWS).etag());
+        assertSame(first.payload(CatalogFormat.LIST).json(), refreshed.payload(CatalogFormat.LIST).json());
+        verify(groceryRepository, times(2)).findAllWithCategories();
+    }
+
+    @Test
+    void getSnapshot_ShouldSendEachCategoryOnce_AsRowsAndColumns() throws IOException {
+        GroceryCatalogService.CatalogSnapshot snapshot = groceryCatalogService.getSnapshot();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        JsonNode rows = objectMapper.readTree(snapshot.payload(CatalogFormat.ROWS).json());
+        assertEquals("[{\"id\":1,\"name\":\"Dairy\"}]", rows.get("categories").toString());
+        assertEquals("[{\"id\":3,\"name\":\"Cheese\",\"categoryId\":1,\"categoryExpiryDays\":30},"
+                + "{\"id\":4,\"name\":\"Milk\",\"categoryId\":1,\"categoryExpiryDays\":7}]", rows.get("subCategories").toString());
+        assertEquals("[\"id\",\"name\",\"description\",\"groceryExpiryDays\",\"subCategoryId\"]", rows.get("groceryFields").toString());
+        assertEquals("[[1,\"Bread\",\"Bread\",5,null],[5,\"Brie\",\"Brie\",30,3],[2,\"Milk\",\"Milk\",7,4],"
+                + "[6,\"Skim milk\",\"Skim milk\",7,4]]", rows.get("groceries").toString());
+
+        JsonNode columns = objectMapper.readTree(snapshot.payload(CatalogFormat.COLUMNS).json());
+        assertEquals(rows.get("subCategories"), columns.get("subCategories"));
+        assertEquals("[1,5,2,6]", columns.get("groceries").get("id").toString());
+        assertEquals("[null,3,4,4]", columns.get("groceries").get("subCategoryId").toString());
+
+        assertTrue(snapshot.payload(CatalogFormat.ROWS).json().length < snapshot.payload(CatalogFormat.LIST).json().length);
+        assertNotEquals(snapshot.payload(CatalogFormat.ROWS).etag(), snapshot.payload(CatalogFormat.COLUMNS).etag());
+    }
+}
@@ -0,0 +1,28 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+
+import java.util.List;
+
+/**
+ * Groceries for the tests of the grocery searches.
+ */
+final class GroceryFixtures {
+
+    private GroceryFixtures() {
+    }
+
+    static Grocery grocery(long id, String name, String description) {
+        return grocery(id, name, description, null);
+    }
+
+    static Grocery grocery(long id, String name, String description, SubCategory subCategory) {
+        return Grocery.builder().id(id).name(name).description(description).subCategory(subCategory).build();
+    }
+
+    static List<String> names(List<GroceryDTO> groceries) {
+        return groceries.stream().map(GroceryDTO::getName).toList();
+    }
+}
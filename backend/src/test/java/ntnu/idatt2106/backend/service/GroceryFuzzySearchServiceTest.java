@@ -0,0 +1,80 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.category.Category;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static ntnu.idatt2106.backend.service.GroceryFixtures.grocery;
+import static ntnu.idatt2106.backend.service.GroceryFixtures.names;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class GroceryFuzzySearchServiceTest {
+
+    @Mock
+    private GroceryRepository groceryRepository;
+
+    private GroceryFuzzySearchService groceryFuzzySearchService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        groceryFuzzySearchService = new GroceryFuzzySearchService(groceryRepository, 0.5);
+        Category dairy = Category.builder().id(1L).name("Melk og melkeprodukter").build();
+        Category fruit = Category.builder().id(2L).name("Frukt og bær").build();
+        Category sweets = Category.builder().id(3L).name("Søtsaker").build();
+        SubCategory milk = SubCategory.builder().id(1L).name("Melk").category(dairy).build();
+        SubCategory cheese = SubCategory.builder().id(2L).name("Ost").category(dairy).build();
+        SubCategory berries = SubCategory.builder().id(3L).name("Bær").category(fruit).build();
+        SubCategory chocolate = SubCategory.builder().id(4L).name("Sjokolade").category(sweets).build();
+        when(groceryRepository.findAllWithCategories()).thenReturn(List.of(
+                grocery(1, "Geitmelk", "Geitmelk, langtidsholdbar", milk),
+                grocery(2, "Helmelk", "Helmelk, 3,5 % fett, Tine", milk),
+                grocery(3, "Brunost", "Brunost, Gudbrandsdalsost", cheese),
+                grocery(4, "Blåbær", "Blåbær, frosne", berries),
+                grocery(5, "Melkesjokolade", "Melkesjokolade, Freia", chocolate)));
+    }
+
+    @Test
+    void search_ShouldFindGroceriesWithTypos() {
+        assertEquals(List.of("Geitmelk"), names(groceryFuzzySearchService.search("gietmelk", null, null, 10)));
+        assertEquals(List.of("Helmelk"), names(groceryFuzzySearchService.search("helmek", null, null, 10)));
+        assertEquals(List.of("Blåbær"), names(groceryFuzzySearchService.search("BLÅBAR", null, null, 10)));
+        assertTrue(groceryFuzzySearchService.search("  ,  ", null, null, 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldRankByCoverage_ThenByNameSimilarity() {
+        assertEquals(List.of("Melkesjokolade", "Helmelk", "Geitmelk"), names(groceryFuzzySearchService.search("melk", null, null, 10)));
+        assertEquals(List.of("Melkesjokolade"), names(groceryFuzzySearchService.search("melk", null, null, 1)));
+    }
+
+    @Test
+    void search_ShouldFilterBySubCategoryAndCategory() {
+        assertEquals(List.of("Helmelk", "Geitmelk"), names(groceryFuzzySearchService.search("melk", null, 1L, 10)));
+        assertEquals(List.of("Melkesjokolade"), names(groceryFuzzySearchService.search("melk", 4L, null, 10)));
+        assertTrue(groceryFuzzySearchService.search("melk", 2L, null, 10).isEmpty());
+    }
+
+    @Test
+    void onGroceriesChanged_ShouldMakeSavedGrocerySearchable() {
+        groceryFuzzySearchService.search("melk", null, null, 10);
+
+        Grocery added = grocery(6, "Melis", "Melis, Dansukker");
+        groceryFuzzySearchService.onGroceriesChanged(GroceriesChangedEvent.saved(added));
+        groceryFuzzySearchService.onGroceriesChanged(GroceriesChangedEvent.saved(added));
+
+        assertEquals(List.of("Melis"), names(groceryFuzzySearchService.search("dansuker", null, null, 10)));
+        assertTrue(groceryFuzzySearchService.search("dansuker", null, 1L, 10).isEmpty());
+        verify(groceryRepository, times(1)).findAllWithCategories();
+    }
+}
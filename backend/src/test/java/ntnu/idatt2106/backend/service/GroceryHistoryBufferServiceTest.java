@@ -0,0 +1,185 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.GroceryHistory;
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GroceryHistoryBufferServiceTest {
+
+    private static final LocalDate MAY = LocalDate.of(2023, 5, 10);
+
+    @Mock
+    private GroceryHistoryRepository groceryHistoryRepository;
+
+    @Mock
+    private GroceryHistoryMonthService groceryHistoryMonthService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ExecutorService flushExecutor;
+
+    private GroceryHistoryBufferService groceryHistoryBufferService;
+
+    private final Refrigerator refrigerator = Refrigerator.builder().id(1L).build();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // The executor never runs the flushes, so the histories stay buffered until flushed by the test
+        groceryHistoryBufferService = new GroceryHistoryBufferService(groceryHistoryRepository, groceryHistoryMonthService,
+                transactionManager, 3, 2, 0, flushExecutor);
+    }
+
+    @Test
+    void add_ShouldOnlyBufferHistory_AndScheduleFlushWhenBatchIsFull() {
+        groceryHistoryBufferService.add(history(MAY, false, 100));
+
+        verifyNoInteractions(groceryHistoryRepository, flushExecutor);
+
+        groceryHistoryBufferService.add(history(MAY, true, 50));
+
+        assertEquals(2, groceryHistoryBufferService.getPendingCount());
+        verify(flushExecutor).execute(any());
+        verifyNoInteractions(groceryHistoryRepository);
+    }
+
+    @Test
+    void flush_ShouldWriteBatchesWithOneUpdatePerMonth() {
+        GroceryHistory first = history(MAY, false, 100);
+        GroceryHistory second = history(MAY.plusDays(1), true, 50);
+        GroceryHistory third = history(MAY.plusMonths(1), false, 200);
+        groceryHistoryBufferService.add(first);
+        groceryHistoryBufferService.add(second);
+        groceryHistoryBufferService.add(third);
+
+        assertEquals(3, groceryHistoryBufferService.flush());
+
+        verify(groceryHistoryRepository).saveAll(List.of(first, second));
+        verify(groceryHistoryRepository).saveAll(List.of(third));
+        verify(groceryHistoryMonthService).add(refrigerator, LocalDate.of(2023, 5, 1), 100, 1, 50, 1);
+        verify(groceryHistoryMonthService).add(refrigerator, LocalDate.of(2023, 6, 1), 200, 1, 0, 0);
+        assertEquals(0, groceryHistoryBufferService.getPendingCount());
+    }
+
+    @Test
+    void add_ShouldKeepHistoryForNextFlush_WhenBufferStaysFull() {
+        for (int i = 0; i < 4; i++) {
+            groceryHistoryBufferService.add(history(MAY, false, 100));
+        }
+
+        verifyNoInteractions(groceryHistoryRepository);
+        assertEquals(4, groceryHistoryBufferService.getPendingCount());
+
+        assertEquals(4, groceryHistoryBufferService.flush());
+        assertEquals(0, groceryHistoryBufferService.getPendingCount());
+    }
+
+    @Test
+    void flush_ShouldWriteBatchAgain_WhenAnotherWriterCreatedItsMonth() {
+        groceryHistoryBufferService.add(history(MAY, false, 100));
+        doThrow(new DataIntegrityViolationException("month exists")).doNothing()
+                .when(groceryHistoryMonthService).add(any(), any(), anyLong(), anyLong(), anyLong(), anyLong());
+
+        assertEquals(1, groceryHistoryBufferService.flush());
+
+        verify(groceryHistoryRepository, times(2)).saveAll(any());
+        assertEquals(0, groceryHistoryBufferService.getPendingCount());
+    }
+
+    @Test
+    void flush_ShouldKeepBatch_WhenDatabaseCannotBeReached() {
+        groceryHistoryBufferService.add(history(MAY, false, 100));
+        when(groceryHistoryRepository.saveAll(any()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(List.of());
+
+        assertEquals(0, groceryHistoryBufferService.flush());
+        assertEquals(1, groceryHistoryBufferService.getPendingCount());
+
+        assertEquals(1, groceryHistoryBufferService.flush());
+        assertEquals(0, groceryHistoryBufferService.getPendingCount());
+    }
+
+    @Test
+    void flush_ShouldDropOnlyRejectedHistory_WhenBatchViolatesConstraint() {
+        GroceryHistory rejected = history(MAY, false, 100);
+        GroceryHistory accepted = history(MAY, false, 200);
+        groceryHistoryBufferService.add(rejected);
+        groceryHistoryBufferService.add(accepted);
+        when(groceryHistoryRepository.saveAll(List.of(rejected, accepted))).thenThrow(new DataIntegrityViolationException("fk"));
+        when(groceryHistoryRepository.saveAll(List.of(rejected))).thenThrow(new DataIntegrityViolationException("fk"));
+
+        assertEquals(1, groceryHistoryBufferService.flush());
+
+        verify(groceryHistoryMonthService).add(refrigerator, LocalDate.of(2023, 5, 1), 200, 1, 0, 0);
+        assertEquals(0, groceryHistoryBufferService.getPendingCount());
+    }
+
+    @Test
+    void add_ShouldDropHistory_WhenTooManyAreWaitingToBeWrittenAgain() {
+        for (int i = 0; i < 7; i++) {
+            groceryHistoryBufferService.add(history(MAY, false, 100));
+        }
+
+        // 3 in the queue, and 3 of the 4 that did not fit are kept for the next flush
+        verifyNoInteractions(groceryHistoryRepository);
+        assertEquals(6, groceryHistoryBufferService.getPendingCount());
+    }
+
+    @Test
+    void add_ShouldWaitForFlushThread_WhenBufferIsFull() throws Exception {
+        ExecutorService flushThread = Executors.newSingleThreadExecutor();
+        GroceryHistoryBufferService waiting = new GroceryHistoryBufferService(groceryHistoryRepository,
+                groceryHistoryMonthService, transactionManager, 3, 3, 10_000, flushThread);
+        AtomicInteger written = new AtomicInteger();
+        Set<Thread> writers = ConcurrentHashMap.newKeySet();
+        when(groceryHistoryRepository.saveAll(any())).thenAnswer(invocation -> {
+            written.addAndGet(invocation.<List<?>>getArgument(0).size());
+            writers.add(Thread.currentThread());
+            return List.of();
+        });
+        try {
+            for (int i = 0; i < 4; i++) {
+                waiting.add(history(MAY, false, 100));
+            }
+            flushThread.submit(() -> { }).get(10, TimeUnit.SECONDS);
+
+            // The fourth waited until the flush thread had taken the first batch, and the request wrote nothing itself
+            assertTrue(written.get() >= 3);
+            assertEquals(4, written.get() + waiting.getPendingCount());
+            assertFalse(writers.contains(Thread.currentThread()));
+        } finally {
+            flushThread.shutdownNow();
+        }
+    }
+
+    private GroceryHistory history(LocalDate dateConsumed, boolean wasTrashed, int weightInGrams) {
+        return GroceryHistory.builder()
+                .refrigerator(refrigerator)
+                .dateConsumed(dateConsumed)
+                .wasTrashed(wasTrashed)
+                .weightInGrams(weightInGrams)
+                .build();
+    }
+}
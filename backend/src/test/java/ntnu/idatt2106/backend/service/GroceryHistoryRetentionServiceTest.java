@@ -0,0 +1,86 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.repository.GroceryHistoryMonthRepository;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GroceryHistoryRetentionServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2023, 5, 15);
+
+    @Mock
+    private GroceryHistoryRepository groceryHistoryRepository;
+
+    @Mock
+    private GroceryHistoryMonthRepository groceryHistoryMonthRepository;
+
+    @Mock
+    private GroceryHistoryMonthService groceryHistoryMonthService;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void applyRetention_ShouldSumIntoMonthsBeforeDeletingInChunks() {
+        GroceryHistoryRetentionService retentionService = retentionService(0);
+        LocalDate rawCutoff = TODAY.minusDays(400);
+        when(groceryHistoryRepository.findIdsConsumedBefore(eq(rawCutoff), any()))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L));
+
+        assertEquals(3, retentionService.applyRetention(TODAY));
+
+        InOrder inOrder = inOrder(groceryHistoryMonthService, groceryHistoryRepository);
+        inOrder.verify(groceryHistoryMonthService).addMissingMonths(rawCutoff);
+        inOrder.verify(groceryHistoryRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        inOrder.verify(groceryHistoryRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(groceryHistoryMonthRepository, never()).deleteBeforeMonth(anyInt());
+    }
+
+    @Test
+    void applyRetention_ShouldDeleteOldMonths_WhenMonthlyRetentionIsSet() {
+        GroceryHistoryRetentionService retentionService = retentionService(24);
+        when(groceryHistoryRepository.findIdsConsumedBefore(any(), any())).thenReturn(List.of());
+
+        retentionService.applyRetention(TODAY);
+
+        verify(groceryHistoryMonthRepository).deleteBeforeMonth(202106);
+    }
+
+    @Test
+    void applyRetention_ShouldSkipRun_WhenLockIsHeldByAnotherNode() {
+        GroceryHistoryRetentionService retentionService = retentionService(0);
+        when(schedulerLockService.tryLock(eq(GroceryHistoryRetentionService.LOCK_NAME), any(Duration.class))).thenReturn(false);
+
+        assertTrue(retentionService.applyRetention().isEmpty());
+
+        verifyNoInteractions(groceryHistoryRepository, groceryHistoryMonthService);
+    }
+
+    private GroceryHistoryRetentionService retentionService(int monthlyRetentionMonths) {
+        return new GroceryHistoryRetentionService(groceryHistoryRepository, groceryHistoryMonthRepository,
+                groceryHistoryMonthService, schedulerLockService, transactionManager, 400, monthlyRetentionMonths, 2);
+    }
+}
@@ -1,21 +1,32 @@
 package ntnu.idatt2106.backend.service;
 
 import ntnu.idatt2106.backend.model.GroceryHistory;
+import ntnu.idatt2106.backend.model.GroceryHistoryMonth;
 import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.SubCategory;
 import ntnu.idatt2106.backend.model.dto.GroceryStatisticDTO;
+import ntnu.idatt2106.backend.model.dto.GroceryWasteDTO;
+import ntnu.idatt2106.backend.model.dto.UnitDTO;
+import ntnu.idatt2106.backend.model.dto.WasteAnalyticsDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class GroceryHistoryServiceTest {
@@ -25,82 +36,123 @@ public class GroceryHistoryServiceTest {
     @Mock
     private GroceryHistoryRepository groceryHistoryRepository;
 
+    @Mock
+    private GroceryHistoryMonthService groceryHistoryMonthService;
+
+    @Mock
+    private GroceryHistoryBufferService groceryHistoryBufferService;
+
     private final long refrigeratorId = 1L;
-    private final Refrigerator refrigerator = Refrigerator.builder().name("test").address("test").id(1L).build();
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        groceryHistoryService = new GroceryHistoryService(groceryHistoryRepository);
+        groceryHistoryService = new GroceryHistoryService(groceryHistoryRepository, groceryHistoryMonthService, groceryHistoryBufferService);
     }
 
     @Test
-    void findGroceriesForMonth_returnsCorrectList() {
+    void getStatsforLastYear_returnsCorrectList() {
         // Setup
-        int x = 2;
-        List<GroceryHistory> groceryHistories = new ArrayList<>();
-        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(2L, LocalDate.now(), refrigerator, true, 100));
-        when(groceryHistoryRepository.findByDateConsumedBetweenAndRefrigeratorId(any(), any(), anyLong()))
-                .thenReturn(groceryHistories);
+        YearMonth currentMonth = YearMonth.now();
+        YearMonth threeMonthsAgo = currentMonth.minusMonths(3);
+        when(groceryHistoryMonthService.getMonths(refrigeratorId, currentMonth.minusMonths(11), currentMonth))
+                .thenReturn(Map.of(
+                        currentMonth, GroceryHistoryMonth.builder().eatenGrams(300).eatenCount(2).trashedGrams(100).trashedCount(1).build(),
+                        threeMonthsAgo, GroceryHistoryMonth.builder().eatenGrams(200).eatenCount(1).build()));
 
         // Run
-        List<GroceryHistory> result = groceryHistoryService.findGroceriesForMonth(0, refrigeratorId);
+        List<GroceryStatisticDTO> result = groceryHistoryService.getStatsforLastYear(refrigeratorId);
 
         // Verify
-        assertEquals(groceryHistories, result);
-        verify(groceryHistoryRepository, times(1))
-                .findByDateConsumedBetweenAndRefrigeratorId(any(), any(), anyLong());
+        assertEquals(12, result.size());
+        assertEquals(100, result.get(0).getFoodWaste());
+        assertEquals(300, result.get(0).getFoodEaten());
+        assertEquals(0, result.get(3).getFoodWaste());
+        assertEquals(200, result.get(3).getFoodEaten());
+        assertEquals(0, result.get(1).getFoodEaten());
+        assertEquals(threeMonthsAgo.format(DateTimeFormatter.ofPattern("MMMM, yyyy")), result.get(3).getMonthName());
+        verifyNoInteractions(groceryHistoryRepository, groceryHistoryBufferService);
     }
 
     @Test
-    void getStatsforLastYear_returnsCorrectList() {
+    void newGroceryHistory_addsToBuffer() {
         // Setup
-        List<GroceryHistory> groceryHistories = new ArrayList<>();
-        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(2L, LocalDate.now().minusMonths(3), refrigerator, false, 200));
-        when(groceryHistoryRepository.findByDateConsumedBetweenAndRefrigeratorId(any(), any(), anyLong()))
-                .thenReturn(groceryHistories);
+        Refrigerator refrigerator = Refrigerator.builder().id(refrigeratorId).build();
+        SubCategory subCategory = SubCategory.builder().id(3L).build();
+        Grocery grocery = Grocery.builder().id(2L).subCategory(subCategory).build();
+        RefrigeratorGrocery refrigeratorGrocery = RefrigeratorGrocery.builder().refrigerator(refrigerator).grocery(grocery).build();
+        UnitDTO unitDTO = new UnitDTO();
+        unitDTO.setWeight(250);
 
         // Run
-        List<GroceryStatisticDTO> result = groceryHistoryService.getStatsforLastYear(refrigeratorId);
+        groceryHistoryService.newGroceryHistory(refrigeratorGrocery, 2, unitDTO, true);
 
         // Verify
-        assertEquals(12, result.size());
-        verify(groceryHistoryRepository, times(12))
-                .findByDateConsumedBetweenAndRefrigeratorId(any(), any(), anyLong());
+        ArgumentCaptor<GroceryHistory> captor = ArgumentCaptor.forClass(GroceryHistory.class);
+        verify(groceryHistoryBufferService, times(1)).add(captor.capture());
+        assertEquals(refrigerator, captor.getValue().getRefrigerator());
+        assertEquals(LocalDate.now(), captor.getValue().getDateConsumed());
+        assertEquals(500, captor.getValue().getWeightInGrams().intValue());
+        assertTrue(captor.getValue().isWasTrashed());
+        assertEquals(2L, captor.getValue().getGroceryId().longValue());
+        assertEquals(3L, captor.getValue().getSubCategoryId().longValue());
+        verifyNoInteractions(groceryHistoryMonthService);
     }
 
     @Test
-    void sumTrash_returnsCorrectValue() {
+    void getWasteAnalytics_returnsTopTrashedFromAggregates() {
         // Setup
-        List<GroceryHistory> groceryHistories = new ArrayList<>();
-        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(2L, LocalDate.now(), refrigerator, false, 200));
-        groceryHistories.add(new GroceryHistory(3L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(4L, LocalDate.now(), refrigerator, false, 200));
+        LocalDate from = LocalDate.of(2023, 1, 1);
+        LocalDate to = LocalDate.of(2023, 5, 1);
+        List<GroceryWasteDTO> groceries = List.of(new GroceryWasteDTO(2L, "Milk", 600L, 2L));
+        List<GroceryWasteDTO> subCategories = List.of(new GroceryWasteDTO(3L, "Dairy", 600L, 2L));
+        when(groceryHistoryRepository.findMostWastedGroceries(refrigeratorId, from, to, PageRequest.of(0, 5))).thenReturn(groceries);
+        when(groceryHistoryRepository.findMostWastedSubCategories(refrigeratorId, from, to, PageRequest.of(0, 5))).thenReturn(subCategories);
+        when(groceryHistoryMonthService.getFirstRawDate(any())).thenReturn(from);
 
         // Run
-        int result = groceryHistoryService.sumTrash(groceryHistories);
+        WasteAnalyticsDTO result = groceryHistoryService.getWasteAnalytics(refrigeratorId, from, to, 5);
 
         // Verify
-        assertEquals(200, result);
+        assertEquals(from, result.getFrom());
+        assertEquals(to, result.getTo());
+        assertFalse(result.isTruncated());
+        assertEquals(groceries, result.getGroceries());
+        assertEquals(subCategories, result.getSubCategories());
+        assertEquals(List.of(), result.getCategories());
+        verify(groceryHistoryRepository, never()).findAll();
     }
 
     @Test
-    void sumEaten_returnsCorrectValue() {
+    void getWasteAnalytics_cutsRangeToKeptRawHistory() {
         // Setup
-        List<GroceryHistory> groceryHistories = new ArrayList<>();
-        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(2L, LocalDate.now(), refrigerator, false, 200));
-        groceryHistories.add(new GroceryHistory(3L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(4L, LocalDate.now(), refrigerator, false, 200));
+        LocalDate firstRawDate = LocalDate.of(2023, 3, 1);
+        LocalDate to = LocalDate.of(2023, 5, 1);
+        when(groceryHistoryMonthService.getFirstRawDate(any())).thenReturn(firstRawDate);
 
         // Run
-        int result = groceryHistoryService.sumEaten(groceryHistories);
+        WasteAnalyticsDTO result = groceryHistoryService.getWasteAnalytics(refrigeratorId, LocalDate.of(2022, 1, 1), to, 5);
 
         // Verify
-        assertEquals(400, result);
+        assertEquals(firstRawDate, result.getFrom());
+        assertEquals(to, result.getTo());
+        assertTrue(result.isTruncated());
+        verify(groceryHistoryRepository).findMostWastedGroceries(refrigeratorId, firstRawDate, to, PageRequest.of(0, 5));
     }
 
+    @Test
+    void getWasteAnalytics_returnsNothing_whenRangeEndsBeforeKeptRawHistory() {
+        // Setup
+        when(groceryHistoryMonthService.getFirstRawDate(any())).thenReturn(LocalDate.of(2023, 3, 1));
+
+        // Run
+        WasteAnalyticsDTO result = groceryHistoryService.getWasteAnalytics(refrigeratorId,
+                LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31), 5);
+
+        // Verify
+        assertTrue(result.isTruncated());
+        assertEquals(List.of(), result.getGroceries());
+        assertEquals(List.of(), result.getCategories());
+        verifyNoInteractions(groceryHistoryRepository);
+    }
 }
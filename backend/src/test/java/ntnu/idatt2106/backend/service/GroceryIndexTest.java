@@ -0,0 +1,68 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.dto.GroceryDTO;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ntnu.idatt2106.backend.service.GroceryFixtures.grocery;
+import static ntnu.idatt2106.backend.service.GroceryFixtures.names;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroceryIndexTest {
+
+    private final AtomicInteger builds = new AtomicInteger();
+
+    private GroceryIndex<List<GroceryDTO>> groceryIndex;
+
+    @BeforeEach
+    void setUp() {
+        groceryIndex = new GroceryIndex<>(() -> {
+            builds.incrementAndGet();
+            return List.of(new GroceryDTO(grocery(1, "Melk", "Helmelk")));
+        }, (index, grocery) -> {
+            List<GroceryDTO> added = new ArrayList<>(index);
+            added.add(grocery);
+            return List.copyOf(added);
+        });
+    }
+
+    @Test
+    void get_ShouldBuildIndexOnce() {
+        assertSame(groceryIndex.get(), groceryIndex.get());
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void update_ShouldAddSavedGroceryWithoutBuildingAgain() {
+        groceryIndex.get();
+
+        groceryIndex.update(GroceriesChangedEvent.saved(grocery(2, "Melis", "Melis, Dansukker")));
+
+        assertEquals(List.of("Melk", "Melis"), names(groceryIndex.get()));
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void update_ShouldNotBuildIndex_WhenItIsNotBuiltYet() {
+        groceryIndex.update(GroceriesChangedEvent.saved(grocery(2, "Melis", "Melis, Dansukker")));
+
+        assertEquals(0, builds.get());
+        assertEquals(List.of("Melk"), names(groceryIndex.get()));
+    }
+
+    @Test
+    void update_ShouldBuildIndexAgainOnNextGet_WhenCatalogIsImported() {
+        groceryIndex.get();
+
+        groceryIndex.update(GroceriesChangedEvent.imported());
+        groceryIndex.get();
+        groceryIndex.rebuild();
+
+        assertEquals(3, builds.get());
+    }
+}
@@ -11,6 +11,8 @@ import ntnu.idatt2106.backend.model.dto.GroceryDTO;
 import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryDTO;
 import ntnu.idatt2106.backend.model.dto.UnitDTO;
 import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.event.RefrigeratorGroceriesChangedEvent;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryListRequest;
@@ -19,10 +21,12 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.text.ParseException;
 import java.time.LocalDate;
@@ -30,6 +34,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -47,7 +52,7 @@ public class GroceryServiceTest {
     private RefrigeratorRepository refrigeratorRepository;
 
     @Mock
-    private SubCategoryRepository subCategoryRepository;
+    private ReferenceDataCacheService referenceDataCacheService;
 
     @Mock
     private RefrigeratorService refrigeratorService;
@@ -64,9 +69,6 @@ public class GroceryServiceTest {
     @Mock
     private NotificationService notificationService;
 
-    @Mock
-    private UnitRepository unitRepository;
-
     @Mock
     private RefrigeratorUserRepository refrigeratorUserRepository;
 
@@ -76,6 +78,18 @@ public class GroceryServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private GroceryCatalogService groceryCatalogService;
+
+    @Mock
+    private GroceryTypeaheadService groceryTypeaheadService;
+
+    @Mock
+    private GroceryFuzzySearchService groceryFuzzySearchService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     //Testdata
     private Grocery grocery;
     private GroceryDTO customGroceryDTO;
@@ -168,6 +182,10 @@ public class GroceryServiceTest {
         // Verify
         verify(notificationService, times(1)).deleteNotificationsByRefrigeratorGrocery(refrigeratorGrocery);
         verify(refrigeratorGroceryRepository, times(1)).save(any(RefrigeratorGrocery.class));
+        ArgumentCaptor<RefrigeratorGroceriesChangedEvent> event = ArgumentCaptor.forClass(RefrigeratorGroceriesChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(refrigerator.getId(), event.getValue().getRefrigeratorId());
+        assertEquals(Set.of(grocery.getId()), event.getValue().getGroceryIds());
     }
 
     @Test
@@ -380,9 +398,9 @@ public class GroceryServiceTest {
         request.setQuantity(1);
         request.setRefrigeratorId(refrigerator.getId());
 
-        when(unitRepository.findById(any())).thenReturn(Optional.ofNullable(unit));
+        when(referenceDataCacheService.findUnit(anyLong())).thenReturn(Optional.ofNullable(unit));
         when(groceryService.getFridgeRole(refrigerator, any())).thenReturn(FridgeRole.SUPERUSER);
-        when(groceryRepository.findById(existingGroceryDTO.getId())).thenReturn(Optional.ofNullable(grocery));
+        when(referenceDataCacheService.findGrocery(existingGroceryDTO.getId())).thenReturn(Optional.ofNullable(grocery));
         when(refrigeratorGroceryRepository.findAllByRefrigeratorId(any())).thenReturn(groceryList);
         when(refrigeratorRepository.findById(any())).thenReturn(Optional.ofNullable(refrigerator));
         when(refrigeratorService.getRefrigerator(refrigerator.getId())).thenReturn(refrigerator);
@@ -396,8 +414,8 @@ public class GroceryServiceTest {
     @Test
     public void testAddCustomGrocery() throws SaveException {
         // Given
-        Mockito.when(subCategoryRepository.findById(customGroceryDTO.getId())).thenReturn(Optional.of(customGroceryDTO.getSubCategory()));
-        Mockito.when(groceryService.saveGrocery(Mockito.any())).thenReturn(grocery);
+        Mockito.when(referenceDataCacheService.findSubCategory(customGroceryDTO.getId())).thenReturn(Optional.of(customGroceryDTO.getSubCategory()));
+        Mockito.when(groceryRepository.save(Mockito.any())).thenReturn(grocery);
 
         // When
         Grocery result = groceryService.addCustomGrocery(customGroceryDTO);
@@ -408,12 +426,15 @@ public class GroceryServiceTest {
         assertEquals(customGroceryDTO.getDescription(), result.getDescription());
         assertEquals(customGroceryDTO.getGroceryExpiryDays(), result.getGroceryExpiryDays());
         assertEquals(customGroceryDTO.getSubCategory(), result.getSubCategory());
+        ArgumentCaptor<GroceriesChangedEvent> event = ArgumentCaptor.forClass(GroceriesChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(List.of(grocery), event.getValue().getSavedGroceries());
     }
 
     @Test
     public void testAddCustomGrocery_SubCategoryNotFound() {
         // Given
-        Mockito.when(subCategoryRepository.findById(customGroceryDTO.getId())).thenReturn(Optional.empty());
+        Mockito.when(referenceDataCacheService.findSubCategory(customGroceryDTO.getId())).thenReturn(Optional.empty());
 
         // When / Then
         assertThrows(EntityNotFoundException.class, () -> groceryService.addCustomGrocery(customGroceryDTO));
@@ -424,8 +445,8 @@ public class GroceryServiceTest {
         // Given
         customGroceryDTO.setDescription(null);
         grocery.setDescription(null);
-        Mockito.when(subCategoryRepository.findById(customGroceryDTO.getId())).thenReturn(Optional.of(customGroceryDTO.getSubCategory()));
-        Mockito.when(groceryService.saveGrocery(Mockito.any())).thenReturn(grocery);
+        Mockito.when(referenceDataCacheService.findSubCategory(customGroceryDTO.getId())).thenReturn(Optional.of(customGroceryDTO.getSubCategory()));
+        Mockito.when(groceryRepository.save(Mockito.any())).thenReturn(grocery);
 
         // When
         Grocery result = groceryService.addCustomGrocery(customGroceryDTO);
@@ -0,0 +1,85 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.dto.GroceryUsageDTO;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static ntnu.idatt2106.backend.service.GroceryFixtures.grocery;
+import static ntnu.idatt2106.backend.service.GroceryFixtures.names;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class GroceryTypeaheadServiceTest {
+
+    @Mock
+    private GroceryRepository groceryRepository;
+
+    @Mock
+    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+
+    @Mock
+    private GroceryHistoryRepository groceryHistoryRepository;
+
+    private GroceryTypeaheadService groceryTypeaheadService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        groceryTypeaheadService = new GroceryTypeaheadService(groceryRepository, refrigeratorGroceryRepository, groceryHistoryRepository);
+        when(groceryRepository.findAllWithCategories()).thenReturn(List.of(
+                grocery(1, "Melk", "Helmelk, 3,5 % fett, Tine"),
+                grocery(2, "Tine melk", "Lettmelk, 0,5 % fett"),
+                grocery(3, "Kefir", "Kefir, syrnet melk, Tine"),
+                grocery(4, "Ost", "Norvegia, Tine"),
+                grocery(5, "Ørret", "Ørretfilet, fersk"),
+                grocery(6, "Blåbær", "Blåbær, frosne"),
+                grocery(7, "Øl", "Pils, Ringnes"),
+                grocery(8, "Melkesjokolade", "Melkesjokolade, Freia")));
+        when(refrigeratorGroceryRepository.countByGrocery()).thenReturn(List.of(new GroceryUsageDTO(8L, 3L)));
+        when(groceryHistoryRepository.countByGrocery()).thenReturn(List.of(new GroceryUsageDTO(8L, 2L), new GroceryUsageDTO(1L, 1L)));
+    }
+
+    @Test
+    void search_ShouldRankNamePrefixBeforeWordPrefix_ThenByUsage() {
+        assertEquals(List.of("Melkesjokolade", "Melk", "Tine melk", "Kefir"), names(groceryTypeaheadService.search("mel", 10)));
+        assertEquals(List.of("Melkesjokolade", "Melk"), names(groceryTypeaheadService.search("MEL", 2)));
+    }
+
+    @Test
+    void search_ShouldMatchEveryWordOfQuery() {
+        assertEquals(List.of("Melk"), names(groceryTypeaheadService.search("tine hel", 10)));
+        assertEquals(List.of("Kefir"), names(groceryTypeaheadService.search("syrnet tine", 10)));
+        assertTrue(groceryTypeaheadService.search("  ,  ", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldKeepNorwegianLettersApart() {
+        assertEquals(List.of("Øl", "Ørret"), names(groceryTypeaheadService.search("ø", 10)));
+        assertEquals(List.of("Ost"), names(groceryTypeaheadService.search("o", 10)));
+        assertEquals(List.of("Blåbær"), names(groceryTypeaheadService.search("BLÅB", 10)));
+        assertEquals(List.of("Blåbær"), names(groceryTypeaheadService.search("bla\u030Abær", 10)));
+        assertTrue(groceryTypeaheadService.search("blab", 10).isEmpty());
+    }
+
+    @Test
+    void onGroceriesChanged_ShouldMakeSavedGrocerySearchable() {
+        groceryTypeaheadService.search("mel", 10);
+
+        groceryTypeaheadService.onGroceriesChanged(GroceriesChangedEvent.saved(grocery(9, "Melis", "Melis, Dansukker")));
+        groceryTypeaheadService.onGroceriesChanged(GroceriesChangedEvent.saved(grocery(9, "Melis", "Melis, Dansukker")));
+
+        assertEquals(List.of("Melis"), names(groceryTypeaheadService.search("meli", 10)));
+        assertEquals(List.of("Melis"), names(groceryTypeaheadService.search("dansukker", 10)));
+        assertEquals(5, groceryTypeaheadService.search("mel", 10).size());
+        verify(groceryRepository, times(1)).findAllWithCategories();
+    }
+}
@@ -0,0 +1,95 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.dto.NotificationCompactionResultDTO;
+import ntnu.idatt2106.backend.model.dto.NotificationPurgeCandidateDTO;
+import ntnu.idatt2106.backend.model.event.NotificationsChangedEvent;
+import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NotificationCompactionServiceTest {
+
+    private static final LocalDateTime DELETED_BEFORE = LocalDateTime.of(2023, 4, 1, 0, 0);
+
+    @Mock
+    private GroceryNotificationRepository groceryNotificationRepository;
+
+    @Mock
+    private NotificationCounterService notificationCounterService;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NotificationCompactionService notificationCompactionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        notificationCompactionService = new NotificationCompactionService(groceryNotificationRepository,
+                notificationCounterService, schedulerLockService, eventPublisher, transactionManager, 30, 2);
+    }
+
+    @Test
+    void compact_ShouldWalkTableInChunksAndPurgeCandidates() {
+        when(groceryNotificationRepository.findIdsAfter(eq(0L), any())).thenReturn(List.of(1L, 2L));
+        when(groceryNotificationRepository.findIdsAfter(eq(2L), any())).thenReturn(List.of(5L));
+        when(groceryNotificationRepository.findIdsAfter(eq(5L), any())).thenReturn(List.of());
+        when(groceryNotificationRepository.findPurgeCandidates(0L, 2L, DELETED_BEFORE)).thenReturn(List.of(
+                new NotificationPurgeCandidateDTO(1L, "former-member", false),
+                new NotificationPurgeCandidateDTO(2L, "user", true)));
+        when(groceryNotificationRepository.findPurgeCandidates(2L, 5L, DELETED_BEFORE)).thenReturn(List.of());
+
+        NotificationCompactionResultDTO result = notificationCompactionService.compact(DELETED_BEFORE);
+
+        assertEquals(3, result.getRowsScanned());
+        assertEquals(2, result.getRowsPurged());
+        verify(groceryNotificationRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(groceryNotificationRepository, times(1)).deleteAllByIdInBatch(any());
+        verify(notificationCounterService).addAll(Map.of("former-member", -1L));
+        verify(eventPublisher).publishEvent(any(NotificationsChangedEvent.class));
+        assertEquals(result, notificationCompactionService.getLastResult().orElseThrow());
+    }
+
+    @Test
+    void compact_ShouldNotChangeCounts_WhenOnlyDeletedNotificationsArePurged() {
+        when(groceryNotificationRepository.findIdsAfter(eq(0L), any())).thenReturn(List.of(1L));
+        when(groceryNotificationRepository.findIdsAfter(eq(1L), any())).thenReturn(List.of());
+        when(groceryNotificationRepository.findPurgeCandidates(0L, 1L, DELETED_BEFORE)).thenReturn(List.of(
+                new NotificationPurgeCandidateDTO(1L, "user", true)));
+
+        notificationCompactionService.compact(DELETED_BEFORE);
+
+        verify(notificationCounterService).addAll(Map.of());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void compact_ShouldSkipRun_WhenLockIsHeldByAnotherNode() {
+        when(schedulerLockService.tryLock(eq(NotificationCompactionService.LOCK_NAME), any(Duration.class))).thenReturn(false);
+
+        assertTrue(notificationCompactionService.compact().isEmpty());
+
+        verifyNoInteractions(groceryNotificationRepository);
+        verify(schedulerLockService, never()).unlock(any());
+    }
+}
@@ -0,0 +1,95 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.NotificationCounter;
+import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
+import ntnu.idatt2106.backend.repository.NotificationCounterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NotificationCounterServiceTest {
+
+    @Mock
+    private NotificationCounterRepository notificationCounterRepository;
+
+    @Mock
+    private GroceryNotificationRepository groceryNotificationRepository;
+
+    private NotificationCounterService notificationCounterService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        notificationCounterService = new NotificationCounterService(notificationCounterRepository,
+                groceryNotificationRepository);
+    }
+
+    @Test
+    void getUnreadCount_ShouldReadCounterWithoutCounting() {
+        when(notificationCounterRepository.findById("user"))
+                .thenReturn(Optional.of(NotificationCounter.builder().userId("user").unreadCount(4).build()));
+
+        assertEquals(4, notificationCounterService.getUnreadCount("user"));
+
+        verifyNoInteractions(groceryNotificationRepository);
+        verify(notificationCounterRepository, never()).save(any());
+    }
+
+    @Test
+    void getUnreadCount_ShouldCountNotificationsWithoutCreatingCounter_WhenUserHasNoCounter() {
+        when(notificationCounterRepository.findById("user")).thenReturn(Optional.empty());
+        when(groceryNotificationRepository.countByUserIdAndDeletedFalse("user")).thenReturn(7L);
+
+        assertEquals(7, notificationCounterService.getUnreadCount("user"));
+
+        verify(notificationCounterRepository, never()).save(any());
+    }
+
+    @Test
+    void getUnreadCounts_ShouldOnlyCountUsersWithoutCounter() {
+        when(notificationCounterRepository.findAllById(List.of("user", "new")))
+                .thenReturn(List.of(NotificationCounter.builder().userId("user").unreadCount(4).build()));
+        when(groceryNotificationRepository.countByUserIdAndDeletedFalse("new")).thenReturn(1L);
+
+        assertEquals(Map.of("user", 4L, "new", 1L), notificationCounterService.getUnreadCounts(List.of("user", "new")));
+
+        verify(groceryNotificationRepository, never()).countByUserIdAndDeletedFalse("user");
+    }
+
+    @Test
+    void addCreated_ShouldAddToExistingCounter() {
+        when(notificationCounterRepository.addToUnreadCount("user", 3L)).thenReturn(1);
+
+        notificationCounterService.addCreated("user", 3);
+
+        verify(notificationCounterRepository, never()).save(any());
+        verifyNoInteractions(groceryNotificationRepository);
+    }
+
+    @Test
+    void addCreated_ShouldCreateCounterFromNotifications_WhenUserHasNoCounter() {
+        when(notificationCounterRepository.addToUnreadCount("user", 3L)).thenReturn(0);
+        when(groceryNotificationRepository.countByUserIdAndDeletedFalse("user")).thenReturn(5L);
+
+        notificationCounterService.addCreated("user", 3);
+
+        verify(notificationCounterRepository).save(NotificationCounter.builder().userId("user").unreadCount(5).build());
+    }
+
+    @Test
+    void add_ShouldSkipZeroDeltas() {
+        notificationCounterService.addAll(Map.of("user", -2L, "other", 0L));
+
+        verify(notificationCounterRepository).addToUnreadCount("user", -2L);
+        verify(notificationCounterRepository, never()).addToUnreadCount(eq("other"), anyLong());
+    }
+}
@@ -1,23 +1,27 @@
 package ntnu.idatt2106.backend.service;
 
 
+import jakarta.persistence.EntityManager;
 import jnr.constants.platform.Local;
 import ntnu.idatt2106.backend.exceptions.NotificationException;
 import ntnu.idatt2106.backend.model.*;
+import ntnu.idatt2106.backend.model.dto.ExpiryNotificationCandidateDTO;
 import ntnu.idatt2106.backend.model.dto.GroceryNotificationDTO;
+import ntnu.idatt2106.backend.model.enums.ExpiryThreshold;
 import ntnu.idatt2106.backend.model.enums.UserRole;
+import ntnu.idatt2106.backend.model.event.NotificationsChangedEvent;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
-import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
-import ntnu.idatt2106.backend.repository.RefrigeratorUserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -26,6 +30,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -34,9 +39,11 @@ public class NotificationServiceTest {
     @Mock
     private GroceryNotificationRepository groceryNotificationRepository;
     @Mock
-    private RefrigeratorUserRepository refrigeratorUserRepository;
+    private EntityManager entityManager;
     @Mock
-    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private NotificationCounterService notificationCounterService;
     @InjectMocks
     private NotificationService notificationService;
 
@@ -75,108 +82,144 @@ public class NotificationServiceTest {
     }
 
     @Test
-    public void testGenerateNotificationsNoPrevious(){
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-        refrigeratorGrocery.setPhysicalExpireDate(LocalDate.now());
-        refrigeratorGroceries.add(refrigeratorGrocery);
+    public void testGetNotificationsOnlyReads() {
+        GroceryNotification groceryNotification = new GroceryNotification(1, user, refrigeratorGrocery, (long)3, false, ExpiryThreshold.WARNING, null);
+        when(groceryNotificationRepository.findAllByUserIdAndDeletedFalse(user.getId())).thenReturn(List.of(groceryNotification));
 
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(new ArrayList<>());
-        notificationService.generateNotifications(refrigeratorGroceries, user);
+        List<GroceryNotificationDTO> result = notificationService.getNotifications(user);
 
-        verify(groceryNotificationRepository, times(1)).save(Mockito.any(GroceryNotification.class));
+        assertEquals(List.of(new GroceryNotificationDTO(groceryNotification)), result);
+        verify(groceryNotificationRepository, never()).saveAll(any());
+        verify(groceryNotificationRepository, never()).save(any());
     }
 
     @Test
-    public void testGenerateNotificationsOnePrevious(){
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-        refrigeratorGrocery.setPhysicalExpireDate(LocalDate.now());
-        refrigeratorGroceries.add(refrigeratorGrocery);
-
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-        notifications.add(GroceryNotification.builder().build());
-
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
-
-        verify(groceryNotificationRepository, times(1)).save(Mockito.any(GroceryNotification.class));
+    public void testSweepCreatesNotificationsInOneBatch() {
+        LocalDate today = LocalDate.of(2023, 5, 1);
+        when(groceryNotificationRepository.findExpiryNotificationCandidates(today, today.plusDays(3))).thenReturn(List.of(
+                new ExpiryNotificationCandidateDTO(1L, "testUserId", today.plusDays(3)),
+                new ExpiryNotificationCandidateDTO(2L, "otherUserId", today)));
+        when(entityManager.getReference(RefrigeratorGrocery.class, 1L)).thenReturn(refrigeratorGrocery);
+        when(entityManager.getReference(User.class, "testUserId")).thenReturn(user);
+        when(entityManager.getReference(User.class, "otherUserId")).thenReturn(User.builder().id("otherUserId").build());
+
+        int created = notificationService.sweepExpiringGroceries(today);
+
+        assertEquals(2, created);
+        verify(groceryNotificationRepository, times(1)).saveAll(any());
+        verify(entityManager).flush();
+        verify(entityManager).clear();
+        ArgumentCaptor<NotificationsChangedEvent> event = ArgumentCaptor.forClass(NotificationsChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Set.of("testUserId", "otherUserId"), event.getValue().getCreatedNotificationIds().keySet());
+        verify(notificationCounterService).addCreated("testUserId", 1);
+        verify(notificationCounterService).addCreated("otherUserId", 1);
     }
 
     @Test
-    public void testGenerateNotificationsTwoPrevious(){
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-        refrigeratorGrocery.setPhysicalExpireDate(LocalDate.now());
-        refrigeratorGroceries.add(refrigeratorGrocery);
+    public void testGetNotificationsPageIsFilteredInQuery() {
+        GroceryNotification groceryNotification = new GroceryNotification(1, user, refrigeratorGrocery, (long)3, false, ExpiryThreshold.WARNING, null);
+        when(groceryNotificationRepository.findPageByUserId(eq(user.getId()), any())).thenReturn(List.of(groceryNotification));
 
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-        notifications.add(GroceryNotification.builder().build());
-        notifications.add(GroceryNotification.builder().build());
+        List<GroceryNotificationDTO> result = notificationService.getNotifications(user, 0, 20);
 
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
-
-        verify(groceryNotificationRepository, times(0)).save(Mockito.any(GroceryNotification.class));
+        assertEquals(List.of(new GroceryNotificationDTO(groceryNotification)), result);
+        verify(groceryNotificationRepository, never()).findAllByUserIdAndDeletedFalse(any());
     }
 
     @Test
-    public void testGenerateNotificationsItemDoesNotNeed() throws ParseException {
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-
-        String date_string = "26-04-2300";
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        LocalDate date = LocalDate.parse(date_string, formatter);
-        refrigeratorGrocery.setPhysicalExpireDate(date);
-        refrigeratorGroceries.add(refrigeratorGrocery);
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
-
-        verify(groceryNotificationRepository, times(0)).save(Mockito.any(GroceryNotification.class));
+    public void testSweepComputesDaysLeftAndThresholdFromToday() {
+        LocalDate today = LocalDate.of(2023, 5, 1);
+        when(groceryNotificationRepository.findExpiryNotificationCandidates(today, today.plusDays(3))).thenReturn(List.of(
+                new ExpiryNotificationCandidateDTO(1L, "testUserId", today.plusDays(2)),
+                new ExpiryNotificationCandidateDTO(2L, "testUserId", today)));
+        when(entityManager.getReference(User.class, "testUserId")).thenReturn(user);
+        List<Long> daysLeft = new ArrayList<>();
+        List<ExpiryThreshold> thresholds = new ArrayList<>();
+        when(groceryNotificationRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<GroceryNotification> notifications = invocation.getArgument(0);
+            notifications.forEach(notification -> {
+                daysLeft.add(notification.getDaysLeft());
+                thresholds.add(notification.getThreshold());
+            });
+            return notifications;
+        });
+
+        notificationService.sweepExpiringGroceries(today);
+
+        assertEquals(List.of(2L, 0L), daysLeft);
+        assertEquals(List.of(ExpiryThreshold.WARNING, ExpiryThreshold.EXPIRED), thresholds);
     }
 
     @Test
-    public void testGenerateNotificationsItemDoesNotNeedAlreadyExists() throws ParseException {
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-        // Create a new Date object
-        LocalDate currentDate = LocalDate.now().plusDays(3);
+    public void testSweepWithoutCandidatesDoesNotWrite() {
+        LocalDate today = LocalDate.of(2023, 5, 1);
+        when(groceryNotificationRepository.findExpiryNotificationCandidates(today, today.plusDays(3))).thenReturn(List.of());
 
-        refrigeratorGrocery.setPhysicalExpireDate(currentDate);
-        refrigeratorGroceries.add(refrigeratorGrocery);
+        assertEquals(0, notificationService.sweepExpiringGroceries(today));
 
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-        notifications.add(GroceryNotification.builder().build());
-
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
-
-        verify(groceryNotificationRepository, times(0)).save(Mockito.any(GroceryNotification.class));
-    }
-
-    @Test
-    public void testGenerateNotificationsThreeDayWarning() throws ParseException {
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-        // Create a new Date object
-        LocalDate currentDate = LocalDate.now().plusDays(3);
-        refrigeratorGrocery.setPhysicalExpireDate(currentDate);
-        refrigeratorGroceries.add(refrigeratorGrocery);
-
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
-
-        verify(groceryNotificationRepository, times(1)).save(Mockito.any(GroceryNotification.class));
+        verify(groceryNotificationRepository, never()).saveAll(any());
+        verify(entityManager, never()).flush();
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
 
     @Test
     void deleteNotification_Successful() throws NotificationException {
         long notifId = 1L;
-        GroceryNotification groceryNotification = new GroceryNotification(1, user, refrigeratorGrocery, (long)3, false);
+        GroceryNotification groceryNotification = new GroceryNotification(1, user, refrigeratorGrocery, (long)3, false, ExpiryThreshold.WARNING, null);
         Mockito.when(groceryNotificationRepository.findById(notifId))
                 .thenReturn(Optional.of(groceryNotification));
+        Mockito.when(groceryNotificationRepository.markDeleted(eq(notifId), eq(user.getId()), any())).thenReturn(1);
         GroceryNotificationDTO result = notificationService.deleteNotification(user, notifId);
         assertEquals(new GroceryNotificationDTO(groceryNotification), result);
-        Mockito.verify(groceryNotificationRepository, Mockito.times(1)).save(groceryNotification);
+        Mockito.verify(groceryNotificationRepository, Mockito.never()).save(any());
+        Mockito.verify(eventPublisher).publishEvent(any(NotificationsChangedEvent.class));
+        Mockito.verify(notificationCounterService).add(user.getId(), -1);
+        assertNotNull(groceryNotification.getDeletedAt());
+    }
+
+    @Test
+    void deleteNotification_AlreadyDeletedDoesNotChangeCount() throws NotificationException {
+        long notifId = 1L;
+        GroceryNotification groceryNotification = new GroceryNotification(1, user, refrigeratorGrocery, (long)3, true, ExpiryThreshold.WARNING, null);
+        Mockito.when(groceryNotificationRepository.findById(notifId))
+                .thenReturn(Optional.of(groceryNotification));
+        Mockito.when(groceryNotificationRepository.markDeleted(eq(notifId), eq(user.getId()), any())).thenReturn(0);
+
+        notificationService.deleteNotification(user, notifId);
+
+        Mockito.verify(notificationCounterService, Mockito.never()).add(any(), anyLong());
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(any());
+    }
+
+    @Test
+    void deleteNotificationsByRefrigeratorGrocery_SubtractsUnreadNotifications() throws NotificationException {
+        User otherUser = User.builder().id("otherUserId").build();
+        Mockito.when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGrocery)).thenReturn(List.of(
+                new GroceryNotification(1, user, refrigeratorGrocery, (long)3, false, ExpiryThreshold.WARNING, null),
+                new GroceryNotification(2, user, refrigeratorGrocery, (long)0, false, ExpiryThreshold.EXPIRED, null),
+                new GroceryNotification(3, otherUser, refrigeratorGrocery, (long)3, true, ExpiryThreshold.WARNING, null)));
+
+        notificationService.deleteNotificationsByRefrigeratorGrocery(refrigeratorGrocery);
+
+        Mockito.verify(notificationCounterService).addAll(Map.of(user.getId(), -2L));
+        ArgumentCaptor<NotificationsChangedEvent> event = ArgumentCaptor.forClass(NotificationsChangedEvent.class);
+        Mockito.verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Set.of(user.getId(), "otherUserId"), event.getValue().getChangedUserIds());
+    }
+
+    @Test
+    void deleteNotificationsByRefrigeratorId_DeletesInBatch() {
+        List<GroceryNotification> notifications = List.of(
+                new GroceryNotification(1, user, refrigeratorGrocery, (long)3, false, ExpiryThreshold.WARNING, null));
+        Mockito.when(groceryNotificationRepository.findAllByGroceryEntity_Refrigerator_Id(refrigerator.getId()))
+                .thenReturn(notifications);
+
+        assertEquals(1, notificationService.deleteNotificationsByRefrigeratorId(refrigerator.getId()));
+
+        Mockito.verify(groceryNotificationRepository).deleteAllInBatch(notifications);
+        Mockito.verify(notificationCounterService).addAll(Map.of(user.getId(), -1L));
     }
 
     @Test
@@ -185,7 +228,7 @@ public class NotificationServiceTest {
         Mockito.when(groceryNotificationRepository.findById(notifId)).thenReturn(Optional.empty());
         assertThrows(NotificationException.class, () ->
                 notificationService.deleteNotification(user, notifId));
-        Mockito.verify(groceryNotificationRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verify(groceryNotificationRepository, Mockito.never()).markDeleted(anyLong(), any(), any());
     }
 
     @Test
@@ -198,24 +241,25 @@ public class NotificationServiceTest {
                 .password("123")
                 .userRole(UserRole.USER)
                 .build();
-        GroceryNotification groceryNotification = new GroceryNotification(1, otherUser, refrigeratorGrocery, (long)3, false);
+        GroceryNotification groceryNotification = new GroceryNotification(1, otherUser, refrigeratorGrocery, (long)3, false, ExpiryThreshold.WARNING, null);
         Mockito.when(groceryNotificationRepository.findById(notifId))
                 .thenReturn(Optional.of(groceryNotification));
         assertThrows(NotificationException.class, () ->
                 notificationService.deleteNotification(user, notifId));
-        Mockito.verify(groceryNotificationRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verify(groceryNotificationRepository, Mockito.never()).markDeleted(anyLong(), any(), any());
     }
 
     @Test
     void deleteNotification_FailedToDelete() {
         long notifId = 1L;
-        GroceryNotification groceryNotification = new GroceryNotification(1, user, refrigeratorGrocery, (long)3, false);
+        GroceryNotification groceryNotification = new GroceryNotification(1, user, refrigeratorGrocery, (long)3, false, ExpiryThreshold.WARNING, null);
         Mockito.when(groceryNotificationRepository.findById(notifId))
                 .thenReturn(Optional.of(groceryNotification));
-        Mockito.doThrow(new RuntimeException()).when(groceryNotificationRepository).save(groceryNotification);
+        Mockito.when(groceryNotificationRepository.markDeleted(eq(notifId), eq(user.getId()), any()))
+                .thenThrow(new RuntimeException());
 
         assertThrows(NotificationException.class, () ->
                 notificationService.deleteNotification(user, notifId));
-        Mockito.verify(groceryNotificationRepository, Mockito.times(1)).save(groceryNotification);
+        Mockito.verify(notificationCounterService, Mockito.never()).add(any(), anyLong());
     }
 }
@@ -0,0 +1,105 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.event.NotificationsChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NotificationStreamServiceTest {
+
+    @Mock
+    private GroceryNotificationRepository groceryNotificationRepository;
+
+    @Mock
+    private NotificationCounterService notificationCounterService;
+
+    @Mock
+    private ExecutorService senderExecutor;
+
+    private NotificationStreamService notificationStreamService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // The executor never runs the senders, so queued events stay queued
+        notificationStreamService = new NotificationStreamService(groceryNotificationRepository, notificationCounterService, senderExecutor);
+    }
+
+    @Test
+    void subscribe_ShouldRegisterConnectionAndQueueUnreadCount() {
+        when(notificationCounterService.getUnreadCount("user")).thenReturn(2L);
+
+        notificationStreamService.subscribe("user");
+        notificationStreamService.subscribe("user");
+
+        assertEquals(2, notificationStreamService.getConnectionCount());
+        verify(notificationCounterService, times(2)).getUnreadCount("user");
+        verify(senderExecutor, times(2)).execute(any());
+    }
+
+    @Test
+    void onNotificationsChanged_ShouldNotReadDatabase_WhenNoUserIsConnected() {
+        notificationStreamService.onNotificationsChanged(new NotificationsChangedEvent(
+                Map.of("offline", List.of(1L, 2L)), Set.of("other")));
+
+        verifyNoInteractions(groceryNotificationRepository, notificationCounterService);
+    }
+
+    @Test
+    void onNotificationsChanged_ShouldOnlyLoadNotificationsOfConnectedUsers() {
+        notificationStreamService.subscribe("online");
+        User online = User.builder().id("online").build();
+        when(groceryNotificationRepository.findAllWithGroceryByIdIn(List.of(3L))).thenReturn(List.of(
+                GroceryNotification.builder().id(3L).user(online).groceryEntity(new RefrigeratorGrocery()).daysLeft(3L).build()));
+
+        notificationStreamService.onNotificationsChanged(new NotificationsChangedEvent(
+                Map.of("offline", List.of(1L, 2L), "online", List.of(3L)), Set.of()));
+
+        verify(groceryNotificationRepository).findAllWithGroceryByIdIn(List.of(3L));
+        verify(notificationCounterService, times(2)).getUnreadCount("online");
+        verify(notificationCounterService, never()).getUnreadCount("offline");
+    }
+
+    @Test
+    void sendHeartbeats_ShouldReadUnreadCountsOfConnectedUsersInOneCall() {
+        notificationStreamService.sendHeartbeats();
+        verifyNoInteractions(notificationCounterService);
+
+        notificationStreamService.subscribe("first");
+        notificationStreamService.subscribe("second");
+        notificationStreamService.subscribe("second");
+        when(notificationCounterService.getUnreadCounts(Set.of("first", "second")))
+                .thenReturn(Map.of("first", 1L, "second", 4L));
+
+        notificationStreamService.sendHeartbeats();
+
+        verify(notificationCounterService).getUnreadCounts(Set.of("first", "second"));
+    }
+
+    @Test
+    void sendHeartbeats_ShouldCloseConnection_WhenClientDoesNotKeepUp() {
+        notificationStreamService.subscribe("slow");
+
+        for (int i = 0; i < 31; i++) {
+            notificationStreamService.sendHeartbeats();
+        }
+        assertEquals(1, notificationStreamService.getConnectionCount());
+
+        notificationStreamService.sendHeartbeats();
+        assertEquals(0, notificationStreamService.getConnectionCount());
+    }
+}
@@ -0,0 +1,239 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.Unit;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientAmountDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeScoreDTO;
+import ntnu.idatt2106.backend.model.event.RefrigeratorGroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class RecipeScoreServiceTest {
+
+    private static final long REFRIGERATOR_ID = 1L;
+
+    @Mock
+    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+
+    @Mock
+    private RecipeGroceryRepository recipeGroceryRepository;
+
+    private RecipeScoreService recipeScoreService;
+
+    private Refrigerator refrigerator;
+    private Unit gram;
+    private Grocery milk;
+    private Grocery egg;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        recipeScoreService = new RecipeScoreService(refrigeratorGroceryRepository, recipeGroceryRepository, 60_000, 60_000);
+
+        refrigerator = Refrigerator.builder().id(REFRIGERATOR_ID).name("Fridge").build();
+        gram = Unit.builder().id(1L).name("g").weight(1).build();
+        milk = Grocery.builder().id(10L).name("Milk").build();
+        egg = Grocery.builder().id(20L).name("Egg").build();
+
+        // Recipe 1 needs 100 g milk, recipe 2 needs 100 g egg, recipe 3 needs both
+        List<RecipeIngredientAmountDTO> ingredients = List.of(
+                new RecipeIngredientAmountDTO(1L, milk.getId(), 100, 1),
+                new RecipeIngredientAmountDTO(2L, egg.getId(), 100, 1),
+                new RecipeIngredientAmountDTO(3L, milk.getId(), 100, 1),
+                new RecipeIngredientAmountDTO(3L, egg.getId(), 100, 1));
+        when(recipeGroceryRepository.findAllIngredientAmounts()).thenReturn(ingredients);
+    }
+
+    private RefrigeratorGrocery refrigeratorGrocery(Grocery grocery, int grams, int daysLeft) {
+        return RefrigeratorGrocery.builder()
+                .refrigerator(refrigerator)
+                .grocery(grocery)
+                .unit(gram)
+                .quantity(grams)
+                .physicalExpireDate(LocalDate.now().plusDays(daysLeft))
+                .build();
+    }
+
+    private List<Long> topRecipeIds(int limit, List<Long> excluded) {
+        return recipeScoreService.getTopRecipes(REFRIGERATOR_ID, limit, excluded).stream()
+                .map(RecipeScoreDTO::getRecipeId)
+                .toList();
+    }
+
+    @Test
+    void getTopRecipes_ShouldRankSoonExpiringGroceriesFirst() {
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorId(REFRIGERATOR_ID)).thenReturn(List.of(
+                refrigeratorGrocery(milk, 100, 30),
+                refrigeratorGrocery(egg, 100, 1)));
+
+        assertEquals(List.of(3L, 2L, 1L), topRecipeIds(3, List.of()));
+    }
+
+    @Test
+    void getTopRecipes_ShouldWeightByCoveredQuantity() {
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorId(REFRIGERATOR_ID)).thenReturn(List.of(
+                refrigeratorGrocery(milk, 100, 30),
+                refrigeratorGrocery(egg, 10, 30)));
+
+        assertEquals(List.of(3L, 1L, 2L), topRecipeIds(3, List.of()));
+    }
+
+    @Test
+    void getTopRecipes_ShouldLeaveOutExcludedAndLimitResult() {
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorId(REFRIGERATOR_ID)).thenReturn(List.of(
+                refrigeratorGrocery(milk, 100, 30),
+                refrigeratorGrocery(egg, 100, 30)));
+
+        assertEquals(List.of(1L), topRecipeIds(1, List.of(3L)));
+    }
+
+    @Test
+    void refreshGrocery_ShouldUpdateScoresWithoutRecomputingRefrigerator() {
+        List<RefrigeratorGrocery> groceries = new ArrayList<>(List.of(refrigeratorGrocery(milk, 100, 30)));
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorId(REFRIGERATOR_ID)).thenReturn(groceries);
+        assertEquals(List.of(1L, 3L), topRecipeIds(3, List.of()));
+
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryId(REFRIGERATOR_ID, egg.getId()))
+                .thenReturn(List.of(refrigeratorGrocery(egg, 100, 0)));
+        recipeScoreService.refreshGrocery(REFRIGERATOR_ID, egg.getId());
+        assertEquals(List.of(3L, 2L, 1L), topRecipeIds(3, List.of()));
+
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryId(REFRIGERATOR_ID, milk.getId()))
+                .thenReturn(List.of());
+        recipeScoreService.refreshGrocery(REFRIGERATOR_ID, milk.getId());
+        assertEquals(List.of(2L, 3L), topRecipeIds(3, List.of()));
+
+        verify(refrigeratorGroceryRepository, times(1)).findAllByRefrigeratorId(anyLong());
+        verify(recipeGroceryRepository, times(1)).findAllIngredientAmounts();
+        verifyNoMoreInteractions(recipeGroceryRepository);
+    }
+
+    @Test
+    void invalidateIngredientIndex_ShouldScoreWithNewIngredients() {
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorId(REFRIGERATOR_ID)).thenReturn(List.of(
+                refrigeratorGrocery(milk, 100, 30)));
+        assertEquals(List.of(1L, 3L), topRecipeIds(3, List.of()));
+
+        // Recipe 2 is changed to use milk instead of egg, without changing the number of ingredients
+        when(recipeGroceryRepository.findAllIngredientAmounts()).thenReturn(List.of(
+                new RecipeIngredientAmountDTO(1L, milk.getId(), 100, 1),
+                new RecipeIngredientAmountDTO(2L, milk.getId(), 100, 1),
+                new RecipeIngredientAmountDTO(3L, milk.getId(), 100, 1),
+                new RecipeIngredientAmountDTO(3L, egg.getId(), 100, 1)));
+        assertEquals(List.of(1L, 3L), topRecipeIds(3, List.of()));
+
+        recipeScoreService.invalidateIngredientIndex();
+        assertEquals(List.of(1L, 2L, 3L), topRecipeIds(3, List.of()));
+    }
+
+    @Test
+    void refreshIngredientIndex_ShouldKeepScores_WhenIngredientsAreUnchanged() {
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorId(REFRIGERATOR_ID)).thenReturn(List.of(
+                refrigeratorGrocery(milk, 100, 30)));
+        topRecipeIds(3, List.of());
+
+        recipeScoreService.refreshIngredientIndex();
+        topRecipeIds(3, List.of());
+
+        verify(recipeGroceryRepository, times(2)).findAllIngredientAmounts();
+        verify(refrigeratorGroceryRepository, times(1)).findAllByRefrigeratorId(anyLong());
+    }
+
+    @Test
+    void onRefrigeratorGroceriesChanged_ShouldRefreshEveryChangedGrocery() {
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorId(REFRIGERATOR_ID)).thenReturn(List.of(
+                refrigeratorGrocery(milk, 100, 30)));
+        topRecipeIds(3, List.of());
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryId(REFRIGERATOR_ID, egg.getId()))
+                .thenReturn(List.of(refrigeratorGrocery(egg, 100, 0)));
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryId(REFRIGERATOR_ID, milk.getId()))
+                .thenReturn(List.of());
+
+        recipeScoreService.onRefrigeratorGroceriesChanged(
+                new RefrigeratorGroceriesChangedEvent(REFRIGERATOR_ID, Set.of(milk.getId(), egg.getId())));
+
+        assertEquals(List.of(2L, 3L), topRecipeIds(3, List.of()));
+        verify(refrigeratorGroceryRepository, times(1)).findAllByRefrigeratorId(anyLong());
+    }
+
+    @Test
+    void getTopRecipes_ShouldComputeScoresAgain_WhenOlderThanTtl() {
+        RecipeScoreService expiring = new RecipeScoreService(refrigeratorGroceryRepository, recipeGroceryRepository, 60_000, -1);
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorId(REFRIGERATOR_ID))
+                .thenReturn(List.of(refrigeratorGrocery(milk, 100, 30)))
+                .thenReturn(List.of(refrigeratorGrocery(egg, 100, 30)));
+
+        assertEquals(List.of(1L, 3L), expiring.getTopRecipes(REFRIGERATOR_ID, 3, List.of()).stream()
+                .map(RecipeScoreDTO::getRecipeId).toList());
+        // Another node has replaced the milk with egg
+        assertEquals(List.of(2L, 3L), expiring.getTopRecipes(REFRIGERATOR_ID, 3, List.of()).stream()
+                .map(RecipeScoreDTO::getRecipeId).toList());
+    }
+
+    @Test
+    void removeExpiredScores_ShouldRemoveScoresOlderThanTtl() {
+        RecipeScoreService expiring = new RecipeScoreService(refrigeratorGroceryRepository, recipeGroceryRepository, 60_000, -1);
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorId(REFRIGERATOR_ID)).thenReturn(List.of(
+                refrigeratorGrocery(milk, 100, 30)));
+        expiring.getTopRecipes(REFRIGERATOR_ID, 3, List.of());
+        recipeScoreService.getTopRecipes(REFRIGERATOR_ID, 3, List.of());
+
+        expiring.removeExpiredScores();
+        recipeScoreService.removeExpiredScores();
+        expiring.refreshGrocery(REFRIGERATOR_ID, milk.getId());
+        recipeScoreService.refreshGrocery(REFRIGERATOR_ID, milk.getId());
+
+        // Only the scores within the TTL are still cached and refreshed
+        verify(refrigeratorGroceryRepository, times(1)).findAllByRefrigeratorIdAndGroceryId(REFRIGERATOR_ID, milk.getId());
+    }
+
+    @Test
+    void refreshGrocery_ShouldDoNothing_WhenRefrigeratorNotCached() {
+        recipeScoreService.refreshGrocery(REFRIGERATOR_ID, milk.getId());
+
+        verify(refrigeratorGroceryRepository, never()).findAllByRefrigeratorIdAndGroceryId(anyLong(), anyLong());
+    }
+
+    @Test
+    void getSnapshot_ShouldKeepSnapshot_WhileOtherRefrigeratorsArePaged() {
+        RecipeScoreService.Snapshot snapshot = recipeScoreService.getSnapshot(REFRIGERATOR_ID);
+
+        for (long otherRefrigeratorId = 100; otherRefrigeratorId < 200; otherRefrigeratorId++) {
+            recipeScoreService.getSnapshot(otherRefrigeratorId);
+        }
+
+        assertSame(snapshot, recipeScoreService.getSnapshot(REFRIGERATOR_ID, snapshot.getVersion()).orElseThrow());
+        assertTrue(recipeScoreService.getSnapshot(REFRIGERATOR_ID + 1, snapshot.getVersion()).isEmpty());
+    }
+
+    @Test
+    void getSnapshot_ShouldBeEmpty_WhenEvictedOrExpired() {
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryId(REFRIGERATOR_ID, milk.getId()))
+                .thenReturn(List.of(refrigeratorGrocery(milk, 100, 30)));
+        RecipeScoreService.Snapshot first = recipeScoreService.getSnapshot(REFRIGERATOR_ID);
+        for (int i = 0; i < 10; i++) {
+            recipeScoreService.refreshGrocery(REFRIGERATOR_ID, milk.getId());
+            recipeScoreService.getSnapshot(REFRIGERATOR_ID);
+        }
+        assertTrue(recipeScoreService.getSnapshot(REFRIGERATOR_ID, first.getVersion()).isEmpty());
+
+        RecipeScoreService expiring = new RecipeScoreService(refrigeratorGroceryRepository, recipeGroceryRepository, -1, 60_000);
+        RecipeScoreService.Snapshot snapshot = expiring.getSnapshot(REFRIGERATOR_ID);
+        assertTrue(expiring.getSnapshot(REFRIGERATOR_ID, snapshot.getVersion()).isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.Unit;
+import ntnu.idatt2106.backend.model.category.Category;
+import ntnu.idatt2106.backend.model.dto.ReferenceDataCacheStatsDTO;
+import ntnu.idatt2106.backend.model.event.GroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.SubCategoryRepository;
+import ntnu.idatt2106.backend.repository.UnitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReferenceDataCacheServiceTest {
+
+    @Mock
+    private UnitRepository unitRepository;
+
+    @Mock
+    private SubCategoryRepository subCategoryRepository;
+
+    @Mock
+    private GroceryRepository groceryRepository;
+
+    private ReferenceDataCacheService referenceDataCacheService;
+
+    private Grocery geitmelk;
+    private Grocery brunost;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        referenceDataCacheService = new ReferenceDataCacheService(unitRepository, subCategoryRepository, groceryRepository);
+        Category dairy = Category.builder().id(1L).name("Melk og melkeprodukter").build();
+        SubCategory milk = SubCategory.builder().id(1L).name("Melk").category(dairy).build();
+        SubCategory cheese = SubCategory.builder().id(2L).name("Ost").category(dairy).build();
+        geitmelk = Grocery.builder().id(1L).name("Geitmelk").subCategory(milk).build();
+        brunost = Grocery.builder().id(2L).name("Brunost").subCategory(cheese).build();
+        when(groceryRepository.findAllWithCategories()).thenReturn(List.of(geitmelk, brunost));
+        when(subCategoryRepository.findAll()).thenReturn(List.of(milk, cheese));
+        when(unitRepository.findAll()).thenReturn(List.of(
+                Unit.builder().id(1L).name("l").weight(1000).build(),
+                Unit.builder().id(2L).name("dl").weight(100).build()));
+    }
+
+    @Test
+    void findGrocery_ShouldOnlyReadDatabaseOnFirstLookup() {
+        assertSame(geitmelk, referenceDataCacheService.findGrocery(1L).orElseThrow());
+        assertSame(brunost, referenceDataCacheService.findGrocery(2L).orElseThrow());
+        assertSame(geitmelk, referenceDataCacheService.findGrocery(1L).orElseThrow());
+        assertEquals("Ost", referenceDataCacheService.findSubCategory(2L).orElseThrow().getName());
+
+        verify(groceryRepository, times(1)).findAllWithCategories();
+        verify(groceryRepository, never()).findById(anyLong());
+        ReferenceDataCacheStatsDTO groceries = stats("groceries");
+        assertEquals(2, groceries.getSize());
+        assertEquals(2, groceries.getHits());
+        assertEquals(1, groceries.getMisses());
+        assertEquals(1, groceries.getLoads());
+    }
+
+    @Test
+    void findGrocery_ShouldLoadUnknownIdFromDatabase_AndKeepIt() {
+        referenceDataCacheService.findGrocery(1L);
+        Grocery custom = Grocery.builder().id(3L).name("Melis").build();
+        when(groceryRepository.findById(3L)).thenReturn(Optional.of(custom));
+
+        assertSame(custom, referenceDataCacheService.findGrocery(3L).orElseThrow());
+        assertSame(custom, referenceDataCacheService.findGrocery(3L).orElseThrow());
+        assertTrue(referenceDataCacheService.findGrocery(4L).isEmpty());
+
+        verify(groceryRepository, times(1)).findById(3L);
+        verify(groceryRepository, times(1)).findAllWithCategories();
+        assertEquals(3, stats("groceries").getSize());
+    }
+
+    @Test
+    void onGroceriesChanged_ShouldReplaceCachedGrocery() {
+        referenceDataCacheService.findGrocery(1L);
+        Grocery renamed = Grocery.builder().id(1L).name("Geitmelk, langtidsholdbar").build();
+
+        referenceDataCacheService.onGroceriesChanged(GroceriesChangedEvent.saved(renamed));
+
+        assertSame(renamed, referenceDataCacheService.findGrocery(1L).orElseThrow());
+        verify(groceryRepository, times(1)).findAllWithCategories();
+    }
+
+    @Test
+    void onGroceriesChanged_ShouldLoadAgainOnNextLookup_WhenCatalogIsImported() {
+        assertEquals(2, referenceDataCacheService.getUnits().size());
+        assertEquals("dl", referenceDataCacheService.findUnit(2L).orElseThrow().getName());
+
+        referenceDataCacheService.onGroceriesChanged(GroceriesChangedEvent.imported());
+        referenceDataCacheService.getUnits();
+
+        verify(unitRepository, times(2)).findAll();
+        verify(unitRepository, never()).findById(anyLong());
+        assertEquals(2, stats("units").getLoads());
+    }
+
+    private ReferenceDataCacheStatsDTO stats(String name) {
+        return referenceDataCacheService.getStats().stream()
+                .filter(stats -> stats.getName().equals(name))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,86 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.exceptions.UnauthorizedException;
+import ntnu.idatt2106.backend.exceptions.UserNotFoundException;
+import ntnu.idatt2106.backend.model.dto.FridgeMembershipDTO;
+import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.repository.RefrigeratorUserRepository;
+import ntnu.idatt2106.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class RefrigeratorMembershipServiceTest {
+
+    private static final String EMAIL = "user@test.com";
+
+    @Mock
+    private RefrigeratorUserRepository refrigeratorUserRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private RefrigeratorMembershipService refrigeratorMembershipService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(refrigeratorUserRepository.findFridgeMembershipsByUserEmail(EMAIL)).thenReturn(List.of(
+                new FridgeMembershipDTO(1L, FridgeRole.SUPERUSER),
+                new FridgeMembershipDTO(2L, FridgeRole.USER)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void getFridgeRole_ShouldLoadMembershipsOncePerRequest() throws Exception {
+        assertEquals(FridgeRole.SUPERUSER, refrigeratorMembershipService.getFridgeRole(1L, EMAIL));
+        assertEquals(FridgeRole.USER, refrigeratorMembershipService.getFridgeRole(2L, EMAIL));
+        assertEquals(FridgeRole.SUPERUSER, refrigeratorMembershipService.getFridgeRole(1L, EMAIL));
+
+        verify(refrigeratorUserRepository, times(1)).findFridgeMembershipsByUserEmail(EMAIL);
+    }
+
+    @Test
+    void getFridgeRole_ShouldReload_AfterInvalidate() throws Exception {
+        refrigeratorMembershipService.getFridgeRole(1L, EMAIL);
+        when(refrigeratorUserRepository.findFridgeMembershipsByUserEmail(EMAIL)).thenReturn(List.of(
+                new FridgeMembershipDTO(1L, FridgeRole.USER)));
+
+        refrigeratorMembershipService.invalidate();
+
+        assertEquals(FridgeRole.USER, refrigeratorMembershipService.getFridgeRole(1L, EMAIL));
+        verify(refrigeratorUserRepository, times(2)).findFridgeMembershipsByUserEmail(EMAIL);
+    }
+
+    @Test
+    void getFridgeRole_ShouldThrowUnauthorized_WhenNotMember() {
+        when(userRepository.existsByEmail(EMAIL)).thenReturn(true);
+
+        assertThrows(UnauthorizedException.class, () -> refrigeratorMembershipService.getFridgeRole(3L, EMAIL));
+    }
+
+    @Test
+    void getFridgeRole_ShouldThrowUserNotFound_WhenUserDoesNotExist() {
+        when(userRepository.existsByEmail("unknown@test.com")).thenReturn(false);
+
+        assertThrows(UserNotFoundException.class, () -> refrigeratorMembershipService.getFridgeRole(1L, "unknown@test.com"));
+    }
+}
@@ -66,6 +66,12 @@ public class RefrigeratorServiceTest {
     @Mock
     private RefrigeratorUserRepository refrigeratorUserRepository;
 
+    @Mock
+    private RefrigeratorMembershipService refrigeratorMembershipService;
+
+    @Mock
+    private NotificationService notificationService;
+
     @InjectMocks
     private RefrigeratorService refrigeratorService;
 
@@ -179,7 +185,7 @@ public class RefrigeratorServiceTest {
 
     @Test
     @DisplayName("Test adding a member to a refrigerator")
-    public void testAddMemberToRefrigerator() {
+    public void testAddMemberToRefrigerator() throws UserNotFoundException, UnauthorizedException {
         // Arrange
         User newUser = new User();
         newUser.setId("id");
@@ -200,6 +206,7 @@ public class RefrigeratorServiceTest {
         when(userRepository.findByEmail(user.getUsername())).thenReturn(Optional.of(user));
         when(userRepository.findByEmail(newUser.getUsername())).thenReturn(Optional.of(newUser));
         when(refrigeratorUserRepository.findByUserAndRefrigerator(user, refrigerator)).thenReturn(Optional.of(ru));
+        when(refrigeratorMembershipService.getFridgeRole(refrigerator.getId(), user.getUsername())).thenReturn(FridgeRole.SUPERUSER);
 
         //Act
         Assertions.assertDoesNotThrow(() -> refrigeratorService.addMember(request1, request));
@@ -239,6 +246,7 @@ public class RefrigeratorServiceTest {
         when(refrigeratorUserRepository.save(any(RefrigeratorUser.class))).thenReturn(refrigeratorUser);
         when(refrigeratorRepository.findById(refrigerator.getId())).thenReturn(Optional.of(refrigerator));
         when(refrigeratorUserRepository.findByUserAndRefrigerator(superUser, refrigerator)).thenReturn(Optional.of(refrigeratorSuper));
+        when(refrigeratorMembershipService.getFridgeRole(refrigerator.getId(), superUser.getUsername())).thenReturn(FridgeRole.SUPERUSER);
         when(refrigeratorUserRepository.findByUserAndRefrigerator(user,refrigerator)).thenReturn(Optional.of(refrigeratorUser));
 
         FridgeRole newFridgeRole = FridgeRole.SUPERUSER;
@@ -288,6 +296,7 @@ public class RefrigeratorServiceTest {
         when(refrigeratorRepository.findById(refrigerator.getId())).thenReturn(Optional.of(refrigerator));
         when(refrigeratorUserRepository.findByUser_IdAndRefrigerator_Id(superUser.getId(), refrigerator.getId())).thenReturn(Optional.of(refrigeratorSuper));
         when(refrigeratorUserRepository.findByUserAndRefrigerator(user,refrigerator)).thenReturn(Optional.of(refrigeratorUser));
+        when(refrigeratorMembershipService.getFridgeRole(refrigerator.getId(), user.getUsername())).thenReturn(FridgeRole.USER);
 
         FridgeRole newFridgeRole = FridgeRole.SUPERUSER;
 
@@ -347,6 +356,8 @@ public class RefrigeratorServiceTest {
         when(userRepository.findByEmail(user.getUsername())).thenReturn(Optional.of(user));
         when(refrigeratorRepository.findById(refrigerator.getId())).thenReturn(Optional.of(refrigerator));
         when(refrigeratorUserRepository.findByUserAndRefrigerator(user,refrigerator)).thenReturn(Optional.empty());
+        when(refrigeratorMembershipService.getFridgeRole(refrigerator.getId(), user.getUsername()))
+                .thenThrow(new UnauthorizedException("User not member of refrigerator"));
         when(refrigeratorService.extractEmail(request)).thenReturn(user.getUsername());
 
         FridgeRole newFridgeRole = FridgeRole.SUPERUSER;
@@ -562,6 +573,7 @@ public class RefrigeratorServiceTest {
         refrigeratorService.forceDeleteRefrigerator(refrigerator.getId(), request);
 
         // Assert
+        Mockito.verify(notificationService, times(1)).deleteNotificationsByRefrigeratorId(refrigerator.getId());
         Mockito.verify(refrigeratorRepository, times(1)).deleteById(refrigerator.getId());
     }
 
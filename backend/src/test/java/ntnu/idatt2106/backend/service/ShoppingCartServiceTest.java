@@ -5,9 +5,11 @@ import ntnu.idatt2106.backend.model.*;
 import ntnu.idatt2106.backend.model.category.Category;
 import ntnu.idatt2106.backend.model.dto.CreateRefrigeratorGroceryDTO;
 import ntnu.idatt2106.backend.model.dto.UnitDTO;
+import ntnu.idatt2106.backend.model.dto.shoppingCartElement.CheckoutSummaryDTO;
 import ntnu.idatt2106.backend.model.dto.shoppingCartElement.ShoppingCartElementDTO;
 import ntnu.idatt2106.backend.model.dto.shoppingListElement.ShoppingListElementDTO;
 import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.model.event.RefrigeratorGroceriesChangedEvent;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.GroceryShoppingCart;
 import ntnu.idatt2106.backend.model.grocery.GroceryShoppingList;
@@ -15,9 +17,9 @@ import ntnu.idatt2106.backend.model.grocery.RefrigeratorShoppingList;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryListRequest;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryRequest;
 import ntnu.idatt2106.backend.repository.GroceryShoppingCartRepository;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
 import ntnu.idatt2106.backend.repository.ShoppingCartRepository;
 import ntnu.idatt2106.backend.repository.ShoppingListRepository;
-import ntnu.idatt2106.backend.repository.UnitRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -26,15 +28,19 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockHttpServletRequest;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class ShoppingCartServiceTest {
 
@@ -50,7 +56,11 @@ public class ShoppingCartServiceTest {
     private ShoppingCartService shoppingCartService;
     private MockHttpServletRequest httpRequest;
     @Mock
-    private UnitRepository unitRepository;
+    private ReferenceDataCacheService referenceDataCacheService;
+    @Mock
+    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @BeforeEach
     void setup() {
@@ -201,7 +211,7 @@ public class ShoppingCartServiceTest {
         when(groceryShoppingCartRepository.findByGroceryIdAndShoppingCartId(grocery1.getId(), shoppingCart.getId())).thenReturn(Optional.empty());
         when(groceryService.getFridgeRole(shoppingList.getRefrigerator(), httpRequest)).thenReturn(FridgeRole.SUPERUSER);
         when(groceryShoppingCartRepository.save(groceryShoppingCartItem)).thenReturn(groceryShoppingCartItem);
-        when(unitRepository.findById(anyLong())).thenReturn(Optional.ofNullable(Unit.builder().id(1L).name("dl").build()));
+        when(referenceDataCacheService.findUnit(anyLong())).thenReturn(Optional.ofNullable(Unit.builder().id(1L).name("dl").build()));
         assertDoesNotThrow(() -> {
             shoppingCartService.saveGrocery(saveGroceryRequest, httpRequest);
         });
@@ -392,4 +402,84 @@ public class ShoppingCartServiceTest {
 
         assertDoesNotThrow(() -> shoppingCartService.transferGroceryToRefrigerator(groceryListId, httpRequest, new CreateRefrigeratorGroceryDTO()));
     }
+
+    private List<GroceryShoppingCart> createShoppingCartItems(Refrigerator refrigerator, int count) {
+        ShoppingList shoppingList = ShoppingList.builder()
+                .id(1L)
+                .refrigerator(refrigerator)
+                .build();
+        ShoppingCart shoppingCart = ShoppingCart.builder()
+                .id(1L)
+                .shoppingList(shoppingList)
+                .build();
+        List<GroceryShoppingCart> items = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            items.add(GroceryShoppingCart.builder()
+                    .id(i)
+                    .grocery(Grocery.builder().id(10L + i).name("Grocery " + i).groceryExpiryDays(i).build())
+                    .shoppingCart(shoppingCart)
+                    .quantity(i)
+                    .build());
+        }
+        return items;
+    }
+
+    @Test
+    @DisplayName("Possible to transferAllGroceriesToRefrigerator with one save and one delete for the whole cart")
+    void possible_to_transferAllGroceriesToRefrigerator_with_one_save_and_one_delete_for_the_whole_cart() throws Exception {
+        Refrigerator refrigerator = Refrigerator.builder().id(1L).name("test").build();
+        List<GroceryShoppingCart> items = createShoppingCartItems(refrigerator, 3);
+        Unit unit = Unit.builder().id(1L).name("stk").weight(100).build();
+        SaveGroceryRequest[] request = items.stream()
+                .map(item -> new SaveGroceryRequest(item.getId(), item.getQuantity(), new UnitDTO(unit), -1))
+                .toArray(SaveGroceryRequest[]::new);
+
+        when(groceryShoppingCartRepository.findAllWithRefrigeratorByIdIn(anyCollection())).thenReturn(items);
+        when(groceryService.getFridgeRole(refrigerator, httpRequest)).thenReturn(FridgeRole.SUPERUSER);
+        when(referenceDataCacheService.findUnit(unit.getId())).thenReturn(Optional.of(unit));
+
+        CheckoutSummaryDTO summary = shoppingCartService.transferAllGroceriesToRefrigerator(request, httpRequest);
+
+        assertEquals(3, summary.getTransferredItems());
+        assertEquals(6, summary.getTotalQuantity());
+        assertEquals(List.of(1L), summary.getRefrigeratorIds());
+        assertEquals(List.of(11L, 12L, 13L), summary.getGroceryIds());
+        verify(groceryService, times(1)).getFridgeRole(refrigerator, httpRequest);
+        verify(refrigeratorGroceryRepository, times(1)).saveAll(anyCollection());
+        verify(groceryShoppingCartRepository, times(1)).deleteAllByIdInBatch(anyCollection());
+        verify(groceryShoppingCartRepository, never()).findById(anyLong());
+        verify(eventPublisher, times(1)).publishEvent(argThat((RefrigeratorGroceriesChangedEvent event) ->
+                event.getRefrigeratorId() == 1L && event.getGroceryIds().equals(Set.of(11L, 12L, 13L))));
+    }
+
+    @Test
+    @DisplayName("Throws transferAllGroceriesToRefrigerator UnauthorizedException when the user is not superuser")
+    void throws_transferAllGroceriesToRefrigerator_UnauthorizedException_when_the_user_is_not_superuser() throws Exception {
+        Refrigerator refrigerator = Refrigerator.builder().id(1L).name("test").build();
+        List<GroceryShoppingCart> items = createShoppingCartItems(refrigerator, 2);
+        SaveGroceryRequest[] request = items.stream()
+                .map(item -> new SaveGroceryRequest(item.getId(), item.getQuantity(), null, -1))
+                .toArray(SaveGroceryRequest[]::new);
+
+        when(groceryShoppingCartRepository.findAllWithRefrigeratorByIdIn(anyCollection())).thenReturn(items);
+        when(groceryService.getFridgeRole(refrigerator, httpRequest)).thenReturn(FridgeRole.USER);
+
+        assertThrows(UnauthorizedException.class, () -> shoppingCartService.transferAllGroceriesToRefrigerator(request, httpRequest));
+        verify(refrigeratorGroceryRepository, never()).saveAll(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Throws transferAllGroceriesToRefrigerator NoGroceriesFound when a shopping cart item does not exist")
+    void throws_transferAllGroceriesToRefrigerator_NoGroceriesFound_when_a_shopping_cart_item_does_not_exist() {
+        Refrigerator refrigerator = Refrigerator.builder().id(1L).name("test").build();
+        List<GroceryShoppingCart> items = createShoppingCartItems(refrigerator, 1);
+        SaveGroceryRequest[] request = {
+                new SaveGroceryRequest(1L, 1, null, -1),
+                new SaveGroceryRequest(99L, 1, null, -1)
+        };
+
+        when(groceryShoppingCartRepository.findAllWithRefrigeratorByIdIn(anyCollection())).thenReturn(items);
+
+        assertThrows(NoGroceriesFound.class, () -> shoppingCartService.transferAllGroceriesToRefrigerator(request, httpRequest));
+    }
 }
@@ -17,7 +17,6 @@ import ntnu.idatt2106.backend.model.requests.SaveGroceryRequest;
 import ntnu.idatt2106.backend.repository.GroceryShoppingListRepository;
 import ntnu.idatt2106.backend.repository.RefrigeratorShoppingListRepository;
 import ntnu.idatt2106.backend.repository.ShoppingListRepository;
-import ntnu.idatt2106.backend.repository.UnitRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -54,7 +53,7 @@ public class ShoppingListServiceTest {
     @Mock
     private ShoppingCartService shoppingCartService;
     @Mock
-    private UnitRepository unitRepository;
+    private ReferenceDataCacheService referenceDataCacheService;
 
     @InjectMocks
     private ShoppingListService shoppingListService;
@@ -442,7 +441,7 @@ public class ShoppingListServiceTest {
         when(groceryShoppingListRepository.findByGroceryIdAndShoppingListId(grocery1.getId(), shoppingList.getId())).thenReturn(Optional.empty());
         when(groceryService.getFridgeRole(shoppingList.getRefrigerator(), httpRequest)).thenReturn(FridgeRole.USER);
         when(groceryShoppingListRepository.save(groceryShoppingListItem)).thenReturn(groceryShoppingListItem);
-        when(unitRepository.findById(anyLong())).thenReturn(Optional.ofNullable(Unit.builder().id(1L).name("dl").build()));
+        when(referenceDataCacheService.findUnit(anyLong())).thenReturn(Optional.ofNullable(Unit.builder().id(1L).name("dl").build()));
 
         assertDoesNotThrow(() -> {
             shoppingListService.saveGrocery(saveGroceryRequest, httpRequest);
@@ -495,7 +494,7 @@ public class ShoppingListServiceTest {
         when(groceryShoppingListRepository.findByGroceryIdAndShoppingListId(grocery1.getId(), shoppingList.getId())).thenReturn(Optional.of(groceryShoppingListItem));
         when(groceryService.getFridgeRole(shoppingList.getRefrigerator(), httpRequest)).thenReturn(FridgeRole.USER);
         when(groceryShoppingListRepository.save(groceryShoppingListItem)).thenReturn(groceryShoppingListItem);
-        when(unitRepository.findById(any())).thenReturn(Optional.of(unit));
+        when(referenceDataCacheService.findUnit(anyLong())).thenReturn(Optional.of(unit));
 
         assertDoesNotThrow(() -> {
             shoppingListService.saveGrocery(saveGroceryRequest, httpRequest);
@@ -574,7 +573,7 @@ public class ShoppingListServiceTest {
         when(refrigeratorShoppingListRepository.findByGroceryIdAndShoppingListId(grocery1.getId(), shoppingList.getId())).thenReturn(Optional.empty());
         when(groceryService.getFridgeRole(shoppingList.getRefrigerator(), httpRequest)).thenReturn(FridgeRole.SUPERUSER);
         when(refrigeratorShoppingListRepository.save(refrigeratorShoppingList)).thenReturn(refrigeratorShoppingList);
-        when(unitRepository.findById(anyLong())).thenReturn(Optional.ofNullable(Unit.builder().id(1L).build()));
+        when(referenceDataCacheService.findUnit(anyLong())).thenReturn(Optional.ofNullable(Unit.builder().id(1L).build()));
 
         assertDoesNotThrow(() -> {
             shoppingListService.saveGroceryToSuggestionForRefrigerator(grocery1.getId(), shoppingList.getRefrigerator().getId(), refrigeratorShoppingList.getUnit().getId(), refrigeratorShoppingList.getQuantity(), httpRequest);
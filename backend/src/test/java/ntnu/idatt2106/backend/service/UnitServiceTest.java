@@ -3,7 +3,6 @@ package ntnu.idatt2106.backend.service;
 import jakarta.persistence.EntityNotFoundException;
 import ntnu.idatt2106.backend.model.Unit;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
-import ntnu.idatt2106.backend.repository.UnitRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -19,13 +18,13 @@ import static org.mockito.Mockito.when;
 class UnitServiceTest {
 
     @Mock
-    private UnitRepository unitRepository;
+    private ReferenceDataCacheService referenceDataCacheService;
 
     private UnitService unitService;
 
     public UnitServiceTest() {
         MockitoAnnotations.openMocks(this);
-        unitService = new UnitService(unitRepository);
+        unitService = new UnitService(referenceDataCacheService);
     }
 
     @Test
@@ -37,7 +36,7 @@ class UnitServiceTest {
         unit.setWeight(500);
         grocery.setUnit(unit);
         long nonExistingUnitId = 123L;
-        when(unitRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(referenceDataCacheService.findUnit(anyLong())).thenReturn(Optional.empty());
 
         // Act and Assert
         Assertions.assertThrows(EntityNotFoundException.class, () -> {
@@ -58,7 +57,7 @@ class UnitServiceTest {
         Unit newUnit = new Unit();
         newUnit.setId(1L);
         newUnit.setWeight(250);
-        when(unitRepository.findById(1L)).thenReturn(Optional.ofNullable(newUnit));
+        when(referenceDataCacheService.findUnit(1L)).thenReturn(Optional.ofNullable(newUnit));
 
 
         RefrigeratorGrocery convertedGrocery = unitService.convertGrocery(grocery, existingUnitId);
@@ -0,0 +1,51 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserDetailsCacheService userDetailsCacheService;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        userService = new UserService(userRepository, userDetailsCacheService);
+    }
+
+    @Test
+    void delete_ShouldRemoveDeletedUserFromCache() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().email("test@test.com").build()));
+
+        userService.delete(1L);
+
+        InOrder inOrder = inOrder(userRepository, userDetailsCacheService);
+        inOrder.verify(userRepository).deleteById(1L);
+        inOrder.verify(userDetailsCacheService).evict("test@test.com");
+    }
+
+    @Test
+    void delete_ShouldNotTouchCache_WhenUserDoesNotExist() {
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        userService.delete(1L);
+
+        verify(userDetailsCacheService, never()).evict(any());
+    }
+}